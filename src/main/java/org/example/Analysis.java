@@ -0,0 +1,184 @@
+package org.example;
+
+import com.google.cloud.language.v1.AnalyzeSyntaxResponse;
+import com.google.cloud.language.v1.DependencyEdge;
+import com.google.cloud.language.v1.PartOfSpeech;
+import com.google.cloud.language.v1.Sentence;
+import com.google.cloud.language.v1.TextSpan;
+import com.google.cloud.language.v1.Token;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * The result of the one syntax analysis done for an input: its sentences and their
+ * tokens with part of speech, morphology and dependency edges, as returned by Google.
+ * <p>
+ * The generator takes its word buckets from here and the tree view parses the same
+ * tokens, so a text is tokenized and tagged exactly once whichever of the two asks
+ * first. The parser keeps the trees it built for an analysis as long as the analysis
+ * is in use, so showing the tree again costs nothing.
+ * <p>
+ * The words are bucketed once, as spans into the text; every generation gets a copy
+ * of those spans rather than walking the tokens again.
+ * <p>
+ * Google's tokens are not kept, as cached analyses would hold hundreds of bytes of
+ * messages per word. Each token is kept as a span into the text, its packed part of
+ * speech and its dependency edge, a few ints in all. {@link #getTokens()} rebuilds
+ * the tokens from them, without their lemmas, for the tree view.
+ */
+public class Analysis {
+    // Bits per morphology field in a packed part of speech; larger values are stored as unknown
+    private static final int POS_BITS = 5;
+
+    private final String text;
+    private final List<String> sentences = new ArrayList<>();
+    // Index of the first token of each sentence, plus the token count at the end
+    private final int[] starts;
+    // Words by placeholder, copied for each generation
+    private final WordBuckets buckets;
+    // Offset and length of each token's word in the text, in UTF-16 code units
+    private final int[] offsets;
+    private final int[] lengths;
+    // Words of the tokens whose offset does not point at them in the text; null if there are none
+    private String[] copied;
+    private final long[] partsOfSpeech;
+    private final int[] heads;
+    private final int[] labels;
+
+    /**
+     * @param text      the analyzed text
+     * @param response  Google's syntax analysis of the text
+     */
+    public Analysis(String text, AnalyzeSyntaxResponse response) {
+        this.text = text;
+        List<Token> tokens = response.getTokensList();
+        int n = tokens.size();
+        offsets = new int[n];
+        lengths = new int[n];
+        partsOfSpeech = new long[n];
+        heads = new int[n];
+        labels = new int[n];
+        for (int i = 0; i < n; i++) {
+            Token token = tokens.get(i);
+            TextSpan span = token.getText();
+            offsets[i] = span.getBeginOffset();
+            lengths[i] = WordBuckets.spanLength(text, offsets[i], span.getContentBytes());
+            if (lengths[i] < 0) {
+                if (copied == null) copied = new String[n];
+                copied[i] = span.getContent();
+            }
+            partsOfSpeech[i] = pack(token.getPartOfSpeech());
+            heads[i] = token.getDependencyEdge().getHeadTokenIndex();
+            labels[i] = token.getDependencyEdge().getLabelValue();
+        }
+
+        // Tokens and sentences are both in text order; a token belongs to the
+        // last sentence starting at or before it
+        List<Sentence> split = response.getSentencesList();
+        starts = new int[split.size() + 1];
+        int t = 0;
+        for (int s = 0; s < split.size(); s++) {
+            sentences.add(split.get(s).getText().getContent());
+            starts[s] = t;
+            int end = s + 1 < split.size() ? split.get(s + 1).getText().getBeginOffset() : Integer.MAX_VALUE;
+            while (t < n && offsets[t] < end) t++;
+        }
+        starts[split.size()] = n;
+        buckets = WordBuckets.fromTokens(text, tokens);
+    }
+
+    private static long pack(PartOfSpeech pos) {
+        int[] fields = {pos.getTagValue(), pos.getAspectValue(), pos.getCaseValue(), pos.getFormValue(),
+                pos.getGenderValue(), pos.getMoodValue(), pos.getNumberValue(), pos.getPersonValue(),
+                pos.getProperValue(), pos.getReciprocityValue(), pos.getTenseValue(), pos.getVoiceValue()};
+        long packed = 0;
+        for (int i = 0; i < fields.length; i++) {
+            int value = fields[i] >>> POS_BITS == 0 ? fields[i] : 0;
+            packed |= (long) value << (i * POS_BITS);
+        }
+        return packed;
+    }
+
+    private static PartOfSpeech unpack(long packed) {
+        int mask = (1 << POS_BITS) - 1;
+        int[] f = new int[12];
+        for (int i = 0; i < f.length; i++) f[i] = (int) (packed >>> (i * POS_BITS)) & mask;
+        return PartOfSpeech.newBuilder()
+                .setTagValue(f[0]).setAspectValue(f[1]).setCaseValue(f[2]).setFormValue(f[3])
+                .setGenderValue(f[4]).setMoodValue(f[5]).setNumberValue(f[6]).setPersonValue(f[7])
+                .setProperValue(f[8]).setReciprocityValue(f[9]).setTenseValue(f[10]).setVoiceValue(f[11])
+                .build();
+    }
+
+    private Token token(int i) {
+        String word = copied != null && copied[i] != null ? copied[i]
+                : text.substring(offsets[i], offsets[i] + lengths[i]);
+        return Token.newBuilder()
+                .setText(TextSpan.newBuilder().setContent(word).setBeginOffset(offsets[i]))
+                .setPartOfSpeech(unpack(partsOfSpeech[i]))
+                .setDependencyEdge(DependencyEdge.newBuilder().setHeadTokenIndex(heads[i]).setLabelValue(labels[i]))
+                .build();
+    }
+
+    /** @return the analyzed text */
+    public String getText() { return text; }
+
+    /** @return every token of the text, in order, each rebuilt when it is read */
+    public List<Token> getTokens() { return new Tokens(0, offsets.length); }
+
+    /** @return the text of every sentence, in order */
+    public List<String> getSentences() { return sentences; }
+
+    /**
+     * @param sentence index of the sentence
+     * @return the tokens of that sentence
+     */
+    public List<Token> getTokens(int sentence) {
+        return new Tokens(starts[sentence], starts[sentence + 1]);
+    }
+
+    /**
+     * @param sentence index of the sentence
+     * @return index in {@link #getTokens()} of the sentence's first token,
+     *         the base of its tokens' dependency head indexes
+     */
+    public int getFirstToken(int sentence) {
+        return starts[sentence];
+    }
+
+    /**
+     * Groups the words by placeholder. Buckets are shuffled by the generator,
+     * so every call returns new ones.
+     *
+     * @return the text's words, bucketed by part of speech
+     */
+    public WordBuckets newBuckets() {
+        return buckets.copy();
+    }
+
+    /** Tokens from a range of the arrays, rebuilt on every read. */
+    private final class Tokens extends AbstractList<Token> implements RandomAccess {
+        private final int from;
+        private final int to;
+
+        Tokens(int from, int to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        public Token get(int index) {
+            if (index < 0 || index >= to - from) throw new IndexOutOfBoundsException(index);
+            return token(from + index);
+        }
+
+        @Override
+        public int size() {
+            return to - from;
+        }
+    }
+
+}
@@ -1,17 +1,63 @@
 package org.example;
 import org.example.words.*;
-import org.example.SentenceStructures.SentenceStructures;
 import org.example.SentenceStructures.SentenceStructureInfo;
-import com.google.cloud.language.v1.*;
-import com.google.cloud.language.v1beta2.ClassificationCategory;
-import com.google.cloud.language.v1beta2.ModerateTextResponse;
+import com.google.cloud.language.v1.AnalyzeSyntaxResponse;
 import com.google.api.gax.core.FixedCredentialsProvider;
-import com.google.cloud.language.v1.LanguageServiceSettings;
+import java.io.IOException;
+import java.io.InterruptedIOException;
 import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.function.Function;
+import java.util.random.RandomGenerator;
 import javafx.application.Application;
 
 public class App {
 
+    /** Number of analyzed inputs kept by default. */
+    public static final int ANALYSIS_CACHE_SIZE = 64;
+
+    /** Longest text sent in one syntax analysis call by default; longer inputs are split by sentence. */
+    public static final int ANALYSIS_CHUNK_CHARS = 20_000;
+
+    /** Chunks of one input analyzed at the same time. */
+    public static final int ANALYSIS_CONCURRENCY = 8;
+
+    /** Google calls all the workloads of an app send at the same time. */
+    public static final int API_SLOTS = 64;
+
+    private static final int CORES = Runtime.getRuntime().availableProcessors();
+
+    // Dictionaries and templates, loaded on first use and shared by all requests
+    private Lexicon lexicon;
+
+    // Analyses of recent inputs, shared by generation and the tree view;
+    // access-ordered, so the eldest entry is the least recently used one
+    private final Map<String, Analysis> analyses = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Analysis> eldest) {
+            return size() > ANALYSIS_CACHE_SIZE;
+        }
+    };
+
+    // Concurrent requests for the same input or sentence share one API call, whichever
+    // facade or scheduled view they came through: the result depends on the text alone
+    private final SingleFlight<String, Analysis> analysisCalls = new SingleFlight<>();
+    private final SingleFlight<String, Double> moderationCalls = new SingleFlight<>();
+
+    // Shared by every workload of this app, so batch jobs queue behind interactive requests:
+    // rendering gets a slot per core, Google calls a fixed number, some kept for interactive work
+    private PriorityScheduler renderScheduler = new PriorityScheduler(CORES, CORES > 1 ? 1 : 0, 4, 1);
+    private final PriorityScheduler apiScheduler = new PriorityScheduler(API_SLOTS, API_SLOTS / 8, 4, 1);
+
+    // Runs the generation steps on shared stages, if set; otherwise they run on the caller's thread
+    private GenerationPipeline pipeline;
+
+    private int analysisChunkChars = ANALYSIS_CHUNK_CHARS;
+
     /**
      * Holds a generated sentence along with its toxicity score.
      */
@@ -37,6 +83,33 @@ public class App {
 
         /** @return the toxicity score */
         public double getToxicity() { return toxicity; }
+
+        /** @return whether the sentence went through moderation (toxicity is NaN otherwise) */
+        public boolean isModerated() { return !Double.isNaN(toxicity); }
+    }
+
+    /**
+     * How generated sentences are moderated.
+     */
+    public enum Moderation {
+        /** Every sentence is moderated; a failed call fails the request. */
+        ON,
+        /** Sentences are not moderated; their toxicity is NaN. */
+        OFF,
+        /** Every sentence is moderated; a failed call leaves that sentence's toxicity NaN. */
+        BEST_EFFORT
+    }
+
+    /**
+     * Receives the results of a generation one sentence at a time.
+     */
+    @FunctionalInterface
+    public interface ResultListener {
+        /**
+         * @param result the next sentence, in generation order
+         * @throws IOException if the result cannot be delivered; the generation then stops
+         */
+        void onResult(SentenceResult result) throws IOException;
     }
 
     /**
@@ -48,158 +121,435 @@ public class App {
      * @throws Exception if input is invalid or API calls fail
      */
     public List<SentenceResult> generate(String text) throws Exception {
-        // Validate input
-        if (text == null || text.trim().isEmpty() || !text.matches(".*[a-zA-Z]+.*")) {
-            throw new IllegalArgumentException("Invalid input: please enter a real sentence.");
-        }
+        return generate(text, WordUtil.RandomSource());
+    }
+
+    /**
+     * Same as {@link #generate(String)}, but with a fixed seed so that shuffling,
+     * template filling and fallback words are reproducible between runs.
+     *
+     * @param text  the source text to analyze and remix
+     * @param seed  seed for the request's random source
+     * @return      list of SentenceResult with generated sentences and scores
+     * @throws Exception if input is invalid or API calls fail
+     */
+    public List<SentenceResult> generate(String text, long seed) throws Exception {
+        return generate(text, WordUtil.RandomSource(seed));
+    }
+
+    /**
+     * Same as {@link #generate(String)}, drawing all randomness from the given source.
+     * Each request should own its generator, so parallel generations never share state.
+     *
+     * @param text  the source text to analyze and remix
+     * @param rng   the request's random source
+     * @return      list of SentenceResult with generated sentences and scores
+     * @throws Exception if input is invalid or API calls fail
+     */
+    public List<SentenceResult> generate(String text, RandomGenerator rng) throws Exception {
+        String normalized = validate(text);
         // Load credentials provider singleton
         FixedCredentialsProvider credsProvider = org.example.GoogleCredentialsProvider.getProvider();
 
-        // Initialize word lists and structures
-        Nouns nounList = new Nouns();
-        Verbs verbList = new Verbs();
-        Adjectives adjectiveList = new Adjectives();
-        Pronouns pronounList = new Pronouns();
-        Articles articleList = new Articles();
-        Adverbs adverbList = new Adverbs();
-        SentenceStructures sentenceStructures = new SentenceStructures();
-
-        // Syntax analysis via Google Cloud Language API
-        Document doc = Document.newBuilder()
-                .setContent(text)
-                .setType(Document.Type.PLAIN_TEXT)
-                .build();
-
-        LanguageServiceSettings v1settings = LanguageServiceSettings.newBuilder()
-                .setCredentialsProvider(credsProvider)
-                .build();
-        AnalyzeSyntaxResponse syntaxResponse;
-        try (LanguageServiceClient language = LanguageServiceClient.create(v1settings)) {
-            syntaxResponse = language.analyzeSyntax(
-                    AnalyzeSyntaxRequest.newBuilder()
-                            .setDocument(Document.newBuilder()
-                                    .setContent(text)
-                                    .setType(Document.Type.PLAIN_TEXT)
-                                    .build())
-                            .setEncodingType(EncodingType.UTF8)
-                            .build()
-            );
-        }
-
-        // Collect tokens by part of speech
-        List<String> nouns      = new ArrayList<>();
-        List<String> verbs      = new ArrayList<>();
-        List<String> adjectives = new ArrayList<>();
-        List<String> adverbs    = new ArrayList<>();
-        List<String> articles   = new ArrayList<>();
-        List<String> pronouns   = new ArrayList<>();
-
-        for (Token token : syntaxResponse.getTokensList()) {
-            String w = token.getText().getContent();
-            switch (token.getPartOfSpeech().getTag()) {
-                case NOUN -> nouns.add(w);
-                case VERB -> verbs.add(w);
-                case ADJ  -> adjectives.add(w);
-                case ADV  -> adverbs.add(w);
-                case DET  -> articles.add(w);
-                case PRON -> pronouns.add(w);
-                default   -> {}
+        try (LanguageApi api = new LanguageApi(credsProvider)) {
+            return generate(schedule(api, PriorityScheduler.Priority.INTERACTIVE), normalized, rng, Moderation.ON);
+        }
+    }
+
+    /**
+     * Same as {@link #generate(String, RandomGenerator)}, over an existing Language API
+     * facade, so that callers serving many requests reuse its clients.
+     *
+     * @param api         the Language API facade to call
+     * @param text        the source text to analyze and remix
+     * @param rng         the request's random source
+     * @param moderation  whether and how the sentences are moderated
+     * @return            list of SentenceResult with generated sentences and scores
+     * @throws IOException if an API client cannot be created
+     * @throws IllegalArgumentException if the input is invalid
+     */
+    public List<SentenceResult> generate(LanguageClient api, String text, RandomGenerator rng,
+                                         Moderation moderation) throws IOException {
+        List<SentenceResult> results = new ArrayList<>();
+        generate(api, text, rng, moderation, results::add);
+        return results;
+    }
+
+    /**
+     * Same as {@link #generate(LanguageClient, String, RandomGenerator, Moderation)}, but hands
+     * each sentence to the listener as soon as it is moderated, instead of returning them all
+     * at the end. If the listener fails, the sentences left are not moderated.
+     * <p>
+     * With a {@link GenerationPipeline} set, the steps run on its stages and the listener
+     * is called from its moderation workers; otherwise they all run on this thread.
+     *
+     * @param api         the Language API facade to call
+     * @param text        the source text to analyze and remix
+     * @param rng         the request's random source
+     * @param moderation  whether and how the sentences are moderated
+     * @param listener    receives the sentences in order
+     * @return            the number of sentences generated
+     * @throws IOException if an API call or the listener fails
+     * @throws IllegalArgumentException if the input is invalid
+     */
+    public int generate(LanguageClient api, String text, RandomGenerator rng, Moderation moderation,
+                        ResultListener listener) throws IOException {
+        if (pipeline != null) return pipeline.generate(api, text, rng, moderation, listener);
+        String normalized = validate(text);
+
+        // Syntax analysis via Google Cloud Language API, unless the input was analyzed already
+        WordBuckets buckets = analyzeNormalized(api, normalized).newBuckets();
+
+        // Build nonsense sentences using templates
+        List<SentenceResult> drafts = renderScheduler == null ? compose(buckets, rng)
+                : renderScheduler.run(ScheduledLanguageApi.priorityOf(api), () -> compose(buckets, rng));
+
+        // Moderate each sentence and record toxicity
+        for (SentenceResult draft : drafts) {
+            listener.onResult(moderate(api, draft, moderation));
+        }
+        return drafts.size();
+    }
+
+    /**
+     * Moderates a rendered sentence as the request asks.
+     *
+     * @param api         the Language API facade to call
+     * @param draft       the unmoderated sentence
+     * @param moderation  whether and how the sentence is moderated
+     * @return            the sentence with its toxicity, NaN if not moderated
+     * @throws IOException if the call fails and moderation is {@link Moderation#ON}, or if interrupted
+     */
+    SentenceResult moderate(LanguageClient api, SentenceResult draft, Moderation moderation) throws IOException {
+        if (moderation == Moderation.OFF) return draft;
+        double tox;
+        try {
+            tox = moderate(api, draft.getText());
+        } catch (InterruptedIOException e) {
+            throw e;
+        } catch (IOException | RuntimeException e) {
+            if (moderation == Moderation.ON) throw e;
+            tox = Double.NaN;
+        }
+        return new SentenceResult(draft.getStructure(), draft.getText(), tox);
+    }
+
+    /**
+     * Rejects input that cannot produce a sentence and normalizes the rest, in one
+     * pass over the text (see {@link TextSegmenter#normalizeLetters(String)}).
+     *
+     * @param text  the source text
+     * @return      the normalized text
+     * @throws IllegalArgumentException if the text is null, blank or has no letters
+     */
+    public static String validate(String text) {
+        String normalized = text == null ? null : TextSegmenter.normalizeLetters(text);
+        if (normalized == null) {
+            throw new IllegalArgumentException("Invalid input: please enter a real sentence.");
+        }
+        return normalized;
+    }
+
+    /**
+     * Analyzes the syntax of the text, or returns its analysis if it was done recently.
+     * The text is normalized first (see {@link TextSegmenter#normalize(String)}), and
+     * the analysis is of the normalized text. Texts longer than the chunk size are
+     * split between sentences, and the chunks are analyzed concurrently and merged.
+     *
+     * @param api   the Language API facade to call
+     * @param text  the source text
+     * @return      the input's sentences and tagged tokens
+     * @throws IOException if the API client cannot be created
+     */
+    public Analysis analyze(LanguageClient api, String text) throws IOException {
+        return analyzeNormalized(api, TextSegmenter.normalize(text));
+    }
+
+    /**
+     * Same as {@link #analyze(LanguageClient, String)}, for text normalized already,
+     * such as the result of {@link #validate(String)}.
+     */
+    Analysis analyzeNormalized(LanguageClient api, String normalized) throws IOException {
+        Analysis cached = cachedAnalysis(normalized);
+        if (cached != null) return cached;
+        // Callers asking for the same text meanwhile wait for this call
+        return analysisCalls.run(normalized, () -> {
+            AnalyzeSyntaxResponse syntaxResponse = analyzeSyntax(api, normalized);
+            Analysis analysis = new Analysis(normalized, syntaxResponse);
+            synchronized (analyses) {
+                analyses.put(normalized, analysis);
+            }
+            return analysis;
+        });
+    }
+
+    // One call for short texts; otherwise one per chunk, a few at a time, merged in order
+    private AnalyzeSyntaxResponse analyzeSyntax(LanguageClient api, String text) throws IOException {
+        int[] bounds = TextSegmenter.segment(text, analysisChunkChars);
+        if (bounds.length == 2) return api.analyzeSyntax(text);
+
+        Semaphore permits = new Semaphore(ANALYSIS_CONCURRENCY);
+        try (ExecutorService chunks = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<AnalyzeSyntaxResponse>> calls = new ArrayList<>();
+            for (int i = 0; i + 1 < bounds.length; i++) {
+                String chunk = text.substring(bounds[i], bounds[i + 1]);
+                calls.add(chunks.submit(() -> {
+                    permits.acquire();
+                    try {
+                        return api.analyzeSyntax(chunk);
+                    } finally {
+                        permits.release();
+                    }
+                }));
+            }
+            try {
+                List<AnalyzeSyntaxResponse> parts = new ArrayList<>(calls.size());
+                for (Future<AnalyzeSyntaxResponse> call : calls) parts.add(call.get());
+                return TextSegmenter.merge(parts, bounds);
+            } catch (InterruptedException e) {
+                chunks.shutdownNow();
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while analyzing");
+            } catch (ExecutionException e) {
+                // The other chunks are of no use any more
+                chunks.shutdownNow();
+                if (e.getCause() instanceof IOException cause) throw cause;
+                if (e.getCause() instanceof RuntimeException cause) throw cause;
+                throw new IOException(e.getCause());
             }
         }
+    }
+
+    /**
+     * Same as {@link #analyze(LanguageClient, String)}, with a client of its own.
+     * Used by the tree view, which may ask before any generation.
+     *
+     * @param text  the source text
+     * @return      the input's sentences and tagged tokens
+     * @throws IOException if the credentials or the API client cannot be loaded
+     * @throws IllegalArgumentException if the input is invalid
+     */
+    public Analysis analyze(String text) throws IOException {
+        String normalized = validate(text);
+        Analysis cached = cachedAnalysis(normalized);
+        if (cached != null) return cached;
+        try (LanguageApi api = new LanguageApi(org.example.GoogleCredentialsProvider.getProvider())) {
+            return analyzeNormalized(schedule(api, PriorityScheduler.Priority.INTERACTIVE), normalized);
+        }
+    }
+
+    /**
+     * Scores the toxicity of one sentence. Callers moderating the same sentence at
+     * the same time share one call, even through different facades.
+     *
+     * @param api       the Language API facade to call
+     * @param sentence  the sentence to moderate
+     * @return          the confidence of the "Toxic" category
+     * @throws IOException if the call fails
+     */
+    public double moderate(LanguageClient api, String sentence) throws IOException {
+        return moderationCalls.run(sentence, () -> api.moderate(sentence));
+    }
+
+    /**
+     * Shares the render workers between the interactive generations of this app and
+     * batch jobs rendering through the same scheduler. By default, the app has a
+     * scheduler with one slot per core.
+     *
+     * @param renderScheduler  admits rendering work, or null to render at once
+     */
+    public void setRenderScheduler(PriorityScheduler renderScheduler) { this.renderScheduler = renderScheduler; }
+
+    /** @return the scheduler admitting rendering work, or null */
+    public PriorityScheduler getRenderScheduler() { return renderScheduler; }
+
+    /** @return the scheduler admitting the Google calls of every workload of this app */
+    public PriorityScheduler getApiScheduler() { return apiScheduler; }
+
+    /**
+     * Wraps a client so that its calls queue for the app's Google call slots in the
+     * given class. Every entry point calls through such a view, so batch jobs and
+     * interactive requests of one app share the slots by weight.
+     *
+     * @param api       the client making the calls
+     * @param priority  the class of the calls made through the view
+     * @return          a view to pass to {@link #generate(LanguageClient, String, RandomGenerator, Moderation)}
+     */
+    public LanguageClient schedule(LanguageClient api, PriorityScheduler.Priority priority) {
+        return new ScheduledLanguageApi(api, apiScheduler, priority);
+    }
+
+    /**
+     * Runs the generations of this app on the stages of a started pipeline, shared by all
+     * requests, instead of on each caller's thread.
+     *
+     * @param pipeline  the stages to generate on, or null to generate on the caller's thread
+     */
+    public void setPipeline(GenerationPipeline pipeline) { this.pipeline = pipeline; }
+
+    /** @return the stages generations run on, or null */
+    public GenerationPipeline getPipeline() { return pipeline; }
+
+    /**
+     * @param chars  longest text sent in one syntax analysis call; longer inputs are
+     *               split between sentences and their chunks analyzed concurrently
+     */
+    public void setAnalysisChunkChars(int chars) {
+        if (chars < 2) throw new IllegalArgumentException("Chunks must hold at least two characters");
+        this.analysisChunkChars = chars;
+    }
+
+    /** @return the number of syntax analysis calls saved by sharing one in flight */
+    public long getAnalysisCallsSaved() { return analysisCalls.getSaved(); }
+
+    /** @return the number of moderation calls saved by sharing one in flight */
+    public long getModerationCallsSaved() { return moderationCalls.getSaved(); }
+
+    /**
+     * @param text  the source text
+     * @return      its analysis if it was done recently, otherwise null
+     */
+    public Analysis getCachedAnalysis(String text) {
+        return cachedAnalysis(TextSegmenter.normalize(text));
+    }
+
+    private Analysis cachedAnalysis(String normalized) {
+        synchronized (analyses) {
+            return analyses.get(normalized);
+        }
+    }
+
+    /**
+     * Builds as many sentences as needed to use every word in the buckets.
+     * The returned results are not moderated yet (toxicity is NaN).
+     *
+     * @param buckets the input's words; shuffled in place
+     * @param rng     the request's random source
+     * @return        the unmoderated sentences with their templates
+     */
+    public List<SentenceResult> compose(WordBuckets buckets, RandomGenerator rng) {
+        List<SentenceResult> drafts = new ArrayList<>();
+        for (SentencePlan plan : plan(buckets, rng)) {
+            drafts.add(new SentenceResult(plan.getTemplate(), plan.render(), Double.NaN));
+        }
+        return drafts;
+    }
+
+    /**
+     * Chooses the templates and words for a request without rendering them.
+     * Each round picks the template that uses the most remaining words; slots
+     * left over once a bucket runs out are filled from the dictionaries.
+     *
+     * @param buckets the input's words; shuffled in place
+     * @param rng     the request's random source
+     * @return        one plan per sentence to generate
+     */
+    public List<SentencePlan> plan(WordBuckets buckets, RandomGenerator rng) {
+        Lexicon lexicon = getLexicon();
+        String[] placeholders = WordBuckets.PLACEHOLDERS;
 
         // Shuffle lists to introduce variety
-        Collections.shuffle(nouns);
-        Collections.shuffle(verbs);
-        Collections.shuffle(adjectives);
-        Collections.shuffle(adverbs);
-        Collections.shuffle(articles);
-        Collections.shuffle(pronouns);
+        buckets.shuffle(rng);
 
-        // Build nonsense sentences using templates
-        List<String> finalSentences = new ArrayList<>();
-        List<String> usedStructures = new ArrayList<>();
-        int nIdx=0, vIdx=0, adjIdx=0, advIdx=0, artIdx=0, prIdx=0;
+        // Fallback words are drawn without replacement for the whole request
+        DistinctSampler[] fill = new DistinctSampler[placeholders.length];
+        for (int i = 0; i < placeholders.length; i++) {
+            fill[i] = lexicon.get(placeholders[i]).Distinct(rng);
+        }
 
-        while (nIdx < nouns.size() || vIdx < verbs.size() ||
-                adjIdx < adjectives.size() || advIdx < adverbs.size() ||
-                artIdx < articles.size()  || prIdx < pronouns.size()) {
+        List<SentencePlan> plans = new ArrayList<>();
+        int[] next = new int[placeholders.length];
 
+        while (hasRemaining(buckets, next)) {
             // Select template that uses the most available words
             SentenceStructureInfo bestTpl = null;
             int maxUsed = -1;
-            for (SentenceStructureInfo tpl : sentenceStructures.getStructures()) {
-                int used = Math.min(tpl.getCount("[noun]"), nouns.size()-nIdx)
-                        + Math.min(tpl.getCount("[verb]"), verbs.size()-vIdx)
-                        + Math.min(tpl.getCount("[adjective]"), adjectives.size()-adjIdx)
-                        + Math.min(tpl.getCount("[adverb]"), adverbs.size()-advIdx)
-                        + Math.min(tpl.getCount("[article]"), articles.size()-artIdx)
-                        + Math.min(tpl.getCount("[pronoun]"), pronouns.size()-prIdx);
+            for (SentenceStructureInfo tpl : lexicon.getStructures()) {
+                int used = 0;
+                for (int i = 0; i < placeholders.length; i++) {
+                    used += Math.min(tpl.getCount(placeholders[i]), buckets.get(placeholders[i]).size() - next[i]);
+                }
                 if (used > maxUsed) {
                     maxUsed = used;
                     bestTpl = tpl;
                 }
             }
             if (bestTpl == null) break;
-            usedStructures.add(bestTpl.getTemplate());
-            // Split the chosen template into tokens, then replace placeholders with actual words or random fallbacks
-            List<String> tokens = WordUtil.SentenceSplitter(bestTpl.getTemplate());
-            for (int i = 0; i < tokens.size(); i++) {
-                String typeTag = WordUtil.TypeCheck(tokens.get(i));
-                if (typeTag == null) continue;
-                switch (typeTag) {
-                    case "[noun]" -> tokens.set(i, WordUtil.TypeSubstitute(tokens.get(i), "[noun]",
-                            nIdx < nouns.size() ? nouns.get(nIdx++) : nounList.Random()));
-                    case "[verb]" -> tokens.set(i, WordUtil.TypeSubstitute(tokens.get(i), "[verb]",
-                            vIdx < verbs.size() ? verbs.get(vIdx++) : verbList.Random()));
-                    case "[adjective]" -> tokens.set(i, WordUtil.TypeSubstitute(tokens.get(i), "[adjective]",
-                            adjIdx < adjectives.size() ? adjectives.get(adjIdx++) : adjectiveList.Random()));
-                    case "[adverb]" -> tokens.set(i, WordUtil.TypeSubstitute(tokens.get(i), "[adverb]",
-                            advIdx < adverbs.size() ? adverbs.get(advIdx++) : adverbList.Random()));
-                    case "[article]" -> tokens.set(i, WordUtil.TypeSubstitute(tokens.get(i), "[article]",
-                            artIdx < articles.size() ? articles.get(artIdx++) : articleList.Random()));
-                    case "[pronoun]" -> tokens.set(i, WordUtil.TypeSubstitute(tokens.get(i), "[pronoun]",
-                            prIdx < pronouns.size() ? pronouns.get(prIdx++) : pronounList.Random()));
-                }
-            }
-            // capitalize first letter of generated sentence
-            String raw = String.join(" ", tokens);
-            String capitalized = raw.isEmpty()
-                    ? raw
-                    : Character.toUpperCase(raw.charAt(0)) + raw.substring(1);
-            finalSentences.add(capitalized);
+
+            // Pick actual words or random fallbacks for the placeholders
+            plans.add(SentencePlan.of(bestTpl.getTemplate(), placeholder -> {
+                int i = WordBuckets.indexOf(placeholder);
+                if (i < 0) return null;
+                WordBuckets.Bucket bucket = buckets.get(placeholder);
+                return next[i] < bucket.size() ? bucket.word(next[i]++) : fill[i].next();
+            }));
         }
+        return plans;
+    }
 
-        // Moderate each sentence and record toxicity
-        var betaSettings = com.google.cloud.language.v1beta2.LanguageServiceSettings.newBuilder()
-                .setCredentialsProvider(credsProvider)
-                .build();
-        List<SentenceResult> results = new ArrayList<>();
-        try (var modClient =
-                     com.google.cloud.language.v1beta2.LanguageServiceClient.create(betaSettings)) {
-            for (int i = 0; i < finalSentences.size(); i++) {
-                String s   = finalSentences.get(i);
-                String tpl = usedStructures.get(i);
-
-                var outDoc = com.google.cloud.language.v1beta2.Document.newBuilder()
-                        .setContent(s)
-                        .setType(com.google.cloud.language.v1beta2.Document.Type.PLAIN_TEXT)
-                        .build();
-                ModerateTextResponse modResp = modClient.moderateText(outDoc);
-                double tox = modResp.getModerationCategoriesList().stream()
-                        .filter(c -> "Toxic".equalsIgnoreCase(c.getName()))
-                        .mapToDouble(ClassificationCategory::getConfidence)
-                        .findFirst().orElse(0.0);
-
-                results.add(new SentenceResult(tpl, s, tox));
+    private static boolean hasRemaining(WordBuckets buckets, int[] next) {
+        for (int i = 0; i < next.length; i++) {
+            if (next[i] < buckets.get(WordBuckets.PLACEHOLDERS[i]).size()) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Fills a template: splits it into tokens, replaces each placeholder with the
+     * word supplied for it and capitalizes the first letter of the result. Words
+     * are appended straight into the sentence, so views of the input are not copied
+     * on the way.
+     *
+     * @param template  the sentence template
+     * @param wordFor   supplies a word for a placeholder, or null to leave it as is
+     * @return          the generated sentence
+     */
+    public static String render(String template, Function<String, ? extends CharSequence> wordFor) {
+        List<String> tokens = WordUtil.SentenceSplitter(template);
+        StringBuilder out = new StringBuilder(template.length() + 16);
+        for (int i = 0; i < tokens.size(); i++) {
+            if (i > 0) out.append(' ');
+            String token = tokens.get(i);
+            String typeTag = WordUtil.TypeCheck(token);
+            CharSequence word = typeTag == null ? null : wordFor.apply(typeTag);
+            if (word == null) {
+                out.append(token);
+                continue;
+            }
+            // Every occurrence of the placeholder in the token, as WordUtil.TypeSubstitute does
+            int from = 0;
+            for (int at = token.indexOf(typeTag); at >= 0; at = token.indexOf(typeTag, from)) {
+                out.append(token, from, at).append(word);
+                from = at + typeTag.length();
             }
+            out.append(token, from, token.length());
         }
-        return results;
+        // capitalize first letter of generated sentence
+        if (!out.isEmpty()) out.setCharAt(0, Character.toUpperCase(out.charAt(0)));
+        return out.toString();
+    }
+
+    /**
+     * Returns the dictionaries and templates, loading them on first use.
+     *
+     * @return the shared lexicon
+     */
+    public synchronized Lexicon getLexicon() {
+        if (lexicon == null) {
+            lexicon = new Lexicon();
+        }
+        return lexicon;
     }
 
     /**
-     * Launches the JavaFX UI.
+     * Launches the JavaFX UI, or the headless command line when the first argument
+     * is {@code --cli}; see {@link Cli#main(String[])} for its options.
      */
-    public static void main(String[] args) {
+    public static void main(String[] args) throws Exception {
+        if (args.length > 0 && args[0].equals("--cli")) {
+            Cli.main(Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
         Application.launch(UI.class, args);
     }
 }
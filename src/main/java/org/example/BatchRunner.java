@@ -0,0 +1,240 @@
+package org.example;
+
+import org.example.App.SentenceResult;
+import org.example.pipeline.Pipeline;
+import org.example.pipeline.Stage;
+import org.example.words.WordUtil;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.random.RandomGenerator;
+
+/**
+ * Remixes every line of an input file through the App.generate stages, run as a
+ * staged pipeline: analyze, plan, render, moderate and persist. Stages are
+ * connected by bounded queues, so the reader never gets more than a few queues'
+ * worth of lines ahead of the writer and memory stays flat regardless of file size.
+ * <p>
+ * Each output line is {@code lineNo \t template \t sentence \t toxicity}; lines
+ * are written as soon as they are moderated, so their order follows completion,
+ * not the input. The toxicity column is empty when moderation is off.
+ */
+public class BatchRunner {
+
+    /** A line of the input file. */
+    static final class Line {
+        final long number;
+        final String text;
+        Line(long number, String text) { this.number = number; this.text = text; }
+    }
+
+    /** A line after syntax analysis. */
+    static final class Analyzed {
+        final long number;
+        final WordBuckets buckets;
+        Analyzed(long number, WordBuckets buckets) { this.number = number; this.buckets = buckets; }
+    }
+
+    /** One planned sentence of a line. */
+    static final class Planned {
+        final long number;
+        final SentencePlan plan;
+        Planned(long number, SentencePlan plan) { this.number = number; this.plan = plan; }
+    }
+
+    /** One result of a line, rendered and possibly moderated. */
+    static final class Generated {
+        final long number;
+        final SentenceResult result;
+        Generated(long number, SentenceResult result) { this.number = number; this.result = result; }
+    }
+
+    private final App app;
+    private final LanguageClient api;
+    private int analyzeThreads = 4;
+    private int planThreads = 1;
+    private int renderThreads = 2;
+    private int moderateThreads = 8;
+    private int queueCapacity = 256;
+    private boolean moderation = true;
+    private Long seed;
+
+    private final AtomicLong linesRead = new AtomicLong();
+    private final AtomicLong linesSkipped = new AtomicLong();
+    private final AtomicLong sentencesWritten = new AtomicLong();
+
+    /**
+     * @param app  supplies the lexicon and the generation steps
+     * @param api  Language API used for analysis and moderation
+     */
+    public BatchRunner(App app, LanguageClient api) {
+        this.app = app;
+        this.api = api;
+    }
+
+    /** @param threads worker threads calling syntax analysis */
+    public BatchRunner setAnalyzeThreads(int threads) { this.analyzeThreads = threads; return this; }
+
+    /** @param threads worker threads choosing templates and words */
+    public BatchRunner setPlanThreads(int threads) { this.planThreads = threads; return this; }
+
+    /** @param threads worker threads building sentence strings */
+    public BatchRunner setRenderThreads(int threads) { this.renderThreads = threads; return this; }
+
+    /** @param threads worker threads calling text moderation */
+    public BatchRunner setModerateThreads(int threads) { this.moderateThreads = threads; return this; }
+
+    /** @param capacity maximum number of items waiting in front of each stage */
+    public BatchRunner setQueueCapacity(int capacity) { this.queueCapacity = capacity; return this; }
+
+    /** @param enabled whether sentences are sent to text moderation */
+    public BatchRunner setModeration(boolean enabled) { this.moderation = enabled; return this; }
+
+    /** @param seed base seed; each line then gets a generator derived from it and its line number */
+    public BatchRunner setSeed(Long seed) { this.seed = seed; return this; }
+
+    /** @return the number of non-blank lines read so far */
+    public long getLinesRead() { return linesRead.get(); }
+
+    /** @return the number of lines rejected as invalid input */
+    public long getLinesSkipped() { return linesSkipped.get(); }
+
+    /** @return the number of sentences written so far */
+    public long getSentencesWritten() { return sentencesWritten.get(); }
+
+    /**
+     * Processes the whole input file and writes the results.
+     *
+     * @param input   UTF-8 file with one input sentence per line; blank lines are ignored
+     * @param output  file to write; overwritten if it exists
+     * @throws IOException if a file cannot be read or written
+     * @throws InterruptedException if interrupted while waiting for the pipeline
+     * @throws org.example.pipeline.PipelineException if a stage fails
+     */
+    public void run(Path input, Path output) throws IOException, InterruptedException {
+        try (BufferedReader in = Files.newBufferedReader(input, StandardCharsets.UTF_8);
+             BufferedWriter out = Files.newBufferedWriter(output, StandardCharsets.UTF_8)) {
+
+            Pipeline pipeline = new Pipeline();
+
+            Stage<Line, Analyzed> analyze = pipeline.source(new Stage<>("analyze", analyzeThreads, queueCapacity,
+                    (line, emit) -> {
+                        String normalized;
+                        try {
+                            normalized = App.validate(line.text);
+                        } catch (IllegalArgumentException e) {
+                            linesSkipped.incrementAndGet();
+                            return;
+                        }
+                        emit.emit(new Analyzed(line.number, app.analyzeNormalized(api, normalized).newBuckets()));
+                    }));
+
+            Stage<Analyzed, Planned> plan = pipeline.then(analyze, new Stage<>("plan", planThreads, queueCapacity,
+                    (analyzed, emit) -> {
+                        List<SentencePlan> plans = app.plan(analyzed.buckets, randomFor(analyzed.number));
+                        for (SentencePlan p : plans) emit.emit(new Planned(analyzed.number, p));
+                    }));
+
+            // Batch rendering waits its turn behind interactive work sharing the app's scheduler
+            PriorityScheduler renderScheduler = app.getRenderScheduler();
+            Stage<Planned, Generated> render = pipeline.then(plan, new Stage<>("render", renderThreads, queueCapacity,
+                    (planned, emit) -> {
+                        String sentence = renderScheduler == null ? planned.plan.render()
+                                : renderScheduler.run(PriorityScheduler.Priority.BATCH, planned.plan::render);
+                        emit.emit(new Generated(planned.number, new SentenceResult(
+                                planned.plan.getTemplate(), sentence, Double.NaN)));
+                    }));
+
+            Stage<Generated, Generated> moderate = pipeline.then(render, new Stage<>("moderate",
+                    moderation ? moderateThreads : 1, queueCapacity,
+                    (generated, emit) -> {
+                        if (!moderation) {
+                            emit.emit(generated);
+                            return;
+                        }
+                        SentenceResult r = generated.result;
+                        double tox = app.moderate(api, r.getText());
+                        emit.emit(new Generated(generated.number,
+                                new SentenceResult(r.getStructure(), r.getText(), tox)));
+                    }));
+
+            // A single writer keeps the output file consistent
+            pipeline.then(moderate, new Stage<Generated, Void>("persist", 1, queueCapacity,
+                    (generated, emit) -> {
+                        SentenceResult r = generated.result;
+                        out.write(generated.number + "\t" + r.getStructure() + "\t" + r.getText() + "\t"
+                                + (r.isModerated() ? String.format(Locale.ROOT, "%.4f", r.getToxicity()) : ""));
+                        out.newLine();
+                        sentencesWritten.incrementAndGet();
+                    }));
+
+            pipeline.start();
+            try {
+                String text;
+                long number = 0;
+                while ((text = in.readLine()) != null) {
+                    number++;
+                    if (text.isBlank()) continue;
+                    linesRead.incrementAndGet();
+                    analyze.put(new Line(number, text));
+                }
+                analyze.close();
+            } catch (IOException | RuntimeException | InterruptedException e) {
+                pipeline.abort();
+                throw e;
+            }
+            pipeline.await();
+        }
+    }
+
+    // One generator per line, so seeded runs do not depend on scheduling
+    private RandomGenerator randomFor(long lineNumber) {
+        return seed == null
+                ? WordUtil.RandomSource()
+                : WordUtil.RandomSource(seed, lineNumber);
+    }
+
+    /**
+     * Command-line batch mode.
+     * Usage: BatchRunner &lt;input-file&gt; &lt;output-file&gt; [--analyze N] [--plan N] [--render N]
+     * [--moderate N] [--queue N] [--seed N] [--no-moderation]
+     */
+    public static void main(String[] args) throws Exception {
+        if (args.length < 2) {
+            System.err.println("Usage: BatchRunner <input-file> <output-file> [--analyze N] [--plan N] "
+                    + "[--render N] [--moderate N] [--queue N] [--seed N] [--no-moderation]");
+            System.exit(2);
+        }
+        App app = new App();
+        try (LanguageApi api = new LanguageApi(GoogleCredentialsProvider.getProvider())) {
+            // Batch calls and renders queue behind any interactive work of the same app
+            BatchRunner runner = new BatchRunner(app, app.schedule(api, PriorityScheduler.Priority.BATCH));
+            for (int i = 2; i < args.length; i++) {
+                switch (args[i]) {
+                    case "--analyze"       -> runner.setAnalyzeThreads(Integer.parseInt(args[++i]));
+                    case "--plan"          -> runner.setPlanThreads(Integer.parseInt(args[++i]));
+                    case "--render"        -> runner.setRenderThreads(Integer.parseInt(args[++i]));
+                    case "--moderate"      -> runner.setModerateThreads(Integer.parseInt(args[++i]));
+                    case "--queue"         -> runner.setQueueCapacity(Integer.parseInt(args[++i]));
+                    case "--seed"          -> runner.setSeed(Long.parseLong(args[++i]));
+                    case "--no-moderation" -> runner.setModeration(false);
+                    default -> throw new IllegalArgumentException("Unknown option: " + args[i]);
+                }
+            }
+            long start = System.nanoTime();
+            runner.run(Path.of(args[0]), Path.of(args[1]));
+            double seconds = (System.nanoTime() - start) / 1e9;
+            System.out.printf("Processed %d lines (%d skipped) into %d sentences in %.2fs%n",
+                    runner.getLinesRead(), runner.getLinesSkipped(), runner.getSentencesWritten(), seconds);
+            System.out.printf("Calls saved by sharing: %d syntax analyses, %d moderations%n",
+                    app.getAnalysisCallsSaved(), app.getModerationCallsSaved());
+        }
+    }
+}
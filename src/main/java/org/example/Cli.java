@@ -0,0 +1,303 @@
+package org.example;
+
+import org.example.App.Moderation;
+import org.example.App.SentenceResult;
+import org.example.words.WordUtil;
+
+import com.google.gson.Gson;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.random.RandomGenerator;
+import java.util.stream.Stream;
+
+/**
+ * Headless command line: generates from inputs given as arguments, in files or on
+ * stdin, and writes the results as text or JSON lines, with no JavaFX window.
+ * <p>
+ * Inputs are generated in parallel over one shared Language API facade, but the
+ * results are written in input order. Only a few inputs per thread are in flight at
+ * a time, so a long stdin stream is processed in constant memory.
+ * <p>
+ * This path touches neither JavaFX nor CoreNLP, so none of their classes are loaded.
+ */
+public class Cli {
+
+    /** Output formats. */
+    public enum Format {
+        /** Readable blocks, as shown in the window. */
+        TEXT,
+        /** One JSON object per input, per line. */
+        JSON
+    }
+
+    // JSON shape of an input and its results
+    private static final class JsonOutput {
+        long input;
+        String text;
+        List<JsonResult> results;
+        String error;
+    }
+
+    /** JSON shape of one result, shared with the HTTP service; toxicity is null when not moderated. */
+    static final class JsonResult {
+        String structure;
+        String sentence;
+        Double toxicity;
+
+        static JsonResult of(SentenceResult r) {
+            JsonResult result = new JsonResult();
+            result.structure = r.getStructure();
+            result.sentence = r.getText();
+            result.toxicity = r.isModerated() ? r.getToxicity() : null;
+            return result;
+        }
+
+        static List<JsonResult> of(List<SentenceResult> results) {
+            List<JsonResult> json = new ArrayList<>();
+            for (SentenceResult r : results) json.add(of(r));
+            return json;
+        }
+    }
+
+    /** The results of one input, or why there are none. */
+    private static final class Output {
+        final long number;
+        final String text;
+        final List<SentenceResult> results;
+        final String error;
+
+        Output(long number, String text, List<SentenceResult> results, String error) {
+            this.number = number;
+            this.text = text;
+            this.results = results;
+            this.error = error;
+        }
+    }
+
+    private static final Gson GSON = new Gson();
+
+    private final App app;
+    private final LanguageClient api;
+    private int threads = 4;
+    private Long seed;
+    private Moderation moderation = Moderation.ON;
+    private Format format = Format.TEXT;
+    private long failed;
+
+    /**
+     * @param app  supplies the lexicon and the generation steps
+     * @param api  Language API used for analysis and moderation, shared by all inputs
+     */
+    public Cli(App app, LanguageClient api) {
+        this.app = app;
+        this.api = api;
+    }
+
+    /** @param threads number of inputs generated at the same time */
+    public Cli setThreads(int threads) {
+        if (threads < 1) throw new IllegalArgumentException("Threads must be positive");
+        this.threads = threads;
+        return this;
+    }
+
+    /** @param seed base seed; each input then gets a generator derived from it and its number */
+    public Cli setSeed(Long seed) { this.seed = seed; return this; }
+
+    /** @param moderation whether and how sentences are moderated */
+    public Cli setModeration(Moderation moderation) { this.moderation = moderation; return this; }
+
+    /** @param format how results are written */
+    public Cli setFormat(Format format) { this.format = format; return this; }
+
+    /** @return the number of inputs that produced an error instead of results */
+    public long getFailed() { return failed; }
+
+    /**
+     * Generates from every input and writes the results in input order.
+     * Blank inputs are skipped; an input that fails is reported in the output and
+     * does not stop the run.
+     *
+     * @param inputs  the input texts, read lazily
+     * @param out     where the results are written
+     * @return the number of inputs processed
+     * @throws IOException if the output cannot be written
+     * @throws InterruptedException if interrupted while waiting for a result
+     */
+    public long run(Iterator<String> inputs, Writer out) throws IOException, InterruptedException {
+        ExecutorService workers = Executors.newFixedThreadPool(threads, r -> {
+            Thread t = new Thread(r, "Cli-Worker");
+            t.setDaemon(true);
+            return t;
+        });
+        Deque<Future<Output>> pending = new ArrayDeque<>();
+        long number = 0;
+        try {
+            while (inputs.hasNext()) {
+                String text = inputs.next();
+                if (text.isBlank()) continue;
+                long n = ++number;
+                pending.add(workers.submit(() -> generate(n, text)));
+                // Bounded window: wait for the oldest input before reading further ahead
+                if (pending.size() >= threads * 4) write(pending.poll(), out);
+            }
+            while (!pending.isEmpty()) write(pending.poll(), out);
+            out.flush();
+        } finally {
+            workers.shutdownNow();
+        }
+        return number;
+    }
+
+    private Output generate(long number, String text) {
+        RandomGenerator rng = seed == null ? WordUtil.RandomSource() : WordUtil.RandomSource(seed, number);
+        try {
+            return new Output(number, text, app.generate(api, text, rng, moderation), null);
+        } catch (IOException | RuntimeException e) {
+            return new Output(number, text, null, e.getMessage() != null ? e.getMessage() : e.toString());
+        }
+    }
+
+    private void write(Future<Output> next, Writer out) throws IOException, InterruptedException {
+        Output output;
+        try {
+            output = next.get();
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Generation failed", e.getCause());
+        }
+        if (output.error != null) failed++;
+        out.write(format == Format.JSON ? toJson(output) : toText(output));
+        out.write(System.lineSeparator());
+    }
+
+    private static String toJson(Output output) {
+        JsonOutput json = new JsonOutput();
+        json.input = output.number;
+        json.text = output.text;
+        json.error = output.error;
+        if (output.results != null) json.results = JsonResult.of(output.results);
+        return GSON.toJson(json);
+    }
+
+    private static String toText(Output output) {
+        StringBuilder text = new StringBuilder("Input " + output.number + ": " + output.text);
+        if (output.error != null) {
+            return text.append(System.lineSeparator()).append("  Error: ").append(output.error).toString();
+        }
+        for (SentenceResult r : output.results) {
+            text.append(System.lineSeparator()).append("  Sentence Structure: ").append(r.getStructure());
+            text.append(System.lineSeparator()).append("  → ").append(r.getText());
+            if (r.isModerated()) {
+                text.append(System.lineSeparator()).append("  → Toxicity: ")
+                        .append(String.format(Locale.ROOT, "%.2f%%", r.getToxicity() * 100));
+            }
+        }
+        return text.toString();
+    }
+
+    /**
+     * Command-line headless mode, also reachable as {@code App --cli ...}.
+     * Usage: Cli [TEXT ...] [--file PATH]... [--output PATH] [--format text|json]
+     * [--threads N] [--seed N] [--moderation on|off|best-effort]
+     * <p>
+     * Every TEXT argument is one input and every line of a file is one input; with
+     * neither, or with {@code -} as a text, the lines of stdin are read.
+     * Exits with status 1 if any input failed.
+     */
+    public static void main(String[] args) throws Exception {
+        List<String> texts = new ArrayList<>();
+        List<Path> files = new ArrayList<>();
+        Path output = null;
+        boolean stdin = false;
+        Format format = Format.TEXT;
+        int threads = 4;
+        Long seed = null;
+        Moderation moderation = Moderation.ON;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--file"       -> files.add(Path.of(args[++i]));
+                case "--output"     -> output = Path.of(args[++i]);
+                case "--format"     -> format = Format.valueOf(args[++i].toUpperCase(Locale.ROOT));
+                case "--threads"    -> threads = Integer.parseInt(args[++i]);
+                case "--seed"       -> seed = Long.parseLong(args[++i]);
+                case "--moderation" -> moderation = Moderation.valueOf(
+                        args[++i].toUpperCase(Locale.ROOT).replace('-', '_'));
+                case "-"            -> stdin = true;
+                case "--help"       -> {
+                    System.err.println("Usage: Cli [TEXT ...] [--file PATH]... [--output PATH] [--format text|json] "
+                            + "[--threads N] [--seed N] [--moderation on|off|best-effort]");
+                    return;
+                }
+                default -> {
+                    if (args[i].startsWith("--")) throw new IllegalArgumentException("Unknown option: " + args[i]);
+                    texts.add(args[i]);
+                }
+            }
+        }
+        if (texts.isEmpty() && files.isEmpty()) stdin = true;
+
+        // Inputs are read lazily, in order: arguments, then files, then stdin.
+        // The sources are chained by hand: a flatMapped stream's iterator would
+        // buffer a whole source before handing out its first line
+        List<Stream<String>> sources = new ArrayList<>();
+        sources.add(texts.stream());
+        for (Path file : files) sources.add(Files.lines(file, StandardCharsets.UTF_8));
+        if (stdin) {
+            sources.add(new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8)).lines());
+        }
+        Iterator<String> inputs = new Iterator<>() {
+            private int source;
+            private Iterator<String> lines = sources.getFirst().iterator();
+
+            @Override
+            public boolean hasNext() {
+                while (!lines.hasNext() && source + 1 < sources.size()) {
+                    sources.get(source++).close();
+                    lines = sources.get(source).iterator();
+                }
+                return lines.hasNext();
+            }
+
+            @Override
+            public String next() {
+                if (!hasNext()) throw new NoSuchElementException();
+                return lines.next();
+            }
+        };
+
+        App app = new App();
+        try (LanguageApi api = new LanguageApi(GoogleCredentialsProvider.getProvider());
+             Writer out = output != null
+                     ? Files.newBufferedWriter(output, StandardCharsets.UTF_8)
+                     : new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8))) {
+            Cli cli = new Cli(app, app.schedule(api, PriorityScheduler.Priority.INTERACTIVE))
+                    .setThreads(threads)
+                    .setSeed(seed)
+                    .setModeration(moderation)
+                    .setFormat(format);
+            cli.run(inputs, out);
+            if (cli.getFailed() > 0) {
+                out.flush();
+                System.exit(1);
+            }
+        }
+    }
+}
@@ -0,0 +1,250 @@
+package org.example;
+
+import org.example.App.SentenceResult;
+import org.example.SentenceStructures.SentenceStructureInfo;
+import org.example.words.DistinctSampler;
+import org.example.words.WordUtil;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Consumer;
+import java.util.random.RandomGenerator;
+import java.util.stream.IntStream;
+
+/**
+ * Bulk generation of synthetic text corpora.
+ * Produces any number of sentences from one analyzed input, or from the
+ * dictionaries alone, rendering fixed-size chunks in parallel on a fork/join pool.
+ * Chunks are rendered a wave at a time and handed to the sink in order,
+ * so memory stays bounded by one wave however many sentences are requested.
+ * Every chunk draws from its own generator seeded from the run's source,
+ * which keeps seeded runs reproducible regardless of thread scheduling.
+ */
+public class CorpusGenerator {
+    // Sentences rendered by one task
+    private static final int CHUNK_SIZE = 1024;
+    // Chunks in flight per worker thread before they are flushed to the sink
+    private static final int CHUNKS_PER_WORKER = 4;
+
+    private final Lexicon lexicon;
+    private final LanguageClient moderator;
+    private final int parallelism;
+    private PriorityScheduler renderScheduler;
+
+    /**
+     * @param lexicon      dictionaries and templates to generate from
+     * @param moderator    Language API used to score toxicity, or null to skip moderation
+     * @param parallelism  number of worker threads rendering chunks
+     */
+    public CorpusGenerator(Lexicon lexicon, LanguageClient moderator, int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Parallelism must be at least 1");
+        }
+        this.lexicon = lexicon;
+        this.moderator = moderator;
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * Makes every chunk wait for a batch slot of the scheduler before it is rendered,
+     * so that a bulk run leaves room to the interactive work sharing it.
+     *
+     * @param renderScheduler  admits rendering work, or null to render at once
+     * @return                 this generator
+     */
+    public CorpusGenerator setRenderScheduler(PriorityScheduler renderScheduler) {
+        this.renderScheduler = renderScheduler;
+        return this;
+    }
+
+    /**
+     * Generates sentences and passes them to the sink in generation order.
+     * The sink is always called from the calling thread; an UncheckedIOException
+     * it throws is rethrown as its IOException.
+     *
+     * @param source  words of an analyzed input, or null to use the dictionaries alone
+     * @param count   number of sentences to generate
+     * @param rng     random source of the run; only used to seed the chunks
+     * @param sink    receives every sentence; toxicity is NaN when moderation is off
+     * @return        the number of sentences generated
+     * @throws Exception if moderation fails or the run is interrupted
+     */
+    public long generate(WordBuckets source, long count, RandomGenerator rng,
+                         Consumer<SentenceResult> sink) throws Exception {
+        if (count < 0) {
+            throw new IllegalArgumentException("Sentence count must not be negative");
+        }
+        int waveChunks = parallelism * CHUNKS_PER_WORKER;
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            long produced = 0;
+            while (produced < count) {
+                // Plan the wave: chunk sizes and seeds are fixed here, on one thread
+                List<Integer> sizes = new ArrayList<>();
+                List<Long> seeds = new ArrayList<>();
+                long planned = produced;
+                while (sizes.size() < waveChunks && planned < count) {
+                    int size = (int) Math.min(CHUNK_SIZE, count - planned);
+                    sizes.add(size);
+                    seeds.add(rng.nextLong());
+                    planned += size;
+                }
+
+                List<List<SentenceResult>> wave = pool.submit(() ->
+                        IntStream.range(0, sizes.size())
+                                .parallel()
+                                .mapToObj(i -> scheduledChunk(source, sizes.get(i), seeds.get(i)))
+                                .toList()
+                ).get();
+
+                for (List<SentenceResult> chunk : wave) {
+                    chunk.forEach(sink);
+                }
+                produced = planned;
+            }
+            return produced;
+        } catch (UncheckedIOException e) {
+            // Thrown by a sink that writes, such as the file sink below
+            throw e.getCause();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof UncheckedIOException io) throw io.getCause();
+            if (cause instanceof Exception ex) throw ex;
+            throw e;
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Generates sentences straight into a UTF-8 file, one per line.
+     * Moderated sentences are followed by a tab and their toxicity score.
+     *
+     * @param source  words of an analyzed input, or null to use the dictionaries alone
+     * @param count   number of sentences to generate
+     * @param rng     random source of the run
+     * @param output  the file to write; overwritten if it exists
+     * @return        the number of sentences written
+     * @throws IOException if the file cannot be written
+     * @throws Exception if moderation fails
+     */
+    public long generate(WordBuckets source, long count, RandomGenerator rng, Path output) throws Exception {
+        try (BufferedWriter out = Files.newBufferedWriter(output, StandardCharsets.UTF_8)) {
+            return generate(source, count, rng, r -> {
+                try {
+                    out.write(r.getText());
+                    if (r.isModerated()) {
+                        out.write('\t');
+                        out.write(String.format(Locale.ROOT, "%.4f", r.getToxicity()));
+                    }
+                    out.newLine();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        }
+    }
+
+    private List<SentenceResult> scheduledChunk(WordBuckets source, int size, long seed) {
+        if (renderScheduler == null) return renderChunk(source, size, seed);
+        try {
+            return renderScheduler.run(PriorityScheduler.Priority.BATCH, () -> renderChunk(source, size, seed));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Renders one chunk of sentences with a generator of its own.
+     */
+    private List<SentenceResult> renderChunk(WordBuckets source, int size, long seed) {
+        RandomGenerator rng = WordUtil.RandomSource(seed);
+        List<SentenceStructureInfo> structures = lexicon.getStructures();
+        String[] placeholders = WordBuckets.PLACEHOLDERS;
+
+        // Dictionary words are drawn without replacement within the chunk
+        DistinctSampler[] fill = new DistinctSampler[placeholders.length];
+        for (int i = 0; i < placeholders.length; i++) {
+            fill[i] = lexicon.get(placeholders[i]).Distinct(rng);
+        }
+
+        List<SentenceResult> chunk = new ArrayList<>(size);
+        for (int n = 0; n < size; n++) {
+            SentenceStructureInfo tpl = structures.get(WordUtil.Randomizer(structures.size(), rng));
+            String sentence = App.render(tpl.getTemplate(), placeholder -> {
+                int i = WordBuckets.indexOf(placeholder);
+                if (i < 0) return null;
+                // Prefer the input's own words; fall back to the dictionary for empty buckets
+                WordBuckets.Bucket bucket = source == null ? null : source.get(placeholder);
+                return bucket == null || bucket.isEmpty()
+                        ? fill[i].next()
+                        : bucket.word(WordUtil.Randomizer(bucket.size(), rng));
+            });
+
+            double tox = Double.NaN;
+            if (moderator != null) {
+                try {
+                    tox = moderator.moderate(sentence);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+            chunk.add(new SentenceResult(tpl.getTemplate(), sentence, tox));
+        }
+        return chunk;
+    }
+
+    /**
+     * Command-line bulk mode.
+     * Usage: CorpusGenerator &lt;count&gt; &lt;output-file&gt; [--input TEXT] [--seed N] [--threads N] [--moderate]
+     */
+    public static void main(String[] args) throws Exception {
+        if (args.length < 2) {
+            System.err.println("Usage: CorpusGenerator <count> <output-file> "
+                    + "[--input TEXT] [--seed N] [--threads N] [--moderate]");
+            System.exit(2);
+        }
+        long count = Long.parseLong(args[0]);
+        Path output = Path.of(args[1]);
+        String input = null;
+        Long seed = null;
+        int threads = Runtime.getRuntime().availableProcessors();
+        boolean moderate = false;
+        for (int i = 2; i < args.length; i++) {
+            switch (args[i]) {
+                case "--input"    -> input = args[++i];
+                case "--seed"     -> seed = Long.parseLong(args[++i]);
+                case "--threads"  -> threads = Integer.parseInt(args[++i]);
+                case "--moderate" -> moderate = true;
+                default -> throw new IllegalArgumentException("Unknown option: " + args[i]);
+            }
+        }
+
+        App app = new App();
+        RandomGenerator rng = seed == null ? WordUtil.RandomSource() : WordUtil.RandomSource(seed);
+        boolean needsApi = moderate || input != null;
+        try (LanguageApi api = needsApi ? new LanguageApi(GoogleCredentialsProvider.getProvider()) : null) {
+            LanguageClient calls = needsApi ? app.schedule(api, PriorityScheduler.Priority.BATCH) : null;
+            WordBuckets source = null;
+            if (input != null) {
+                source = app.analyzeNormalized(calls, App.validate(input)).newBuckets();
+            }
+            CorpusGenerator generator = new CorpusGenerator(app.getLexicon(), moderate ? calls : null, threads)
+                    .setRenderScheduler(app.getRenderScheduler());
+            long start = System.nanoTime();
+            long written = generator.generate(source, count, rng, output);
+            double seconds = (System.nanoTime() - start) / 1e9;
+            System.out.printf("Wrote %d sentences to %s in %.2fs (%.0f sentences/s)%n",
+                    written, output, seconds, written / Math.max(seconds, 1e-9));
+        }
+    }
+}
@@ -0,0 +1,391 @@
+package org.example;
+
+import org.example.App.Moderation;
+import org.example.App.ResultListener;
+import org.example.App.SentenceResult;
+import org.example.pipeline.Pipeline;
+import org.example.pipeline.PipelineException;
+import org.example.pipeline.Stage;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.random.RandomGenerator;
+
+/**
+ * The steps of {@link App#generate(LanguageClient, String, RandomGenerator, Moderation, App.ResultListener)}
+ * as long-lived stages shared by all requests: analyze, plan, render and moderate.
+ * Each stage has its own workers, bounded queue and batch size, and requests are
+ * handed from one to the next as typed objects. Every stage is instrumented (see
+ * {@link Stage}), so the bottleneck can be found and given more threads or larger
+ * batches without touching the other stages.
+ * <p>
+ * Input is validated and normalized on the caller's thread before it is queued.
+ * The sentences of a request travel together, so they are moderated and delivered
+ * in order, and a failing request fails alone while the stages keep serving the others. If a stage
+ * itself fails, every request inside the pipeline fails with it and new ones are rejected.
+ */
+public class GenerationPipeline implements AutoCloseable {
+
+    /** The stages of a generation, in order. */
+    public enum Step {
+        /** Syntax analysis of the input, through the app's cache. */
+        ANALYZE,
+        /** Template and word choice. */
+        PLAN,
+        /** Sentence building; batches share one slot of the app's render scheduler. */
+        RENDER,
+        /** Toxicity scoring and delivery to the caller's listener. */
+        MODERATE
+    }
+
+    /** Workers, queue and batching of one stage; read when the pipeline starts. */
+    public static final class StageSettings {
+        private int threads;
+        private int queueCapacity = 64;
+        private int maxBatch = 1;
+        private ThreadFactory threadFactory;
+
+        StageSettings(int threads, ThreadFactory threadFactory) {
+            this.threads = threads;
+            this.threadFactory = threadFactory;
+        }
+
+        /** @param threads worker threads of the stage */
+        public StageSettings setThreads(int threads) { this.threads = threads; return this; }
+
+        /** @param capacity maximum number of requests waiting in front of the stage */
+        public StageSettings setQueueCapacity(int capacity) { this.queueCapacity = capacity; return this; }
+
+        /** @param maxBatch maximum number of requests a worker takes at once */
+        public StageSettings setMaxBatch(int maxBatch) { this.maxBatch = maxBatch; return this; }
+
+        /** @param threadFactory creates the worker threads */
+        public StageSettings setThreadFactory(ThreadFactory threadFactory) { this.threadFactory = threadFactory; return this; }
+    }
+
+    /** A request entering the pipeline, and its caller's wait for the outcome. */
+    static final class Request {
+        final LanguageClient api;
+        // The caller's class, taken from the view it called through; the render slot is of this class
+        final PriorityScheduler.Priority priority;
+        final String text;
+        final RandomGenerator rng;
+        final Moderation moderation;
+        final ResultListener listener;
+        final CompletableFuture<Integer> done = new CompletableFuture<>();
+        // Set when the caller stops waiting; the stages then drop the request
+        volatile boolean cancelled;
+        // Worker in a Language API call for the request, interrupted on cancel
+        private Thread calling;
+
+        Request(LanguageClient api, String text, RandomGenerator rng, Moderation moderation, ResultListener listener) {
+            this.api = api;
+            this.priority = ScheduledLanguageApi.priorityOf(api);
+            this.text = text;
+            this.rng = rng;
+            this.moderation = moderation;
+            this.listener = listener;
+        }
+
+        boolean isOpen() { return !cancelled && !done.isDone(); }
+
+        /** Drops the request, and interrupts its Language API call in flight so it is not billed. */
+        synchronized void cancel() {
+            cancelled = true;
+            done.cancel(false);
+            if (calling != null) calling.interrupt();
+        }
+    }
+
+    /** A request after syntax analysis. */
+    static final class Analyzed {
+        final Request request;
+        final WordBuckets buckets;
+        Analyzed(Request request, WordBuckets buckets) { this.request = request; this.buckets = buckets; }
+    }
+
+    /** A request with its sentences planned. */
+    static final class Planned {
+        final Request request;
+        final List<SentencePlan> plans;
+        Planned(Request request, List<SentencePlan> plans) { this.request = request; this.plans = plans; }
+    }
+
+    /** A request with its sentences built, not moderated yet. */
+    static final class Rendered {
+        final Request request;
+        final List<SentenceResult> drafts;
+        Rendered(Request request, List<SentenceResult> drafts) { this.request = request; this.drafts = drafts; }
+    }
+
+    private final App app;
+    private final Map<Step, StageSettings> settings = new EnumMap<>(Step.class);
+    private final Map<Step, Stage<?, ?>> stages = new EnumMap<>(Step.class);
+    private Pipeline pipeline;
+    private Stage<Request, Analyzed> analyze;
+    // Requests are queued under the read lock, so none is queued behind the end of input
+    private final ReadWriteLock closing = new ReentrantReadWriteLock();
+    private boolean closed;
+    // Requests queued and not completed yet, failed together if a stage fails
+    private final Set<Request> inFlight = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Sets up the stages with default settings: the stages waiting on Google calls
+     * run many virtual threads, the others a few platform threads.
+     *
+     * @param app  supplies the analysis cache, the lexicon and the render scheduler
+     */
+    public GenerationPipeline(App app) {
+        this.app = app;
+        ThreadFactory virtual = Thread.ofVirtual().factory();
+        settings.put(Step.ANALYZE, new StageSettings(16, virtual));
+        settings.put(Step.PLAN, new StageSettings(2, Thread::new));
+        settings.put(Step.RENDER, new StageSettings(2, Thread::new).setMaxBatch(8));
+        settings.put(Step.MODERATE, new StageSettings(64, virtual));
+    }
+
+    /**
+     * @param step  a stage of the pipeline
+     * @return      its settings, to change before {@link #start()}
+     */
+    public StageSettings configure(Step step) {
+        if (pipeline != null) throw new IllegalStateException("Pipeline already started");
+        return settings.get(step);
+    }
+
+    /**
+     * Creates the stages from their settings and starts their workers.
+     *
+     * @return this pipeline
+     */
+    public GenerationPipeline start() {
+        if (pipeline != null) throw new IllegalStateException("Pipeline already started");
+        pipeline = new Pipeline().setFailureHandler(e -> failAll(new IOException("Generation pipeline failed", e)));
+
+        analyze = pipeline.source(stage(Step.ANALYZE, (requests, emit) -> {
+            for (Request request : requests) {
+                if (!request.isOpen()) continue;
+                WordBuckets buckets;
+                try {
+                    buckets = call(request, () -> app.analyzeNormalized(request.api, request.text)).newBuckets();
+                } catch (IOException | RuntimeException e) {
+                    request.done.completeExceptionally(e);
+                    continue;
+                }
+                emit.emit(new Analyzed(request, buckets));
+            }
+        }));
+
+        Stage<Analyzed, Planned> plan = pipeline.then(analyze, stage(Step.PLAN,
+                (analyzed, emit) -> {
+                    for (Analyzed item : analyzed) {
+                        if (!item.request.isOpen()) continue;
+                        List<SentencePlan> plans;
+                        try {
+                            plans = app.plan(item.buckets, item.request.rng);
+                        } catch (RuntimeException e) {
+                            item.request.done.completeExceptionally(e);
+                            continue;
+                        }
+                        emit.emit(new Planned(item.request, plans));
+                    }
+                }));
+
+        Stage<Planned, Rendered> render = pipeline.then(plan, stage(Step.RENDER,
+                (planned, emit) -> {
+                    // Render the requests of each class in the batch under one scheduler slot of
+                    // that class, interactive first, then hand them on without the slot
+                    List<Rendered> rendered = new ArrayList<>(planned.size());
+                    PriorityScheduler scheduler = app.getRenderScheduler();
+                    try {
+                        for (PriorityScheduler.Priority priority : PriorityScheduler.Priority.values()) {
+                            List<Planned> group = planned.stream()
+                                    .filter(item -> item.request.priority == priority)
+                                    .toList();
+                            if (group.isEmpty()) continue;
+                            if (scheduler == null) renderAll(group, rendered);
+                            else scheduler.run(priority, () -> renderAll(group, rendered));
+                        }
+                    } catch (IOException e) {
+                        for (Planned item : planned) item.request.done.completeExceptionally(e);
+                        return;
+                    }
+                    for (Rendered item : rendered) emit.emit(item);
+                }));
+
+        pipeline.then(render, this.<Rendered, Void>stage(Step.MODERATE, (rendered, emit) -> {
+            for (Rendered item : rendered) moderate(item);
+        }));
+
+        pipeline.start();
+        return this;
+    }
+
+    /**
+     * Makes a Language API call of the request on this worker, unless the request was
+     * cancelled. Cancelling it during the call interrupts the call; the worker then
+     * goes on with the next requests.
+     */
+    private <T> T call(Request request, SingleFlight.Call<T> call) throws IOException {
+        synchronized (request) {
+            if (!request.isOpen()) throw new InterruptedIOException("Request cancelled");
+            request.calling = Thread.currentThread();
+        }
+        try {
+            return call.call();
+        } finally {
+            synchronized (request) {
+                request.calling = null;
+                // Clear the interrupt meant for the call, unless the workers are being stopped too
+                if (request.cancelled && Thread.interrupted() && pipeline.isAborted()) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+    }
+
+    private void failAll(IOException e) {
+        for (Request request : inFlight) request.done.completeExceptionally(e);
+    }
+
+    private <I, O> Stage<I, O> stage(Step step, Stage.BatchWorker<I, O> worker) {
+        StageSettings s = settings.get(step);
+        Stage<I, O> stage = new Stage<>(step.name().toLowerCase(), s.threads, s.queueCapacity, s.maxBatch, worker)
+                .setThreadFactory(s.threadFactory);
+        stages.put(step, stage);
+        return stage;
+    }
+
+    private List<Rendered> renderAll(List<Planned> planned, List<Rendered> rendered) {
+        for (Planned item : planned) {
+            if (!item.request.isOpen()) continue;
+            try {
+                List<SentenceResult> drafts = new ArrayList<>(item.plans.size());
+                for (SentencePlan p : item.plans) {
+                    drafts.add(new SentenceResult(p.getTemplate(), p.render(), Double.NaN));
+                }
+                rendered.add(new Rendered(item.request, drafts));
+            } catch (RuntimeException e) {
+                item.request.done.completeExceptionally(e);
+            }
+        }
+        return rendered;
+    }
+
+    private void moderate(Rendered item) {
+        Request request = item.request;
+        try {
+            for (SentenceResult draft : item.drafts) {
+                if (!request.isOpen()) return;
+                request.listener.onResult(call(request, () -> app.moderate(request.api, draft, request.moderation)));
+            }
+            request.done.complete(item.drafts.size());
+        } catch (IOException | RuntimeException e) {
+            request.done.completeExceptionally(e);
+        }
+    }
+
+    /**
+     * Generates on the stages and waits for the outcome; see
+     * {@link App#generate(LanguageClient, String, RandomGenerator, Moderation, App.ResultListener)}.
+     * The listener is called from the moderation workers. If the caller is interrupted,
+     * the request is dropped at its next stage and its Language API call in flight is cancelled.
+     *
+     * @param api         the Language API facade to call
+     * @param text        the source text to analyze and remix
+     * @param rng         the request's random source
+     * @param moderation  whether and how the sentences are moderated
+     * @param listener    receives the sentences in order
+     * @return            the number of sentences generated
+     * @throws IOException if an API call or the listener fails
+     * @throws InterruptedIOException if interrupted while waiting
+     * @throws IllegalArgumentException if the input is invalid
+     * @throws IllegalStateException if the pipeline is not running or has failed
+     */
+    public int generate(LanguageClient api, String text, RandomGenerator rng, Moderation moderation,
+                        ResultListener listener) throws IOException {
+        String normalized = App.validate(text);
+        Request request = new Request(api, normalized, rng, moderation, listener);
+        try {
+            closing.readLock().lock();
+            try {
+                if (pipeline == null || closed) throw new IllegalStateException("Pipeline is not running");
+                if (pipeline.getFailure() != null) {
+                    throw new IllegalStateException("Pipeline failed", pipeline.getFailure());
+                }
+                inFlight.add(request);
+                request.done.whenComplete((n, e) -> inFlight.remove(request));
+                try {
+                    analyze.put(request);
+                } catch (PipelineException e) {
+                    request.done.completeExceptionally(new IOException("Generation pipeline failed", e));
+                }
+                // A stage may have failed after the check above but before the request was tracked
+                if (pipeline.getFailure() != null) {
+                    request.done.completeExceptionally(new IOException("Generation pipeline failed", pipeline.getFailure()));
+                }
+            } finally {
+                closing.readLock().unlock();
+            }
+            return request.done.get();
+        } catch (InterruptedException e) {
+            request.cancel();
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while generating");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException io) throw io;
+            if (cause instanceof RuntimeException re) throw re;
+            if (cause instanceof Error err) throw err;
+            throw new IOException(cause);
+        }
+    }
+
+    /**
+     * @param step  a stage of the pipeline
+     * @return      the running stage, for its statistics
+     */
+    public Stage<?, ?> getStage(Step step) {
+        if (pipeline == null) throw new IllegalStateException("Pipeline not started");
+        return stages.get(step);
+    }
+
+    /**
+     * Stops taking requests, lets the queued ones finish and stops the workers.
+     * If interrupted while the stages drain, the workers are stopped at once, the
+     * requests still inside fail and the interrupt flag is kept. A stage failure has
+     * been reported to the callers already and is not thrown again.
+     */
+    @Override
+    public void close() {
+        try {
+            closing.writeLock().lock();
+            try {
+                if (pipeline == null || closed) return;
+                closed = true;
+                analyze.close();
+            } finally {
+                closing.writeLock().unlock();
+            }
+            pipeline.await();
+        } catch (InterruptedException e) {
+            pipeline.abort();
+            Thread.currentThread().interrupt();
+        } catch (PipelineException e) {
+            // Already failed every request inside
+        } finally {
+            failAll(new IOException("Generation pipeline closed"));
+        }
+    }
+}
@@ -0,0 +1,461 @@
+package org.example;
+
+import org.example.App.Moderation;
+import org.example.App.SentenceResult;
+import org.example.Cli.JsonResult;
+import org.example.pipeline.Stage;
+import org.example.words.WordUtil;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.random.RandomGenerator;
+
+/**
+ * The generator as an HTTP service, on the JDK's built-in server.
+ * <p>
+ * Every request runs on its own virtual thread, so requests blocked on the
+ * Language API cost no platform thread. All requests share one {@link App}
+ * (lexicon and analysis cache) and one {@link LanguageClient} (gRPC clients).
+ * At most a fixed number of generations run at a time; requests beyond that
+ * are shed at once with 503 instead of queueing behind the API.
+ * <p>
+ * {@code POST /generate} takes {@code {"text": "...", "seed": 42, "moderation": "on|off|best-effort"}},
+ * where only the text is required, and answers
+ * {@code {"results": [{"structure": "...", "sentence": "...", "toxicity": 0.12}]}}
+ * or {@code {"error": "..."}}. {@code GET /health} answers 200 while the server runs, with
+ * the number of Language API calls saved by sharing identical calls in flight.
+ * <p>
+ * {@code POST /generate/stream} takes the same request, or {@code GET /generate/stream?text=...&seed=...}
+ * for browsers' {@code EventSource}, and answers with server-sent events: one {@code result}
+ * event per sentence as soon as it is moderated, then {@code done}, or {@code error} if the
+ * generation fails after the stream started. Heartbeat comments keep idle connections open
+ * and find out when the client has gone, in which case the sentences left are not moderated
+ * and the moderation call in flight is cancelled, also when generations run on a pipeline.
+ * Other paths, such as {@code /generate/x}, answer 404.
+ */
+public class GenerationServer {
+
+    /** Largest request body accepted, in bytes. */
+    public static final int MAX_BODY_BYTES = 64 * 1024;
+
+    /** Default time between heartbeats of an event stream, in milliseconds. */
+    public static final long HEARTBEAT_MILLIS = 15_000;
+
+    // JSON shapes of the generate request and response
+    private static final class GenerateRequest {
+        String text;
+        Long seed;
+        String moderation;
+
+        Moderation moderation() {
+            return moderation == null ? Moderation.ON
+                    : Moderation.valueOf(moderation.toUpperCase(Locale.ROOT).replace('-', '_'));
+        }
+
+        RandomGenerator rng() {
+            return seed == null ? WordUtil.RandomSource() : WordUtil.RandomSource(seed);
+        }
+    }
+
+    private static final class GenerateResponse {
+        List<JsonResult> results;
+        String error;
+    }
+
+    private static final class DoneEvent {
+        int count;
+    }
+
+    private static final class Health {
+        final String status = "ok";
+        final long analysisCallsSaved;
+        final long moderationCallsSaved;
+        // Present when generations run on a pipeline
+        final List<StageHealth> stages;
+
+        Health(App app) {
+            analysisCallsSaved = app.getAnalysisCallsSaved();
+            moderationCallsSaved = app.getModerationCallsSaved();
+            GenerationPipeline pipeline = app.getPipeline();
+            if (pipeline == null) {
+                stages = null;
+            } else {
+                stages = new ArrayList<>();
+                for (GenerationPipeline.Step step : GenerationPipeline.Step.values()) {
+                    stages.add(new StageHealth(pipeline.getStage(step)));
+                }
+            }
+        }
+    }
+
+    private static final class StageHealth {
+        final String name;
+        final int threads;
+        final int queued;
+        final int maxQueued;
+        final long processed;
+        final long batches;
+        final double busyMillis;
+
+        StageHealth(Stage<?, ?> stage) {
+            name = stage.getName();
+            threads = stage.getParallelism();
+            queued = stage.getQueued();
+            maxQueued = stage.getMaxQueued();
+            processed = stage.getProcessed();
+            batches = stage.getBatches();
+            busyMillis = stage.getBusyMillis();
+        }
+    }
+
+    private static final Gson GSON = new Gson();
+
+    private final App app;
+    private final LanguageClient api;
+    private final Semaphore inFlight;
+    private final HttpServer server;
+    private final ExecutorService requestThreads = Executors.newVirtualThreadPerTaskExecutor();
+
+    private final AtomicLong served = new AtomicLong();
+    private final AtomicLong shed = new AtomicLong();
+    private final AtomicLong cancelled = new AtomicLong();
+    private long heartbeatMillis = HEARTBEAT_MILLIS;
+
+    /**
+     * @param app          shared by all requests
+     * @param api          Language API used for analysis and moderation, shared by all requests
+     * @param port         port to listen on, or 0 for any free port
+     * @param maxInFlight  generations allowed to run at the same time
+     * @throws IOException if the port cannot be bound
+     */
+    public GenerationServer(App app, LanguageClient api, int port, int maxInFlight) throws IOException {
+        if (maxInFlight < 1) throw new IllegalArgumentException("Max in-flight requests must be positive");
+        this.app = app;
+        this.api = api;
+        this.inFlight = new Semaphore(maxInFlight);
+        this.server = HttpServer.create(new InetSocketAddress(port), 0);
+        server.setExecutor(requestThreads);
+        server.createContext("/generate", exchange -> handle(exchange, false));
+        server.createContext("/generate/stream", exchange -> handle(exchange, true));
+        server.createContext("/health", exchange -> {
+            try (exchange) {
+                if (!isPath(exchange, "/health")) return;
+                send(exchange, 200, GSON.toJson(new Health(app)));
+            }
+        });
+    }
+
+    /** @param heartbeatMillis time between heartbeats of an event stream */
+    public GenerationServer setHeartbeatMillis(long heartbeatMillis) {
+        if (heartbeatMillis < 1) throw new IllegalArgumentException("Heartbeat interval must be positive");
+        this.heartbeatMillis = heartbeatMillis;
+        return this;
+    }
+
+    /** Starts accepting requests. */
+    public void start() {
+        server.start();
+    }
+
+    /**
+     * Stops accepting requests and waits up to the delay for running ones to finish.
+     *
+     * @param delaySeconds longest wait for running requests
+     */
+    public void stop(int delaySeconds) {
+        server.stop(delaySeconds);
+        requestThreads.shutdownNow();
+    }
+
+    /** @return the port the server listens on */
+    public int getPort() { return server.getAddress().getPort(); }
+
+    /** @return the number of generate requests admitted, whatever their outcome */
+    public long getServed() { return served.get(); }
+
+    /** @return the number of generate requests shed with 503 */
+    public long getShed() { return shed.get(); }
+
+    /** @return the number of event streams stopped early because the client went away */
+    public long getCancelled() { return cancelled.get(); }
+
+    private void handle(HttpExchange exchange, boolean streaming) throws IOException {
+        try (exchange) {
+            if (!isPath(exchange, streaming ? "/generate/stream" : "/generate")) return;
+            String method = exchange.getRequestMethod();
+            if (!method.equals("POST") && !(streaming && method.equals("GET"))) {
+                exchange.getResponseHeaders().set("Allow", streaming ? "GET, POST" : "POST");
+                sendError(exchange, 405, streaming ? "Use GET or POST" : "Use POST");
+                return;
+            }
+            // Shed load at once rather than queue: a queued request would only time out later
+            if (!inFlight.tryAcquire()) {
+                shed.incrementAndGet();
+                exchange.getResponseHeaders().set("Retry-After", "1");
+                sendError(exchange, 503, "Too many requests in flight");
+                return;
+            }
+            try {
+                served.incrementAndGet();
+                if (streaming) stream(exchange);
+                else generate(exchange);
+            } finally {
+                inFlight.release();
+            }
+        }
+    }
+
+    private void generate(HttpExchange exchange) throws IOException {
+        GenerateRequest request = readRequest(exchange);
+        if (request == null) return;
+
+        List<SentenceResult> results;
+        try {
+            results = app.generate(api, request.text, request.rng(), request.moderation());
+        } catch (IllegalArgumentException e) {
+            sendError(exchange, 400, e.getMessage());
+            return;
+        } catch (InterruptedIOException e) {
+            sendError(exchange, 503, "Server shutting down");
+            return;
+        } catch (IOException | RuntimeException e) {
+            // The Language API failed or was unreachable
+            sendError(exchange, 502, "Language API error: " + e.getMessage());
+            return;
+        }
+        GenerateResponse response = new GenerateResponse();
+        response.results = JsonResult.of(results);
+        send(exchange, 200, GSON.toJson(response));
+    }
+
+    private void stream(HttpExchange exchange) throws IOException {
+        GenerateRequest request = readRequest(exchange);
+        if (request == null) return;
+
+        exchange.getResponseHeaders().set("Content-Type", "text/event-stream; charset=utf-8");
+        exchange.getResponseHeaders().set("Cache-Control", "no-cache");
+        exchange.sendResponseHeaders(200, 0);
+        EventStream events = new EventStream(exchange.getResponseBody(), Thread.currentThread());
+        events.startHeartbeats(heartbeatMillis);
+        try {
+            int[] id = {0};
+            DoneEvent done = new DoneEvent();
+            done.count = app.generate(api, request.text, request.rng(), request.moderation(),
+                    result -> events.send("result", id[0]++, GSON.toJson(JsonResult.of(result))));
+            events.send("done", id[0], GSON.toJson(done));
+        } catch (IOException | RuntimeException e) {
+            if (events.isDisconnected()) {
+                // The client went away: the moderation calls left were skipped or cancelled
+                cancelled.incrementAndGet();
+            } else {
+                GenerateResponse response = new GenerateResponse();
+                response.error = e instanceof InterruptedIOException ? "Server shutting down"
+                        : e instanceof IllegalArgumentException ? e.getMessage()
+                        : "Language API error: " + e.getMessage();
+                events.sendQuietly("error", GSON.toJson(response));
+            }
+        } finally {
+            events.close();
+            // The heartbeat may have interrupted this thread after the client went away
+            Thread.interrupted();
+        }
+    }
+
+    /**
+     * Contexts match every path under them, so {@code /generateX} would reach {@code /generate}.
+     * Answers 404 unless the path is exactly the given one.
+     */
+    private static boolean isPath(HttpExchange exchange, String path) throws IOException {
+        if (exchange.getRequestURI().getPath().equals(path)) return true;
+        sendError(exchange, 404, "Not found");
+        return false;
+    }
+
+    /**
+     * Reads and checks the request from the body, or from the query string of a GET.
+     * On a bad request, answers it and returns null.
+     */
+    private static GenerateRequest readRequest(HttpExchange exchange) throws IOException {
+        GenerateRequest request;
+        try {
+            if (exchange.getRequestMethod().equals("GET")) {
+                request = fromQuery(exchange.getRequestURI().getRawQuery());
+            } else {
+                byte[] body = readBody(exchange.getRequestBody());
+                if (body == null) {
+                    sendError(exchange, 413, "Request body over " + MAX_BODY_BYTES + " bytes");
+                    return null;
+                }
+                request = GSON.fromJson(new String(body, StandardCharsets.UTF_8), GenerateRequest.class);
+                if (request == null) throw new JsonParseException("Empty request");
+            }
+            request.moderation();
+        } catch (JsonParseException | IllegalArgumentException e) {
+            sendError(exchange, 400, "Invalid request: " + e.getMessage());
+            return null;
+        }
+        try {
+            App.validate(request.text);
+        } catch (IllegalArgumentException e) {
+            sendError(exchange, 400, e.getMessage());
+            return null;
+        }
+        return request;
+    }
+
+    private static GenerateRequest fromQuery(String query) {
+        GenerateRequest request = new GenerateRequest();
+        if (query == null) return request;
+        for (String pair : query.split("&")) {
+            int eq = pair.indexOf('=');
+            String name = URLDecoder.decode(eq < 0 ? pair : pair.substring(0, eq), StandardCharsets.UTF_8);
+            String value = eq < 0 ? "" : URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8);
+            switch (name) {
+                case "text"       -> request.text = value;
+                case "seed"       -> request.seed = Long.parseLong(value);
+                case "moderation" -> request.moderation = value;
+                default -> { }
+            }
+        }
+        return request;
+    }
+
+    // Returns null if the body is larger than the limit
+    private static byte[] readBody(InputStream in) throws IOException {
+        byte[] body = in.readNBytes(MAX_BODY_BYTES + 1);
+        return body.length > MAX_BODY_BYTES ? null : body;
+    }
+
+    private static void sendError(HttpExchange exchange, int status, String message) throws IOException {
+        GenerateResponse response = new GenerateResponse();
+        response.error = message;
+        send(exchange, status, GSON.toJson(response));
+    }
+
+    private static void send(HttpExchange exchange, int status, String json) throws IOException {
+        byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    /**
+     * The events of one stream. The generating thread and the heartbeat thread write
+     * in turn; when a write fails the client has gone, and the generating thread is
+     * interrupted so that its pending Language API call is cancelled.
+     */
+    private static final class EventStream {
+        private final OutputStream out;
+        private final Thread worker;
+        private Thread heartbeat;
+        private boolean closed;
+        private volatile boolean disconnected;
+
+        EventStream(OutputStream out, Thread worker) {
+            this.out = out;
+            this.worker = worker;
+        }
+
+        void startHeartbeats(long millis) {
+            heartbeat = Thread.ofVirtual().name("Sse-Heartbeat").start(() -> {
+                try {
+                    while (true) {
+                        Thread.sleep(millis);
+                        synchronized (this) {
+                            if (closed) return;
+                            try {
+                                write(": heartbeat\n\n");
+                            } catch (IOException e) {
+                                // Interrupt while still holding the lock, so never after close
+                                worker.interrupt();
+                                return;
+                            }
+                        }
+                    }
+                } catch (InterruptedException e) {
+                    // The stream is closed
+                }
+            });
+        }
+
+        synchronized void send(String event, int id, String json) throws IOException {
+            write("id: " + id + "\nevent: " + event + "\ndata: " + json + "\n\n");
+        }
+
+        synchronized void sendQuietly(String event, String json) {
+            try {
+                write("event: " + event + "\ndata: " + json + "\n\n");
+            } catch (IOException e) {
+                // The client went away, nobody is left to tell
+            }
+        }
+
+        boolean isDisconnected() { return disconnected; }
+
+        /** Stops the heartbeats; called with no write running, so the interrupt cannot close the socket. */
+        synchronized void close() {
+            closed = true;
+            if (heartbeat != null) heartbeat.interrupt();
+        }
+
+        private void write(String text) throws IOException {
+            try {
+                out.write(text.getBytes(StandardCharsets.UTF_8));
+                out.flush();
+            } catch (IOException e) {
+                disconnected = true;
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * Server mode.
+     * Usage: GenerationServer [--port N] [--max-in-flight N] [--staged]
+     */
+    public static void main(String[] args) throws Exception {
+        int port = 8080;
+        int maxInFlight = 64;
+        boolean staged = false;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--port"          -> port = Integer.parseInt(args[++i]);
+                case "--max-in-flight" -> maxInFlight = Integer.parseInt(args[++i]);
+                case "--staged"        -> staged = true;
+                default -> throw new IllegalArgumentException("Unknown option: " + args[i]);
+            }
+        }
+        LanguageApi api = new LanguageApi(GoogleCredentialsProvider.getProvider());
+        App app = new App();
+        GenerationPipeline pipeline = staged ? new GenerationPipeline(app).start() : null;
+        app.setPipeline(pipeline);
+        GenerationServer server = new GenerationServer(app, app.schedule(api, PriorityScheduler.Priority.INTERACTIVE),
+                port, maxInFlight);
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            server.stop(5);
+            if (pipeline != null) pipeline.close();
+            api.close();
+        }, "Server-Shutdown"));
+        server.start();
+        System.out.printf("Listening on port %d, at most %d generations in flight%n", server.getPort(), maxInFlight);
+    }
+}
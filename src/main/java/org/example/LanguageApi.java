@@ -0,0 +1,145 @@
+package org.example;
+
+import com.google.api.core.ApiFuture;
+import com.google.api.gax.core.FixedCredentialsProvider;
+import com.google.cloud.language.v1.*;
+import com.google.cloud.language.v1beta2.ClassificationCategory;
+import com.google.cloud.language.v1beta2.ModerateTextRequest;
+import com.google.cloud.language.v1beta2.ModerateTextResponse;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Facade over the two Google Cloud Language clients used by the generator:
+ * v1 for syntax analysis and v1beta2 for text moderation.
+ * Each client is created on first use and then reused; the clients are
+ * thread-safe, so one instance can serve many parallel callers.
+ * <p>
+ * Calls wait interruptibly: interrupting the calling thread cancels the pending
+ * RPC, so an abandoned request stops using the connection and the quota.
+ */
+public class LanguageApi implements LanguageClient, AutoCloseable {
+    private final FixedCredentialsProvider credsProvider;
+    private LanguageServiceClient syntaxClient;
+    private com.google.cloud.language.v1beta2.LanguageServiceClient moderationClient;
+
+    /**
+     * @param credsProvider credentials used by both clients
+     */
+    public LanguageApi(FixedCredentialsProvider credsProvider) {
+        this.credsProvider = credsProvider;
+    }
+
+    /**
+     * Runs Google syntax analysis on the given text.
+     *
+     * @param text plain text to analyze
+     * @return the tokens with their part-of-speech tags
+     * @throws IOException if the client cannot be created
+     * @throws InterruptedIOException if the thread was interrupted and the call cancelled
+     */
+    @Override
+    public AnalyzeSyntaxResponse analyzeSyntax(String text) throws IOException {
+        return await(syntaxClient().analyzeSyntaxCallable().futureCall(
+                AnalyzeSyntaxRequest.newBuilder()
+                        .setDocument(Document.newBuilder()
+                                .setContent(text)
+                                .setType(Document.Type.PLAIN_TEXT)
+                                .build())
+                        .setEncodingType(EncodingType.UTF16)
+                        .build()
+        ));
+    }
+
+    /**
+     * Scores the toxicity of one sentence with Google text moderation.
+     *
+     * @param sentence the sentence to moderate
+     * @return the confidence of the "Toxic" category, or 0.0 if it is absent
+     * @throws IOException if the client cannot be created
+     * @throws InterruptedIOException if the thread was interrupted and the call cancelled
+     */
+    @Override
+    public double moderate(String sentence) throws IOException {
+        var outDoc = com.google.cloud.language.v1beta2.Document.newBuilder()
+                .setContent(sentence)
+                .setType(com.google.cloud.language.v1beta2.Document.Type.PLAIN_TEXT)
+                .build();
+        ModerateTextResponse modResp = await(moderationClient().moderateTextCallable().futureCall(
+                ModerateTextRequest.newBuilder().setDocument(outDoc).build()));
+        return toxicityOf(modResp);
+    }
+
+    /**
+     * Waits for a call to complete. If the waiting thread is interrupted, the call
+     * is cancelled, which cancels the underlying gRPC call, and the interrupt is kept.
+     *
+     * @param call the pending call
+     * @return the call's response
+     * @throws InterruptedIOException if the thread was interrupted
+     */
+    static <T> T await(ApiFuture<T> call) throws IOException {
+        try {
+            return call.get();
+        } catch (InterruptedException e) {
+            call.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Language API call cancelled");
+        } catch (ExecutionException e) {
+            // Same exceptions as the blocking calls, which throw the ApiException itself
+            if (e.getCause() instanceof RuntimeException cause) throw cause;
+            throw new IOException(e.getCause());
+        }
+    }
+
+    /**
+     * Extracts the toxicity score from a moderation response.
+     *
+     * @param modResp the moderation response
+     * @return the confidence of the "Toxic" category, or 0.0 if it is absent
+     */
+    static double toxicityOf(ModerateTextResponse modResp) {
+        return modResp.getModerationCategoriesList().stream()
+                .filter(c -> "Toxic".equalsIgnoreCase(c.getName()))
+                .mapToDouble(ClassificationCategory::getConfidence)
+                .findFirst().orElse(0.0);
+    }
+
+    private synchronized LanguageServiceClient syntaxClient() throws IOException {
+        if (syntaxClient == null) {
+            LanguageServiceSettings v1settings = LanguageServiceSettings.newBuilder()
+                    .setCredentialsProvider(credsProvider)
+                    .build();
+            syntaxClient = LanguageServiceClient.create(v1settings);
+        }
+        return syntaxClient;
+    }
+
+    private synchronized com.google.cloud.language.v1beta2.LanguageServiceClient moderationClient()
+            throws IOException {
+        if (moderationClient == null) {
+            var betaSettings = com.google.cloud.language.v1beta2.LanguageServiceSettings.newBuilder()
+                    .setCredentialsProvider(credsProvider)
+                    .build();
+            moderationClient = com.google.cloud.language.v1beta2.LanguageServiceClient.create(betaSettings);
+        }
+        return moderationClient;
+    }
+
+    /**
+     * Shuts down whichever clients were created.
+     */
+    @Override
+    public synchronized void close() {
+        if (syntaxClient != null) {
+            syntaxClient.close();
+            syntaxClient = null;
+        }
+        if (moderationClient != null) {
+            moderationClient.close();
+            moderationClient = null;
+        }
+    }
+}
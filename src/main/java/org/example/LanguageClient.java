@@ -0,0 +1,34 @@
+package org.example;
+
+import com.google.cloud.language.v1.AnalyzeSyntaxResponse;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+
+/**
+ * The two Language API calls the generator makes. {@link LanguageApi} sends them
+ * to Google; views such as {@link ScheduledLanguageApi} wrap another client.
+ * Implementations must be thread-safe.
+ */
+public interface LanguageClient {
+
+    /**
+     * Runs syntax analysis on the given text, with UTF-16 offsets.
+     *
+     * @param text plain text to analyze
+     * @return the tokens with their part-of-speech tags
+     * @throws IOException if the call fails
+     * @throws InterruptedIOException if the thread was interrupted and the call cancelled
+     */
+    AnalyzeSyntaxResponse analyzeSyntax(String text) throws IOException;
+
+    /**
+     * Scores the toxicity of one sentence.
+     *
+     * @param sentence the sentence to moderate
+     * @return the confidence of the "Toxic" category, or 0.0 if it is absent
+     * @throws IOException if the call fails
+     * @throws InterruptedIOException if the thread was interrupted and the call cancelled
+     */
+    double moderate(String sentence) throws IOException;
+}
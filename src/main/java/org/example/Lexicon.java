@@ -0,0 +1,47 @@
+package org.example;
+
+import org.example.SentenceStructures.SentenceStructureInfo;
+import org.example.SentenceStructures.SentenceStructures;
+import org.example.words.*;
+
+import java.util.List;
+
+/**
+ * The fallback dictionaries and sentence templates, loaded once and shared
+ * by every request. All members are read-only after construction.
+ */
+public class Lexicon {
+    private final Nouns nounList = new Nouns();
+    private final Verbs verbList = new Verbs();
+    private final Adjectives adjectiveList = new Adjectives();
+    private final Adverbs adverbList = new Adverbs();
+    private final Articles articleList = new Articles();
+    private final Pronouns pronounList = new Pronouns();
+    private final SentenceStructures sentenceStructures = new SentenceStructures();
+
+    /**
+     * Returns the dictionary that fills the given placeholder.
+     *
+     * @param placeholder e.g. "[noun]"
+     * @return the matching word list
+     * @throws IllegalArgumentException if the placeholder is unknown
+     */
+    public WordList get(String placeholder) {
+        return switch (placeholder) {
+            case "[noun]"      -> nounList;
+            case "[verb]"      -> verbList;
+            case "[adjective]" -> adjectiveList;
+            case "[adverb]"    -> adverbList;
+            case "[article]"   -> articleList;
+            case "[pronoun]"   -> pronounList;
+            default -> throw new IllegalArgumentException("Unknown placeholder: " + placeholder);
+        };
+    }
+
+    /**
+     * @return all sentence templates with their placeholder counts
+     */
+    public List<SentenceStructureInfo> getStructures() {
+        return sentenceStructures.getStructures();
+    }
+}
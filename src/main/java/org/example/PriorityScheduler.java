@@ -0,0 +1,217 @@
+package org.example;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Admission control for a shared resource, such as the Google API clients or the
+ * render workers, between interactive and batch work.
+ * <p>
+ * At most a fixed number of tasks run at a time, on their callers' threads. Tasks
+ * beyond that wait in one FIFO queue per class. When a slot frees and both classes
+ * are waiting, the slot goes to the class furthest behind its weighted share
+ * (stride scheduling), so a batch flood slows interactive work by its weight at
+ * most. Some slots are reserved for interactive work: batch tasks never hold them,
+ * so an interactive task always starts within one task's time.
+ * <p>
+ * The time every task spent queued is recorded per class.
+ */
+public class PriorityScheduler {
+
+    /** Workload classes, each with its own queue. */
+    public enum Priority {
+        /** UI and service requests: someone is waiting for the answer. */
+        INTERACTIVE,
+        /** Bulk jobs: throughput matters, latency does not. */
+        BATCH
+    }
+
+    /** A task run once a slot is granted. */
+    @FunctionalInterface
+    public interface Task<T> {
+        T run() throws IOException;
+    }
+
+    /** A queued task, woken when granted a slot. */
+    private static final class Waiter {
+        final Condition granted;
+        final long queuedAt = System.nanoTime();
+        boolean running;
+
+        Waiter(Condition granted) {
+            this.granted = granted;
+        }
+    }
+
+    /** Queue, share and statistics of one class. */
+    private static final class ClassState {
+        final Deque<Waiter> queue = new ArrayDeque<>();
+        final double stride;
+        double pass;
+        int running;
+        long started;
+        long waitNanos;
+        long maxWaitNanos;
+
+        ClassState(int weight) {
+            this.stride = 1.0 / weight;
+        }
+    }
+
+    private final int maxConcurrent;
+    private final int reservedInteractive;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Map<Priority, ClassState> classes = new EnumMap<>(Priority.class);
+    // Pass of the last task granted
+    private double virtualTime;
+
+    /**
+     * @param maxConcurrent        tasks allowed to run at the same time
+     * @param reservedInteractive  slots batch tasks never hold
+     * @param interactiveWeight    share of the interactive class when both are waiting
+     * @param batchWeight          share of the batch class when both are waiting
+     */
+    public PriorityScheduler(int maxConcurrent, int reservedInteractive, int interactiveWeight, int batchWeight) {
+        if (maxConcurrent < 1) throw new IllegalArgumentException("Concurrency must be positive");
+        if (reservedInteractive < 0 || reservedInteractive >= maxConcurrent) {
+            throw new IllegalArgumentException("Reserved slots must leave at least one slot for batch work");
+        }
+        if (interactiveWeight < 1 || batchWeight < 1) throw new IllegalArgumentException("Weights must be positive");
+        this.maxConcurrent = maxConcurrent;
+        this.reservedInteractive = reservedInteractive;
+        classes.put(Priority.INTERACTIVE, new ClassState(interactiveWeight));
+        classes.put(Priority.BATCH, new ClassState(batchWeight));
+    }
+
+    /**
+     * Waits for a slot in the class's turn, then runs the task on this thread.
+     *
+     * @param priority  the task's class
+     * @param task      the work to do while holding the slot
+     * @return          the task's result
+     * @throws IOException as thrown by the task
+     * @throws InterruptedIOException if interrupted while queued; the task is not run
+     */
+    public <T> T run(Priority priority, Task<T> task) throws IOException {
+        acquire(priority);
+        try {
+            return task.run();
+        } finally {
+            release(priority);
+        }
+    }
+
+    private void acquire(Priority priority) throws InterruptedIOException {
+        ClassState state = classes.get(priority);
+        lock.lock();
+        try {
+            Waiter waiter = new Waiter(lock.newCondition());
+            // A class coming back from idle starts at the current virtual time,
+            // with neither credit nor debt from before
+            if (state.queue.isEmpty()) state.pass = virtualTime;
+            state.queue.add(waiter);
+            dispatch();
+            while (!waiter.running) {
+                try {
+                    waiter.granted.await();
+                } catch (InterruptedException e) {
+                    if (waiter.running) {
+                        // Granted meanwhile: hand the slot on
+                        state.running--;
+                        dispatch();
+                    } else {
+                        state.queue.remove(waiter);
+                    }
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException("Interrupted while queued");
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void release(Priority priority) {
+        lock.lock();
+        try {
+            classes.get(priority).running--;
+            dispatch();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Grants free slots to the eligible class with the lowest pass; called holding the lock
+    private void dispatch() {
+        ClassState interactive = classes.get(Priority.INTERACTIVE);
+        ClassState batch = classes.get(Priority.BATCH);
+        while (interactive.running + batch.running < maxConcurrent) {
+            boolean interactiveReady = !interactive.queue.isEmpty();
+            boolean batchReady = !batch.queue.isEmpty() && batch.running < maxConcurrent - reservedInteractive;
+            ClassState next;
+            if (interactiveReady && batchReady) next = interactive.pass <= batch.pass ? interactive : batch;
+            else if (interactiveReady) next = interactive;
+            else if (batchReady) next = batch;
+            else return;
+
+            Waiter waiter = next.queue.poll();
+            long waited = System.nanoTime() - waiter.queuedAt;
+            virtualTime = next.pass;
+            next.pass += next.stride;
+            next.running++;
+            next.started++;
+            next.waitNanos += waited;
+            next.maxWaitNanos = Math.max(next.maxWaitNanos, waited);
+            waiter.running = true;
+            waiter.granted.signal();
+        }
+    }
+
+    /** @return the number of tasks of the class started so far */
+    public long getStarted(Priority priority) {
+        lock.lock();
+        try {
+            return classes.get(priority).started;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** @return the number of tasks of the class waiting for a slot */
+    public int getQueued(Priority priority) {
+        lock.lock();
+        try {
+            return classes.get(priority).queue.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** @return the mean time the started tasks of the class spent queued, in milliseconds */
+    public double getMeanQueueWaitMillis(Priority priority) {
+        lock.lock();
+        try {
+            ClassState state = classes.get(priority);
+            return state.started == 0 ? 0 : state.waitNanos / (double) state.started / TimeUnit.MILLISECONDS.toNanos(1);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** @return the longest time a started task of the class spent queued, in milliseconds */
+    public double getMaxQueueWaitMillis(Priority priority) {
+        lock.lock();
+        try {
+            return classes.get(priority).maxWaitNanos / (double) TimeUnit.MILLISECONDS.toNanos(1);
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package org.example;
+
+import org.example.PriorityScheduler.Priority;
+
+import com.google.cloud.language.v1.AnalyzeSyntaxResponse;
+
+import java.io.IOException;
+
+/**
+ * View of a Language API client for one workload class: every call waits for a
+ * slot of the shared {@link PriorityScheduler} before it is sent. Views of several
+ * classes can wrap the same client, so they share its connections.
+ * <p>
+ * The view does not own the client, which is closed by whoever created it.
+ */
+public class ScheduledLanguageApi implements LanguageClient {
+    private final LanguageClient api;
+    private final PriorityScheduler scheduler;
+    private final Priority priority;
+
+    /**
+     * @param api        the client making the calls
+     * @param scheduler  shared by all the workloads calling the facade
+     * @param priority   the class of this view's calls
+     */
+    public ScheduledLanguageApi(LanguageClient api, PriorityScheduler scheduler, Priority priority) {
+        this.api = api;
+        this.scheduler = scheduler;
+        this.priority = priority;
+    }
+
+    @Override
+    public AnalyzeSyntaxResponse analyzeSyntax(String text) throws IOException {
+        return scheduler.run(priority, () -> api.analyzeSyntax(text));
+    }
+
+    @Override
+    public double moderate(String sentence) throws IOException {
+        return scheduler.run(priority, () -> api.moderate(sentence));
+    }
+
+    /** @return the class of this view's calls */
+    public Priority getPriority() { return priority; }
+
+    /**
+     * @param api  a client, scheduled or not
+     * @return     the class of the client's calls; interactive if it is not a scheduled view
+     */
+    public static Priority priorityOf(LanguageClient api) {
+        return api instanceof ScheduledLanguageApi view ? view.priority : Priority.INTERACTIVE;
+    }
+}
@@ -0,0 +1,60 @@
+package org.example;
+
+import org.example.words.WordUtil;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * A template together with the words chosen for its placeholders, in the
+ * order the placeholders appear. Planning decides the words; rendering only
+ * builds the string, so the two can run in different stages. Input words are
+ * views of the analyzed text, copied only into the rendered sentence.
+ */
+public class SentencePlan {
+    private final String template;
+    private final List<CharSequence> words;
+
+    /**
+     * @param template  the sentence template
+     * @param words     one entry per placeholder in token order; null leaves that placeholder as is
+     */
+    public SentencePlan(String template, List<CharSequence> words) {
+        this.template = template;
+        this.words = words;
+    }
+
+    /**
+     * Chooses a word for every placeholder of the template, in token order.
+     *
+     * @param template  the sentence template
+     * @param wordFor   supplies a word for a placeholder, or null to leave it as is
+     * @return          the plan for that template
+     */
+    public static SentencePlan of(String template, Function<String, ? extends CharSequence> wordFor) {
+        List<CharSequence> words = new ArrayList<>();
+        for (String token : WordUtil.SentenceSplitter(template)) {
+            String typeTag = WordUtil.TypeCheck(token);
+            if (typeTag != null) words.add(wordFor.apply(typeTag));
+        }
+        return new SentencePlan(template, words);
+    }
+
+    /** @return the sentence template */
+    public String getTemplate() { return template; }
+
+    /** @return the words chosen for the placeholders */
+    public List<CharSequence> getWords() { return words; }
+
+    /**
+     * Builds the sentence from the template and the planned words.
+     *
+     * @return the capitalized sentence
+     */
+    public String render() {
+        Iterator<CharSequence> next = words.iterator();
+        return App.render(template, placeholder -> next.next());
+    }
+}
@@ -0,0 +1,87 @@
+package org.example;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Coalesces concurrent calls with the same key: while a call for a key is in flight,
+ * other callers with that key wait for its outcome instead of making their own call.
+ * Nothing is kept once the call completes; caching results is up to the caller.
+ * <p>
+ * If the caller making the call is interrupted, the callers waiting on it are not
+ * failed with it: one of them makes the call again.
+ *
+ * @param <K> the key of a call, such as the text sent
+ * @param <V> the call's result
+ */
+public class SingleFlight<K, V> {
+
+    /** A call that may fail with an I/O error. */
+    @FunctionalInterface
+    public interface Call<V> {
+        V call() throws IOException;
+    }
+
+    private final ConcurrentHashMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+    private final AtomicLong calls = new AtomicLong();
+    private final AtomicLong saved = new AtomicLong();
+
+    /**
+     * Makes the call, or waits for the one already in flight for the key.
+     *
+     * @param key   identifies calls with the same outcome
+     * @param call  makes the call; only run if none is in flight for the key
+     * @return      the call's result
+     * @throws IOException as thrown by the call, also to the callers that shared it
+     * @throws InterruptedIOException if interrupted while waiting for another caller's call
+     */
+    public V run(K key, Call<V> call) throws IOException {
+        while (true) {
+            CompletableFuture<V> mine = new CompletableFuture<>();
+            CompletableFuture<V> running = inFlight.putIfAbsent(key, mine);
+            if (running == null) {
+                calls.incrementAndGet();
+                V value;
+                try {
+                    value = call.call();
+                } catch (Throwable e) {
+                    inFlight.remove(key, mine);
+                    mine.completeExceptionally(e);
+                    throw e;
+                }
+                inFlight.remove(key, mine);
+                mine.complete(value);
+                return value;
+            }
+
+            try {
+                V value = running.get();
+                saved.incrementAndGet();
+                return value;
+            } catch (InterruptedException e) {
+                // Only this caller stops waiting; the call goes on for the others
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting for a shared call");
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                // The caller that made the call was cancelled, not this one: call again
+                if (cause instanceof InterruptedIOException) continue;
+                saved.incrementAndGet();
+                if (cause instanceof IOException io) throw io;
+                if (cause instanceof RuntimeException runtime) throw runtime;
+                if (cause instanceof Error error) throw error;
+                throw new IOException(cause);
+            }
+        }
+    }
+
+    /** @return the number of calls made */
+    public long getCalls() { return calls.get(); }
+
+    /** @return the number of calls saved by sharing one already in flight */
+    public long getSaved() { return saved.get(); }
+}
@@ -0,0 +1,169 @@
+package org.example;
+
+import com.google.cloud.language.v1.AnalyzeSyntaxResponse;
+import com.google.cloud.language.v1.Sentence;
+import com.google.cloud.language.v1.Token;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Preprocessing of input text, each step a single pass over the characters:
+ * validation, whitespace normalization, and segmentation into chunks of whole
+ * sentences that can be analyzed separately. The analyses of the chunks are
+ * merged back into one, with offsets into the whole text.
+ */
+public final class TextSegmenter {
+
+    private TextSegmenter() {}
+
+    /**
+     * @param text  the text to check
+     * @return      whether it contains at least one ASCII letter
+     */
+    public static boolean hasLetter(CharSequence text) {
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if ((c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z')) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Trims the text, collapses every run of whitespace into one space, or into one
+     * line break if the run holds one, and drops other control characters.
+     *
+     * @param text  the raw input
+     * @return      the normalized text; the same instance if nothing had to change
+     */
+    public static String normalize(String text) {
+        return normalize(text, false);
+    }
+
+    /**
+     * Same as {@link #normalize(String)}, checking in the same pass that the text
+     * contains at least one ASCII letter.
+     *
+     * @param text  the raw input
+     * @return      the normalized text, or null if it has no letter
+     */
+    public static String normalizeLetters(String text) {
+        return normalize(text, true);
+    }
+
+    private static String normalize(String text, boolean needLetter) {
+        StringBuilder out = null;
+        int n = text.length();
+        // Pending whitespace: 0 none, ' ' or '\n'
+        char gap = 0;
+        for (int i = 0; i < n; i++) {
+            char c = text.charAt(i);
+            if (needLetter && ((c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z'))) needLetter = false;
+            boolean space = Character.isWhitespace(c) || Character.isSpaceChar(c);
+            boolean drop = !space && Character.isISOControl(c);
+            if (out == null) {
+                // Copy only from the first character that changes
+                boolean normal = !drop && (!space
+                        || (c == ' ' && i > 0 && i + 1 < n && !isGap(text.charAt(i - 1)) && !isGap(text.charAt(i + 1))));
+                if (normal) continue;
+                out = new StringBuilder(n);
+                out.append(text, 0, i);
+            }
+            if (drop) continue;
+            if (space) {
+                if (!out.isEmpty() && gap != '\n') gap = c == '\n' ? '\n' : ' ';
+                continue;
+            }
+            if (gap != 0) out.append(gap);
+            gap = 0;
+            out.append(c);
+        }
+        if (needLetter) return null;
+        return out == null ? text : out.toString();
+    }
+
+    private static boolean isGap(char c) {
+        return Character.isWhitespace(c) || Character.isSpaceChar(c) || Character.isISOControl(c);
+    }
+
+    /**
+     * Splits normalized text into chunks of at most {@code maxChars} characters,
+     * ending each chunk after the last sentence that fits. A sentence longer than
+     * a chunk is cut at its last space that fits, or at the limit if it has none.
+     *
+     * @param text      the text to split
+     * @param maxChars  the longest chunk allowed
+     * @return          the chunk boundaries: 0, the start of every further chunk, and the text length
+     */
+    public static int[] segment(CharSequence text, int maxChars) {
+        if (maxChars < 2) throw new IllegalArgumentException("Chunks must hold at least two characters");
+        int n = text.length();
+        int[] bounds = new int[n / maxChars + 2];
+        int count = 0;
+        bounds[count++] = 0;
+        int start = 0;
+        int lastSentence = -1;
+        int lastSpace = -1;
+        for (int i = 0; i < n; i++) {
+            if (i - start == maxChars) {
+                int cut = lastSentence > start ? lastSentence : lastSpace > start ? lastSpace : i;
+                // Never split a surrogate pair
+                if (cut == i && Character.isHighSurrogate(text.charAt(cut - 1))) cut--;
+                if (count + 1 == bounds.length) bounds = Arrays.copyOf(bounds, 2 * bounds.length);
+                bounds[count++] = cut;
+                start = cut;
+            }
+            char c = text.charAt(i);
+            if (c == ' ' || c == '\n') {
+                // A chunk starts after the space
+                lastSpace = i + 1;
+                if (i > 0 && isSentenceEnd(text.charAt(i - 1))) lastSentence = i + 1;
+            }
+        }
+        if (count + 1 == bounds.length) bounds = Arrays.copyOf(bounds, bounds.length + 1);
+        bounds[count++] = n;
+        return Arrays.copyOf(bounds, count);
+    }
+
+    private static boolean isSentenceEnd(char c) {
+        return c == '.' || c == '!' || c == '?';
+    }
+
+    /**
+     * Joins the analyses of consecutive chunks into the analysis of the whole text:
+     * offsets are moved by the chunk's start and dependency heads by the tokens before it.
+     *
+     * @param parts   the analysis of every chunk, in order
+     * @param bounds  the chunk boundaries, as returned by {@link #segment(CharSequence, int)}
+     * @return        one analysis with offsets into the whole text
+     */
+    public static AnalyzeSyntaxResponse merge(List<AnalyzeSyntaxResponse> parts, int[] bounds) {
+        AnalyzeSyntaxResponse.Builder merged = AnalyzeSyntaxResponse.newBuilder();
+        if (!parts.isEmpty()) merged.setLanguage(parts.getFirst().getLanguage());
+        int tokenBase = 0;
+        for (int p = 0; p < parts.size(); p++) {
+            int offset = bounds[p];
+            AnalyzeSyntaxResponse part = parts.get(p);
+            for (Sentence sentence : part.getSentencesList()) {
+                Sentence.Builder moved = sentence.toBuilder();
+                moved.getTextBuilder().setBeginOffset(shift(sentence.getText().getBeginOffset(), offset));
+                merged.addSentences(moved);
+            }
+            for (Token token : part.getTokensList()) {
+                Token.Builder moved = token.toBuilder();
+                moved.getTextBuilder().setBeginOffset(shift(token.getText().getBeginOffset(), offset));
+                if (token.hasDependencyEdge()) {
+                    moved.getDependencyEdgeBuilder().setHeadTokenIndex(token.getDependencyEdge().getHeadTokenIndex() + tokenBase);
+                }
+                merged.addTokens(moved);
+            }
+            tokenBase += part.getTokensCount();
+        }
+        return merged.build();
+    }
+
+    // Offsets are -1 when the API was not asked for them
+    private static int shift(int beginOffset, int offset) {
+        return beginOffset < 0 ? beginOffset : beginOffset + offset;
+    }
+}
@@ -6,8 +6,10 @@ import javafx.scene.Scene;
 import javafx.scene.Parent;
 import javafx.stage.Stage;
 import javafx.scene.image.Image;
+import org.example.controller.MainController;
 
 import java.io.InputStream;
+import java.lang.management.ManagementFactory;
 import java.net.URL;
 
 /**
@@ -16,6 +18,8 @@ import java.net.URL;
  */
 public class UI extends Application {
 
+    private MainController controller;
+
     @Override
     public void start(Stage primaryStage) throws Exception {
 
@@ -23,6 +27,7 @@ public class UI extends Application {
         FXMLLoader loader = new FXMLLoader(getClass().getResource("/org/example/fxml/main.fxml"));
 
         Parent root = loader.load();
+        controller = loader.getController();
         Scene scene = new Scene(root);
         URL cssUrl = getClass().getResource("/org/example/css/style.css");
 
@@ -54,5 +59,18 @@ public class UI extends Application {
 
         // Show the window on screen
         primaryStage.show();
+        if (Boolean.getBoolean("nonsense.timing")) {
+            System.err.println("Window shown " + ManagementFactory.getRuntimeMXBean().getUptime() + " ms after JVM start");
+        }
+    }
+
+    /**
+     * Lets the controller release its resources when the application exits.
+     */
+    @Override
+    public void stop() {
+        if (controller != null) {
+            controller.shutdown();
+        }
     }
 }
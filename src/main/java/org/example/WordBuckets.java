@@ -0,0 +1,263 @@
+package org.example;
+
+import com.google.cloud.language.v1.TextSpan;
+import com.google.cloud.language.v1.Token;
+import com.google.protobuf.ByteString;
+
+import java.nio.CharBuffer;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.random.RandomGenerator;
+
+/**
+ * Words extracted from an analyzed input, grouped by the template placeholder they can fill.
+ * <p>
+ * Words are not copied out of the input: each bucket holds the (begin, length) span of
+ * every word in the analyzed text, two ints per word, and words are read or appended
+ * from the text only when a sentence is rendered. The buckets are read-only, apart
+ * from the order of their words.
+ */
+public class WordBuckets {
+    /** Placeholders understood by the sentence templates, in a fixed order. */
+    public static final String[] PLACEHOLDERS =
+            {"[noun]", "[verb]", "[adjective]", "[adverb]", "[article]", "[pronoun]"};
+
+    private final CharSequence text;
+    private final Bucket[] buckets = new Bucket[PLACEHOLDERS.length];
+
+    /**
+     * Creates empty buckets, one per placeholder.
+     */
+    public WordBuckets() {
+        this("");
+    }
+
+    /**
+     * Creates empty buckets for words of the given text.
+     *
+     * @param text the text the spans point into
+     */
+    private WordBuckets(CharSequence text) {
+        this.text = text;
+        for (int i = 0; i < buckets.length; i++) buckets[i] = new Bucket();
+    }
+
+    // Copy sharing the text, with buckets of its own
+    private WordBuckets(WordBuckets other) {
+        this.text = other.text;
+        for (int i = 0; i < buckets.length; i++) buckets[i] = new Bucket(other.buckets[i]);
+    }
+
+    /**
+     * Collects tokens by part of speech into the matching buckets;
+     * tokens whose tag has no placeholder are dropped.
+     *
+     * @param tokens tokens returned by the syntax analysis
+     * @return the filled buckets
+     */
+    public static WordBuckets fromTokens(List<Token> tokens) {
+        return fromTokens("", tokens);
+    }
+
+    /**
+     * Same as {@link #fromTokens(List)}, with the words kept as spans into the analyzed
+     * text. The words of tokens whose offset does not point at their own text in the
+     * input are copied once, after the text. The tokens' words are compared in their
+     * UTF-8 encoding, so no String is decoded for a word found in the text.
+     *
+     * @param text    the analyzed text, indexed in UTF-16 code units like the token offsets
+     * @param tokens  tokens returned by the syntax analysis of the text
+     * @return the filled buckets
+     */
+    public static WordBuckets fromTokens(CharSequence text, List<Token> tokens) {
+        int n = tokens.size();
+        int[] bucketOf = new int[n];
+        int[] spans = new int[2 * n];
+        StringBuilder copied = null;
+        for (int i = 0; i < n; i++) {
+            Token token = tokens.get(i);
+            bucketOf[i] = switch (token.getPartOfSpeech().getTag()) {
+                case NOUN -> 0;
+                case VERB -> 1;
+                case ADJ  -> 2;
+                case ADV  -> 3;
+                case DET  -> 4;
+                case PRON -> 5;
+                default   -> -1;
+            };
+            if (bucketOf[i] < 0) continue;
+            TextSpan span = token.getText();
+            int length = spanLength(text, span.getBeginOffset(), span.getContentBytes());
+            if (length >= 0) {
+                spans[2 * i] = span.getBeginOffset();
+                spans[2 * i + 1] = length;
+            } else {
+                if (copied == null) copied = new StringBuilder();
+                String word = span.getContent();
+                spans[2 * i] = text.length() + copied.length();
+                spans[2 * i + 1] = word.length();
+                copied.append(word);
+            }
+        }
+        WordBuckets result = new WordBuckets(copied == null ? text : text.toString() + copied);
+        for (int i = 0; i < n; i++) {
+            if (bucketOf[i] >= 0) result.buckets[bucketOf[i]].addSpan(spans[2 * i], spans[2 * i + 1]);
+        }
+        return result;
+    }
+
+    /**
+     * Checks that the text holds a word at an offset, reading the word from its UTF-8
+     * bytes as the Language API sends them, without decoding it to a String.
+     *
+     * @param text   the analyzed text
+     * @param begin  offset of the word in UTF-16 code units
+     * @param utf8   the word
+     * @return the word's length in UTF-16 code units, or -1 if it is not at the offset
+     */
+    static int spanLength(CharSequence text, int begin, ByteString utf8) {
+        if (begin < 0) return -1;
+        int pos = begin;
+        for (int i = 0, n = utf8.size(); i < n; ) {
+            int b = utf8.byteAt(i) & 0xFF;
+            int bytes = b < 0x80 ? 1 : b >= 0xF0 ? 4 : b >= 0xE0 ? 3 : b >= 0xC0 ? 2 : 0;
+            if (bytes == 0 || i + bytes > n) return -1;
+            int codePoint = bytes == 1 ? b : b & (0xFF >> (bytes + 1));
+            for (int k = 1; k < bytes; k++) codePoint = codePoint << 6 | (utf8.byteAt(i + k) & 0x3F);
+            i += bytes;
+            if (pos >= text.length() || Character.codePointAt(text, pos) != codePoint) return -1;
+            pos += Character.charCount(codePoint);
+        }
+        return pos - begin;
+    }
+
+    /**
+     * Returns the position of a placeholder in {@link #PLACEHOLDERS}.
+     *
+     * @param placeholder e.g. "[noun]"
+     * @return its index, or -1 if the placeholder is unknown
+     */
+    public static int indexOf(String placeholder) {
+        for (int i = 0; i < PLACEHOLDERS.length; i++) {
+            if (PLACEHOLDERS[i].equals(placeholder)) return i;
+        }
+        return -1;
+    }
+
+    /**
+     * @param placeholder e.g. "[noun]"
+     * @return the bucket for that placeholder
+     * @throws IllegalArgumentException if the placeholder is unknown
+     */
+    public Bucket get(String placeholder) {
+        int idx = indexOf(placeholder);
+        if (idx < 0) {
+            throw new IllegalArgumentException("Unknown placeholder: " + placeholder);
+        }
+        return buckets[idx];
+    }
+
+    /**
+     * Shuffles every bucket to introduce variety. Spans are swapped in place, in the
+     * same order as {@link java.util.Collections#shuffle(List, RandomGenerator)}.
+     *
+     * @param rng the request's random source
+     */
+    public void shuffle(RandomGenerator rng) {
+        for (Bucket bucket : buckets) bucket.shuffle(rng);
+    }
+
+    /**
+     * @return the total number of words in all buckets
+     */
+    public int size() {
+        int total = 0;
+        for (Bucket bucket : buckets) total += bucket.size();
+        return total;
+    }
+
+    /**
+     * @return buckets with the same words, which can be shuffled and consumed independently
+     */
+    public WordBuckets copy() {
+        return new WordBuckets(this);
+    }
+
+    /**
+     * The words of one placeholder, as spans into the analyzed text: a read-only
+     * list whose {@link #get(int)} copies the word into a String, while
+     * {@link #word(int)} and {@link #appendTo(int, StringBuilder)} read it without copying.
+     */
+    public final class Bucket extends AbstractList<String> implements RandomAccess {
+        // (begin, length) of each word in the text
+        private int[] spans;
+        private int size;
+
+        Bucket() {
+            this.spans = new int[16];
+        }
+
+        Bucket(Bucket other) {
+            this.spans = Arrays.copyOf(other.spans, Math.max(2 * other.size, 16));
+            this.size = other.size;
+        }
+
+        private void addSpan(int begin, int length) {
+            if (2 * size == spans.length) spans = Arrays.copyOf(spans, 2 * spans.length);
+            spans[2 * size] = begin;
+            spans[2 * size + 1] = length;
+            size++;
+        }
+
+        /**
+         * @param index position of the word in the bucket
+         * @return a read-only view of the word, without copying it
+         */
+        public CharSequence word(int index) {
+            int begin = begin(index);
+            return CharBuffer.wrap(text, begin, begin + spans[2 * index + 1]);
+        }
+
+        /**
+         * Appends a word straight from the text it was found in.
+         *
+         * @param index  position of the word in the bucket
+         * @param out    where to append it
+         */
+        public void appendTo(int index, StringBuilder out) {
+            int begin = begin(index);
+            out.append(text, begin, begin + spans[2 * index + 1]);
+        }
+
+        private int begin(int index) {
+            if (index < 0 || index >= size) throw new IndexOutOfBoundsException(index);
+            return spans[2 * index];
+        }
+
+        @Override
+        public String get(int index) {
+            return word(index).toString();
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        private void shuffle(RandomGenerator rng) {
+            for (int i = size; i > 1; i--) {
+                int j = rng.nextInt(i);
+                int a = 2 * (i - 1);
+                int b = 2 * j;
+                int begin = spans[a];
+                int length = spans[a + 1];
+                spans[a] = spans[b];
+                spans[a + 1] = spans[b + 1];
+                spans[b] = begin;
+                spans[b + 1] = length;
+            }
+        }
+    }
+}
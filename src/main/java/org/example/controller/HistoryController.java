@@ -0,0 +1,170 @@
+package org.example.controller;
+
+import org.example.history.HistoryEntry;
+import org.example.history.HistoryPage;
+import org.example.history.HistoryQuery;
+import org.example.history.HistoryStore;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import javafx.application.Platform;
+import javafx.fxml.FXML;
+import javafx.scene.control.*;
+import javafx.scene.paint.Color;
+
+/**
+ * Controller for the history window.
+ * Runs queries against the {@link HistoryStore} off the UI thread and loads
+ * the next page of results whenever the last loaded row is shown.
+ */
+public class HistoryController {
+
+    private static final int PAGE_SIZE = 100;
+    private static final DateTimeFormatter TIME_FORMAT =
+            DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss").withZone(ZoneId.systemDefault());
+
+    // FXML-injected UI elements
+    @FXML private TextField wordsField;
+    @FXML private ComboBox<String> templateBox;
+    @FXML private TextField minToxicityField;
+    @FXML private TextField maxToxicityField;
+    @FXML private ListView<HistoryEntry> historyList;
+    @FXML private Label statusLabel;
+
+    // Queries run one at a time, in the order they were asked. The thread is never
+    // interrupted: stale queries are skipped by checking generation and closed instead
+    private final ExecutorService queryThread = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "History-Query");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private HistoryStore store;
+    private HistoryQuery query;
+    private int nextCursor = -1;
+    private boolean loading;
+    // Incremented by every new search, so pages of an older search are dropped
+    private volatile int generation;
+    private volatile boolean closed;
+
+    /**
+     * Called by FXMLLoader after all @FXML fields are injected.
+     * Sets up the list cells, which also trigger loading of the next page.
+     */
+    @FXML
+    public void initialize() {
+        historyList.setCellFactory(list -> new ListCell<>() {
+            @Override
+            protected void updateItem(HistoryEntry entry, boolean empty) {
+                super.updateItem(entry, empty);
+                if (empty || entry == null) {
+                    setText(null);
+                    return;
+                }
+                String tox = entry.isModerated()
+                        ? String.format("%.2f%%", entry.getToxicity() * 100) : "not moderated";
+                setText(TIME_FORMAT.format(Instant.ofEpochMilli(entry.getTimestamp()))
+                        + "   " + entry.getSentence()
+                        + "\n" + entry.getTemplate() + "   Toxicity: " + tox);
+
+                if (getIndex() == historyList.getItems().size() - 1) loadNextPage();
+            }
+        });
+    }
+
+    /**
+     * Connects the window to the history and shows the latest entries.
+     *
+     * @param store the history to search
+     */
+    public void setStore(HistoryStore store) {
+        this.store = store;
+        templateBox.getItems().setAll(store.getTemplates());
+        templateBox.getItems().add(0, "");
+        onSearchClicked();
+    }
+
+    /**
+     * Handler for the "Search" button and the words field.
+     * Replaces the list with the first page of the new query.
+     */
+    @FXML
+    private void onSearchClicked() {
+        if (store == null) return;
+        HistoryQuery newQuery = new HistoryQuery().withWords(wordsField.getText());
+        String template = templateBox.getValue();
+        if (template != null && !template.isEmpty()) newQuery.withTemplate(template);
+        try {
+            String min = minToxicityField.getText().trim();
+            String max = maxToxicityField.getText().trim();
+            if (!min.isEmpty() || !max.isEmpty()) {
+                newQuery.withToxicity(min.isEmpty() ? 0 : Double.parseDouble(min) / 100,
+                        max.isEmpty() ? 1 : Double.parseDouble(max) / 100);
+            }
+        } catch (IllegalArgumentException e) {
+            showStatus("Invalid toxicity range", true);
+            return;
+        }
+
+        generation++;
+        query = newQuery;
+        nextCursor = Integer.MAX_VALUE;
+        loading = false;
+        historyList.getItems().clear();
+        loadNextPage();
+    }
+
+    /**
+     * Fetches the page after the loaded entries, unless one is already on its way.
+     */
+    private void loadNextPage() {
+        if (loading || nextCursor < 0) return;
+        loading = true;
+        int searchGeneration = generation;
+        HistoryQuery pageQuery = query;
+        int cursor = nextCursor;
+
+        queryThread.submit(() -> {
+            // A newer search or a closed window makes this page useless
+            if (closed || searchGeneration != generation) return;
+            long start = System.nanoTime();
+            try {
+                HistoryPage page = store.search(pageQuery, cursor, PAGE_SIZE);
+                double millis = (System.nanoTime() - start) / 1e6;
+                Platform.runLater(() -> {
+                    if (searchGeneration != generation) return;
+                    historyList.getItems().addAll(page.getEntries());
+                    nextCursor = page.getNextCursor();
+                    loading = false;
+                    showStatus(String.format("%d results%s (%.1f ms)", historyList.getItems().size(),
+                            page.hasMore() ? "+" : "", millis), false);
+                });
+            } catch (Exception e) {
+                Platform.runLater(() -> {
+                    if (searchGeneration != generation) return;
+                    loading = false;
+                    nextCursor = -1;
+                    showStatus("Error searching the history: " + e.getMessage(), true);
+                });
+            }
+        });
+    }
+
+    private void showStatus(String text, boolean error) {
+        statusLabel.setText(text);
+        statusLabel.setTextFill(error ? Color.RED : Color.BLACK);
+    }
+
+    /**
+     * Stops the query thread once the page being read, if any, is done; queued pages
+     * are skipped. Called when the window closes.
+     */
+    public void shutdown() {
+        closed = true;
+        queryThread.shutdown();
+    }
+}
@@ -1,32 +1,38 @@
 package org.example.controller;
 
+import org.example.Analysis;
 import org.example.App;
 import org.example.App.SentenceResult;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import javafx.application.Platform;
-import javafx.beans.property.DoubleProperty;
-import javafx.beans.property.SimpleDoubleProperty;
+import javafx.collections.FXCollections;
 import javafx.fxml.FXML;
+import javafx.fxml.FXMLLoader;
+import javafx.scene.Scene;
+import javafx.stage.Stage;
 import javafx.scene.text.*;
 import javafx.scene.control.*;
 import javafx.scene.layout.HBox;
 import javafx.scene.layout.VBox;
-import javafx.scene.layout.AnchorPane;
 import javafx.scene.paint.Color;
-import javafx.scene.shape.Rectangle;
-import javafx.geometry.Pos;
 
-import edu.stanford.nlp.pipeline.CoreDocument;
-import edu.stanford.nlp.pipeline.CoreSentence;
-import edu.stanford.nlp.pipeline.StanfordCoreNLP;
 import edu.stanford.nlp.trees.Tree;
-import org.example.words.WordUtil;
+import org.example.history.HistoryStore;
+import org.example.log.ResultLog;
+import org.example.parse.ParserProfile;
+import org.example.parse.TreeLines;
+import org.example.parse.TreeParser;
 
 /**
  * Controller for the main JavaFX UI.
@@ -39,12 +45,14 @@ public class MainController {
     // FXML-injected UI elements
     @FXML private TextField inputField;
     @FXML private CheckBox showTreeCheckbox;
+    @FXML private ChoiceBox<ParserProfile> parserProfileBox;
+    @FXML private Label parserInfoLabel;
     @FXML private VBox syntaxContainer;
     @FXML private VBox generatedContainer;
     @FXML private Label syntaxLabel;
-    @FXML private ScrollPane treeScroll;
-    @FXML private TextFlow treeAsciiFlow;
-    @FXML private HBox toxicityBarsContainer;
+    @FXML private ListView<TreeLines.Line> treeList;
+    @FXML private ListView<SentenceResult> resultList;
+    @FXML private ToxicityChart toxicityChart;
     @FXML private ProgressBar progressBar;
     @FXML private TextFlow outputFlow;
 
@@ -54,15 +62,47 @@ public class MainController {
     // Mapping from POS tags to full labels for tree display
     private final Properties syntaxTagsMap = new Properties();
 
-    // Stanford CoreNLP pipeline for parse trees
-    private StanfordCoreNLP pipeline;
+    // Parser profile used at startup, can be set with -Dnonsense.parser=FAST|DEPENDENCY|ACCURATE
+    private static final ParserProfile DEFAULT_PROFILE =
+            ParserProfile.valueOf(System.getProperty("nonsense.parser", ParserProfile.ACCURATE.name()));
 
-    // Property bound to bar heights for toxicity visualization
-    private final DoubleProperty toxicityScore = new SimpleDoubleProperty(0);
+    // Stanford CoreNLP pipeline for parse trees, loaded in the background
+    private TreeParser treeParser = new TreeParser(DEFAULT_PROFILE, TreeParser.DEFAULT_MAX_WORDS);
+
+    // Incremented by every tree request, so an older parse does not overwrite a newer one
+    private int treeRequest;
+
+    // Structured results log, written by a background thread so the FX thread never touches the disk
+    private final ResultLog resultLog = new ResultLog(ResultLog.DEFAULT_PATH);
+
+    // Searchable history; opening it rebuilds the indexes, so it is done in the background
+    private final CompletableFuture<HistoryStore> history = CompletableFuture.supplyAsync(() -> {
+        try {
+            return HistoryStore.open(HistoryStore.DEFAULT_DIR);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    });
+
+    // Generations run here one at a time; a new one cancels the one in flight
+    private final ExecutorService generationThread = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "Generation-Thread");
+        t.setDaemon(true);
+        return t;
+    });
+    private Future<?> generation;
+
+    // Writes results to the log and the history after they are shown. Never interrupted,
+    // so cancelling a generation cannot cut a write short, and not a daemon, so the
+    // records queued when the window closes are still written.
+    private final ExecutorService recorder = Executors.newSingleThreadExecutor(r -> new Thread(r, "Result-Recorder"));
+
+    // Incremented by every generation, so a cancelled one never updates the UI
+    private int generationRequest;
 
     /**
      * Called by FXMLLoader after all @FXML fields are injected.
-     * Loads tag mappings, initializes the CoreNLP pipeline,
+     * Loads tag mappings, starts loading the CoreNLP pipeline in the background,
      * and sets up UI defaults and listeners.
      */
     @FXML
@@ -78,10 +118,69 @@ public class MainController {
             e.printStackTrace();
         }
 
-        // Set up Stanford CoreNLP for parse tree generation
-        Properties props = new Properties();
-        props.setProperty("annotators", "tokenize,ssplit,pos,parse");
-        pipeline = new StanfordCoreNLP(props);
+        // Load Stanford CoreNLP off the FX thread so the window shows immediately
+        treeParser.load();
+
+        // Tree lines are drawn by recycled cells, one branch text and one label text each
+        treeList.setCellFactory(list -> new ListCell<>() {
+            private final Text branch = new Text();
+            private final Text label = new Text();
+            private final HBox line = new HBox(branch, label);
+
+            @Override
+            protected void updateItem(TreeLines.Line item, boolean empty) {
+                super.updateItem(item, empty);
+                if (empty || item == null) {
+                    setGraphic(null);
+                    return;
+                }
+                branch.setText(item.getPrefix());
+                label.setText(item.getLabel());
+                label.getStyleClass().remove("bold-text");
+                if (item.isLeaf()) label.getStyleClass().add("bold-text");
+                setGraphic(line);
+            }
+        });
+
+        // Result rows are drawn by recycled cells: the template, the sentence and its toxicity
+        resultList.setCellFactory(list -> new ListCell<>() {
+            private final Text structText = new Text();
+            private final Text sentenceText = new Text();
+            private final Text toxText = new Text();
+            private final VBox row = new VBox(2, structText, sentenceText, toxText);
+
+            {
+                Font baseFont = Font.getDefault();
+                structText.setFont(Font.font(baseFont.getFamily(), FontPosture.ITALIC, baseFont.getSize()));
+                structText.setFill(Color.DARKGRAY);
+                sentenceText.setFont(baseFont);
+                sentenceText.wrappingWidthProperty().bind(list.widthProperty().subtract(40));
+                toxText.getStyleClass().add("bold-text");
+            }
+
+            @Override
+            protected void updateItem(SentenceResult r, boolean empty) {
+                super.updateItem(r, empty);
+                if (empty || r == null) {
+                    setGraphic(null);
+                    return;
+                }
+                structText.setText("Sentence Structure: " + r.getStructure());
+                sentenceText.setText("→ " + r.getText());
+                toxText.setText("→ Toxicity: " + String.format("%.2f%%", r.getToxicity() * 100));
+                setGraphic(row);
+            }
+        });
+
+        // Switching profile loads a new pipeline and drops the old one
+        parserProfileBox.getItems().setAll(ParserProfile.values());
+        parserProfileBox.setValue(DEFAULT_PROFILE);
+        parserProfileBox.valueProperty().addListener((obs, o, profile) -> {
+            treeParser.shutdown();
+            treeParser = new TreeParser(profile, TreeParser.DEFAULT_MAX_WORDS);
+            treeParser.load();
+            if (showTreeCheckbox.isSelected()) buildTree();
+        });
 
         // Hide progress bar and syntax tree section initially
         progressBar.setVisible(false);
@@ -93,10 +192,12 @@ public class MainController {
         showTreeCheckbox.selectedProperty().addListener((obs, o, selected) -> {
             syntaxContainer.setVisible(selected);
             syntaxContainer.setManaged(selected);
-            treeScroll.setVisible(selected);
-            treeScroll.setManaged(selected);
+            treeList.setVisible(selected);
+            treeList.setManaged(selected);
             syntaxLabel.setVisible(selected);
             syntaxLabel.setManaged(selected);
+            parserInfoLabel.setVisible(selected);
+            parserInfoLabel.setManaged(selected);
 
             if (selected) buildTree();
         });
@@ -106,16 +207,13 @@ public class MainController {
      * Handler for the "Generate" button.
      * Validates input, shows a progress indicator, runs generation off the UI thread,
      * and then updates the UI with results or errors.
+     * Clicking again while a generation runs cancels it, including its pending API calls.
      */
     @FXML
     private void onGenerateClicked() {
         String inputText = inputField.getText().trim();
         if (inputText.isEmpty()) {
-            outputFlow.getChildren().clear();
-            Text errorText = new Text("❌ Please enter a non-empty sentence!");
-            errorText.setFill(Color.RED);
-            outputFlow.getChildren().add(errorText);
-            toxicityScore.set(0);
+            showResultMessage("❌ Please enter a non-empty sentence!");
             return;
         }
 
@@ -124,8 +222,12 @@ public class MainController {
         progressBar.setManaged(true);
         progressBar.setProgress(ProgressBar.INDETERMINATE_PROGRESS);
 
+        // Interrupting the running generation cancels its pending gRPC calls
+        if (generation != null) generation.cancel(true);
+        int request = ++generationRequest;
+
         // Run processing on a background thread to keep UI responsive
-        new Thread(() -> {
+        generation = generationThread.submit(() -> {
             List<SentenceResult> results = null;
             Exception error = null;
             try {
@@ -137,16 +239,16 @@ public class MainController {
             final List<SentenceResult> finalResults = results;
             final Exception finalError = error;
 
+            if (Thread.currentThread().isInterrupted()) return;
+            if (finalResults != null) recorder.execute(() -> record(inputText, finalResults));
+
             // Update UI on the JavaFX Application Thread
             Platform.runLater(() -> {
+                if (request != generationRequest) return;
                 outputFlow.getChildren().clear();
 
                 if (finalError != null) {
-                    Text errorText = new Text("Error processing input:\n" + finalError.getMessage());
-                    errorText.setFill(Color.RED);
-
-                    outputFlow.getChildren().add(errorText);
-                    toxicityScore.set(0);
+                    showResultMessage("Error processing input:\n" + finalError.getMessage());
                 } else {
                     if (finalResults.size() > 1) {
                         Text infoText = new Text(
@@ -161,33 +263,10 @@ public class MainController {
                         outputFlow.getChildren().add(infoText);
                     }
 
-                    Font baseFont = Font.getDefault();
-
-                    for (SentenceResult r : finalResults) {
-                        // 1) show the structure template
-                        Text structText = new Text("Sentence Structure: " + r.getStructure() + "\n");
-                        structText.setFont(Font.font(baseFont.getFamily(), FontPosture.ITALIC, baseFont.getSize()));
-                        WordUtil.Log("./Results/Log.txt", "→ Sentence Structure: " + r.getStructure() + "\n");
-                        structText.setFill(Color.DARKGRAY);
-
-                        // 2) the generated sentence
-                        Text sentenceText = new Text("→ " + r.getText() + "\n");
-                        WordUtil.Log("./Results/Log.txt", "→ " + r.getText() + "\n");
-                        sentenceText.setFont(baseFont);
-
-                        // 3) the toxicity percentage
-                        Text toxText = new Text("→ Toxicity: " + String.format("%.2f%%\n\n", r.getToxicity() * 100));
-                        WordUtil.Log("./Results/Log.txt", "→ Toxicity: " + String.format("%.2f%%\n\n", r.getToxicity() * 100));
-                        toxText.getStyleClass().add("bold-text");
-
-                        // 4) add to the TextFlow
-                        outputFlow.getChildren().addAll(structText, sentenceText, toxText);
-                    }
-
                     // final text for goodbye message
                     Text finalMessage = new Text(
                             "🙂 The output, including the sentence structure, the generated nonsense sentence, and its relative toxicity,\n" +
-                                    "has been saved in the log.txt file inside the Results folder, which is located in the main project directory.\n\n" +
+                                    "has been saved in the Log.jsonl file inside the Results folder, which is located in the main project directory.\n\n" +
 
                                     "Thank you for using this application!\n" +
                                     "We hope you had fun. Feel free to write and analyze as many sentences as you like using our nonsense generator.\n" +
@@ -197,30 +276,12 @@ public class MainController {
                     finalMessage.setFill(Color.DARKGREEN);
                     outputFlow.getChildren().add(finalMessage);
 
-                    toxicityBarsContainer.getChildren().clear();
-                    for (SentenceResult r : finalResults) {
-                        double tox = r.getToxicity();
-                        AnchorPane container = new AnchorPane();
-                        container.setPrefWidth(20);
-                        container.setMinWidth(20);
-                        container.prefHeightProperty().bind(toxicityBarsContainer.heightProperty());
-                        container.getStyleClass().add("toxicity-container");
-
-                        Rectangle bar = new Rectangle();
-                        bar.setArcWidth(8);
-                        bar.setArcHeight(8);
-                        bar.widthProperty().bind(container.widthProperty());
-                        bar.heightProperty().bind(container.heightProperty().multiply(tox));
-                        bar.setFill(Color.hsb((1 - tox) * 120, 1.0, 1.0));
-                        AnchorPane.setBottomAnchor(bar, 0.0);
-                        container.getChildren().add(bar);
-
-                        Label lbl = new Label(String.format("%.0f%%", tox * 100));
-                        VBox box = new VBox(lbl, container);
-                        box.setAlignment(Pos.TOP_CENTER);
-                        box.setSpacing(5);
-                        toxicityBarsContainer.getChildren().add(box);
-                    }
+                    // Rows are drawn by recycled cells and the bars by one canvas,
+                    // so the cost does not grow with the number of results
+                    resultList.getItems().setAll(finalResults);
+                    double[] scores = new double[finalResults.size()];
+                    for (int i = 0; i < scores.length; i++) scores[i] = finalResults.get(i).getToxicity();
+                    toxicityChart.setScores(scores);
 
                     if (showTreeCheckbox.isSelected()) buildTree();
                 }
@@ -229,97 +290,201 @@ public class MainController {
                 progressBar.setManaged(false);
             });
 
-        }, "Generation-Thread").start();
+        });
+    }
+
+    /**
+     * Shows an error in place of the results.
+     */
+    private void showResultMessage(String message) {
+        outputFlow.getChildren().clear();
+        Text errorText = new Text(message);
+        errorText.setFill(Color.RED);
+        outputFlow.getChildren().add(errorText);
+        resultList.getItems().clear();
+        toxicityChart.setScores(new double[0]);
+    }
+
+    /**
+     * Handler for the "History" button.
+     * Opens a window to search the sentences generated so far.
+     */
+    @FXML
+    private void onHistoryClicked() {
+        // The window opens once the indexes are rebuilt, without holding up the FX thread
+        history.whenComplete((store, error) -> Platform.runLater(() -> {
+            if (error != null) {
+                error.printStackTrace();
+                outputFlow.getChildren().clear();
+                Text errorText = new Text("❌ The history could not be opened.");
+                errorText.setFill(Color.RED);
+                outputFlow.getChildren().add(errorText);
+                return;
+            }
+            showHistory(store);
+        }));
+    }
+
+    private void showHistory(HistoryStore store) {
+        try {
+            FXMLLoader loader = new FXMLLoader(getClass().getResource("/org/example/fxml/history.fxml"));
+            Stage stage = new Stage();
+            stage.setScene(new Scene(loader.load()));
+            stage.setTitle("History");
+            HistoryController controller = loader.getController();
+            controller.setStore(store);
+            stage.setOnHidden(e -> controller.shutdown());
+            stage.show();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Writes the results of one generation to the log and the history.
+     * Runs on the recorder thread; a failed write is reported there and does not
+     * affect the results already shown.
+     */
+    private void record(String inputText, List<SentenceResult> results) {
+        try {
+            for (SentenceResult r : results) resultLog.record(inputText, r);
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Could not write the results log: " + e);
+        }
+        try {
+            // Waits for the indexes on this thread, if they are still being rebuilt
+            HistoryStore store = history.join();
+            for (SentenceResult r : results) store.record(inputText, r);
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Could not write the history: " + e);
+        }
+    }
+
+    /**
+     * Cancels any running generation and stops the parser. The results log and the
+     * history are flushed and closed by the recorder thread, after the records still
+     * queued, so the FX thread does not wait for them.
+     * Called by the application when the window closes.
+     */
+    public void shutdown() {
+        generationThread.shutdownNow();
+        treeParser.shutdown();
+        recorder.execute(() -> {
+            try {
+                resultLog.close();
+            } catch (IOException e) {
+                System.err.println("Could not close the results log: " + e);
+            }
+            try {
+                history.join().close();
+            } catch (IOException | RuntimeException e) {
+                System.err.println("Could not close the history: " + e);
+            }
+        });
+        recorder.shutdown();
     }
 
     /**
-     * Builds and displays the ASCII-formatted parse tree
-     * for the first sentence of the input text.
+     * Builds and displays the ASCII-formatted parse trees
+     * of every sentence of the input text.
+     * The trees are parsed from the same syntax analysis as the generated sentences:
+     * an input already analyzed is parsed straight away, otherwise it is analyzed
+     * off the FX thread first. Sentences are parsed in parallel and each tree is
+     * shown as soon as it is ready.
      */
     private void buildTree() {
         String text = inputField.getText();
-        CoreDocument doc = new CoreDocument(text);
-        pipeline.annotate(doc);
+        int request = ++treeRequest;
 
-        List<CoreSentence> sents = doc.sentences();
-        if (sents.isEmpty()) {
-            treeAsciiFlow.getChildren().clear();
+        TreeParser parser = treeParser;
+        Analysis analysis = processor.getCachedAnalysis(text);
+        if (analysis != null) {
+            showTrees(parser.parseAll(analysis), request, parser);
             return;
         }
 
-        Tree stanfordTree = sents.getFirst().constituencyParse();
-        treeAsciiFlow.getChildren().clear();
-        buildStyledAscii(stanfordTree, "", true);
+        showTreeMessage("Analyzing...", Color.DARKGRAY);
+
+        CompletableFuture.supplyAsync(() -> {
+            try {
+                return processor.analyze(text);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }).whenComplete((analyzed, error) -> Platform.runLater(() -> {
+            if (request != treeRequest || !showTreeCheckbox.isSelected()) return;
+            if (error != null) {
+                showTreeMessage("Error building the syntactic tree:\n" + causeOf(error).getMessage(), Color.RED);
+            } else {
+                showTrees(parser.parseAll(analyzed), request, parser);
+            }
+        }));
     }
 
     /**
-     * Recursively renders each node of the parse tree as styled Text
-     * and appends branches and labels into the TextFlow.
-     *
-     * @param node   current tree node
-     * @param prefix accumulated ASCII prefix for branches
-     * @param isLast whether this node is the last child of its parent
+     * Shows one entry per sentence and fills in each tree when its parse completes.
+     * Lines are generated only when their cell is shown.
      */
-    private void buildStyledAscii(Tree node, String prefix, boolean isLast) {
-        // pick a non‐null font
-        Font appFont = Font.getDefault();  // or syntaxLabel.getFont()
-
-        String branch = isLast ? "└─ " : "├─ ";
-        String tag    = node.label().value();
-        String full   = syntaxTagsMap.getProperty(tag, tag);
-        boolean leaf  = node.isLeaf();
-
-        Text tBranch = new Text(prefix + branch);
-        tBranch.setFont(appFont);
-
-        Text tLabel  = new Text(full);
-        tLabel.setFont(Font.font(appFont.getFamily(), appFont.getSize()));
-        if (leaf) {
-            tLabel.getStyleClass().add("bold-text");
+    private void showTrees(List<TreeParser.Sentence> sentences, int request, TreeParser parser) {
+        if (sentences.isEmpty()) {
+            showTreeMessage("", Color.DARKGRAY);
+            return;
         }
-
-        treeAsciiFlow.getChildren().addAll(tBranch, tLabel, new Text("\n"));
-
-        String childPrefix = prefix + (isLast ? "   " : "│  ");
-        Tree[] kids = node.children();
-        for (int i = 0; i < kids.length; i++) {
-            buildStyledAscii(kids[i], childPrefix, i == kids.length - 1);
+        List<String> texts = new ArrayList<>();
+        for (TreeParser.Sentence sentence : sentences) texts.add(sentence.getText());
+        SentenceTrees lines = new SentenceTrees(texts, parser.isLoaded() ? "Parsing..." : "Loading the syntactic parser...");
+        treeList.setItems(lines);
+
+        for (int i = 0; i < sentences.size(); i++) {
+            int index = i;
+            sentences.get(i).getTree().whenComplete((tree, error) -> {
+                Runnable show = () -> {
+                    if (request != treeRequest) return;
+                    if (error != null) {
+                        lines.setMessage(index, "Error building the syntactic tree: " + causeOf(error).getMessage());
+                    } else if (tree != null) {
+                        lines.setTree(index, tree, tag -> syntaxTagsMap.getProperty(tag, tag));
+                    } else {
+                        lines.setMessage(index, "No tree for this sentence");
+                    }
+                    showParserInfo(parser);
+                };
+                // Cached trees are already complete, so they are drawn without a hop
+                if (Platform.isFxApplicationThread()) show.run();
+                else Platform.runLater(show);
+            });
         }
     }
 
-
-    private TreeItem<String> toTreeItem(Tree tree) {
-        TreeItem<String> item = new TreeItem<>(tree.label().value());
-        for (Tree child : tree.children()) {
-            item.getChildren().add(toTreeItem(child));
-        }
-        return item;
+    private static Throwable causeOf(Throwable error) {
+        return error.getCause() != null ? error.getCause() : error;
     }
 
     /**
-     * Builds a list of ASCII lines for the parse tree.
-     * @return a list of lines in the tree representation
+     * Empties the tree list and shows a message in its place.
      */
-    private List<String> toAsciiLines(Tree tree) {
-        List<String> lines = new ArrayList<>();
-        buildAscii(tree, "", true, lines);
-        return lines;
+    private void showTreeMessage(String message, Color color) {
+        Label placeholder = new Label(message);
+        placeholder.setTextFill(color);
+        placeholder.setWrapText(true);
+        treeList.setPlaceholder(placeholder);
+        treeList.setItems(FXCollections.emptyObservableList());
     }
 
     /**
-     * Helper for toAsciiLines: populates a list with each line of the ASCII tree.
+     * Shows the measured load time, heap footprint and parse latency of a parser under the tree.
      */
-    private void buildAscii(Tree node, String prefix, boolean isLast, List<String> lines) {
-        String branch = isLast ? "└─ " : "├─ ";
-        String tag = node.label().value();
-        String full = syntaxTagsMap.getProperty(tag, tag);
-
-        lines.add(prefix + branch + full);
-
-        String childPrefix = prefix + (isLast ? "   " : "│  ");
-        Tree[] kids = node.children();
-        for (int i = 0; i < kids.length; i++) {
-            buildAscii(kids[i], childPrefix, i == kids.length - 1, lines);
+    private void showParserInfo(TreeParser parser) {
+        StringBuilder info = new StringBuilder(parserProfileBox.getValue().toString());
+        if (parser.getLoadMillis() >= 0) {
+            info.append(String.format(" | loaded in %.1f s, %d MB of heap",
+                    parser.getLoadMillis() / 1000.0, parser.getLoadHeapBytes() / (1024 * 1024)));
+        }
+        if (parser.getLastParseMillis() >= 0) {
+            info.append(String.format(" | last parse %.0f ms, average %.0f ms",
+                    parser.getLastParseMillis(), parser.getAverageParseMillis()));
         }
+        info.append(" | max ").append(parser.getMaxWords()).append(" words");
+        parserInfoLabel.setText(info.toString());
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,107 @@
+package org.example.controller;
+
+import edu.stanford.nlp.trees.Tree;
+import javafx.collections.ObservableListBase;
+import org.example.parse.TreeLines;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Lines of the tree pane for a text of several sentences: for each sentence a
+ * header line followed by its tree, or by a message while it is parsed or if it fails.
+ * <p>
+ * Trees arrive one by one as their sentences are parsed. Replacing a sentence's
+ * lines fires a change for that range only, so the list view keeps its scroll
+ * position and still creates cells only for the visible lines.
+ */
+class SentenceTrees extends ObservableListBase<TreeLines.Line> {
+
+    private final List<String> sentences;
+    private final List<List<TreeLines.Line>> bodies = new ArrayList<>();
+    private final boolean headers;
+    // Index of the first line of every sentence, plus the total at the end
+    private final int[] offsets;
+
+    /**
+     * @param sentences  the sentence texts, in order
+     * @param pending    message shown for every sentence until its tree arrives
+     */
+    SentenceTrees(List<String> sentences, String pending) {
+        this.sentences = sentences;
+        this.headers = sentences.size() > 1;
+        this.offsets = new int[sentences.size() + 1];
+        for (int i = 0; i < sentences.size(); i++) {
+            bodies.add(List.of(new TreeLines.Line("", pending, false)));
+        }
+        recount();
+    }
+
+    /**
+     * Shows the tree of a sentence.
+     *
+     * @param index   position of the sentence
+     * @param tree    its parse tree
+     * @param labels  maps a node value to the text shown for it
+     */
+    void setTree(int index, Tree tree, Function<String, String> labels) {
+        replace(index, new TreeLines(tree, labels));
+    }
+
+    /**
+     * Shows a message in place of a sentence's tree.
+     *
+     * @param index    position of the sentence
+     * @param message  the text to show
+     */
+    void setMessage(int index, String message) {
+        replace(index, List.of(new TreeLines.Line("", message, false)));
+    }
+
+    private void replace(int index, List<TreeLines.Line> body) {
+        int from = offsets[index] + (headers ? 1 : 0);
+        List<TreeLines.Line> removed = bodies.get(index);
+        bodies.set(index, body);
+        recount();
+
+        beginChange();
+        nextRemove(from, removed);
+        nextAdd(from, from + body.size());
+        endChange();
+    }
+
+    private void recount() {
+        int total = 0;
+        for (int i = 0; i < bodies.size(); i++) {
+            offsets[i] = total;
+            total += bodies.get(i).size() + (headers ? 1 : 0);
+        }
+        offsets[bodies.size()] = total;
+    }
+
+    @Override
+    public TreeLines.Line get(int index) {
+        if (index < 0 || index >= size()) {
+            throw new IndexOutOfBoundsException("No line " + index);
+        }
+        // Few sentences, so a binary search over their offsets is plenty
+        int lo = 0, hi = bodies.size() - 1;
+        while (lo < hi) {
+            int mid = (lo + hi + 1) >>> 1;
+            if (offsets[mid] <= index) lo = mid;
+            else hi = mid - 1;
+        }
+        int line = index - offsets[lo];
+        if (headers) {
+            if (line == 0) return new TreeLines.Line("", "Sentence " + (lo + 1) + ": " + sentences.get(lo), false);
+            line--;
+        }
+        return bodies.get(lo).get(line);
+    }
+
+    @Override
+    public int size() {
+        return offsets[bodies.size()];
+    }
+}
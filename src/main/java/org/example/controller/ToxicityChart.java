@@ -0,0 +1,135 @@
+package org.example.controller;
+
+import javafx.geometry.VPos;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.layout.Region;
+import javafx.scene.paint.Color;
+import javafx.scene.text.Font;
+import javafx.scene.text.TextAlignment;
+
+/**
+ * Toxicity scores drawn as bars on a single canvas.
+ * <p>
+ * The chart is one node whatever the number of results, and it is only redrawn when
+ * the scores or its size change. When the bars do not fit side by side, every pixel
+ * column shows the highest score of the results it covers, so a toxic sentence
+ * stays visible among thousands of harmless ones.
+ */
+public final class ToxicityChart extends Region {
+
+    // Bars at least this wide are drawn apart and labelled, like the former bar widgets
+    private static final double BAR_WIDTH = 20;
+    private static final double BAR_GAP = 10;
+    private static final double LABEL_HEIGHT = 18;
+
+    private final Canvas canvas = new Canvas();
+    private double[] scores = new double[0];
+
+    public ToxicityChart() {
+        getChildren().add(canvas);
+    }
+
+    /**
+     * Replaces the scores shown and redraws the chart.
+     *
+     * @param scores toxicity of every result, between 0 and 1, in result order
+     */
+    public void setScores(double[] scores) {
+        this.scores = new double[scores.length];
+        for (int i = 0; i < scores.length; i++) {
+            // Unmoderated results (NaN) are drawn as empty bars
+            this.scores[i] = Double.isNaN(scores[i]) ? 0 : Math.min(1, Math.max(0, scores[i]));
+        }
+        draw();
+    }
+
+    // The canvas follows the chart's size, so it must not drive it
+    @Override
+    protected double computePrefWidth(double height) {
+        return BAR_WIDTH * 3 + BAR_GAP * 2;
+    }
+
+    @Override
+    protected double computePrefHeight(double width) {
+        return LABEL_HEIGHT + 100;
+    }
+
+    @Override
+    protected void layoutChildren() {
+        double width = snapSizeX(getWidth());
+        double height = snapSizeY(getHeight());
+        if (canvas.getWidth() != width || canvas.getHeight() != height) {
+            canvas.setWidth(width);
+            canvas.setHeight(height);
+            draw();
+        }
+    }
+
+    private void draw() {
+        GraphicsContext g = canvas.getGraphicsContext2D();
+        double width = canvas.getWidth();
+        double height = canvas.getHeight();
+        g.clearRect(0, 0, width, height);
+        int n = scores.length;
+        if (n == 0 || width < 1 || height <= LABEL_HEIGHT) return;
+
+        double barsHeight = height - LABEL_HEIGHT;
+        if (n * BAR_WIDTH + (n - 1) * BAR_GAP <= width) {
+            // Few results: one labelled bar each, centred
+            double x = (width - (n * BAR_WIDTH + (n - 1) * BAR_GAP)) / 2;
+            g.setFont(Font.font(11));
+            g.setTextAlign(TextAlignment.CENTER);
+            g.setTextBaseline(VPos.TOP);
+            for (double tox : scores) {
+                g.setFill(Color.web("#eee"));
+                g.fillRoundRect(x, LABEL_HEIGHT, BAR_WIDTH, barsHeight, 8, 8);
+                g.setStroke(Color.web("#ccc"));
+                g.strokeRoundRect(x + 0.5, LABEL_HEIGHT + 0.5, BAR_WIDTH - 1, barsHeight - 1, 8, 8);
+                g.setFill(colorOf(tox));
+                g.fillRoundRect(x, LABEL_HEIGHT + barsHeight * (1 - tox), BAR_WIDTH, barsHeight * tox, 8, 8);
+                g.setFill(Color.BLACK);
+                g.fillText(String.format("%.0f%%", tox * 100), x + BAR_WIDTH / 2, 2);
+                x += BAR_WIDTH + BAR_GAP;
+            }
+        } else {
+            // Many results: unlabelled columns of at least a pixel, each showing the worst score it covers
+            double[] columns = columns(scores, (int) width);
+            double step = width / columns.length;
+            g.setFill(Color.web("#eee"));
+            g.fillRect(0, LABEL_HEIGHT, width, barsHeight);
+            for (int x = 0; x < columns.length; x++) {
+                double tox = columns[x];
+                g.setFill(colorOf(tox));
+                g.fillRect(x * step, LABEL_HEIGHT + barsHeight * (1 - tox), step, barsHeight * tox);
+            }
+            g.setFill(Color.BLACK);
+            g.setFont(Font.font(11));
+            g.setTextAlign(TextAlignment.CENTER);
+            g.setTextBaseline(VPos.TOP);
+            g.fillText(n + " results", width / 2, 2);
+        }
+    }
+
+    private static Color colorOf(double tox) {
+        return Color.hsb((1 - tox) * 120, 1.0, 1.0);
+    }
+
+    /**
+     * Reduces the scores to at most one value per pixel column.
+     *
+     * @param scores  the scores, in result order
+     * @param width   number of columns available, at least 1
+     * @return the highest score of the results falling into each column; one
+     *         column per result if there are fewer results than columns
+     */
+    static double[] columns(double[] scores, int width) {
+        if (scores.length <= width) return scores.clone();
+        double[] columns = new double[width];
+        for (int i = 0; i < scores.length; i++) {
+            int x = (int) ((long) i * width / scores.length);
+            columns[x] = Math.max(columns[x], scores[i]);
+        }
+        return columns;
+    }
+}
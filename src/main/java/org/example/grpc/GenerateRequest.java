@@ -0,0 +1,41 @@
+package org.example.grpc;
+
+import org.example.App.Moderation;
+import org.example.words.WordUtil;
+
+import java.util.random.RandomGenerator;
+
+/**
+ * Request of both NonsenseGenerator RPCs: the input text, an optional seed and
+ * the moderation mode.
+ */
+public final class GenerateRequest {
+    private final String text;
+    private final Long seed;
+    private final Moderation moderation;
+
+    /**
+     * @param text        the source text to analyze and remix
+     * @param seed        seed for the request's random source, or null for a random one
+     * @param moderation  whether and how the sentences are moderated
+     */
+    public GenerateRequest(String text, Long seed, Moderation moderation) {
+        this.text = text;
+        this.seed = seed;
+        this.moderation = moderation;
+    }
+
+    /** @return the source text */
+    public String getText() { return text; }
+
+    /** @return the seed, or null */
+    public Long getSeed() { return seed; }
+
+    /** @return the moderation mode */
+    public Moderation getModeration() { return moderation; }
+
+    /** @return a random source for this request, seeded if a seed was given */
+    public RandomGenerator rng() {
+        return seed == null ? WordUtil.RandomSource() : WordUtil.RandomSource(seed);
+    }
+}
@@ -0,0 +1,249 @@
+package org.example.grpc;
+
+import org.example.App.Moderation;
+import org.example.App.SentenceResult;
+
+import com.google.protobuf.CodedInputStream;
+import com.google.protobuf.CodedOutputStream;
+import com.google.protobuf.InvalidProtocolBufferException;
+import com.google.protobuf.WireFormat;
+import io.grpc.CallOptions;
+import io.grpc.Channel;
+import io.grpc.MethodDescriptor;
+import io.grpc.MethodDescriptor.Marshaller;
+import io.grpc.ServiceDescriptor;
+import io.grpc.Status;
+import io.grpc.stub.ClientCalls;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Method descriptors and blocking client calls of the NonsenseGenerator service.
+ * <p>
+ * Stands in for the protoc-generated class: the messages of
+ * {@code src/main/proto/nonsense_generator.proto} are encoded here by hand in the
+ * protobuf wire format, so any generated client can call the service. As in generated
+ * parsers, a field is only read when both its number and its wire type match the
+ * .proto file; any other field is skipped by its wire type.
+ */
+public final class NonsenseGeneratorGrpc {
+
+    public static final String SERVICE_NAME = "nonsense.NonsenseGenerator";
+
+    // Field numbers, as in the .proto file
+    private static final int REQUEST_TEXT = 1;
+    private static final int REQUEST_SEED = 2;
+    private static final int REQUEST_MODERATION = 3;
+    private static final int RESULT_STRUCTURE = 1;
+    private static final int RESULT_SENTENCE = 2;
+    private static final int RESULT_TOXICITY = 3;
+    private static final int RESPONSE_RESULTS = 1;
+
+    // Tags, as field number and wire type: a known number with another wire type is an unknown field
+    private static final int REQUEST_TEXT_TAG = REQUEST_TEXT << 3 | WireFormat.WIRETYPE_LENGTH_DELIMITED;
+    private static final int REQUEST_SEED_TAG = REQUEST_SEED << 3 | WireFormat.WIRETYPE_VARINT;
+    private static final int REQUEST_MODERATION_TAG = REQUEST_MODERATION << 3 | WireFormat.WIRETYPE_VARINT;
+    private static final int RESULT_STRUCTURE_TAG = RESULT_STRUCTURE << 3 | WireFormat.WIRETYPE_LENGTH_DELIMITED;
+    private static final int RESULT_SENTENCE_TAG = RESULT_SENTENCE << 3 | WireFormat.WIRETYPE_LENGTH_DELIMITED;
+    private static final int RESULT_TOXICITY_TAG = RESULT_TOXICITY << 3 | WireFormat.WIRETYPE_FIXED64;
+    private static final int RESPONSE_RESULTS_TAG = RESPONSE_RESULTS << 3 | WireFormat.WIRETYPE_LENGTH_DELIMITED;
+
+    static final Marshaller<GenerateRequest> REQUEST_MARSHALLER = new Marshaller<>() {
+        @Override
+        public InputStream stream(GenerateRequest request) {
+            return encode(out -> {
+                if (request.getText() != null) out.writeString(REQUEST_TEXT, request.getText());
+                if (request.getSeed() != null) out.writeInt64(REQUEST_SEED, request.getSeed());
+                // The enum numbers follow the order of App.Moderation
+                if (request.getModeration() != null) out.writeEnum(REQUEST_MODERATION, request.getModeration().ordinal());
+            });
+        }
+
+        @Override
+        public GenerateRequest parse(InputStream stream) {
+            try {
+                CodedInputStream in = CodedInputStream.newInstance(stream);
+                String text = "";
+                Long seed = null;
+                Moderation moderation = Moderation.ON;
+                for (int tag = in.readTag(); tag != 0; tag = in.readTag()) {
+                    switch (tag) {
+                        case REQUEST_TEXT_TAG -> text = in.readString();
+                        case REQUEST_SEED_TAG -> seed = in.readInt64();
+                        case REQUEST_MODERATION_TAG -> {
+                            int value = in.readEnum();
+                            if (value < 0 || value >= Moderation.values().length) {
+                                throw Status.INVALID_ARGUMENT.withDescription("Unknown moderation " + value)
+                                        .asRuntimeException();
+                            }
+                            moderation = Moderation.values()[value];
+                        }
+                        default -> skipField(in, tag);
+                    }
+                }
+                return new GenerateRequest(text, seed, moderation);
+            } catch (IOException e) {
+                throw Status.INVALID_ARGUMENT.withDescription("Malformed request").withCause(e).asRuntimeException();
+            }
+        }
+    };
+
+    static final Marshaller<SentenceResult> RESULT_MARSHALLER = new Marshaller<>() {
+        @Override
+        public InputStream stream(SentenceResult result) {
+            return new ByteArrayInputStream(toBytes(result));
+        }
+
+        @Override
+        public SentenceResult parse(InputStream stream) {
+            try {
+                return readResult(CodedInputStream.newInstance(stream));
+            } catch (IOException e) {
+                throw Status.INTERNAL.withDescription("Malformed result").withCause(e).asRuntimeException();
+            }
+        }
+    };
+
+    static final Marshaller<List<SentenceResult>> RESPONSE_MARSHALLER = new Marshaller<>() {
+        @Override
+        public InputStream stream(List<SentenceResult> results) {
+            return encode(out -> {
+                for (SentenceResult result : results) out.writeByteArray(RESPONSE_RESULTS, toBytes(result));
+            });
+        }
+
+        @Override
+        public List<SentenceResult> parse(InputStream stream) {
+            try {
+                CodedInputStream in = CodedInputStream.newInstance(stream);
+                List<SentenceResult> results = new ArrayList<>();
+                for (int tag = in.readTag(); tag != 0; tag = in.readTag()) {
+                    if (tag == RESPONSE_RESULTS_TAG) {
+                        results.add(readResult(CodedInputStream.newInstance(in.readByteArray())));
+                    } else {
+                        skipField(in, tag);
+                    }
+                }
+                return results;
+            } catch (IOException e) {
+                throw Status.INTERNAL.withDescription("Malformed response").withCause(e).asRuntimeException();
+            }
+        }
+    };
+
+    /** Generates every sentence, then answers with all of them. */
+    public static final MethodDescriptor<GenerateRequest, List<SentenceResult>> GENERATE_METHOD =
+            MethodDescriptor.<GenerateRequest, List<SentenceResult>>newBuilder()
+                    .setType(MethodDescriptor.MethodType.UNARY)
+                    .setFullMethodName(MethodDescriptor.generateFullMethodName(SERVICE_NAME, "Generate"))
+                    .setRequestMarshaller(REQUEST_MARSHALLER)
+                    .setResponseMarshaller(RESPONSE_MARSHALLER)
+                    .build();
+
+    /** Sends each sentence as soon as it is moderated. */
+    public static final MethodDescriptor<GenerateRequest, SentenceResult> GENERATE_STREAM_METHOD =
+            MethodDescriptor.<GenerateRequest, SentenceResult>newBuilder()
+                    .setType(MethodDescriptor.MethodType.SERVER_STREAMING)
+                    .setFullMethodName(MethodDescriptor.generateFullMethodName(SERVICE_NAME, "GenerateStream"))
+                    .setRequestMarshaller(REQUEST_MARSHALLER)
+                    .setResponseMarshaller(RESULT_MARSHALLER)
+                    .build();
+
+    private static final ServiceDescriptor SERVICE_DESCRIPTOR = ServiceDescriptor.newBuilder(SERVICE_NAME)
+            .addMethod(GENERATE_METHOD)
+            .addMethod(GENERATE_STREAM_METHOD)
+            .build();
+
+    private NonsenseGeneratorGrpc() {
+    }
+
+    /** @return the descriptor of the service and its two methods */
+    public static ServiceDescriptor getServiceDescriptor() {
+        return SERVICE_DESCRIPTOR;
+    }
+
+    /**
+     * Calls {@code Generate} and waits for the answer.
+     *
+     * @param channel  channel to the service
+     * @param request  the input and options
+     * @return         the generated sentences
+     * @throws io.grpc.StatusRuntimeException if the call fails
+     */
+    public static List<SentenceResult> generate(Channel channel, GenerateRequest request) {
+        return ClientCalls.blockingUnaryCall(channel, GENERATE_METHOD, CallOptions.DEFAULT, request);
+    }
+
+    /**
+     * Calls {@code GenerateStream}. The iterator blocks until the next sentence arrives;
+     * cancel the calling context to stop the call early.
+     *
+     * @param channel  channel to the service
+     * @param request  the input and options
+     * @return         the sentences, as they are moderated
+     */
+    public static Iterator<SentenceResult> generateStream(Channel channel, GenerateRequest request) {
+        return ClientCalls.blockingServerStreamingCall(channel, GENERATE_STREAM_METHOD, CallOptions.DEFAULT, request);
+    }
+
+    /** Writes the fields of one message. */
+    private interface Writer {
+        void write(CodedOutputStream out) throws IOException;
+    }
+
+    private static byte[] toBytes(Writer writer) {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            CodedOutputStream out = CodedOutputStream.newInstance(bytes);
+            writer.write(out);
+            out.flush();
+            return bytes.toByteArray();
+        } catch (IOException e) {
+            // Writing to memory does not fail
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static InputStream encode(Writer writer) {
+        return new ByteArrayInputStream(toBytes(writer));
+    }
+
+    private static byte[] toBytes(SentenceResult result) {
+        return toBytes(out -> {
+            out.writeString(RESULT_STRUCTURE, result.getStructure());
+            out.writeString(RESULT_SENTENCE, result.getText());
+            if (result.isModerated()) out.writeDouble(RESULT_TOXICITY, result.getToxicity());
+        });
+    }
+
+    private static SentenceResult readResult(CodedInputStream in) throws IOException {
+        String structure = "";
+        String sentence = "";
+        double toxicity = Double.NaN;
+        for (int tag = in.readTag(); tag != 0; tag = in.readTag()) {
+            switch (tag) {
+                case RESULT_STRUCTURE_TAG -> structure = in.readString();
+                case RESULT_SENTENCE_TAG -> sentence = in.readString();
+                case RESULT_TOXICITY_TAG -> toxicity = in.readDouble();
+                default -> skipField(in, tag);
+            }
+        }
+        return new SentenceResult(structure, sentence, toxicity);
+    }
+
+    /**
+     * Skips a field by its wire type, groups included. A stray end-group tag, or a
+     * wire type that does not exist, makes the message malformed.
+     */
+    private static void skipField(CodedInputStream in, int tag) throws IOException {
+        if (!in.skipField(tag)) {
+            throw new InvalidProtocolBufferException("Unexpected end-group tag");
+        }
+    }
+}
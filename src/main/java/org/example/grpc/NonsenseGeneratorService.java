@@ -0,0 +1,194 @@
+package org.example.grpc;
+
+import org.example.App;
+import org.example.App.SentenceResult;
+import org.example.GoogleCredentialsProvider;
+import org.example.LanguageApi;
+import org.example.LanguageClient;
+import org.example.PriorityScheduler.Priority;
+
+import io.grpc.BindableService;
+import io.grpc.Context;
+import io.grpc.Grpc;
+import io.grpc.InsecureServerCredentials;
+import io.grpc.Server;
+import io.grpc.ServerServiceDefinition;
+import io.grpc.Status;
+import io.grpc.StatusRuntimeException;
+import io.grpc.stub.ServerCalls;
+import io.grpc.stub.StreamObserver;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The generator as a gRPC service, for internal callers that want binary framing
+ * and many calls multiplexed on one HTTP/2 connection instead of JSON over HTTP.
+ * <p>
+ * Calls run on the server's executor, which should start a virtual thread per call
+ * as {@link #main} does, since a call blocks on the Language API. Like the HTTP
+ * service, all calls share one {@link App} and one {@link LanguageClient}, and calls
+ * beyond the in-flight limit fail at once with {@code RESOURCE_EXHAUSTED}.
+ * When a client cancels or its deadline passes, the call's pending Language API
+ * request is cancelled and the sentences left are not moderated.
+ */
+public class NonsenseGeneratorService implements BindableService {
+
+    /** One generation, run on the calling thread. */
+    private interface Generation<T> {
+        T run() throws IOException;
+    }
+
+    private final App app;
+    private final LanguageClient api;
+    private final Semaphore inFlight;
+
+    private final AtomicLong served = new AtomicLong();
+    private final AtomicLong cancelled = new AtomicLong();
+
+    /**
+     * @param app          shared by all calls
+     * @param api          Language API used for analysis and moderation, shared by all calls
+     * @param maxInFlight  generations allowed to run at the same time
+     */
+    public NonsenseGeneratorService(App app, LanguageClient api, int maxInFlight) {
+        if (maxInFlight < 1) throw new IllegalArgumentException("Max in-flight calls must be positive");
+        this.app = app;
+        this.api = api;
+        this.inFlight = new Semaphore(maxInFlight);
+    }
+
+    @Override
+    public ServerServiceDefinition bindService() {
+        return ServerServiceDefinition.builder(NonsenseGeneratorGrpc.getServiceDescriptor())
+                .addMethod(NonsenseGeneratorGrpc.GENERATE_METHOD, ServerCalls.asyncUnaryCall(this::generate))
+                .addMethod(NonsenseGeneratorGrpc.GENERATE_STREAM_METHOD,
+                        ServerCalls.asyncServerStreamingCall(this::generateStream))
+                .build();
+    }
+
+    /** @return the number of calls admitted, whatever their outcome */
+    public long getServed() { return served.get(); }
+
+    /** @return the number of calls stopped early because the client cancelled */
+    public long getCancelled() { return cancelled.get(); }
+
+    private void generate(GenerateRequest request, StreamObserver<List<SentenceResult>> responses) {
+        run(responses, () -> {
+            List<SentenceResult> results = app.generate(api, request.getText(), request.rng(), request.getModeration());
+            responses.onNext(results);
+            return null;
+        });
+    }
+
+    private void generateStream(GenerateRequest request, StreamObserver<SentenceResult> responses) {
+        Context context = Context.current();
+        run(responses, () -> app.generate(api, request.getText(), request.rng(), request.getModeration(), result -> {
+            if (context.isCancelled()) throw new InterruptedIOException("Call cancelled");
+            responses.onNext(result);
+        }));
+    }
+
+    private void run(StreamObserver<?> responses, Generation<?> generation) {
+        // Fail at once rather than queue: a queued call would only time out later
+        if (!inFlight.tryAcquire()) {
+            responses.onError(Status.RESOURCE_EXHAUSTED.withDescription("Too many calls in flight").asRuntimeException());
+            return;
+        }
+        Context context = Context.current();
+        try {
+            served.incrementAndGet();
+            whileNotCancelled(context, generation);
+            responses.onCompleted();
+        } catch (IOException | RuntimeException e) {
+            if (context.isCancelled()) {
+                // Nobody is listening any more
+                cancelled.incrementAndGet();
+            } else {
+                responses.onError(toStatus(e));
+            }
+        } finally {
+            inFlight.release();
+        }
+    }
+
+    /**
+     * Runs the generation on this thread, interrupting it if the call is cancelled
+     * meanwhile, so that its pending Language API request is cancelled too.
+     * gRPC cancels the call's context on its own executor, so this works while the
+     * call's thread is blocked.
+     */
+    private static void whileNotCancelled(Context context, Generation<?> generation) throws IOException {
+        Thread worker = Thread.currentThread();
+        Object lock = new Object();
+        boolean[] finished = {false};
+        Context.CancellationListener onCancel = c -> {
+            synchronized (lock) {
+                // Never interrupt the thread once it has moved on
+                if (!finished[0]) worker.interrupt();
+            }
+        };
+        context.addListener(onCancel, Runnable::run);
+        try {
+            generation.run();
+        } finally {
+            synchronized (lock) {
+                finished[0] = true;
+            }
+            context.removeListener(onCancel);
+            Thread.interrupted();
+        }
+    }
+
+    private static StatusRuntimeException toStatus(Exception e) {
+        if (e instanceof StatusRuntimeException status) return status;
+        if (e instanceof IllegalArgumentException) {
+            return Status.INVALID_ARGUMENT.withDescription(e.getMessage()).asRuntimeException();
+        }
+        if (e instanceof InterruptedIOException) {
+            return Status.UNAVAILABLE.withDescription("Server shutting down").asRuntimeException();
+        }
+        // The Language API failed or was unreachable
+        return Status.UNAVAILABLE.withDescription("Language API error: " + e.getMessage()).withCause(e)
+                .asRuntimeException();
+    }
+
+    /**
+     * Service mode, on the Netty transport.
+     * Usage: NonsenseGeneratorService [--port N] [--max-in-flight N]
+     */
+    public static void main(String[] args) throws Exception {
+        int port = 50051;
+        int maxInFlight = 64;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--port"          -> port = Integer.parseInt(args[++i]);
+                case "--max-in-flight" -> maxInFlight = Integer.parseInt(args[++i]);
+                default -> throw new IllegalArgumentException("Unknown option: " + args[i]);
+            }
+        }
+        LanguageApi api = new LanguageApi(GoogleCredentialsProvider.getProvider());
+        App app = new App();
+        Server server = Grpc.newServerBuilderForPort(port, InsecureServerCredentials.create())
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .addService(new NonsenseGeneratorService(app, app.schedule(api, Priority.INTERACTIVE), maxInFlight))
+                .build()
+                .start();
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            server.shutdown();
+            try {
+                server.awaitTermination(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            api.close();
+        }, "Grpc-Shutdown"));
+        System.out.printf("gRPC service on port %d, at most %d generations in flight%n", server.getPort(), maxInFlight);
+        server.awaitTermination();
+    }
+}
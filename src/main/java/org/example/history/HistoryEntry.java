@@ -0,0 +1,51 @@
+package org.example.history;
+
+/**
+ * One generated sentence stored in the history.
+ */
+public class HistoryEntry {
+    private final int id;
+    private final long timestamp;
+    private final String inputHash;
+    private final String template;
+    private final String sentence;
+    private final double toxicity;
+
+    /**
+     * @param id         position of the entry in the store, increasing with time
+     * @param timestamp  epoch milliseconds the sentence was stored
+     * @param inputHash  hash of the input text
+     * @param template   the sentence template
+     * @param sentence   the generated sentence
+     * @param toxicity   toxicity score, or NaN if the sentence was not moderated
+     */
+    public HistoryEntry(int id, long timestamp, String inputHash, String template, String sentence, double toxicity) {
+        this.id = id;
+        this.timestamp = timestamp;
+        this.inputHash = inputHash;
+        this.template = template;
+        this.sentence = sentence;
+        this.toxicity = toxicity;
+    }
+
+    /** @return position of the entry in the store */
+    public int getId() { return id; }
+
+    /** @return epoch milliseconds the sentence was stored */
+    public long getTimestamp() { return timestamp; }
+
+    /** @return hash of the input text */
+    public String getInputHash() { return inputHash; }
+
+    /** @return the sentence template */
+    public String getTemplate() { return template; }
+
+    /** @return the generated sentence */
+    public String getSentence() { return sentence; }
+
+    /** @return toxicity score, or NaN if the sentence was not moderated */
+    public double getToxicity() { return toxicity; }
+
+    /** @return whether the sentence has a toxicity score */
+    public boolean isModerated() { return !Double.isNaN(toxicity); }
+}
@@ -0,0 +1,29 @@
+package org.example.history;
+
+import java.util.List;
+
+/**
+ * One page of search results, newest first.
+ */
+public class HistoryPage {
+    private final List<HistoryEntry> entries;
+    private final int nextCursor;
+
+    /**
+     * @param entries     the matching entries of this page
+     * @param nextCursor  cursor of the following page, or -1 if this is the last one
+     */
+    public HistoryPage(List<HistoryEntry> entries, int nextCursor) {
+        this.entries = entries;
+        this.nextCursor = nextCursor;
+    }
+
+    /** @return the matching entries, newest first */
+    public List<HistoryEntry> getEntries() { return entries; }
+
+    /** @return whether more entries match after this page */
+    public boolean hasMore() { return nextCursor >= 0; }
+
+    /** @return the cursor to pass to {@link HistoryStore#search} for the next page, -1 if none */
+    public int getNextCursor() { return nextCursor; }
+}
@@ -0,0 +1,63 @@
+package org.example.history;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Filter for {@link HistoryStore#search}. All conditions must hold; an empty
+ * query matches every entry.
+ */
+public class HistoryQuery {
+    private final List<String> words = new ArrayList<>();
+    private String template;
+    private double minToxicity = Double.NaN;
+    private double maxToxicity = Double.NaN;
+
+    /**
+     * @param text one or more words the sentence must all contain, case-insensitive
+     */
+    public HistoryQuery withWords(String text) {
+        words.addAll(HistoryStore.words(text));
+        return this;
+    }
+
+    /**
+     * @param template the exact template the sentence was built from
+     */
+    public HistoryQuery withTemplate(String template) {
+        this.template = template;
+        return this;
+    }
+
+    /**
+     * Keeps moderated sentences with a toxicity in the given inclusive range.
+     *
+     * @param min lowest toxicity, 0 to 1
+     * @param max highest toxicity, 0 to 1
+     * @throws IllegalArgumentException if the range is empty or not a number
+     */
+    public HistoryQuery withToxicity(double min, double max) {
+        if (!(min <= max)) {
+            throw new IllegalArgumentException("Invalid toxicity range: " + min + " - " + max);
+        }
+        this.minToxicity = min;
+        this.maxToxicity = max;
+        return this;
+    }
+
+    /** @return the lowercase words the sentence must contain */
+    public List<String> getWords() { return Collections.unmodifiableList(words); }
+
+    /** @return the required template, or null */
+    public String getTemplate() { return template; }
+
+    /** @return whether the query filters on toxicity */
+    public boolean hasToxicityRange() { return !Double.isNaN(minToxicity); }
+
+    /** @return the lowest toxicity, NaN if unset */
+    public double getMinToxicity() { return minToxicity; }
+
+    /** @return the highest toxicity, NaN if unset */
+    public double getMaxToxicity() { return maxToxicity; }
+}
@@ -0,0 +1,463 @@
+package org.example.history;
+
+import org.example.App.SentenceResult;
+import org.example.log.ResultLog;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Append-only store of generated sentences with in-memory indexes for searching.
+ * <p>
+ * Entries are written to a single data file as length-prefixed records and are
+ * never modified. The indexes are rebuilt from the file on {@link #open}:
+ * <ul>
+ *   <li>an inverted index from every lowercase word to the ids of the sentences containing it,</li>
+ *   <li>one id list per template,</li>
+ *   <li>one id list per toxicity bucket (tenths of the score, plus one for unmoderated sentences).</li>
+ * </ul>
+ * Ids grow with time, so every list is sorted. A query walks the shortest list that
+ * applies to it, newest first, and checks the other conditions with binary searches
+ * and the per-entry template and toxicity arrays. Only the entries of the requested
+ * page are read back from disk, so a page costs milliseconds however large the store is.
+ * <p>
+ * The store holds a few ints per entry and one per indexed word in memory,
+ * roughly 40 bytes per sentence.
+ * <p>
+ * The data file is read and written through a {@link RandomAccessFile} rather than a
+ * FileChannel: interrupting a thread inside a channel operation closes the channel for
+ * every thread, and generations and searches using the store are cancelled by interrupt.
+ */
+public class HistoryStore implements AutoCloseable {
+
+    /** Default location of the history. */
+    public static final Path DEFAULT_DIR = Path.of("./Results/History");
+
+    private static final String DATA_FILE = "history.dat";
+    private static final int BUCKETS = 10;
+    private static final int UNMODERATED = BUCKETS;
+
+    private final Path file;
+    // Readers share the read lock, so seeking and reading the file is also synchronized on it
+    private final RandomAccessFile data;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private boolean closed;
+
+    // Per-entry columns, indexed by id
+    private long[] offsets = new long[1024];
+    private int[] templateOf = new int[1024];
+    private float[] toxicityOf = new float[1024];
+    private int size;
+    private long end;
+
+    private final Map<String, IntList> wordIndex = new HashMap<>();
+    private final Map<String, Integer> templateIds = new HashMap<>();
+    private final List<String> templates = new ArrayList<>();
+    private final List<IntList> templateIndex = new ArrayList<>();
+    private final IntList[] toxicityIndex = new IntList[BUCKETS + 1];
+
+    private HistoryStore(Path file, RandomAccessFile data) {
+        this.file = file;
+        this.data = data;
+        for (int b = 0; b < toxicityIndex.length; b++) toxicityIndex[b] = new IntList();
+    }
+
+    /**
+     * Opens the history in the given directory, creating it if needed, and
+     * rebuilds the indexes from its data file. A record cut short by a crash is dropped.
+     *
+     * @param dir directory holding the data file
+     * @return the opened store
+     * @throws IOException if the data file cannot be read or created
+     */
+    public static HistoryStore open(Path dir) throws IOException {
+        Files.createDirectories(dir);
+        Path file = dir.resolve(DATA_FILE);
+        RandomAccessFile data = new RandomAccessFile(file.toFile(), "rw");
+        HistoryStore store = new HistoryStore(file, data);
+        try {
+            store.load();
+        } catch (IOException | RuntimeException e) {
+            data.close();
+            throw e;
+        }
+        return store;
+    }
+
+    private void load() throws IOException {
+        long fileSize = data.length();
+        long offset = 0;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(
+                new FileInputStream(file.toFile()), 1 << 16))) {
+            while (offset < fileSize) {
+                HistoryEntry entry;
+                int length;
+                try {
+                    length = in.readInt();
+                    if (length < 0 || offset + 4 + length > fileSize) break;
+                    byte[] payload = new byte[length];
+                    in.readFully(payload);
+                    entry = decode(size, payload);
+                } catch (EOFException e) {
+                    break;
+                }
+                index(offset, entry.getTemplate(), entry.getSentence(), entry.getToxicity());
+                offset += 4 + length;
+            }
+        }
+        if (offset < fileSize) {
+            data.setLength(offset);
+        }
+        end = offset;
+    }
+
+    /**
+     * Stores a generated sentence.
+     *
+     * @param input   the text the sentence was generated from, stored as its hash
+     * @param result  the generated sentence
+     * @return the stored entry
+     * @throws IOException if the entry cannot be written
+     */
+    public HistoryEntry record(String input, SentenceResult result) throws IOException {
+        return append(System.currentTimeMillis(), ResultLog.hash(input),
+                result.getStructure(), result.getText(), result.getToxicity());
+    }
+
+    /**
+     * Stores a sentence.
+     *
+     * @param timestamp  epoch milliseconds
+     * @param inputHash  hash of the input text
+     * @param template   the sentence template
+     * @param sentence   the generated sentence
+     * @param toxicity   toxicity score, or NaN if not moderated
+     * @return the stored entry
+     * @throws IOException if the entry cannot be written
+     */
+    public HistoryEntry append(long timestamp, String inputHash, String template, String sentence, double toxicity)
+            throws IOException {
+        byte[] record = encode(timestamp, inputHash, template, sentence, toxicity);
+        lock.writeLock().lock();
+        try {
+            synchronized (data) {
+                data.seek(end);
+                data.write(record);
+            }
+            int id = size;
+            index(end, template, sentence, toxicity);
+            end += record.length;
+            return new HistoryEntry(id, timestamp, inputHash, template, sentence, toxicity);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void index(long offset, String template, String sentence, double toxicity) {
+        if (size == offsets.length) {
+            int capacity = size + (size >> 1);
+            offsets = Arrays.copyOf(offsets, capacity);
+            templateOf = Arrays.copyOf(templateOf, capacity);
+            toxicityOf = Arrays.copyOf(toxicityOf, capacity);
+        }
+        int id = size;
+        offsets[id] = offset;
+        templateOf[id] = templateId(template);
+        toxicityOf[id] = (float) toxicity;
+
+        for (String word : words(sentence)) {
+            IntList postings = wordIndex.computeIfAbsent(word, w -> new IntList());
+            if (postings.last() != id) postings.add(id);
+        }
+        templateIndex.get(templateOf[id]).add(id);
+        toxicityIndex[bucketOf(toxicity)].add(id);
+        size++;
+    }
+
+    private int templateId(String template) {
+        Integer id = templateIds.get(template);
+        if (id == null) {
+            id = templates.size();
+            templateIds.put(template, id);
+            templates.add(template);
+            templateIndex.add(new IntList());
+        }
+        return id;
+    }
+
+    private static int bucketOf(double toxicity) {
+        if (Double.isNaN(toxicity)) return UNMODERATED;
+        return Math.max(0, Math.min(BUCKETS - 1, (int) (toxicity * BUCKETS)));
+    }
+
+    /**
+     * Finds the entries matching a query, newest first.
+     *
+     * @param query   the conditions to match
+     * @param cursor  {@link Integer#MAX_VALUE} for the first page, then {@link HistoryPage#getNextCursor()}
+     * @param limit   maximum number of entries in the page
+     * @return the page of matching entries
+     * @throws IOException if an entry cannot be read back
+     */
+    public HistoryPage search(HistoryQuery query, int cursor, int limit) throws IOException {
+        if (limit < 1) {
+            throw new IllegalArgumentException("Page limit must be positive");
+        }
+        lock.readLock().lock();
+        try {
+            List<IntList> wordLists = new ArrayList<>();
+            for (String word : new LinkedHashSet<>(query.getWords())) {
+                IntList postings = wordIndex.get(word);
+                if (postings == null) return new HistoryPage(List.of(), -1);
+                wordLists.add(postings);
+            }
+            int template = -1;
+            if (query.getTemplate() != null) {
+                Integer id = templateIds.get(query.getTemplate());
+                if (id == null) return new HistoryPage(List.of(), -1);
+                template = id;
+            }
+
+            // Walk the shortest applicable list and check the rest per candidate
+            IdCursor candidates;
+            IntList driver = null;
+            for (IntList list : wordLists) {
+                if (driver == null || list.size() < driver.size()) driver = list;
+            }
+            if (template >= 0 && (driver == null || templateIndex.get(template).size() < driver.size())) {
+                driver = templateIndex.get(template);
+            }
+            List<IntList> buckets = query.hasToxicityRange()
+                    ? toxicityBuckets(query.getMinToxicity(), query.getMaxToxicity()) : null;
+            long bucketTotal = 0;
+            if (buckets != null) {
+                for (IntList b : buckets) bucketTotal += b.size();
+            }
+            int start = Math.min(cursor, size);
+            if (buckets != null && (driver == null || bucketTotal < driver.size())) {
+                candidates = new MergeCursor(buckets, start);
+            } else if (driver != null) {
+                candidates = new PostingCursor(driver, start);
+            } else {
+                candidates = new RangeCursor(start);
+            }
+
+            List<HistoryEntry> entries = new ArrayList<>();
+            int id;
+            int last = -1;
+            while ((id = candidates.next()) >= 0) {
+                if (!matches(id, wordLists, driver, template, query)) continue;
+                if (entries.size() == limit) {
+                    return new HistoryPage(entries, last);
+                }
+                entries.add(read(id));
+                last = id;
+            }
+            return new HistoryPage(entries, -1);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private boolean matches(int id, List<IntList> wordLists, IntList driver, int template, HistoryQuery query) {
+        if (template >= 0 && templateOf[id] != template) return false;
+        if (query.hasToxicityRange()) {
+            float tox = toxicityOf[id];
+            if (Float.isNaN(tox) || tox < query.getMinToxicity() || tox > query.getMaxToxicity()) return false;
+        }
+        for (IntList list : wordLists) {
+            if (list != driver && !list.contains(id)) return false;
+        }
+        return true;
+    }
+
+    private List<IntList> toxicityBuckets(double min, double max) {
+        List<IntList> buckets = new ArrayList<>();
+        for (int b = bucketOf(Math.max(0, min)); b <= bucketOf(Math.min(1, max)); b++) {
+            buckets.add(toxicityIndex[b]);
+        }
+        return buckets;
+    }
+
+    /**
+     * Reads one entry back from the data file.
+     *
+     * @param id the entry id
+     * @return the entry
+     * @throws IOException if the entry cannot be read
+     */
+    public HistoryEntry get(int id) throws IOException {
+        lock.readLock().lock();
+        try {
+            if (id < 0 || id >= size) {
+                throw new IndexOutOfBoundsException("No history entry " + id);
+            }
+            return read(id);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private HistoryEntry read(int id) throws IOException {
+        long from = offsets[id] + 4;
+        long to = id + 1 < size ? offsets[id + 1] : end;
+        byte[] payload = new byte[(int) (to - from)];
+        synchronized (data) {
+            data.seek(from);
+            data.readFully(payload);
+        }
+        return decode(id, payload);
+    }
+
+    private static byte[] encode(long timestamp, String inputHash, String template, String sentence, double toxicity)
+            throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64 + sentence.length() + template.length());
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(0);
+        out.writeLong(timestamp);
+        out.writeUTF(inputHash);
+        out.writeUTF(template);
+        out.writeUTF(sentence);
+        out.writeDouble(toxicity);
+        byte[] record = bytes.toByteArray();
+        ByteBuffer.wrap(record).putInt(0, record.length - 4);
+        return record;
+    }
+
+    private static HistoryEntry decode(int id, byte[] payload) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload));
+        long timestamp = in.readLong();
+        String inputHash = in.readUTF();
+        String template = in.readUTF();
+        String sentence = in.readUTF();
+        double toxicity = in.readDouble();
+        return new HistoryEntry(id, timestamp, inputHash, template, sentence, toxicity);
+    }
+
+    /**
+     * Splits a text into the lowercase words the inverted index is keyed by:
+     * runs of letters, digits and apostrophes.
+     *
+     * @param text the text to split
+     * @return its distinct words, in order of first appearance
+     */
+    public static List<String> words(String text) {
+        Set<String> words = new LinkedHashSet<>();
+        int start = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            boolean wordChar = i < text.length()
+                    && (Character.isLetterOrDigit(text.charAt(i)) || text.charAt(i) == '\'');
+            if (wordChar && start < 0) {
+                start = i;
+            } else if (!wordChar && start >= 0) {
+                words.add(text.substring(start, i).toLowerCase(Locale.ROOT));
+                start = -1;
+            }
+        }
+        return new ArrayList<>(words);
+    }
+
+    /** @return the templates seen so far, in order of first use */
+    public List<String> getTemplates() {
+        lock.readLock().lock();
+        try {
+            return List.copyOf(templates);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** @return the number of stored entries */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Forces the data file to disk and closes it.
+     */
+    @Override
+    public void close() throws IOException {
+        lock.writeLock().lock();
+        try {
+            if (!closed) {
+                closed = true;
+                data.getFD().sync();
+                data.close();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /** Yields candidate ids in decreasing order, -1 when exhausted. */
+    private interface IdCursor {
+        int next();
+    }
+
+    /** Every id below the start. */
+    private static final class RangeCursor implements IdCursor {
+        private int next;
+        RangeCursor(int start) { this.next = start - 1; }
+        public int next() { return next >= 0 ? next-- : -1; }
+    }
+
+    /** The ids of one posting list below the start. */
+    private static final class PostingCursor implements IdCursor {
+        private final IntList list;
+        private int position;
+        PostingCursor(IntList list, int start) {
+            this.list = list;
+            this.position = list.countBelow(start) - 1;
+        }
+        public int next() { return position >= 0 ? list.get(position--) : -1; }
+    }
+
+    /** The union of disjoint posting lists below the start, merged newest first. */
+    private static final class MergeCursor implements IdCursor {
+        private final PostingCursor[] cursors;
+        private final int[] heads;
+        MergeCursor(List<IntList> lists, int start) {
+            cursors = new PostingCursor[lists.size()];
+            heads = new int[lists.size()];
+            for (int i = 0; i < cursors.length; i++) {
+                cursors[i] = new PostingCursor(lists.get(i), start);
+                heads[i] = cursors[i].next();
+            }
+        }
+        public int next() {
+            int best = -1;
+            for (int i = 0; i < heads.length; i++) {
+                if (heads[i] >= 0 && (best < 0 || heads[i] > heads[best])) best = i;
+            }
+            if (best < 0) return -1;
+            int id = heads[best];
+            heads[best] = cursors[best].next();
+            return id;
+        }
+    }
+}
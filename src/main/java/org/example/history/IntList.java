@@ -0,0 +1,44 @@
+package org.example.history;
+
+import java.util.Arrays;
+
+/**
+ * Growable array of ints, used for the posting lists of the history indexes.
+ * Ids are appended in increasing order, so every list is sorted and can be
+ * searched with a binary search.
+ */
+class IntList {
+    private int[] values = new int[4];
+    private int size;
+
+    void add(int value) {
+        if (size == values.length) {
+            values = Arrays.copyOf(values, size + (size >> 1));
+        }
+        values[size++] = value;
+    }
+
+    int get(int index) {
+        return values[index];
+    }
+
+    int size() {
+        return size;
+    }
+
+    int last() {
+        return size == 0 ? -1 : values[size - 1];
+    }
+
+    boolean contains(int value) {
+        return Arrays.binarySearch(values, 0, size, value) >= 0;
+    }
+
+    /**
+     * @return the number of values smaller than the given one
+     */
+    int countBelow(int value) {
+        int i = Arrays.binarySearch(values, 0, size, value);
+        return i >= 0 ? i : -i - 1;
+    }
+}
@@ -0,0 +1,414 @@
+package org.example.log;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Appends lines to a log file from a background thread.
+ * Callers only put entries into a bounded ring buffer; the writer thread drains
+ * everything that has accumulated, writes it as one large buffered write
+ * (group commit) and then flushes or fsyncs according to the {@link FlushPolicy}.
+ * The file is opened by the writer thread, so callers never touch the disk.
+ * <p>
+ * With a {@link RollingPolicy} the file is sealed once it grows past a size or
+ * age limit: it is renamed with a timestamp suffix, a fresh file takes its place,
+ * and the sealed segment is gzip-compressed on a separate background thread.
+ * <p>
+ * If a write fails, the writer thread stops; the error is kept and thrown by every
+ * later call to {@link #append(String)}, {@link #flush()} and {@link #close()}.
+ */
+public class AsyncLogAppender implements AutoCloseable {
+
+    /**
+     * When written entries are pushed out of the appender.
+     */
+    public enum FlushPolicy {
+        /** Flush to the operating system after every batch; survives a crash of the JVM. */
+        EVERY_BATCH,
+        /** Flush and fsync after every batch; survives a power loss, at the cost of throughput. */
+        FSYNC_EVERY_BATCH,
+        /** Flush and fsync at most once per sync interval; the fastest, may lose the last interval. */
+        PERIODIC
+    }
+
+    /**
+     * When the current file is sealed and a new one started.
+     */
+    public static class RollingPolicy {
+        private final long maxBytes;
+        private final long maxAgeMillis;
+        private final boolean compress;
+
+        /**
+         * @param maxBytes      seal the file once it holds at least this many bytes
+         * @param maxAgeMillis  seal the file once it is this old, checked when entries arrive
+         * @param compress      gzip sealed segments in the background
+         */
+        public RollingPolicy(long maxBytes, long maxAgeMillis, boolean compress) {
+            if (maxBytes < 1 || maxAgeMillis < 1) {
+                throw new IllegalArgumentException("Rollover size and age must be positive");
+            }
+            this.maxBytes = maxBytes;
+            this.maxAgeMillis = maxAgeMillis;
+            this.compress = compress;
+        }
+
+        /** @return the size limit of one segment in bytes */
+        public long getMaxBytes() { return maxBytes; }
+
+        /** @return the age limit of one segment in milliseconds */
+        public long getMaxAgeMillis() { return maxAgeMillis; }
+
+        /** @return whether sealed segments are gzip-compressed */
+        public boolean isCompress() { return compress; }
+    }
+
+    private static final DateTimeFormatter SEGMENT_STAMP = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss-SSS");
+
+    private static final int DEFAULT_CAPACITY = 8192;
+    private static final int WRITE_BUFFER = 64 * 1024;
+
+    // Identity marker queued by close(); never equal to a caller's string
+    private static final String CLOSE = new String("<close>");
+
+    private final Path path;
+    private final BlockingQueue<String> ring;
+    private final FlushPolicy policy;
+    private final long syncIntervalNanos;
+    private final RollingPolicy rolling;
+    private final Thread writer;
+    private final ExecutorService compressor;
+    private volatile boolean closed;
+    // The error that stopped the writer thread, if any
+    private volatile IOException failure;
+
+    // Open segment, owned by the writer thread
+    private FileChannel channel;
+    private Writer out;
+    private long segmentBytes;
+    private long segmentStart;
+
+    // Sequence numbers of entries accepted and entries handed to the OS, for flush()
+    private long appended;
+    private long committed;
+    private final Object progress = new Object();
+
+    private volatile long entriesWritten;
+    private volatile long batchesWritten;
+    private volatile long segmentsSealed;
+    private final long startNanos = System.nanoTime();
+
+    /**
+     * Creates an appender that flushes after every batch.
+     *
+     * @param path the log file; created with its parent directories if missing
+     */
+    public AsyncLogAppender(Path path) {
+        this(path, DEFAULT_CAPACITY, FlushPolicy.EVERY_BATCH, 1000);
+    }
+
+    /**
+     * @param path                the log file; created with its parent directories if missing
+     * @param capacity            size of the ring buffer; appends block only when it is full
+     * @param policy              when batches are flushed or fsynced
+     * @param syncIntervalMillis  interval between syncs for {@link FlushPolicy#PERIODIC}
+     */
+    public AsyncLogAppender(Path path, int capacity, FlushPolicy policy, long syncIntervalMillis) {
+        this(path, capacity, policy, syncIntervalMillis, null);
+    }
+
+    /**
+     * @param path                the log file; created with its parent directories if missing
+     * @param capacity            size of the ring buffer; appends block only when it is full
+     * @param policy              when batches are flushed or fsynced
+     * @param syncIntervalMillis  interval between syncs for {@link FlushPolicy#PERIODIC}
+     * @param rolling             when to seal the file and start a new one, or null to never roll over
+     */
+    public AsyncLogAppender(Path path, int capacity, FlushPolicy policy, long syncIntervalMillis,
+                            RollingPolicy rolling) {
+        if (capacity < 1 || syncIntervalMillis < 1) {
+            throw new IllegalArgumentException("Capacity and sync interval must be positive");
+        }
+        this.path = path;
+        this.ring = new ArrayBlockingQueue<>(capacity);
+        this.policy = policy;
+        this.syncIntervalNanos = TimeUnit.MILLISECONDS.toNanos(syncIntervalMillis);
+        this.rolling = rolling;
+        this.compressor = rolling != null && rolling.isCompress()
+                ? Executors.newSingleThreadExecutor(r -> {
+                    Thread t = new Thread(r, "Log-Compressor-" + path.getFileName());
+                    t.setDaemon(true);
+                    return t;
+                })
+                : null;
+        this.writer = new Thread(this::runWriter, "Log-Appender-" + path.getFileName());
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    /**
+     * Queues one line for writing; a newline is added after it.
+     * Returns immediately unless the ring buffer is full.
+     *
+     * @param entry the line to append
+     * @return true if the entry was queued; false if the calling thread was interrupted
+     *         while waiting for room, in which case the entry is not written and the
+     *         thread's interrupt status is kept
+     * @throws IOException if the writer thread stopped on a write error
+     * @throws IllegalStateException if the appender is closed or its writer has stopped
+     */
+    public boolean append(String entry) throws IOException {
+        if (closed) {
+            throw new IllegalStateException("Log appender for " + path + " is closed");
+        }
+        checkFailure();
+        // An entry is counted only once queued, so flush() never waits for a dropped one
+        synchronized (progress) {
+            if (ring.offer(entry)) {
+                appended++;
+                return true;
+            }
+        }
+        try {
+            while (!ring.offer(entry, 100, TimeUnit.MILLISECONDS)) {
+                if (!writer.isAlive()) {
+                    checkFailure();
+                    throw new IllegalStateException("Log writer for " + path + " has stopped");
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+        synchronized (progress) {
+            appended++;
+        }
+        return true;
+    }
+
+    /**
+     * Waits until every entry appended so far has been written and flushed to the OS.
+     *
+     * @throws IOException if the writer thread stopped on a write error
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public void flush() throws IOException, InterruptedException {
+        synchronized (progress) {
+            long target = appended;
+            while (committed < target && writer.isAlive()) {
+                progress.wait(100);
+            }
+        }
+        checkFailure();
+    }
+
+    /** @return the number of entries written to the file */
+    public long getEntriesWritten() { return entriesWritten; }
+
+    /** @return the number of group commits performed */
+    public long getBatchesWritten() { return batchesWritten; }
+
+    /** @return the number of segments sealed by rollover */
+    public long getSegmentsSealed() { return segmentsSealed; }
+
+    /** @return the average write throughput since the appender was created */
+    public double getEntriesPerSecond() {
+        double seconds = (System.nanoTime() - startNanos) / 1e9;
+        return seconds > 0 ? entriesWritten / seconds : 0;
+    }
+
+    /**
+     * Writes every pending entry, syncs the file and stops the writer thread.
+     * Waits for sealed segments that are still being compressed. Returns without
+     * waiting for room in the ring buffer if the writer thread has stopped.
+     *
+     * @throws IOException if the writer thread stopped on a write error
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) return;
+        closed = true;
+        try {
+            while (!ring.offer(CLOSE, 100, TimeUnit.MILLISECONDS)) {
+                if (!writer.isAlive()) break;
+            }
+            writer.join();
+            if (compressor != null) {
+                compressor.shutdown();
+                compressor.awaitTermination(1, TimeUnit.MINUTES);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        checkFailure();
+    }
+
+    private void checkFailure() throws IOException {
+        IOException e = failure;
+        if (e != null) throw new IOException("Log writer for " + path + " failed", e);
+    }
+
+    private void runWriter() {
+        List<String> batch = new ArrayList<>();
+        long lastSync = System.nanoTime();
+        boolean dirty = false;
+        boolean done = false;
+
+        try {
+            Path parent = path.toAbsolutePath().getParent();
+            if (parent != null) Files.createDirectories(parent);
+            openSegment();
+
+            while (!done) {
+                String first = policy == FlushPolicy.PERIODIC
+                        ? ring.poll(syncIntervalNanos, TimeUnit.NANOSECONDS)
+                        : ring.take();
+                if (first != null) {
+                    // A segment that got too old while idle is sealed before new entries go in
+                    if (rolling != null && segmentBytes > 0
+                            && System.currentTimeMillis() - segmentStart >= rolling.getMaxAgeMillis()) {
+                        rollOver();
+                    }
+
+                    // Group commit: everything queued meanwhile goes out in the same write
+                    batch.add(first);
+                    ring.drainTo(batch);
+                    for (String entry : batch) {
+                        if (entry == CLOSE) {
+                            done = true;
+                            continue;
+                        }
+                        out.write(entry);
+                        out.write('\n');
+                        segmentBytes += utf8Length(entry) + 1;
+                        if (rolling != null && segmentBytes >= rolling.getMaxBytes()) {
+                            rollOver();
+                        }
+                    }
+                    int written = batch.size() - (done ? 1 : 0);
+                    entriesWritten += written;
+                    batchesWritten++;
+                    batch.clear();
+                    dirty = true;
+                }
+
+                boolean sync = switch (policy) {
+                    case EVERY_BATCH, FSYNC_EVERY_BATCH -> dirty;
+                    case PERIODIC -> dirty && (done || System.nanoTime() - lastSync >= syncIntervalNanos);
+                };
+                if (sync || (done && dirty)) {
+                    out.flush();
+                    if (policy != FlushPolicy.EVERY_BATCH || done) channel.force(false);
+                    lastSync = System.nanoTime();
+                    dirty = false;
+                    synchronized (progress) {
+                        committed = entriesWritten;
+                        progress.notifyAll();
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            failure = e;
+        } finally {
+            try {
+                closeSegment();
+            } catch (IOException e) {
+                if (failure == null) failure = e;
+            }
+        }
+    }
+
+    private void openSegment() throws IOException {
+        channel = FileChannel.open(path,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        out = new BufferedWriter(Channels.newWriter(channel, StandardCharsets.UTF_8), WRITE_BUFFER);
+        segmentBytes = channel.size();
+        segmentStart = System.currentTimeMillis();
+    }
+
+    private void closeSegment() throws IOException {
+        try {
+            if (out != null) out.close();
+        } finally {
+            out = null;
+            channel = null;
+        }
+    }
+
+    /**
+     * Seals the current file under a timestamped name and starts a new one.
+     */
+    private void rollOver() throws IOException {
+        out.flush();
+        channel.force(false);
+        closeSegment();
+
+        String name = path.getFileName().toString();
+        int dot = name.lastIndexOf('.');
+        String base = dot > 0 ? name.substring(0, dot) : name;
+        String ext = dot > 0 ? name.substring(dot) : "";
+        // The sequence number keeps names unique when two rollovers share a timestamp
+        Path sealed = path.resolveSibling(base + "-" + LocalDateTime.now().format(SEGMENT_STAMP)
+                + "-" + (segmentsSealed + 1) + ext);
+        Files.move(path, sealed, StandardCopyOption.ATOMIC_MOVE);
+        segmentsSealed++;
+        if (compressor != null) {
+            compressor.submit(() -> compress(sealed));
+        }
+
+        openSegment();
+    }
+
+    /**
+     * Gzips a sealed segment next to it and removes the original.
+     */
+    private static void compress(Path sealed) {
+        Path gz = sealed.resolveSibling(sealed.getFileName() + ".gz");
+        try (InputStream in = Files.newInputStream(sealed);
+             OutputStream zip = new GZIPOutputStream(Files.newOutputStream(gz), WRITE_BUFFER)) {
+            in.transferTo(zip);
+        } catch (IOException e) {
+            e.printStackTrace();
+            return;
+        }
+        try {
+            Files.delete(sealed);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private static int utf8Length(String s) {
+        int bytes = 0;
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c < 0x80) bytes += 1;
+            else if (c < 0x800) bytes += 2;
+            else if (Character.isHighSurrogate(c)) { bytes += 4; i++; }
+            else bytes += 3;
+        }
+        return bytes;
+    }
+}
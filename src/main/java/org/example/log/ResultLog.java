@@ -0,0 +1,149 @@
+package org.example.log;
+
+import com.google.gson.Gson;
+import org.example.App.SentenceResult;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.HexFormat;
+
+/**
+ * Structured log of generated sentences, one JSON object per line:
+ * <pre>{"timestamp":"2025-01-01T10:00:00Z","inputHash":"9f86d081884c7d65","template":"[noun] [verb] with [pronoun]","sentence":"Dog runs with it","toxicity":0.1234}</pre>
+ * The input itself is stored only as a hash, so records stay small and can be
+ * grouped by input. Lines are written by an {@link AsyncLogAppender} that rolls
+ * the file over by size or age and gzips sealed segments in the background.
+ */
+public class ResultLog implements AutoCloseable {
+
+    /** Default location of the result log. */
+    public static final Path DEFAULT_PATH = Path.of("./Results/Log.jsonl");
+
+    private static final long DEFAULT_MAX_BYTES = 16L * 1024 * 1024;
+    private static final long DEFAULT_MAX_AGE_MILLIS = 24L * 60 * 60 * 1000;
+
+    private static final Gson GSON = new Gson();
+
+    /**
+     * One line of the log. Field names are the JSON keys.
+     */
+    public static class Record {
+        private final String timestamp;
+        private final String inputHash;
+        private final String template;
+        private final String sentence;
+        // Boxed so that unmoderated sentences omit the key instead of writing NaN
+        private final Double toxicity;
+
+        public Record(String timestamp, String inputHash, String template, String sentence, Double toxicity) {
+            this.timestamp = timestamp;
+            this.inputHash = inputHash;
+            this.template = template;
+            this.sentence = sentence;
+            this.toxicity = toxicity;
+        }
+
+        /** @return ISO-8601 instant the sentence was logged */
+        public String getTimestamp() { return timestamp; }
+
+        /** @return hash of the input text, see {@link ResultLog#hash(String)} */
+        public String getInputHash() { return inputHash; }
+
+        /** @return the sentence template */
+        public String getTemplate() { return template; }
+
+        /** @return the generated sentence */
+        public String getSentence() { return sentence; }
+
+        /** @return the toxicity score, or null if the sentence was not moderated */
+        public Double getToxicity() { return toxicity; }
+    }
+
+    private final AsyncLogAppender appender;
+
+    /**
+     * Logs to the given file, rolling over at 16 MiB or once a day.
+     *
+     * @param path the active log file; sealed segments are written next to it
+     */
+    public ResultLog(Path path) {
+        this(new AsyncLogAppender(path, 8192, AsyncLogAppender.FlushPolicy.EVERY_BATCH, 1000,
+                new AsyncLogAppender.RollingPolicy(DEFAULT_MAX_BYTES, DEFAULT_MAX_AGE_MILLIS, true)));
+    }
+
+    /**
+     * @param appender the appender the JSON lines are written to; closed with this log
+     */
+    public ResultLog(AsyncLogAppender appender) {
+        this.appender = appender;
+    }
+
+    /**
+     * Logs one generated sentence.
+     *
+     * @param input   the text the sentence was generated from
+     * @param result  the generated sentence
+     * @return          false if the calling thread was interrupted before the record
+     *                  could be queued, see {@link AsyncLogAppender#append(String)}
+     * @throws IOException if the appender's writer stopped on a write error
+     */
+    public boolean record(String input, SentenceResult result) throws IOException {
+        Record record = new Record(
+                Instant.now().toString(),
+                hash(input),
+                result.getStructure(),
+                result.getText(),
+                result.isModerated() ? result.getToxicity() : null);
+        return appender.append(toJson(record));
+    }
+
+    /**
+     * @param record a log record
+     * @return the record as a single JSON line
+     */
+    public static String toJson(Record record) {
+        return GSON.toJson(record);
+    }
+
+    /**
+     * @param line one line of the log
+     * @return the parsed record
+     * @throws com.google.gson.JsonSyntaxException if the line is not a valid record
+     */
+    public static Record fromJson(String line) {
+        return GSON.fromJson(line, Record.class);
+    }
+
+    /**
+     * Hashes an input text: the first 64 bits of its SHA-256, in hex.
+     *
+     * @param input the input text
+     * @return a 16-character lowercase hex string
+     */
+    public static String hash(String input) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256")
+                    .digest(input.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest, 0, 8);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    /** @return the appender that writes this log */
+    public AsyncLogAppender getAppender() { return appender; }
+
+    /**
+     * Writes pending records and closes the underlying appender.
+     *
+     * @throws IOException if the appender's writer stopped on a write error
+     */
+    @Override
+    public void close() throws IOException {
+        appender.close();
+    }
+}
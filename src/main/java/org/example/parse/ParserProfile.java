@@ -0,0 +1,78 @@
+package org.example.parse;
+
+import java.util.Properties;
+
+/**
+ * CoreNLP configurations for the syntactic tree, trading accuracy for speed and memory.
+ * <p>
+ * The descriptions below compare the profiles with each other; the actual heap
+ * taken by the models and the parse latency on the running machine are measured
+ * by {@link TreeParser#getLoadHeapBytes()} and {@link TreeParser#getAverageParseMillis()}
+ * and shown under the tree.
+ */
+public enum ParserProfile {
+
+    /**
+     * Shift-reduce constituency parser. Parses in linear time, so it is many times
+     * faster than the PCFG on long sentences with similar accuracy. Its model is the
+     * largest of the three, takes the longest to load and needs the most heap; it
+     * ships in the {@code models-english} jar, added by the {@code fast-parser} Maven profile.
+     */
+    FAST("Fast (shift-reduce)", "parse", false) {
+        @Override
+        void configure(Properties props) {
+            props.setProperty("parse.model", "edu/stanford/nlp/models/srparser/englishSR.ser.gz");
+        }
+    },
+
+    /**
+     * Dependencies only: no phrase structure, the tree shows which word depends on
+     * which. The edges come with the syntax analysis, so no model is loaded and
+     * drawing a sentence takes well under a millisecond.
+     */
+    DEPENDENCY("Dependencies only", "", true),
+
+    /**
+     * English PCFG constituency parser, the original configuration. The most
+     * detailed trees, but its time grows with the cube of the sentence length and
+     * its working memory with the square, so long sentences take seconds and
+     * hundreds of megabytes.
+     */
+    ACCURATE("Accurate (PCFG)", "parse", false);
+
+    private final String label;
+    private final String annotators;
+    private final boolean dependency;
+
+    ParserProfile(String label, String annotators, boolean dependency) {
+        this.label = label;
+        this.annotators = annotators;
+        this.dependency = dependency;
+    }
+
+    /** Adds the profile's model options to the pipeline properties. */
+    void configure(Properties props) {
+    }
+
+    /**
+     * Builds the CoreNLP properties of this profile. The annotators start at the
+     * parser: sentences are tokenized, split and tagged before they reach this pipeline.
+     *
+     * @param maxWords longest sentence the parser will accept
+     * @return the pipeline properties
+     */
+    public Properties toProperties(int maxWords) {
+        Properties props = new Properties();
+        props.setProperty("annotators", annotators);
+        props.setProperty("parse.maxlen", String.valueOf(maxWords));
+        configure(props);
+        return props;
+    }
+
+    /** @return whether the profile shows the dependency graph instead of a constituency tree */
+    public boolean isDependency() { return dependency; }
+
+    /** @return the name shown in the UI */
+    @Override
+    public String toString() { return label; }
+}
@@ -0,0 +1,70 @@
+package org.example.parse;
+
+import com.google.cloud.language.v1.PartOfSpeech;
+import com.google.cloud.language.v1.Token;
+
+import java.util.Locale;
+
+/**
+ * Maps Google's universal part-of-speech tags to the Penn Treebank tags the
+ * CoreNLP parsers are trained on, using the token's morphology to choose
+ * between singular and plural, tenses and so on.
+ */
+final class PennTags {
+
+    private PennTags() {
+    }
+
+    /**
+     * @param token an analyzed token
+     * @return its Penn Treebank tag
+     */
+    static String of(Token token) {
+        PartOfSpeech pos = token.getPartOfSpeech();
+        String word = token.getText().getContent();
+        String lower = word.toLowerCase(Locale.ROOT);
+        boolean plural = pos.getNumber() == PartOfSpeech.Number.PLURAL;
+        return switch (pos.getTag()) {
+            case NOUN -> pos.getProper() == PartOfSpeech.Proper.PROPER
+                    ? (plural ? "NNPS" : "NNP")
+                    : (plural ? "NNS" : "NN");
+            case VERB -> verb(pos, lower);
+            case ADJ -> "JJ";
+            case ADV -> "RB";
+            case DET -> "DT";
+            case PRON -> pos.getCase() == PartOfSpeech.Case.GENITIVE ? "PRP$" : "PRP";
+            case ADP -> "IN";
+            case CONJ -> "CC";
+            case NUM -> "CD";
+            case PRT -> lower.equals("to") ? "TO" : lower.equals("'s") || lower.equals("'") ? "POS" : "RP";
+            case PUNCT -> punctuation(word);
+            case X -> "FW";
+            case AFFIX -> "AFX";
+            default -> "NN";
+        };
+    }
+
+    private static String verb(PartOfSpeech pos, String lower) {
+        if (lower.endsWith("ing")) return "VBG";
+        if (pos.getTense() == PartOfSpeech.Tense.PAST) return "VBD";
+        if (pos.getTense() == PartOfSpeech.Tense.PRESENT) {
+            return pos.getPerson() == PartOfSpeech.Person.THIRD && pos.getNumber() != PartOfSpeech.Number.PLURAL
+                    ? "VBZ" : "VBP";
+        }
+        return "VB";
+    }
+
+    private static String punctuation(String word) {
+        return switch (word) {
+            case ".", "?", "!" -> ".";
+            case "," -> ",";
+            case ":", ";", "-", "--", "..." -> ":";
+            case "(", "[", "{" -> "-LRB-";
+            case ")", "]", "}" -> "-RRB-";
+            case "\"", "``", "“" -> "``";
+            case "''", "”" -> "''";
+            case "$", "#" -> word;
+            default -> "SYM";
+        };
+    }
+}
@@ -0,0 +1,127 @@
+package org.example.parse;
+
+import edu.stanford.nlp.trees.Tree;
+
+import java.util.AbstractList;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * The lines of the ASCII drawing of a parse tree, one per node, generated on demand.
+ * <p>
+ * Building the list only flattens the tree in pre-order and records, for each node,
+ * its parent and whether it is the last child. A line's branch prefix is rebuilt
+ * from the parent chain when the line is asked for, so a virtualized view that
+ * only shows the visible lines costs O(depth) per shown line instead of
+ * copying a growing prefix string for every node of the tree.
+ */
+public class TreeLines extends AbstractList<TreeLines.Line> {
+
+    /**
+     * One line of the drawing: the branch prefix and the node label.
+     */
+    public static final class Line {
+        private final String prefix;
+        private final String label;
+        private final boolean leaf;
+
+        /**
+         * @param prefix  the branch characters in front of the label
+         * @param label   the text of the line
+         * @param leaf    whether the label is shown in bold, as a word
+         */
+        public Line(String prefix, String label, boolean leaf) {
+            this.prefix = prefix;
+            this.label = label;
+            this.leaf = leaf;
+        }
+
+        /** @return the branch characters in front of the label, e.g. {@code "│  ├─ "} */
+        public String getPrefix() { return prefix; }
+
+        /** @return the display label of the node */
+        public String getLabel() { return label; }
+
+        /** @return whether the node is a word of the sentence */
+        public boolean isLeaf() { return leaf; }
+
+        @Override
+        public String toString() { return prefix + label; }
+    }
+
+    private final Tree[] nodes;
+    private final int[] parent;
+    private final boolean[] last;
+    private final Function<String, String> labels;
+
+    /**
+     * @param root    the tree to draw
+     * @param labels  maps a node value to the text shown for it
+     */
+    public TreeLines(Tree root, Function<String, String> labels) {
+        this.labels = labels;
+        List<Tree> order = new ArrayList<>();
+        List<Integer> parents = new ArrayList<>();
+        List<Boolean> lasts = new ArrayList<>();
+
+        // Iterative pre-order walk, so deep trees cannot overflow the stack
+        Deque<Object[]> pending = new ArrayDeque<>();
+        pending.push(new Object[] {root, -1, true});
+        while (!pending.isEmpty()) {
+            Object[] next = pending.pop();
+            Tree node = (Tree) next[0];
+            int index = order.size();
+            order.add(node);
+            parents.add((Integer) next[1]);
+            lasts.add((Boolean) next[2]);
+
+            Tree[] kids = node.children();
+            for (int i = kids.length - 1; i >= 0; i--) {
+                pending.push(new Object[] {kids[i], index, i == kids.length - 1});
+            }
+        }
+
+        int n = order.size();
+        nodes = order.toArray(new Tree[0]);
+        parent = new int[n];
+        last = new boolean[n];
+        for (int i = 0; i < n; i++) {
+            parent[i] = parents.get(i);
+            last[i] = lasts.get(i);
+        }
+    }
+
+    @Override
+    public Line get(int index) {
+        if (index < 0 || index >= nodes.length) {
+            throw new IndexOutOfBoundsException("No line " + index);
+        }
+        int depth = 0;
+        for (int a = parent[index]; a >= 0; a = parent[a]) depth++;
+
+        // Ancestors are walked bottom-up, so the prefix is filled from the right
+        char[] prefix = new char[depth * 3 + 3];
+        int at = depth * 3;
+        prefix[at] = last[index] ? '└' : '├';
+        prefix[at + 1] = '─';
+        prefix[at + 2] = ' ';
+        for (int a = parent[index]; a >= 0; a = parent[a]) {
+            at -= 3;
+            prefix[at] = last[a] ? ' ' : '│';
+            prefix[at + 1] = ' ';
+            prefix[at + 2] = ' ';
+        }
+
+        Tree node = nodes[index];
+        String tag = node.label().value();
+        return new Line(new String(prefix), labels.apply(tag), node.isLeaf());
+    }
+
+    @Override
+    public int size() {
+        return nodes.length;
+    }
+}
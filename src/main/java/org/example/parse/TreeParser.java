@@ -0,0 +1,447 @@
+package org.example.parse;
+
+import com.google.cloud.language.v1.Token;
+import edu.stanford.nlp.ling.CoreAnnotations;
+import edu.stanford.nlp.ling.CoreLabel;
+import edu.stanford.nlp.ling.StringLabel;
+import edu.stanford.nlp.pipeline.Annotation;
+import edu.stanford.nlp.pipeline.StanfordCoreNLP;
+import edu.stanford.nlp.trees.LabeledScoredTreeNode;
+import edu.stanford.nlp.trees.Tree;
+import edu.stanford.nlp.trees.TreeCoreAnnotations;
+import edu.stanford.nlp.util.ArrayCoreMap;
+import edu.stanford.nlp.util.CoreMap;
+import org.example.Analysis;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.WeakHashMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Stanford CoreNLP pipeline for parse trees, loaded lazily on a background thread.
+ * Loading the models takes seconds, so it is started with {@link #load()} and the
+ * pipeline is only waited for by the code that actually needs a tree.
+ * <p>
+ * Texts arrive as an {@link Analysis}, already split into sentences and tagged by
+ * the same syntax analysis the generator uses; the tags are mapped to Penn Treebank
+ * tags and every sentence is parsed as its own task on a pool of worker threads.
+ * Each sentence's tree is delivered as soon as it is ready.
+ * <p>
+ * Parsing is the most expensive local step, so the trees of the most recently
+ * parsed sentences are kept in a small LRU cache; asking again for the same text
+ * returns the cached trees without running the annotators.
+ * <p>
+ * The pipeline is configured by a {@link ParserProfile}. Dependency profiles show
+ * the analysis' own dependency edges as a tree of words under their heads, and
+ * need no pipeline at all. Sentences longer than the word limit
+ * are rejected before parsing, since the PCFG's time and memory explode on long input.
+ */
+public class TreeParser {
+
+    /** Number of parsed texts kept by default. */
+    public static final int DEFAULT_CACHE_SIZE = 32;
+
+    /** Longest text, in words, parsed by default. */
+    public static final int DEFAULT_MAX_WORDS = 80;
+
+    private final Function<Properties, StanfordCoreNLP> factory;
+    private final Properties props;
+    private final boolean dependency;
+    private final int maxWords;
+    private CompletableFuture<StanfordCoreNLP> pipeline;
+    private volatile long loadMillis = -1;
+    private volatile long loadHeapBytes = -1;
+
+    // Parse latency of the texts that were not cached
+    private long parses;
+    private long parseNanos;
+    private long lastParseNanos = -1;
+
+    // Access-ordered, so the eldest entry is the least recently used one
+    private final Map<String, Tree> cache;
+
+    // Sentences of the analyses parsed here. Weak keys: the trees go with the analysis
+    // once it leaves the app's cache, and no analysis keeps this parser's models alive
+    private final Map<Analysis, List<Sentence>> parsed = Collections.synchronizedMap(new WeakHashMap<>());
+    private long cacheHits;
+    private long cacheMisses;
+
+    // Sentences are parsed here, several at a time
+    private final ExecutorService workers = Executors.newFixedThreadPool(
+            Math.max(1, Runtime.getRuntime().availableProcessors() - 1), new ThreadFactory() {
+                private final AtomicInteger count = new AtomicInteger();
+
+                @Override
+                public Thread newThread(Runnable r) {
+                    Thread t = new Thread(r, "CoreNLP-Parser-" + count.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                }
+            });
+
+    /**
+     * One sentence of a parsed text.
+     */
+    public static final class Sentence {
+        private final String text;
+        private final CompletableFuture<Tree> tree;
+
+        Sentence(String text, CompletableFuture<Tree> tree) {
+            this.text = text;
+            this.tree = tree;
+        }
+
+        /** @return the text of the sentence */
+        public String getText() { return text; }
+
+        /** @return completes with the tree of the sentence, or null if it has none */
+        public CompletableFuture<Tree> getTree() { return tree; }
+    }
+
+    /**
+     * Parser with the {@link ParserProfile#ACCURATE} profile.
+     */
+    public TreeParser() {
+        this(ParserProfile.ACCURATE, DEFAULT_MAX_WORDS);
+    }
+
+    /**
+     * @param profile   the CoreNLP configuration
+     * @param maxWords  longest sentence, in words, that will be parsed
+     */
+    public TreeParser(ParserProfile profile, int maxWords) {
+        // The sentences arrive already tokenized, split and tagged, so the parser
+        // must not insist on running the earlier annotators again
+        this(profile.toProperties(maxWords),
+                profile.isDependency() ? props -> null : props -> new StanfordCoreNLP(props, false),
+                DEFAULT_CACHE_SIZE, profile.isDependency(), maxWords);
+    }
+
+    /**
+     * Constituency parser with a custom pipeline and no word limit.
+     *
+     * @param props      CoreNLP pipeline properties
+     * @param factory    builds the pipeline from the properties, on the loader thread
+     * @param cacheSize  maximum number of parsed sentences to keep
+     */
+    public TreeParser(Properties props, Function<Properties, StanfordCoreNLP> factory, int cacheSize) {
+        this(props, factory, cacheSize, false, Integer.MAX_VALUE);
+    }
+
+    /**
+     * @param props       CoreNLP pipeline properties
+     * @param factory     builds the pipeline from the properties, on the loader thread
+     * @param cacheSize   maximum number of parsed sentences to keep
+     * @param dependency  whether to show the analysis' dependency edges instead of the constituency tree
+     * @param maxWords    longest sentence, in words, that will be parsed
+     */
+    public TreeParser(Properties props, Function<Properties, StanfordCoreNLP> factory, int cacheSize,
+                      boolean dependency, int maxWords) {
+        if (cacheSize < 1 || maxWords < 1) {
+            throw new IllegalArgumentException("Cache size and word limit must be positive");
+        }
+        this.props = props;
+        this.factory = factory;
+        this.dependency = dependency;
+        this.maxWords = maxWords;
+        this.cache = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Tree> eldest) {
+                return size() > cacheSize;
+            }
+        };
+    }
+
+    /**
+     * Starts loading the pipeline on a background thread, once; later calls return the same future.
+     *
+     * @return completes with the pipeline when the models are loaded
+     */
+    public synchronized CompletableFuture<StanfordCoreNLP> load() {
+        if (pipeline == null) {
+            pipeline = new CompletableFuture<>();
+            Thread loader = new Thread(() -> {
+                long heapBefore = usedHeap();
+                long start = System.nanoTime();
+                try {
+                    StanfordCoreNLP built = factory.apply(props);
+                    loadMillis = (System.nanoTime() - start) / 1_000_000;
+                    loadHeapBytes = Math.max(0, usedHeap() - heapBefore);
+                    pipeline.complete(built);
+                } catch (Throwable t) {
+                    pipeline.completeExceptionally(t);
+                }
+            }, "CoreNLP-Loader");
+            loader.setDaemon(true);
+            loader.start();
+        }
+        return pipeline;
+    }
+
+    /** @return whether the pipeline has finished loading successfully */
+    public synchronized boolean isLoaded() {
+        return pipeline != null && pipeline.isDone() && !pipeline.isCompletedExceptionally();
+    }
+
+    /** @return how long loading the models took, or -1 if they are not loaded yet */
+    public long getLoadMillis() {
+        return loadMillis;
+    }
+
+    /**
+     * @return heap taken by the loaded models, measured after a GC before and after
+     *         loading, or -1 if they are not loaded yet
+     */
+    public long getLoadHeapBytes() {
+        return loadHeapBytes;
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        System.gc();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    /** @return the longest sentence, in words, that will be parsed */
+    public int getMaxWords() {
+        return maxWords;
+    }
+
+    /**
+     * Parses every sentence of an analyzed text as a separate task on the worker pool.
+     * The sentences and their tagged tokens come from the analysis, so nothing is
+     * tokenized or tagged again here. The result is kept while the analysis is in use,
+     * and sentences parsed recently for another text are completed straight away.
+     *
+     * @param analysis the text's syntax analysis
+     * @return the sentences, in order; each sentence's tree completes on its own, in any order
+     */
+    public List<Sentence> parseAll(Analysis analysis) {
+        return parsed.computeIfAbsent(analysis, a -> {
+            List<Sentence> sentences = new ArrayList<>();
+            for (int i = 0; i < analysis.getSentences().size(); i++) {
+                String sentenceText = analysis.getSentences().get(i);
+                List<Token> tokens = analysis.getTokens(i);
+                int first = analysis.getFirstToken(i);
+                Tree cached;
+                synchronized (this) {
+                    cached = cache.get(sentenceText);
+                    if (cached != null) cacheHits++;
+                }
+                sentences.add(new Sentence(sentenceText, cached != null
+                        ? CompletableFuture.completedFuture(cached)
+                        : CompletableFuture.supplyAsync(() -> parseSentence(sentenceText, tokens, first), workers)));
+            }
+            return sentences;
+        });
+    }
+
+    /**
+     * Parses every sentence of an analyzed text and waits for all the trees.
+     * Must not be called on the FX thread.
+     *
+     * @param analysis the text's syntax analysis
+     * @return the tree of every sentence, in order; null for sentences without one
+     * @throws IllegalArgumentException if a sentence is longer than the word limit
+     * @throws IllegalStateException if the pipeline failed to load
+     */
+    public List<Tree> parseTrees(Analysis analysis) {
+        try {
+            List<Tree> trees = new ArrayList<>();
+            for (Sentence sentence : parseAll(analysis)) {
+                trees.add(sentence.getTree().join());
+            }
+            return trees;
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) throw cause;
+            throw e;
+        }
+    }
+
+    /**
+     * Parses one sentence from its tagged tokens, waiting for the pipeline if it is
+     * still loading. Dependency trees are read off the analysis and need no pipeline.
+     *
+     * @param first index of the sentence's first token in the text, the base of the head indexes
+     */
+    private Tree parseSentence(String text, List<Token> tokens, int first) {
+        int words = countWords(tokens);
+        if (words > maxWords) {
+            throw new IllegalArgumentException(
+                    "Sentence too long to parse: " + words + " words, the limit is " + maxWords);
+        }
+        synchronized (this) {
+            Tree cached = cache.get(text);
+            if (cached != null) {
+                cacheHits++;
+                return cached;
+            }
+            cacheMisses++;
+        }
+
+        long start = System.nanoTime();
+        Tree tree;
+        if (dependency) {
+            tree = toTree(tokens, first);
+        } else {
+            StanfordCoreNLP nlp;
+            try {
+                nlp = load().join();
+            } catch (CompletionException e) {
+                throw new IllegalStateException("CoreNLP pipeline failed to load", e.getCause());
+            }
+            CoreMap sentence = toSentence(text, tokens);
+            Annotation doc = new Annotation(text);
+            doc.set(CoreAnnotations.TokensAnnotation.class, sentence.get(CoreAnnotations.TokensAnnotation.class));
+            doc.set(CoreAnnotations.SentencesAnnotation.class, new ArrayList<>(List.of(sentence)));
+            nlp.annotate(doc);
+            tree = sentence.get(TreeCoreAnnotations.TreeAnnotation.class);
+        }
+        long elapsed = System.nanoTime() - start;
+        synchronized (this) {
+            parses++;
+            parseNanos += elapsed;
+            lastParseNanos = elapsed;
+            if (tree != null) cache.put(text, tree);
+        }
+        return tree;
+    }
+
+    // Punctuation tokens do not count towards the limit
+    private static int countWords(List<Token> tokens) {
+        int words = 0;
+        for (Token token : tokens) {
+            String word = token.getText().getContent();
+            for (int i = 0; i < word.length(); i++) {
+                if (Character.isLetterOrDigit(word.charAt(i))) {
+                    words++;
+                    break;
+                }
+            }
+        }
+        return words;
+    }
+
+    /**
+     * Builds a CoreNLP sentence from analyzed tokens, tagged with their Penn Treebank
+     * tags so the parser starts from them instead of running a tagger.
+     *
+     * @param text    the sentence text
+     * @param tokens  the sentence's tokens
+     * @return the sentence, holding its tokens
+     */
+    static CoreMap toSentence(String text, List<Token> tokens) {
+        List<CoreLabel> labels = new ArrayList<>(tokens.size());
+        for (int i = 0; i < tokens.size(); i++) {
+            Token token = tokens.get(i);
+            String word = token.getText().getContent();
+            CoreLabel label = new CoreLabel();
+            label.setWord(word);
+            label.setValue(word);
+            label.setOriginalText(word);
+            label.setIndex(i + 1);
+            label.setSentIndex(0);
+            label.setTag(PennTags.of(token));
+            labels.add(label);
+        }
+        CoreMap sentence = new ArrayCoreMap();
+        sentence.set(CoreAnnotations.TextAnnotation.class, text);
+        sentence.set(CoreAnnotations.TokensAnnotation.class, labels);
+        sentence.set(CoreAnnotations.SentenceIndexAnnotation.class, 0);
+        return sentence;
+    }
+
+    /**
+     * Turns the dependency edges of a sentence into a tree for display: every word is
+     * a node labelled with its relation to its head, under the head it depends on.
+     *
+     * @param tokens  the sentence's tokens
+     * @param first   index of the sentence's first token in the text; head indexes count from the text's start
+     * @return the tree, rooted at a ROOT node
+     */
+    static Tree toTree(List<Token> tokens, int first) {
+        int n = tokens.size();
+        List<List<Integer>> dependents = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) dependents.add(new ArrayList<>());
+        List<Integer> rootWords = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            int head = tokens.get(i).getDependencyEdge().getHeadTokenIndex() - first;
+            // A root points at itself; heads outside the sentence only come from malformed input
+            if (head == i || head < 0 || head >= n) rootWords.add(i);
+            else dependents.get(head).add(i);
+        }
+
+        // Built bottom-up without recursion; a cycle leaves its words unreachable from the roots
+        Tree[] nodes = new Tree[n];
+        boolean[] visited = new boolean[n];
+        List<Tree> roots = new ArrayList<>();
+        for (int root : rootWords) {
+            List<Integer> order = new ArrayList<>();
+            Deque<Integer> pending = new ArrayDeque<>();
+            pending.push(root);
+            while (!pending.isEmpty()) {
+                int word = pending.pop();
+                if (visited[word]) continue;
+                visited[word] = true;
+                order.add(word);
+                for (int dependent : dependents.get(word)) pending.push(dependent);
+            }
+            for (int k = order.size() - 1; k >= 0; k--) {
+                int word = order.get(k);
+                List<Tree> children = new ArrayList<>();
+                for (int dependent : dependents.get(word)) {
+                    if (nodes[dependent] != null) children.add(nodes[dependent]);
+                }
+                Token token = tokens.get(word);
+                String relation = token.getDependencyEdge().getLabel().name().toLowerCase(Locale.ROOT);
+                nodes[word] = new LabeledScoredTreeNode(
+                        new StringLabel(token.getText().getContent() + " (" + relation + ")"), children);
+            }
+            roots.add(nodes[root]);
+        }
+        return new LabeledScoredTreeNode(new StringLabel("ROOT"), roots);
+    }
+
+    /** @return the number of sentences answered from the cache */
+    public synchronized long getCacheHits() {
+        return cacheHits;
+    }
+
+    /** @return the number of sentences that ran the annotators */
+    public synchronized long getCacheMisses() {
+        return cacheMisses;
+    }
+
+    /** @return mean time of the parses that ran the annotators, or -1 if there were none */
+    public synchronized double getAverageParseMillis() {
+        return parses == 0 ? -1 : parseNanos / 1e6 / parses;
+    }
+
+    /** @return time of the last parse that ran the annotators, or -1 if there was none */
+    public synchronized double getLastParseMillis() {
+        return lastParseNanos < 0 ? -1 : lastParseNanos / 1e6;
+    }
+
+    /**
+     * Stops the worker threads and drops the trees kept for analyses.
+     * Parses already running are left to finish.
+     */
+    public void shutdown() {
+        workers.shutdown();
+        parsed.clear();
+    }
+}
@@ -0,0 +1,125 @@
+package org.example.pipeline;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * A chain of {@link Stage}s connected by bounded queues.
+ * Items are fed to the first stage; closing it drains every stage in order.
+ * If any worker fails, all stages are interrupted and {@link #await()} rethrows the failure.
+ */
+public class Pipeline {
+    private final List<Stage<?, ?>> stages = new ArrayList<>();
+    private volatile PipelineException failure;
+    private volatile boolean aborted;
+    private Consumer<PipelineException> failureHandler = e -> {};
+
+    /**
+     * Registers the first stage of the pipeline.
+     *
+     * @param stage the stage that receives the input items
+     * @return the same stage, for chaining
+     */
+    public <I, O> Stage<I, O> source(Stage<I, O> stage) {
+        if (!stages.isEmpty()) {
+            throw new IllegalStateException("Pipeline already has a source stage");
+        }
+        stage.link(null, this);
+        stages.add(stage);
+        return stage;
+    }
+
+    /**
+     * Registers a stage fed by the output of a previous one.
+     *
+     * @param previous  the stage whose output feeds the new one
+     * @param stage     the new stage
+     * @return          the new stage, for chaining
+     */
+    public <O, R> Stage<O, R> then(Stage<?, O> previous, Stage<O, R> stage) {
+        previous.link(stage, this);
+        stage.link(null, this);
+        stages.add(stage);
+        return stage;
+    }
+
+    /**
+     * Sets what to do when a stage fails, besides interrupting the stages: for example,
+     * failing the work of callers that wait for items already inside the pipeline.
+     * Must be called before the pipeline starts.
+     *
+     * @param failureHandler  called once, on the failing worker's thread, with the failure
+     * @return                this pipeline
+     */
+    public Pipeline setFailureHandler(Consumer<PipelineException> failureHandler) {
+        this.failureHandler = failureHandler;
+        return this;
+    }
+
+    /**
+     * Starts the worker threads of every stage.
+     */
+    public void start() {
+        for (Stage<?, ?> stage : stages) stage.start();
+    }
+
+    /**
+     * Waits until every stage has drained after the source was closed.
+     *
+     * @throws PipelineException if a stage failed
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public void await() throws InterruptedException {
+        try {
+            for (Stage<?, ?> stage : stages) stage.join();
+        } catch (InterruptedException e) {
+            abort();
+            throw e;
+        }
+        if (failure != null) throw failure;
+    }
+
+    /**
+     * Interrupts every stage; used on failure or when the caller gives up.
+     */
+    public void abort() {
+        aborted = true;
+        for (Stage<?, ?> stage : stages) stage.interrupt();
+    }
+
+    /**
+     * @return the stages in pipeline order
+     */
+    public List<Stage<?, ?>> getStages() {
+        return List.copyOf(stages);
+    }
+
+    /**
+     * @return whether the stages were interrupted to stop them; workers that interrupt
+     *         each other for other reasons check this before clearing the interrupt
+     */
+    public boolean isAborted() {
+        return aborted;
+    }
+
+    /**
+     * @return the failure of a stage, or null while no stage has failed
+     */
+    public PipelineException getFailure() {
+        return failure;
+    }
+
+    void checkFailure() {
+        if (failure != null) throw failure;
+    }
+
+    void fail(PipelineException e) {
+        synchronized (this) {
+            if (failure != null) return;
+            failure = e;
+            abort();
+        }
+        failureHandler.accept(e);
+    }
+}
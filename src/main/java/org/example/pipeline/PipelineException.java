@@ -0,0 +1,12 @@
+package org.example.pipeline;
+
+/**
+ * Thrown when a pipeline stage fails; the cause is the worker's original exception.
+ */
+public class PipelineException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    public PipelineException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,238 @@
+package org.example.pipeline;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * One stage of a {@link Pipeline}: a bounded input queue drained by a fixed
+ * number of worker threads. Workers hand their output to the next stage with
+ * a blocking put, so a slow stage fills its queue and stalls the stages in
+ * front of it instead of letting work pile up in memory (backpressure).
+ * <p>
+ * A batched stage hands its worker up to a fixed number of queued items at once,
+ * for work that is cheaper per item in bulk. Every stage counts the items and
+ * batches it processed, the time its workers were busy and its deepest queue.
+ *
+ * @param <I> type of the items the stage consumes
+ * @param <O> type of the items the stage emits
+ */
+public class Stage<I, O> {
+
+    /**
+     * The work done for one item. A worker may emit any number of outputs.
+     */
+    @FunctionalInterface
+    public interface Worker<I, O> {
+        void process(I item, Emitter<O> emit) throws Exception;
+    }
+
+    /**
+     * The work done for a batch of items, in queue order. The list is reused
+     * for the next batch once the call returns.
+     */
+    @FunctionalInterface
+    public interface BatchWorker<I, O> {
+        void process(List<I> items, Emitter<O> emit) throws Exception;
+    }
+
+    /**
+     * Receives a stage's output; blocks while the next stage's queue is full.
+     */
+    @FunctionalInterface
+    public interface Emitter<O> {
+        void emit(O item) throws InterruptedException;
+    }
+
+    // Marks the end of the input; passed from worker to worker until all have stopped
+    private static final Object END = new Object();
+
+    private final String name;
+    private final int parallelism;
+    private final BlockingQueue<Object> queue;
+    private final int maxBatch;
+    private final BatchWorker<I, O> worker;
+    private final AtomicInteger running = new AtomicInteger();
+    private final List<Thread> threads = new ArrayList<>();
+    private ThreadFactory threadFactory = Thread::new;
+
+    private final AtomicLong processed = new AtomicLong();
+    private final AtomicLong batches = new AtomicLong();
+    private final AtomicLong busyNanos = new AtomicLong();
+    private final AtomicInteger maxQueued = new AtomicInteger();
+    private Stage<O, ?> next;
+    private Pipeline pipeline;
+
+    /**
+     * @param name           stage name, used for thread names and errors
+     * @param parallelism    number of worker threads
+     * @param queueCapacity  maximum number of items waiting in front of the stage
+     * @param worker         the work done for each item
+     */
+    public Stage(String name, int parallelism, int queueCapacity, Worker<I, O> worker) {
+        this(name, parallelism, queueCapacity, 1, (items, emit) -> {
+            for (I item : items) worker.process(item, emit);
+        });
+    }
+
+    /**
+     * @param name           stage name, used for thread names and errors
+     * @param parallelism    number of worker threads
+     * @param queueCapacity  maximum number of items waiting in front of the stage
+     * @param maxBatch       maximum number of items handed to the worker at once; a worker
+     *                       takes whatever is queued up to that, without waiting for more
+     * @param worker         the work done for each batch
+     */
+    public Stage(String name, int parallelism, int queueCapacity, int maxBatch, BatchWorker<I, O> worker) {
+        if (parallelism < 1 || queueCapacity < 1 || maxBatch < 1) {
+            throw new IllegalArgumentException("Stage " + name + " needs at least one thread, one queue slot and one item per batch");
+        }
+        this.name = name;
+        this.parallelism = parallelism;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.maxBatch = maxBatch;
+        this.worker = worker;
+    }
+
+    /**
+     * Sets where the worker threads come from, e.g. {@code Thread.ofVirtual().factory()}
+     * for stages that mostly wait on remote calls. Must be called before the pipeline starts.
+     *
+     * @param threadFactory creates the worker threads
+     * @return this stage
+     */
+    public Stage<I, O> setThreadFactory(ThreadFactory threadFactory) {
+        this.threadFactory = threadFactory;
+        return this;
+    }
+
+    /** @return the stage name */
+    public String getName() { return name; }
+
+    /** @return the number of worker threads */
+    public int getParallelism() { return parallelism; }
+
+    /** @return the maximum number of items handed to the worker at once */
+    public int getMaxBatch() { return maxBatch; }
+
+    /** @return the number of items currently waiting in front of the stage */
+    public int getQueued() { return queue.size(); }
+
+    /** @return the most items seen waiting in front of the stage */
+    public int getMaxQueued() { return maxQueued.get(); }
+
+    /** @return the number of items processed so far */
+    public long getProcessed() { return processed.get(); }
+
+    /** @return the number of batches processed so far */
+    public long getBatches() { return batches.get(); }
+
+    /**
+     * @return the time the workers spent processing, summed over all of them, in milliseconds;
+     *         includes waiting for room in the next stage's queue
+     */
+    public double getBusyMillis() { return busyNanos.get() / (double) TimeUnit.MILLISECONDS.toNanos(1); }
+
+    /**
+     * Feeds one item to the stage, blocking while its queue is full.
+     *
+     * @param item the item to process
+     * @throws InterruptedException if interrupted while waiting for room
+     */
+    public void put(I item) throws InterruptedException {
+        offer(item);
+    }
+
+    /**
+     * Signals that no more items will be put. The stage drains its queue,
+     * then closes the next stage in turn.
+     *
+     * @throws InterruptedException if interrupted while waiting for room
+     */
+    public void close() throws InterruptedException {
+        offer(END);
+    }
+
+    // Blocking put that gives up as soon as the pipeline has failed, so feeders never hang
+    private void offer(Object item) throws InterruptedException {
+        while (!queue.offer(item, 100, TimeUnit.MILLISECONDS)) {
+            pipeline.checkFailure();
+        }
+        maxQueued.accumulateAndGet(queue.size(), Math::max);
+    }
+
+    void link(Stage<O, ?> next, Pipeline pipeline) {
+        this.next = next;
+        this.pipeline = pipeline;
+    }
+
+    synchronized void start() {
+        running.set(parallelism);
+        for (int i = 0; i < parallelism; i++) {
+            Thread t = threadFactory.newThread(this::runWorker);
+            t.setName(name + "-" + i);
+            threads.add(t);
+            t.start();
+        }
+        // An earlier stage may have failed before these workers existed to be interrupted
+        if (pipeline.getFailure() != null) interrupt();
+    }
+
+    @SuppressWarnings("unchecked")
+    private void runWorker() {
+        Emitter<O> emit = next == null ? item -> {} : next::offer;
+        List<Object> batch = new ArrayList<>(maxBatch);
+        try {
+            boolean end = false;
+            while (!end) {
+                batch.clear();
+                batch.add(queue.take());
+                if (maxBatch > 1) queue.drainTo(batch, maxBatch - 1);
+                // The end marker is the last item ever queued
+                if (batch.getLast() == END) {
+                    batch.removeLast();
+                    queue.put(END);
+                    end = true;
+                }
+                if (batch.isEmpty()) continue;
+                long start = System.nanoTime();
+                worker.process((List<I>) batch, emit);
+                busyNanos.addAndGet(System.nanoTime() - start);
+                processed.addAndGet(batch.size());
+                batches.incrementAndGet();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception | Error e) {
+            pipeline.fail(new PipelineException("Stage '" + name + "' failed", e));
+            if (e instanceof Error error) throw error;
+        } finally {
+            // The last worker out closes the next stage, however it stopped, so the
+            // stages after a failed one still end and await() returns
+            if (running.decrementAndGet() == 0 && next != null) closeNext();
+        }
+    }
+
+    private void closeNext() {
+        try {
+            next.close();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (PipelineException e) {
+            // Failed already; the interrupted stages stop without the end marker
+        }
+    }
+
+    synchronized void interrupt() {
+        for (Thread t : threads) t.interrupt();
+    }
+
+    void join() throws InterruptedException {
+        for (Thread t : threads) t.join();
+    }
+}
@@ -0,0 +1,103 @@
+package org.example.words;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.random.RandomGenerator;
+
+/**
+ * Walker/Vose alias table for sampling indices from a discrete weighted distribution.
+ * The table is built once in O(n) and every draw costs O(1): one uniform column pick
+ * and one biased coin flip, independently of the number of entries.
+ */
+public class AliasTable {
+    private final double[] probability;
+    private final int[] alias;
+
+    /**
+     * Builds the alias table for the given weights.
+     *
+     * @param weights non-negative, finite weights; at least one must be positive
+     * @throws IllegalArgumentException if the weights are empty, negative, not finite or all zero
+     */
+    public AliasTable(List<Double> weights) {
+        int n = weights.size();
+        if (n == 0) {
+            throw new IllegalArgumentException("Alias table needs at least one weight");
+        }
+
+        double total = 0;
+        for (double w : weights) {
+            if (w < 0 || !Double.isFinite(w)) {
+                throw new IllegalArgumentException("Invalid weight: " + w);
+            }
+            total += w;
+        }
+        if (total <= 0) {
+            throw new IllegalArgumentException("At least one weight must be positive");
+        }
+
+        probability = new double[n];
+        alias = new int[n];
+
+        // Scale weights so that the average column holds exactly 1.0
+        double[] scaled = new double[n];
+        int[] small = new int[n];
+        int[] large = new int[n];
+        int smallTop = 0, largeTop = 0;
+        for (int i = 0; i < n; i++) {
+            scaled[i] = weights.get(i) * n / total;
+            if (scaled[i] < 1.0) small[smallTop++] = i;
+            else large[largeTop++] = i;
+        }
+
+        // Pair each under-full column with an over-full one that tops it up
+        while (smallTop > 0 && largeTop > 0) {
+            int s = small[--smallTop];
+            int l = large[--largeTop];
+            probability[s] = scaled[s];
+            alias[s] = l;
+            scaled[l] = (scaled[l] + scaled[s]) - 1.0;
+            if (scaled[l] < 1.0) small[smallTop++] = l;
+            else large[largeTop++] = l;
+        }
+
+        // Whatever is left is full up to rounding error
+        while (largeTop > 0) {
+            int l = large[--largeTop];
+            probability[l] = 1.0;
+            alias[l] = l;
+        }
+        while (smallTop > 0) {
+            int s = small[--smallTop];
+            probability[s] = 1.0;
+            alias[s] = s;
+        }
+    }
+
+    /**
+     * Draws one index according to the table's distribution.
+     *
+     * @return an index in the range [0, size())
+     */
+    public int sample() {
+        return sample(ThreadLocalRandom.current());
+    }
+
+    /**
+     * Draws one index according to the table's distribution, using the given generator.
+     *
+     * @param rng the generator to draw from
+     * @return an index in the range [0, size())
+     */
+    public int sample(RandomGenerator rng) {
+        int column = WordUtil.Randomizer(probability.length, rng);
+        return rng.nextDouble() < probability[column] ? column : alias[column];
+    }
+
+    /**
+     * @return the number of entries the table samples from
+     */
+    public int size() {
+        return probability.length;
+    }
+}
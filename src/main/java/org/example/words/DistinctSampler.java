@@ -0,0 +1,78 @@
+package org.example.words;
+
+import java.util.HashMap;
+import java.util.random.RandomGenerator;
+
+/**
+ * Draws words from a WordList without replacement, for the lifetime of one request.
+ * Uniform lists use a lazy partial Fisher-Yates shuffle over a virtual index array:
+ * only the slots displaced by a swap are stored, so k draws cost O(k) time and memory
+ * however large the dictionary is, and the list itself is never copied.
+ * Weighted lists draw from the list's shared sum tree, which takes drawn words out
+ * of the distribution in O(log n) per draw; words of weight zero are never drawn.
+ * Once every word has been drawn, a new round starts.
+ */
+public class DistinctSampler {
+    private final WordList list;
+    private final RandomGenerator rng;
+
+    // Virtual index array: slot -> index, only for slots that differ from identity
+    private final HashMap<Integer, Integer> displaced = new HashMap<>();
+    // Words not yet drawn in this round (weighted lists only)
+    private WeightTree.Remaining remaining;
+    private int drawn;
+
+    /**
+     * @param list the word list to draw from
+     * @param rng  the request's random source
+     */
+    public DistinctSampler(WordList list, RandomGenerator rng) {
+        this.list = list;
+        this.rng = rng;
+    }
+
+    /**
+     * Returns the next word, never repeating one until the whole list has been drawn
+     * (every word of positive weight, for weighted lists).
+     *
+     * @return a word not yet returned in this round, or "" if the list is empty
+     */
+    public String next() {
+        int size = list.words.size();
+        if (size == 0) return "";
+        if (list.weightTree != null && list.weightTree.size() == size) {
+            return list.words.get(nextWeighted());
+        }
+        if (drawn >= size) {
+            displaced.clear();
+            drawn = 0;
+        }
+        int index = nextUniform(size);
+        drawn++;
+        return list.words.get(index);
+    }
+
+    /**
+     * One step of Fisher-Yates: swap a random slot from the undrawn tail into the head.
+     */
+    private int nextUniform(int size) {
+        int j = drawn + rng.nextInt(size - drawn);
+        Integer atJ = displaced.get(j);
+        int picked = atJ == null ? j : atJ;
+
+        // The head slot is never visited again, so its entry can go
+        Integer atHead = displaced.remove(drawn);
+        int head = atHead == null ? drawn : atHead;
+        if (j != drawn) displaced.put(j, head);
+        return picked;
+    }
+
+    /**
+     * Weighted draw among the words left in this round.
+     */
+    private int nextWeighted() {
+        if (remaining == null) remaining = list.weightTree.remaining();
+        if (remaining.isEmpty()) remaining.reset();
+        return remaining.take(rng);
+    }
+}
@@ -0,0 +1,131 @@
+package org.example.words;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.random.RandomGenerator;
+
+/**
+ * Sum tree over a discrete weighted distribution, for sampling indices without replacement.
+ * The tree is built once in O(n) and shared; each {@link Remaining} records only the nodes
+ * on the paths of the entries it has taken, so k draws cost O(k log n) time and memory and
+ * follow the weights of the entries still left. Entries of weight zero are never drawn.
+ */
+public class WeightTree {
+    // Leaves in the tree: the number of weights rounded up to a power of two
+    private final int leaves;
+    // Heap layout: node 1 is the root, the children of node i are 2i and 2i + 1
+    private final double[] sum;
+    // Number of positive weights under each node
+    private final int[] count;
+    private final int size;
+
+    /**
+     * Builds the tree for the given weights.
+     *
+     * @param weights non-negative, finite weights; at least one must be positive
+     * @throws IllegalArgumentException if the weights are empty, negative, not finite or all zero
+     */
+    public WeightTree(List<Double> weights) {
+        size = weights.size();
+        if (size == 0) {
+            throw new IllegalArgumentException("Weight tree needs at least one weight");
+        }
+        leaves = Integer.highestOneBit(Math.max(1, size - 1)) << 1;
+        sum = new double[2 * leaves];
+        count = new int[2 * leaves];
+        for (int i = 0; i < size; i++) {
+            double w = weights.get(i);
+            if (w < 0 || !Double.isFinite(w)) {
+                throw new IllegalArgumentException("Invalid weight: " + w);
+            }
+            sum[leaves + i] = w;
+            count[leaves + i] = w > 0 ? 1 : 0;
+        }
+        for (int node = leaves - 1; node >= 1; node--) {
+            sum[node] = sum[2 * node] + sum[2 * node + 1];
+            count[node] = count[2 * node] + count[2 * node + 1];
+        }
+        if (count[1] == 0) {
+            throw new IllegalArgumentException("At least one weight must be positive");
+        }
+    }
+
+    /**
+     * @return the number of entries the tree samples from
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return an empty draw: every entry of positive weight is still available
+     */
+    public Remaining remaining() {
+        return new Remaining();
+    }
+
+    /**
+     * The entries not yet taken by one sequence of draws. Only the nodes above taken
+     * entries are stored, as the weight and number of entries taken from under them.
+     */
+    public final class Remaining {
+        private final HashMap<Integer, Double> takenWeight = new HashMap<>();
+        private final HashMap<Integer, Integer> takenCount = new HashMap<>();
+
+        private Remaining() {}
+
+        /**
+         * @return whether every entry of positive weight has been taken
+         */
+        public boolean isEmpty() {
+            return !open(1);
+        }
+
+        /**
+         * Draws one entry not taken yet, with probability proportional to its weight
+         * among the entries left, and takes it.
+         *
+         * @param rng the generator to draw from
+         * @return an index in the range [0, size())
+         * @throws IllegalStateException if every entry has been taken
+         */
+        public int take(RandomGenerator rng) {
+            if (isEmpty()) throw new IllegalStateException("No entry left to draw");
+            double u = rng.nextDouble() * weight(1);
+            int node = 1;
+            while (node < leaves) {
+                int left = 2 * node;
+                // Counts decide where entries are left; weights only choose between open subtrees
+                boolean leftOpen = open(left);
+                if (leftOpen && (!open(left + 1) || u < weight(left))) {
+                    node = left;
+                } else {
+                    if (leftOpen) u -= weight(left);
+                    node = left + 1;
+                }
+            }
+            double w = sum[node];
+            for (int n = node; n >= 1; n >>= 1) {
+                takenWeight.merge(n, w, Double::sum);
+                takenCount.merge(n, 1, Integer::sum);
+            }
+            return node - leaves;
+        }
+
+        /**
+         * Puts every entry back.
+         */
+        public void reset() {
+            takenWeight.clear();
+            takenCount.clear();
+        }
+
+        private boolean open(int node) {
+            return count[node] > takenCount.getOrDefault(node, 0);
+        }
+
+        private double weight(int node) {
+            return sum[node] - takenWeight.getOrDefault(node, 0.0);
+        }
+    }
+}
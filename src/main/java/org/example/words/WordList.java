@@ -1,27 +1,84 @@
 package org.example.words;
 
 import java.util.ArrayList;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.random.RandomGenerator;
 
 public abstract class WordList {
     protected ArrayList<String> words;
 
+    // Alias table over the word weights, or null when the file has no weight column
+    protected AliasTable weights;
+    // Sum tree over the same weights, for draws without replacement, or null
+    protected WeightTree weightTree;
+
     /**
      * Loads all words from the given file path into the internal list.
+     * Each line may carry an optional weight after a tab (e.g. "dog\t12.5");
+     * lines without one count as weight 1. If any line is weighted, an alias
+     * table is built so that Random() draws by frequency in O(1), and a sum tree
+     * for drawing without replacement.
      *
      * @param filePath the path to the word list file to import
      */
     public WordList(String filePath) {
-        words = WordUtil.importer(filePath);
+        ArrayList<String> lines = WordUtil.importer(filePath);
+        words = new ArrayList<>(lines.size());
+        ArrayList<Double> lineWeights = new ArrayList<>(lines.size());
+        boolean weighted = false;
+
+        for (String line : lines) {
+            Double weight = WordUtil.WeightOf(line);
+            if (weight != null) {
+                words.add(line.substring(0, line.lastIndexOf('\t')));
+                lineWeights.add(weight);
+                weighted = true;
+            } else {
+                words.add(line);
+                lineWeights.add(1.0);
+            }
+        }
+
+        if (weighted) {
+            weights = new AliasTable(lineWeights);
+            weightTree = new WeightTree(lineWeights);
+        }
     }
 
     /**
      * Returns a random word from the list.
-     * Uses WordUtil.Randomizer to pick an index; returns an empty string if the list is empty.
+     * Draws from the alias table when the list is weighted, otherwise uses
+     * WordUtil.Randomizer to pick an index; returns an empty string if the list is empty.
      *
      * @return a randomly selected word, or "" if no words are available
      */
     public String Random() {
+        return Random(ThreadLocalRandom.current());
+    }
+
+    /**
+     * Returns a random word from the list, drawn from the given generator.
+     * Passing a seeded generator makes the sequence of words reproducible.
+     *
+     * @param rng the generator to draw from
+     * @return a randomly selected word, or "" if no words are available
+     */
+    public String Random(RandomGenerator rng) {
         if (words.isEmpty()) return "";
-        return words.get(WordUtil.Randomizer(words.size()));
+        if (weights != null && weights.size() == words.size()) {
+            return words.get(weights.sample(rng));
+        }
+        return words.get(WordUtil.Randomizer(words.size(), rng));
+    }
+
+    /**
+     * Creates a sampler that draws words from this list without replacement,
+     * so the same word is not handed out twice within one request.
+     *
+     * @param rng the request's random source
+     * @return a new DistinctSampler over this list
+     */
+    public DistinctSampler Distinct(RandomGenerator rng) {
+        return new DistinctSampler(this, rng);
     }
-}
\ No newline at end of file
+}
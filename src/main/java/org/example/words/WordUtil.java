@@ -5,6 +5,9 @@ import java.util.Collections;
 import java.util.Scanner;
 import java.io.FileReader;
 import java.io.FileWriter;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.random.RandomGenerator;
+import java.util.random.RandomGeneratorFactory;
 
 
 public class WordUtil{
@@ -41,15 +44,89 @@ public class WordUtil{
         return words;
     }
 
+    /**
+     * Reads the optional weight column of a word file line, i.e. a number after the last tab.
+     *
+     * @param Line a line as returned by importer
+     * @return the weight, or null if the line has no numeric weight column
+     */
+    public static Double WeightOf(String Line)
+    {
+        int tab = Line.lastIndexOf('\t');
+        if (tab <= 0) return null;
+        try {
+            return Double.parseDouble(Line.substring(tab + 1).trim());
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    // Splittable LXM generator: fast, statistically strong and cheap to create per request
+    private static final RandomGeneratorFactory<RandomGenerator> RANDOM_FACTORY =
+            RandomGeneratorFactory.of("L64X128MixRandom");
+
     /**
      * Generates a random integer between 0 (inclusive) and max (exclusive).
+     * Uses the calling thread's own generator, so parallel callers never contend.
      *
      * @param max the upper bound (exclusive) for the random number
-     * @return a random index in the range [0, max)
+     * @return a random index in the range [0, max), or 0 if max is not positive
      */
     public static int Randomizer(int max) {
-        int num = (int)(Math.random() * max);   // Multiply a random double [0.0, 1.0) by max and cast to int
-        return num;
+        return Randomizer(max, ThreadLocalRandom.current());
+    }
+
+    /**
+     * Generates a random integer between 0 (inclusive) and max (exclusive)
+     * from the given generator.
+     *
+     * @param max the upper bound (exclusive) for the random number
+     * @param rng the generator to draw from
+     * @return a random index in the range [0, max), or 0 if max is not positive
+     */
+    public static int Randomizer(int max, RandomGenerator rng) {
+        if (max <= 0) return 0;
+        return rng.nextInt(max);
+    }
+
+    /**
+     * Creates a new, unseeded random source for one request or thread.
+     *
+     * @return a fresh L64X128MixRandom generator
+     */
+    public static RandomGenerator RandomSource() {
+        return RANDOM_FACTORY.create();
+    }
+
+    /**
+     * Creates a new random source with a fixed seed, so runs can be reproduced.
+     *
+     * @param seed the seed for the generator
+     * @return an L64X128MixRandom generator that always yields the same sequence for this seed
+     */
+    public static RandomGenerator RandomSource(long seed) {
+        return RANDOM_FACTORY.create(seed);
+    }
+
+    /**
+     * Creates the random source of one item (a line, a request) of a seeded run.
+     * The run's seed and the item number are mixed with SplitMix64, so that items of
+     * runs with different seeds get unrelated sequences rather than shifted copies.
+     *
+     * @param seed   the seed of the run
+     * @param stream the number of the item within the run
+     * @return an L64X128MixRandom generator that always yields the same sequence for this pair
+     */
+    public static RandomGenerator RandomSource(long seed, long stream) {
+        return RANDOM_FACTORY.create(mix(mix(seed) + stream));
+    }
+
+    // SplitMix64 finalizer: a bijection on longs that spreads every input bit
+    private static long mix(long z) {
+        z += 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
     }
 
     /**
@@ -0,0 +1,134 @@
+package org.example;
+
+import com.google.cloud.language.v1.AnalyzeSyntaxResponse;
+import com.google.cloud.language.v1.DependencyEdge;
+import com.google.cloud.language.v1.PartOfSpeech;
+import com.google.cloud.language.v1.Sentence;
+import com.google.cloud.language.v1.TextSpan;
+import com.google.cloud.language.v1.Token;
+import org.junit.jupiter.api.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Test class for Analysis.
+ */
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+public class AnalysisTest {
+
+    /** Language API that answers every syntax request with the same tokens and counts the calls. */
+    private static final class CountingApi extends LanguageApi {
+        final AtomicInteger calls = new AtomicInteger();
+
+        CountingApi() {
+            super(null);
+        }
+
+        @Override
+        public AnalyzeSyntaxResponse analyzeSyntax(String text) {
+            calls.incrementAndGet();
+            return response();
+        }
+    }
+
+    // "Dogs bark. The cat sleeps."
+    private static AnalyzeSyntaxResponse response() {
+        return AnalyzeSyntaxResponse.newBuilder()
+                .addSentences(sentence("Dogs bark.", 0))
+                .addSentences(sentence("The cat sleeps.", 11))
+                .addTokens(token("Dogs", 0, PartOfSpeech.Tag.NOUN))
+                .addTokens(token("bark", 5, PartOfSpeech.Tag.VERB))
+                .addTokens(token(".", 9, PartOfSpeech.Tag.PUNCT))
+                .addTokens(token("The", 11, PartOfSpeech.Tag.DET))
+                .addTokens(token("cat", 15, PartOfSpeech.Tag.NOUN))
+                .addTokens(token("sleeps", 19, PartOfSpeech.Tag.VERB))
+                .addTokens(token(".", 25, PartOfSpeech.Tag.PUNCT))
+                .build();
+    }
+
+    private static Sentence sentence(String text, int offset) {
+        return Sentence.newBuilder().setText(TextSpan.newBuilder().setContent(text).setBeginOffset(offset)).build();
+    }
+
+    private static Token token(String word, int offset, PartOfSpeech.Tag tag) {
+        return Token.newBuilder()
+                .setText(TextSpan.newBuilder().setContent(word).setBeginOffset(offset))
+                .setPartOfSpeech(PartOfSpeech.newBuilder().setTag(tag))
+                .build();
+    }
+
+    @Test
+    @Order(1)
+    @DisplayName("Test tokens are grouped by sentence")
+    void testSentences() {
+        Analysis analysis = new Analysis("Dogs bark. The cat sleeps.", response());
+        assertEquals(List.of("Dogs bark.", "The cat sleeps."), analysis.getSentences());
+        assertEquals(List.of("The", "cat", "sleeps", "."),
+                analysis.getTokens(1).stream().map(t -> t.getText().getContent()).toList());
+        assertEquals(3, analysis.getFirstToken(1));
+        assertEquals(7, analysis.getTokens().size());
+    }
+
+    @Test
+    @Order(2)
+    @DisplayName("Test every caller gets its own buckets")
+    void testBuckets() {
+        Analysis analysis = new Analysis("Dogs bark. The cat sleeps.", response());
+        WordBuckets first = analysis.newBuckets();
+        assertEquals(List.of("Dogs", "cat"), first.get("[noun]"));
+        assertEquals(List.of("bark", "sleeps"), first.get("[verb]"));
+        // Always draws 0, so the two nouns swap
+        first.shuffle(() -> 0L);
+        assertEquals(List.of("cat", "Dogs"), first.get("[noun]"));
+        assertEquals(List.of("Dogs", "cat"), analysis.newBuckets().get("[noun]"), "Shuffling one set must not affect another");
+    }
+
+    @Test
+    @Order(3)
+    @DisplayName("Test an input is analyzed only once")
+    void testAnalyzedOnce() throws Exception {
+        App app = new App();
+        CountingApi api = new CountingApi();
+        String text = "Dogs bark. The cat sleeps.";
+        assertNull(app.getCachedAnalysis(text));
+
+        Analysis analysis = app.analyze(api, text);
+        assertSame(analysis, app.analyze(api, text));
+        assertSame(analysis, app.getCachedAnalysis(text));
+        assertEquals(1, api.calls.get());
+
+        app.analyze(api, "Something else.");
+        assertEquals(2, api.calls.get());
+    }
+
+    @Test
+    @Order(4)
+    @DisplayName("Test tokens are rebuilt from what the analysis keeps")
+    void testRebuiltTokens() {
+        Token verb = Token.newBuilder()
+                .setText(TextSpan.newBuilder().setContent("barks").setBeginOffset(8))
+                .setPartOfSpeech(PartOfSpeech.newBuilder().setTag(PartOfSpeech.Tag.VERB)
+                        .setTense(PartOfSpeech.Tense.PRESENT).setPerson(PartOfSpeech.Person.THIRD)
+                        .setNumber(PartOfSpeech.Number.SINGULAR).setMood(PartOfSpeech.Mood.INDICATIVE))
+                .setDependencyEdge(DependencyEdge.newBuilder().setHeadTokenIndex(1).setLabel(DependencyEdge.Label.ROOT))
+                .setLemma("bark")
+                .build();
+        Token moved = token("loudly", 99, PartOfSpeech.Tag.ADV).toBuilder()
+                .setDependencyEdge(DependencyEdge.newBuilder().setHeadTokenIndex(1).setLabel(DependencyEdge.Label.ADVMOD))
+                .build();
+        Analysis analysis = new Analysis("Café 🎉 barks", AnalyzeSyntaxResponse.newBuilder()
+                .addSentences(sentence("Café 🎉 barks", 0))
+                .addTokens(token("Café", 0, PartOfSpeech.Tag.NOUN))
+                .addTokens(verb)
+                .addTokens(moved)
+                .build());
+
+        assertEquals(verb.toBuilder().clearLemma().build(), analysis.getTokens().get(1),
+                "Tags, morphology and edges should survive, lemmas are dropped");
+        assertEquals(moved, analysis.getTokens(0).get(2), "A word not found at its offset should be kept as given");
+        assertEquals("Café", analysis.getTokens().getFirst().getText().getContent());
+        assertEquals(List.of("barks"), analysis.newBuckets().get("[verb]"));
+    }
+}
@@ -4,6 +4,7 @@ import org.junit.jupiter.api.*;
 import static org.junit.jupiter.api.Assertions.*;
 
 import java.util.List;
+import java.util.Map;
 
 /**
  * Test class for App.java using only JUnit 5.
@@ -429,4 +430,68 @@ public class AppTest {
             fail("Should handle input with numbers: " + e.getMessage());
         }
     }
-}
\ No newline at end of file
+
+    @Test
+    @Order(16)
+    @DisplayName("Test seeded generation is reproducible")
+    void testSeededGeneration() {
+        Exception exception = assertThrows(IllegalArgumentException.class, () -> {
+            app.generate(null, 42L);
+        });
+        assertTrue(exception.getMessage().contains("Invalid input"),
+                "Seeded overload should validate input like generate(String)");
+
+        try {
+            String input = "The quick brown fox jumps over the lazy dog";
+            List<App.SentenceResult> results1 = app.generate(input, 42L);
+            List<App.SentenceResult> results2 = app.generate(input, 42L);
+
+            assertEquals(results1.size(), results2.size(), "Same seed should give the same number of sentences");
+            for (int i = 0; i < results1.size(); i++) {
+                assertEquals(results1.get(i).getStructure(), results2.get(i).getStructure(),
+                        "Same seed should pick the same structures");
+                assertEquals(results1.get(i).getText(), results2.get(i).getText(),
+                        "Same seed should generate the same sentences");
+            }
+
+        } catch (Exception e) {
+            System.err.println("Seeded generation error: " + e.getMessage());
+            fail("Should not throw exception for valid seeded input: " + e.getMessage());
+        }
+    }
+
+    @Test
+    @Order(17)
+    @DisplayName("Test composition uses every input word")
+    void testComposeUsesAllWords() {
+        WordBuckets buckets = TestBuckets.of(Map.of(
+                "[noun]", List.of("cat", "mat", "hat"),
+                "[verb]", List.of("sits", "jumps"),
+                "[adjective]", List.of("red")));
+
+        List<App.SentenceResult> drafts = app.compose(buckets, org.example.words.WordUtil.RandomSource(1L));
+
+        assertFalse(drafts.isEmpty(), "Should compose at least one sentence");
+        String all = String.join(" ", drafts.stream().map(App.SentenceResult::getText).toList()).toLowerCase();
+        for (String w : List.of("cat", "mat", "hat", "sits", "jumps", "red")) {
+            assertTrue(all.contains(w), "Input word '" + w + "' should be used");
+        }
+        for (App.SentenceResult d : drafts) {
+            assertFalse(d.isModerated(), "Composed drafts are not moderated yet");
+            assertFalse(d.getText().contains("["), "No placeholder should be left unfilled");
+        }
+    }
+
+    @Test
+    @Order(18)
+    @DisplayName("Test template rendering")
+    void testRender() {
+        String sentence = App.render("[noun] [verb] with [pronoun]", p -> switch (p) {
+            case "[noun]" -> "dog";
+            case "[verb]" -> "plays";
+            default -> null;
+        });
+        assertEquals("Dog plays with [pronoun]", sentence,
+                "Should substitute supplied words, keep the rest and capitalize");
+    }
+}
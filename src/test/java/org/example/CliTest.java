@@ -0,0 +1,123 @@
+package org.example;
+
+import com.google.cloud.language.v1.AnalyzeSyntaxResponse;
+import com.google.cloud.language.v1.PartOfSpeech;
+import com.google.cloud.language.v1.Sentence;
+import com.google.cloud.language.v1.TextSpan;
+import com.google.cloud.language.v1.Token;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import org.junit.jupiter.api.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.List;
+
+/**
+ * Test class for Cli.
+ * Runs against a Language API that tags every word as a noun and never calls Google.
+ */
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+public class CliTest {
+
+    /** Tags every word as a noun; moderation scores 0.25 unless the sentence contains "fail". */
+    private static final class LocalApi extends LanguageApi {
+        LocalApi() {
+            super(null);
+        }
+
+        @Override
+        public AnalyzeSyntaxResponse analyzeSyntax(String text) {
+            AnalyzeSyntaxResponse.Builder response = AnalyzeSyntaxResponse.newBuilder()
+                    .addSentences(Sentence.newBuilder().setText(TextSpan.newBuilder().setContent(text)));
+            int offset = 0;
+            for (String word : text.split(" ")) {
+                response.addTokens(Token.newBuilder()
+                        .setText(TextSpan.newBuilder().setContent(word).setBeginOffset(offset))
+                        .setPartOfSpeech(PartOfSpeech.newBuilder().setTag(PartOfSpeech.Tag.NOUN)));
+                offset += word.length() + 1;
+            }
+            return response.build();
+        }
+
+        @Override
+        public double moderate(String sentence) throws IOException {
+            if (sentence.toLowerCase().contains("fail")) throw new IOException("moderation unavailable");
+            return 0.25;
+        }
+    }
+
+    private static List<String> run(Cli cli, String... inputs) throws Exception {
+        StringWriter out = new StringWriter();
+        cli.run(List.of(inputs).iterator(), out);
+        return out.toString().lines().toList();
+    }
+
+    @Test
+    @Order(1)
+    @DisplayName("Test JSON output keeps input order")
+    void testJsonOrder() throws Exception {
+        Cli cli = new Cli(new App(), new LocalApi()).setThreads(3).setFormat(Cli.Format.JSON).setSeed(7L);
+        String[] inputs = new String[40];
+        for (int i = 0; i < inputs.length; i++) inputs[i] = "dog" + i + " cat";
+        List<String> lines = run(cli, inputs);
+
+        assertEquals(40, lines.size());
+        for (int i = 0; i < lines.size(); i++) {
+            JsonObject json = JsonParser.parseString(lines.get(i)).getAsJsonObject();
+            assertEquals(i + 1, json.get("input").getAsLong());
+            assertEquals("dog" + i + " cat", json.get("text").getAsString());
+            JsonObject first = json.getAsJsonArray("results").get(0).getAsJsonObject();
+            assertEquals(0.25, first.get("toxicity").getAsDouble(), 1e-9);
+        }
+        assertEquals(0, cli.getFailed());
+    }
+
+    @Test
+    @Order(2)
+    @DisplayName("Test seeded runs are reproducible")
+    void testSeed() throws Exception {
+        List<String> first = run(new Cli(new App(), new LocalApi()).setSeed(42L).setThreads(4),
+                "dog cat bird", "house tree car");
+        List<String> second = run(new Cli(new App(), new LocalApi()).setSeed(42L).setThreads(1),
+                "dog cat bird", "house tree car");
+        assertEquals(first, second, "The same seed should give the same output whatever the concurrency");
+        assertTrue(first.getFirst().startsWith("Input 1: dog cat bird"));
+    }
+
+    @Test
+    @Order(3)
+    @DisplayName("Test moderation modes")
+    void testModerationModes() throws Exception {
+        List<String> off = run(new Cli(new App(), new LocalApi()).setModeration(App.Moderation.OFF)
+                .setFormat(Cli.Format.JSON), "dog cat");
+        JsonObject result = JsonParser.parseString(off.getFirst()).getAsJsonObject()
+                .getAsJsonArray("results").get(0).getAsJsonObject();
+        assertFalse(result.has("toxicity"), "Unmoderated results should have no toxicity");
+
+        Cli strict = new Cli(new App(), new LocalApi()).setFormat(Cli.Format.JSON);
+        JsonObject failed = JsonParser.parseString(run(strict, "fail").getFirst()).getAsJsonObject();
+        assertEquals("moderation unavailable", failed.get("error").getAsString());
+        assertEquals(1, strict.getFailed());
+
+        Cli lenient = new Cli(new App(), new LocalApi()).setModeration(App.Moderation.BEST_EFFORT)
+                .setFormat(Cli.Format.JSON);
+        JsonObject kept = JsonParser.parseString(run(lenient, "fail").getFirst()).getAsJsonObject();
+        assertFalse(kept.has("error"), "Best-effort moderation should keep the sentences");
+        assertEquals(0, lenient.getFailed());
+    }
+
+    @Test
+    @Order(4)
+    @DisplayName("Test invalid and blank inputs")
+    void testInvalidInputs() throws Exception {
+        Cli cli = new Cli(new App(), new LocalApi());
+        List<String> lines = run(cli, "   ", "123 456", "dog");
+        assertEquals("Input 1: 123 456", lines.get(0), "Blank inputs should be skipped");
+        assertTrue(lines.get(1).contains("Error: Invalid input"));
+        assertEquals("Input 2: dog", lines.get(2), "An invalid input should not stop the run");
+        assertEquals(1, cli.getFailed());
+        assertThrows(IllegalArgumentException.class, () -> cli.setThreads(0));
+    }
+}
@@ -0,0 +1,117 @@
+package org.example;
+
+import org.junit.jupiter.api.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.example.words.WordUtil;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Test class for CorpusGenerator.
+ * Runs without moderation, so no Google API access is needed.
+ */
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+public class CorpusGeneratorTest {
+
+    private static Lexicon lexicon;
+
+    @BeforeAll
+    static void loadLexicon() {
+        lexicon = new Lexicon();
+    }
+
+    @Test
+    @Order(1)
+    @DisplayName("Test requested number of sentences")
+    void testSentenceCount() throws Exception {
+        CorpusGenerator generator = new CorpusGenerator(lexicon, null, 4);
+        List<App.SentenceResult> results = new ArrayList<>();
+
+        long written = generator.generate(null, 5000, WordUtil.RandomSource(1L), results::add);
+
+        assertEquals(5000, written, "Should report the requested count");
+        assertEquals(5000, results.size(), "Sink should receive every sentence");
+        for (App.SentenceResult r : results) {
+            assertFalse(r.getText().isEmpty(), "Sentence should not be empty");
+            assertFalse(r.getText().contains("["), "No placeholder should be left unfilled");
+            assertFalse(r.isModerated(), "Sentences should not be moderated");
+        }
+    }
+
+    @Test
+    @Order(2)
+    @DisplayName("Test seeded runs are reproducible across thread counts")
+    void testSeededRunsAreReproducible() throws Exception {
+        List<String> single = new ArrayList<>();
+        List<String> parallel = new ArrayList<>();
+
+        new CorpusGenerator(lexicon, null, 1)
+                .generate(null, 3000, WordUtil.RandomSource(99L), r -> single.add(r.getText()));
+        new CorpusGenerator(lexicon, null, 8)
+                .generate(null, 3000, WordUtil.RandomSource(99L), r -> parallel.add(r.getText()));
+
+        assertEquals(single, parallel, "Same seed should give the same corpus in the same order");
+    }
+
+    @Test
+    @Order(3)
+    @DisplayName("Test generation from analyzed input words")
+    void testInputWords() throws Exception {
+        WordBuckets source = TestBuckets.of(Map.of(
+                "[noun]", List.of("zebra"),
+                "[verb]", List.of("juggles")));
+
+        List<App.SentenceResult> results = new ArrayList<>();
+        new CorpusGenerator(lexicon, null, 2).generate(source, 200, WordUtil.RandomSource(5L), results::add);
+
+        for (App.SentenceResult r : results) {
+            if (r.getStructure().contains("[noun]")) {
+                assertTrue(r.getText().toLowerCase().contains("zebra"), "Input noun should fill noun slots");
+            }
+            if (r.getStructure().contains("[verb]")) {
+                assertTrue(r.getText().contains("juggles"), "Input verb should fill verb slots");
+            }
+        }
+    }
+
+    @Test
+    @Order(4)
+    @DisplayName("Test streaming to a file")
+    void testWriteToFile() throws Exception {
+        Path out = Files.createTempFile("corpus", ".txt");
+        try {
+            long written = new CorpusGenerator(lexicon, null, 2)
+                    .generate(null, 2500, WordUtil.RandomSource(3L), out);
+            assertEquals(2500, written);
+            assertEquals(2500, Files.readAllLines(out).size(), "File should hold one sentence per line");
+        } finally {
+            Files.deleteIfExists(out);
+        }
+    }
+
+    @Test
+    @Order(5)
+    @DisplayName("Test write failures are reported as IOException")
+    void testSinkFailure() {
+        CorpusGenerator generator = new CorpusGenerator(lexicon, null, 2);
+        IOException e = assertThrows(IOException.class, () -> generator.generate(null, 100,
+                WordUtil.RandomSource(4L), r -> { throw new UncheckedIOException(new IOException("disk full")); }));
+        assertEquals("disk full", e.getMessage());
+    }
+
+    @Test
+    @Order(6)
+    @DisplayName("Test invalid arguments")
+    void testInvalidArguments() {
+        assertThrows(IllegalArgumentException.class, () -> new CorpusGenerator(lexicon, null, 0));
+        assertThrows(IllegalArgumentException.class, () ->
+                new CorpusGenerator(lexicon, null, 1).generate(null, -1, WordUtil.RandomSource(), r -> {}));
+    }
+}
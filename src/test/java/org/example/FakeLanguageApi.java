@@ -0,0 +1,85 @@
+package org.example;
+
+import com.google.cloud.language.v1.AnalyzeSyntaxResponse;
+import com.google.cloud.language.v1.PartOfSpeech;
+import com.google.cloud.language.v1.Sentence;
+import com.google.cloud.language.v1.TextSpan;
+import com.google.cloud.language.v1.Token;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Local stand-in for the Google Language API, for tests and load tests.
+ * Tags words with a few suffix rules and scores every sentence 0.25, after
+ * sleeping for the configured latency of each call as a remote call would.
+ */
+public class FakeLanguageApi extends LanguageApi {
+
+    private static final Set<String> ARTICLES = Set.of("a", "an", "the");
+    private static final Set<String> PRONOUNS = Set.of("i", "you", "he", "she", "it", "we", "they");
+
+    private final long latencyMillis;
+    private final AtomicInteger syntaxCalls = new AtomicInteger();
+    private final AtomicInteger moderationCalls = new AtomicInteger();
+
+    /**
+     * @param latencyMillis time every call takes
+     */
+    public FakeLanguageApi(long latencyMillis) {
+        super(null);
+        this.latencyMillis = latencyMillis;
+    }
+
+    @Override
+    public AnalyzeSyntaxResponse analyzeSyntax(String text) throws IOException {
+        syntaxCalls.incrementAndGet();
+        pause();
+        AnalyzeSyntaxResponse.Builder response = AnalyzeSyntaxResponse.newBuilder()
+                .addSentences(Sentence.newBuilder().setText(TextSpan.newBuilder().setContent(text)));
+        int offset = 0;
+        for (String word : text.split(" ")) {
+            response.addTokens(Token.newBuilder()
+                    .setText(TextSpan.newBuilder().setContent(word).setBeginOffset(offset))
+                    .setPartOfSpeech(PartOfSpeech.newBuilder().setTag(tagOf(word))));
+            offset += word.length() + 1;
+        }
+        return response.build();
+    }
+
+    @Override
+    public double moderate(String sentence) throws IOException {
+        moderationCalls.incrementAndGet();
+        pause();
+        return 0.25;
+    }
+
+    private static PartOfSpeech.Tag tagOf(String word) {
+        String w = word.toLowerCase(Locale.ROOT);
+        if (ARTICLES.contains(w)) return PartOfSpeech.Tag.DET;
+        if (PRONOUNS.contains(w)) return PartOfSpeech.Tag.PRON;
+        if (w.endsWith("ly")) return PartOfSpeech.Tag.ADV;
+        if (w.endsWith("ing") || w.endsWith("ed") || w.endsWith("s")) return PartOfSpeech.Tag.VERB;
+        if (w.endsWith("ful") || w.endsWith("ous") || w.endsWith("y")) return PartOfSpeech.Tag.ADJ;
+        return PartOfSpeech.Tag.NOUN;
+    }
+
+    private void pause() throws InterruptedIOException {
+        if (latencyMillis <= 0) return;
+        try {
+            Thread.sleep(latencyMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Call cancelled");
+        }
+    }
+
+    /** @return the number of syntax analysis calls so far */
+    public int getSyntaxCalls() { return syntaxCalls.get(); }
+
+    /** @return the number of moderation calls so far */
+    public int getModerationCalls() { return moderationCalls.get(); }
+}
@@ -0,0 +1,143 @@
+package org.example;
+
+import org.example.GenerationPipeline.Step;
+import org.example.words.WordUtil;
+import org.junit.jupiter.api.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Test class for GenerationPipeline.
+ * Runs generations against the fake Language API on the stages and on the caller's thread.
+ */
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+public class GenerationPipelineTest {
+
+    private static final String TEXT = "The quick dog runs happily and the lazy cat sleeps";
+
+    private static List<String> texts(List<App.SentenceResult> results) {
+        return results.stream().map(App.SentenceResult::getText).toList();
+    }
+
+    @Test
+    @Order(1)
+    @DisplayName("Test staged generation matches generation on the caller's thread")
+    void testSameResults() throws Exception {
+        FakeLanguageApi api = new FakeLanguageApi(0);
+        List<App.SentenceResult> expected = new App().generate(api, TEXT, WordUtil.RandomSource(7), App.Moderation.ON);
+
+        App app = new App();
+        try (GenerationPipeline pipeline = new GenerationPipeline(app).start()) {
+            app.setPipeline(pipeline);
+            List<App.SentenceResult> staged = app.generate(api, TEXT, WordUtil.RandomSource(7), App.Moderation.ON);
+            assertEquals(texts(expected), texts(staged), "Seeded generations should not depend on where they run");
+            assertTrue(staged.stream().allMatch(App.SentenceResult::isModerated));
+
+            assertEquals(1, pipeline.getStage(Step.ANALYZE).getProcessed());
+            assertEquals(1, pipeline.getStage(Step.MODERATE).getProcessed());
+        }
+    }
+
+    @Test
+    @Order(2)
+    @DisplayName("Test concurrent requests are served on shared stages")
+    void testConcurrentRequests() throws Exception {
+        FakeLanguageApi api = new FakeLanguageApi(20);
+        App app = new App();
+        int requests = 32;
+        try (GenerationPipeline pipeline = new GenerationPipeline(app)) {
+            pipeline.configure(Step.RENDER).setThreads(1).setMaxBatch(16);
+            pipeline.configure(Step.MODERATE).setQueueCapacity(4);
+            pipeline.start();
+
+            List<Future<Integer>> counts = new ArrayList<>();
+            try (ExecutorService callers = Executors.newVirtualThreadPerTaskExecutor()) {
+                for (int i = 0; i < requests; i++) {
+                    long seed = i;
+                    counts.add(callers.submit(() -> pipeline.generate(api, TEXT + " " + seed,
+                            WordUtil.RandomSource(seed), App.Moderation.BEST_EFFORT, r -> {})));
+                }
+            }
+            for (Future<Integer> count : counts) assertTrue(count.get() > 0);
+
+            assertEquals(requests, pipeline.getStage(Step.ANALYZE).getProcessed());
+            assertEquals(requests, pipeline.getStage(Step.RENDER).getProcessed());
+            assertTrue(pipeline.getStage(Step.RENDER).getBatches() <= requests);
+            assertEquals(requests, pipeline.getStage(Step.MODERATE).getProcessed());
+            assertTrue(pipeline.getStage(Step.MODERATE).getMaxQueued() <= 4, "Queues should stay bounded");
+        }
+    }
+
+    @Test
+    @Order(3)
+    @DisplayName("Test a failing request fails alone")
+    void testFailures() throws Exception {
+        FakeLanguageApi api = new FakeLanguageApi(0);
+        App app = new App();
+        try (GenerationPipeline pipeline = new GenerationPipeline(app).start()) {
+            assertThrows(IllegalArgumentException.class,
+                    () -> pipeline.generate(api, "123 456", WordUtil.RandomSource(1), App.Moderation.OFF, r -> {}));
+
+            IOException e = assertThrows(IOException.class, () -> pipeline.generate(api, TEXT,
+                    WordUtil.RandomSource(1), App.Moderation.OFF, r -> { throw new IOException("client gone"); }));
+            assertEquals("client gone", e.getMessage());
+
+            List<App.SentenceResult> results = new ArrayList<>();
+            assertTrue(pipeline.generate(api, TEXT, WordUtil.RandomSource(1), App.Moderation.OFF, results::add) > 0,
+                    "The stages should keep serving after a failed request");
+            assertFalse(results.getFirst().isModerated());
+            assertThrows(IllegalStateException.class, () -> pipeline.configure(Step.PLAN));
+        }
+        assertThrows(IllegalStateException.class,
+                () -> new GenerationPipeline(app).generate(api, TEXT, WordUtil.RandomSource(1), App.Moderation.OFF, r -> {}));
+    }
+
+    @Test
+    @Order(4)
+    @DisplayName("Test a failing stage fails its requests instead of leaving callers waiting")
+    void testStageFailure() throws Exception {
+        FakeLanguageApi api = new FakeLanguageApi(0);
+        App app = new App();
+        try (GenerationPipeline pipeline = new GenerationPipeline(app).start();
+             ExecutorService callers = Executors.newVirtualThreadPerTaskExecutor()) {
+            // An error from the listener escapes the request and kills the moderation worker
+            Future<Integer> failing = callers.submit(() -> pipeline.generate(api, TEXT, WordUtil.RandomSource(1),
+                    App.Moderation.OFF, r -> { throw new AssertionError("listener bug"); }));
+            ExecutionException e = assertThrows(ExecutionException.class, () -> failing.get(10, TimeUnit.SECONDS));
+            assertInstanceOf(IOException.class, e.getCause());
+
+            IllegalStateException rejected = assertThrows(IllegalStateException.class, () -> pipeline.generate(api, TEXT,
+                    WordUtil.RandomSource(2), App.Moderation.OFF, r -> {}));
+            assertEquals("Pipeline failed", rejected.getMessage());
+        }
+    }
+
+    @Test
+    @Order(5)
+    @DisplayName("Test requests render under the class of the view they came through")
+    void testRenderPriority() throws Exception {
+        FakeLanguageApi api = new FakeLanguageApi(0);
+        App app = new App();
+        PriorityScheduler render = new PriorityScheduler(2, 1, 4, 1);
+        app.setRenderScheduler(render);
+        try (GenerationPipeline pipeline = new GenerationPipeline(app).start()) {
+            app.setPipeline(pipeline);
+            app.generate(app.schedule(api, PriorityScheduler.Priority.BATCH), TEXT,
+                    WordUtil.RandomSource(3), App.Moderation.OFF);
+            assertEquals(1, render.getStarted(PriorityScheduler.Priority.BATCH), "Batch callers should render as batch work");
+            assertEquals(0, render.getStarted(PriorityScheduler.Priority.INTERACTIVE));
+
+            app.generate(app.schedule(api, PriorityScheduler.Priority.INTERACTIVE), TEXT,
+                    WordUtil.RandomSource(3), App.Moderation.OFF);
+            assertEquals(1, render.getStarted(PriorityScheduler.Priority.INTERACTIVE));
+        }
+    }
+}
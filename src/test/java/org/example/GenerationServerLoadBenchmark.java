@@ -0,0 +1,122 @@
+package org.example;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Load test of {@link GenerationServer} against the local {@link FakeLanguageApi}.
+ * Starts the server in process, then keeps a fixed number of closed-loop clients,
+ * each on a virtual thread, sending generate requests for a fixed time, and
+ * reports the sustained requests per second and the latency percentiles.
+ * <p>
+ * Run with {@code mvn -P load-test test-compile exec:exec}, or pass options with
+ * {@code -Dload.args="--clients 512 --seconds 20 --latency 50 --max-in-flight 256"}.
+ */
+public class GenerationServerLoadBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        int clients = 256;
+        int seconds = 10;
+        long latency = 20;
+        int maxInFlight = 128;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--clients"       -> clients = Integer.parseInt(args[++i]);
+                case "--seconds"       -> seconds = Integer.parseInt(args[++i]);
+                case "--latency"       -> latency = Long.parseLong(args[++i]);
+                case "--max-in-flight" -> maxInFlight = Integer.parseInt(args[++i]);
+                default -> throw new IllegalArgumentException("Unknown option: " + args[i]);
+            }
+        }
+
+        GenerationServer server = new GenerationServer(new App(), new FakeLanguageApi(latency), 0, maxInFlight);
+        server.start();
+        URI uri = URI.create("http://localhost:" + server.getPort() + "/generate");
+        String[] inputs = {
+                "The quick dog runs happily", "She sings beautifully every morning",
+                "A lazy cat sleeps", "They walked slowly home", "The bright sun shines"
+        };
+
+        HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .build();
+        AtomicLong ok = new AtomicLong();
+        AtomicLong shed = new AtomicLong();
+        AtomicLong failed = new AtomicLong();
+        long warmupEnd = System.nanoTime() + 2_000_000_000L;
+        long end = warmupEnd + seconds * 1_000_000_000L;
+
+        // Each client returns the latencies of its successful requests
+        List<Future<long[]>> clientLatencies = new ArrayList<>();
+        try (ExecutorService loadThreads = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int c = 0; c < clients; c++) {
+                int id = c;
+                clientLatencies.add(loadThreads.submit(() -> {
+                    long[] mine = new long[256];
+                    int count = 0;
+                    for (int n = 0; System.nanoTime() < end; n++) {
+                        String body = "{\"text\": \"" + inputs[(id + n) % inputs.length] + "\", \"seed\": " + n + "}";
+                        long start = System.nanoTime();
+                        try {
+                            HttpResponse<Void> response = client.send(HttpRequest.newBuilder(uri)
+                                    .POST(HttpRequest.BodyPublishers.ofString(body)).build(),
+                                    HttpResponse.BodyHandlers.discarding());
+                            long elapsed = System.nanoTime() - start;
+                            // Requests started during the warm-up are not measured
+                            if (start < warmupEnd) continue;
+                            if (response.statusCode() == 200) {
+                                ok.incrementAndGet();
+                                if (count == mine.length) mine = Arrays.copyOf(mine, count * 2);
+                                mine[count++] = elapsed;
+                            } else if (response.statusCode() == 503) {
+                                shed.incrementAndGet();
+                                // Back off as told by Retry-After, scaled down for the test
+                                Thread.sleep(10);
+                            } else {
+                                failed.incrementAndGet();
+                            }
+                        } catch (IOException e) {
+                            failed.incrementAndGet();
+                        }
+                    }
+                    return Arrays.copyOf(mine, count);
+                }));
+            }
+        }
+        server.stop(0);
+
+        long[] all = new long[0];
+        for (Future<long[]> latencies : clientLatencies) {
+            long[] mine = latencies.get();
+            int at = all.length;
+            all = Arrays.copyOf(all, at + mine.length);
+            System.arraycopy(mine, 0, all, at, mine.length);
+        }
+        Arrays.sort(all);
+
+        System.out.printf("%d clients, %d max in flight, %d ms per fake API call, %d s measured%n",
+                clients, maxInFlight, latency, seconds);
+        System.out.printf("Sustained: %.0f requests/s (%d ok, %d shed with 503, %d failed)%n",
+                ok.get() / (double) seconds, ok.get(), shed.get(), failed.get());
+        if (all.length > 0) {
+            System.out.printf("Latency: p50 %.1f ms, p99 %.1f ms, max %.1f ms%n",
+                    percentile(all, 0.50), percentile(all, 0.99), all[all.length - 1] / 1e6);
+        }
+    }
+
+    private static double percentile(long[] sorted, double p) {
+        int index = (int) Math.min(sorted.length - 1, Math.ceil(p * sorted.length) - 1);
+        return sorted[Math.max(0, index)] / 1e6;
+    }
+}
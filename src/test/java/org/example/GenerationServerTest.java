@@ -0,0 +1,301 @@
+package org.example;
+
+import org.example.App.SentenceResult;
+import org.example.words.WordUtil;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import org.junit.jupiter.api.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.InterruptedIOException;
+import java.net.Socket;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Test class for GenerationServer.
+ * Serves a local fake Language API on a free port.
+ */
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+public class GenerationServerTest {
+
+    private static final String LONG_TEXT = "The quick dog runs happily and the lazy cat sleeps quietly "
+            + "while she sings beautifully and they walked slowly home under the bright sun";
+
+    private final HttpClient client = HttpClient.newHttpClient();
+
+    private HttpResponse<String> post(GenerationServer server, String body) throws Exception {
+        return client.send(HttpRequest.newBuilder(URI.create("http://localhost:" + server.getPort() + "/generate"))
+                .POST(HttpRequest.BodyPublishers.ofString(body)).build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    @Test
+    @Order(1)
+    @DisplayName("Test generate answers JSON")
+    void testGenerate() throws Exception {
+        GenerationServer server = new GenerationServer(new App(), new FakeLanguageApi(0), 0, 4);
+        server.start();
+        try {
+            HttpResponse<String> response = post(server, "{\"text\": \"The dog runs quickly\", \"seed\": 42}");
+            assertEquals(200, response.statusCode());
+            JsonObject json = JsonParser.parseString(response.body()).getAsJsonObject();
+            JsonObject first = json.getAsJsonArray("results").get(0).getAsJsonObject();
+            assertFalse(first.get("sentence").getAsString().isEmpty());
+            assertEquals(0.25, first.get("toxicity").getAsDouble(), 1e-9);
+
+            assertEquals(response.body(), post(server, "{\"text\": \"The dog runs quickly\", \"seed\": 42}").body(),
+                    "A seeded request should be reproducible");
+            JsonObject unmoderated = JsonParser.parseString(
+                    post(server, "{\"text\": \"The dog runs\", \"moderation\": \"off\"}").body()).getAsJsonObject();
+            assertFalse(unmoderated.getAsJsonArray("results").get(0).getAsJsonObject().has("toxicity"));
+        } finally {
+            server.stop(0);
+        }
+    }
+
+    @Test
+    @Order(2)
+    @DisplayName("Test bad requests are rejected")
+    void testBadRequests() throws Exception {
+        GenerationServer server = new GenerationServer(new App(), new FakeLanguageApi(0), 0, 4);
+        server.start();
+        try {
+            assertEquals(400, post(server, "{not json").statusCode());
+            assertEquals(400, post(server, "").statusCode());
+            HttpResponse<String> invalid = post(server, "{\"text\": \"123\"}");
+            assertEquals(400, invalid.statusCode());
+            assertTrue(invalid.body().contains("Invalid input"));
+            assertEquals(400, post(server, "{\"text\": \"dog\", \"moderation\": \"maybe\"}").statusCode());
+            assertEquals(413, post(server, "{\"text\": \"" + "a".repeat(GenerationServer.MAX_BODY_BYTES) + "\"}")
+                    .statusCode());
+
+            HttpResponse<String> get = client.send(HttpRequest.newBuilder(
+                    URI.create("http://localhost:" + server.getPort() + "/generate")).build(),
+                    HttpResponse.BodyHandlers.ofString());
+            assertEquals(405, get.statusCode());
+
+            for (String path : List.of("/generateX", "/generate/stream/x", "/healthz")) {
+                HttpResponse<String> unknown = client.send(HttpRequest.newBuilder(
+                        URI.create("http://localhost:" + server.getPort() + path))
+                        .POST(HttpRequest.BodyPublishers.ofString("{\"text\": \"The dog runs\"}")).build(),
+                        HttpResponse.BodyHandlers.ofString());
+                assertEquals(404, unknown.statusCode(), path + " should not reach a handler");
+            }
+        } finally {
+            server.stop(0);
+        }
+    }
+
+    @Test
+    @Order(3)
+    @DisplayName("Test requests over the in-flight limit are shed")
+    void testLoadShedding() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch entered = new CountDownLatch(2);
+        FakeLanguageApi api = new FakeLanguageApi(0) {
+            @Override
+            public double moderate(String sentence) {
+                entered.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return 0.5;
+            }
+        };
+        GenerationServer server = new GenerationServer(new App(), api, 0, 2);
+        server.start();
+        try {
+            // Two requests hold both slots until released
+            List<CompletableFuture<HttpResponse<String>>> held = new ArrayList<>();
+            for (String text : List.of("dog", "cat")) {
+                held.add(client.sendAsync(HttpRequest.newBuilder(
+                                URI.create("http://localhost:" + server.getPort() + "/generate"))
+                        .POST(HttpRequest.BodyPublishers.ofString("{\"text\": \"" + text + "\"}")).build(),
+                        HttpResponse.BodyHandlers.ofString()));
+            }
+            entered.await();
+
+            HttpResponse<String> shed = post(server, "{\"text\": \"bird\"}");
+            assertEquals(503, shed.statusCode());
+            assertEquals("1", shed.headers().firstValue("Retry-After").orElse(null));
+            assertEquals(1, server.getShed());
+
+            release.countDown();
+            for (CompletableFuture<HttpResponse<String>> response : held) {
+                assertEquals(200, response.get().statusCode());
+            }
+            assertEquals(200, post(server, "{\"text\": \"bird\"}").statusCode(), "Freed slots should be reused");
+            assertEquals(3, server.getServed());
+        } finally {
+            server.stop(0);
+        }
+    }
+
+    @Test
+    @Order(4)
+    @DisplayName("Test the stream sends one event per sentence")
+    void testStream() throws Exception {
+        GenerationServer server = new GenerationServer(new App(), new FakeLanguageApi(0), 0, 4);
+        server.start();
+        try {
+            String body = "{\"text\": \"" + LONG_TEXT + "\", \"seed\": 7}";
+            JsonArray expected = JsonParser.parseString(post(server, body).body()).getAsJsonObject()
+                    .getAsJsonArray("results");
+
+            HttpResponse<String> response = client.send(HttpRequest.newBuilder(
+                            URI.create("http://localhost:" + server.getPort() + "/generate/stream"))
+                    .POST(HttpRequest.BodyPublishers.ofString(body)).build(), HttpResponse.BodyHandlers.ofString());
+            assertEquals(200, response.statusCode());
+            assertTrue(response.headers().firstValue("Content-Type").orElse("").startsWith("text/event-stream"));
+
+            List<String> events = new ArrayList<>();
+            List<String> data = new ArrayList<>();
+            for (String line : response.body().lines().toList()) {
+                if (line.startsWith("event: ")) events.add(line.substring(7));
+                if (line.startsWith("data: ")) data.add(line.substring(6));
+            }
+            assertTrue(expected.size() > 1, "The input should make several sentences");
+            assertEquals(expected.size() + 1, events.size());
+            for (int i = 0; i < expected.size(); i++) {
+                assertEquals("result", events.get(i));
+                assertEquals(expected.get(i), JsonParser.parseString(data.get(i)),
+                        "Streamed sentences should match the generate endpoint's");
+            }
+            assertEquals("done", events.getLast());
+            assertEquals(expected.size(), JsonParser.parseString(data.getLast()).getAsJsonObject()
+                    .get("count").getAsInt());
+
+            HttpResponse<String> viaGet = client.send(HttpRequest.newBuilder(
+                            URI.create("http://localhost:" + server.getPort()
+                                    + "/generate/stream?text=The+dog+runs&moderation=off")).build(),
+                    HttpResponse.BodyHandlers.ofString());
+            assertTrue(viaGet.body().contains("event: done"));
+            assertEquals(400, client.send(HttpRequest.newBuilder(
+                            URI.create("http://localhost:" + server.getPort() + "/generate/stream?text=123")).build(),
+                    HttpResponse.BodyHandlers.ofString()).statusCode());
+        } finally {
+            server.stop(0);
+        }
+    }
+
+    @Test
+    @Order(5)
+    @DisplayName("Test heartbeats and cancellation when the client goes away")
+    void testStreamDisconnect() throws Exception {
+        FakeLanguageApi api = new FakeLanguageApi(150);
+        GenerationServer server = new GenerationServer(new App(), api, 0, 4).setHeartbeatMillis(20);
+        server.start();
+        try (Socket socket = new Socket("localhost", server.getPort())) {
+            socket.getOutputStream().write(("GET /generate/stream?seed=7&text="
+                    + URLEncoder.encode(LONG_TEXT, StandardCharsets.UTF_8)
+                    + " HTTP/1.1\r\nHost: localhost\r\n\r\n").getBytes(StandardCharsets.US_ASCII));
+            BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+            String line;
+            while ((line = in.readLine()) != null && !line.contains(": heartbeat")) {
+                assertFalse(line.contains("event:"), "A heartbeat should come before the first slow result");
+            }
+            assertNotNull(line, "The stream should send heartbeats");
+        }
+
+        long deadline = System.currentTimeMillis() + 5000;
+        while (server.getCancelled() == 0 && System.currentTimeMillis() < deadline) Thread.sleep(10);
+        assertEquals(1, server.getCancelled(), "The server should notice that the client went away");
+        int moderated = api.getModerationCalls();
+        Thread.sleep(400);
+        assertEquals(moderated, api.getModerationCalls(), "No moderation should start after the cancellation");
+
+        List<SentenceResult> all = new App().generate(new FakeLanguageApi(0), LONG_TEXT,
+                WordUtil.RandomSource(7), App.Moderation.OFF);
+        assertTrue(moderated < all.size(), "The sentences left should not be moderated");
+        server.stop(0);
+    }
+
+    @Test
+    @Order(6)
+    @DisplayName("Test staged generations report their stages on health")
+    void testStagedHealth() throws Exception {
+        App app = new App();
+        try (GenerationPipeline pipeline = new GenerationPipeline(app).start()) {
+            app.setPipeline(pipeline);
+            GenerationServer server = new GenerationServer(app, new FakeLanguageApi(0), 0, 4);
+            server.start();
+            try {
+                assertEquals(200, post(server, "{\"text\": \"The dog runs quickly\"}").statusCode());
+                HttpResponse<String> health = client.send(HttpRequest.newBuilder(
+                        URI.create("http://localhost:" + server.getPort() + "/health")).build(),
+                        HttpResponse.BodyHandlers.ofString());
+                JsonArray stages = JsonParser.parseString(health.body()).getAsJsonObject().getAsJsonArray("stages");
+                assertEquals(4, stages.size());
+                JsonObject analyze = stages.get(0).getAsJsonObject();
+                assertEquals("analyze", analyze.get("name").getAsString());
+                assertEquals(1, analyze.get("processed").getAsLong());
+            } finally {
+                server.stop(0);
+            }
+        }
+    }
+
+    @Test
+    @Order(7)
+    @DisplayName("Test a staged stream cancels its moderation call when the client goes away")
+    void testStagedStreamDisconnect() throws Exception {
+        CountDownLatch calling = new CountDownLatch(1);
+        CountDownLatch cancelledCall = new CountDownLatch(1);
+        AtomicBoolean first = new AtomicBoolean(true);
+        FakeLanguageApi api = new FakeLanguageApi(0) {
+            @Override
+            public double moderate(String sentence) throws IOException {
+                if (!first.getAndSet(false)) return super.moderate(sentence);
+                calling.countDown();
+                try {
+                    Thread.sleep(60_000);
+                    return 0.25;
+                } catch (InterruptedException e) {
+                    cancelledCall.countDown();
+                    throw new InterruptedIOException("Call cancelled");
+                }
+            }
+        };
+        App app = new App();
+        try (GenerationPipeline pipeline = new GenerationPipeline(app)) {
+            // One moderation worker, so the next request shows it survived the cancelled call
+            pipeline.configure(GenerationPipeline.Step.MODERATE).setThreads(1);
+            app.setPipeline(pipeline.start());
+            GenerationServer server = new GenerationServer(app, api, 0, 4).setHeartbeatMillis(20);
+            server.start();
+            try {
+                try (Socket socket = new Socket("localhost", server.getPort())) {
+                    socket.getOutputStream().write(("GET /generate/stream?seed=7&text="
+                            + URLEncoder.encode(LONG_TEXT, StandardCharsets.UTF_8)
+                            + " HTTP/1.1\r\nHost: localhost\r\n\r\n").getBytes(StandardCharsets.US_ASCII));
+                    assertTrue(calling.await(5, TimeUnit.SECONDS), "The moderation call should start");
+                }
+                assertTrue(cancelledCall.await(5, TimeUnit.SECONDS), "The moderation call in flight should be cancelled");
+
+                assertEquals(200, post(server, "{\"text\": \"The dog runs quickly\"}").statusCode());
+                long deadline = System.currentTimeMillis() + 5000;
+                while (server.getCancelled() == 0 && System.currentTimeMillis() < deadline) Thread.sleep(10);
+                assertEquals(1, server.getCancelled());
+            } finally {
+                server.stop(0);
+            }
+        }
+    }
+}
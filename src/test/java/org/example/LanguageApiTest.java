@@ -0,0 +1,73 @@
+package org.example;
+
+import com.google.api.core.SettableApiFuture;
+import org.junit.jupiter.api.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Test class for LanguageApi.
+ */
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+public class LanguageApiTest {
+
+    @Test
+    @Order(1)
+    @DisplayName("Test completed calls return their response")
+    void testAwaitResponse() throws Exception {
+        SettableApiFuture<String> call = SettableApiFuture.create();
+        call.set("response");
+        assertEquals("response", LanguageApi.await(call));
+
+        SettableApiFuture<String> failed = SettableApiFuture.create();
+        failed.setException(new IllegalStateException("quota"));
+        assertEquals("quota", assertThrows(IllegalStateException.class, () -> LanguageApi.await(failed)).getMessage(),
+                "API errors should be thrown as they are");
+
+        SettableApiFuture<String> io = SettableApiFuture.create();
+        io.setException(new java.io.FileNotFoundException("creds"));
+        assertThrows(IOException.class, () -> LanguageApi.await(io));
+    }
+
+    @Test
+    @Order(2)
+    @DisplayName("Test interrupting the caller cancels the pending call")
+    void testInterruptCancels() throws Exception {
+        SettableApiFuture<String> call = SettableApiFuture.create();
+        AtomicReference<Throwable> thrown = new AtomicReference<>();
+        AtomicReference<Boolean> interrupted = new AtomicReference<>();
+        CountDownLatch started = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<?> task = executor.submit(() -> {
+                started.countDown();
+                try {
+                    LanguageApi.await(call);
+                } catch (IOException e) {
+                    thrown.set(e);
+                    interrupted.set(Thread.currentThread().isInterrupted());
+                }
+            });
+            // Cancel the running task as a new request would; an interrupt that arrives
+            // before the wait starts is seen by the wait too
+            assertTrue(started.await(10, TimeUnit.SECONDS));
+            task.cancel(true);
+
+            executor.shutdown();
+            assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+            assertTrue(call.isCancelled(), "The pending call should be cancelled");
+            assertInstanceOf(InterruptedIOException.class, thrown.get());
+            assertTrue(interrupted.get(), "The interrupt should be kept");
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,183 @@
+package org.example;
+
+import org.example.PriorityScheduler.Priority;
+import org.example.words.WordUtil;
+import org.junit.jupiter.api.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Test class for PriorityScheduler.
+ * Holds slots with latches and checks which class is let through next.
+ */
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+public class PrioritySchedulerTest {
+
+    private static void awaitQueued(PriorityScheduler scheduler, Priority priority, int count) throws Exception {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (scheduler.getQueued(priority) < count && System.currentTimeMillis() < deadline) Thread.sleep(5);
+        assertEquals(count, scheduler.getQueued(priority));
+    }
+
+    private static void awaitStarted(PriorityScheduler scheduler, Priority priority, int count) throws Exception {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (scheduler.getStarted(priority) < count && System.currentTimeMillis() < deadline) Thread.sleep(5);
+        assertEquals(count, scheduler.getStarted(priority));
+    }
+
+    private static void hold(CountDownLatch release) throws InterruptedIOException {
+        try {
+            release.await();
+        } catch (InterruptedException e) {
+            throw new InterruptedIOException();
+        }
+    }
+
+    @Test
+    @Order(1)
+    @DisplayName("Test batch work never takes the reserved slots")
+    void testReservedSlots() throws Exception {
+        PriorityScheduler scheduler = new PriorityScheduler(4, 1, 1, 1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger running = new AtomicInteger();
+        try (ExecutorService callers = Executors.newCachedThreadPool()) {
+            for (int i = 0; i < 20; i++) {
+                callers.submit(() -> scheduler.run(Priority.BATCH, () -> {
+                    running.incrementAndGet();
+                    hold(release);
+                    return null;
+                }));
+            }
+            try {
+                awaitQueued(scheduler, Priority.BATCH, 17);
+                assertEquals(3, running.get(), "Batch work should leave the reserved slot free");
+
+                // The flood is queued, yet interactive work starts at once
+                long start = System.nanoTime();
+                assertEquals("done", scheduler.run(Priority.INTERACTIVE, () -> "done"));
+                assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(1));
+                assertEquals(1, scheduler.getStarted(Priority.INTERACTIVE));
+            } finally {
+                release.countDown();
+            }
+        }
+        assertEquals(20, scheduler.getStarted(Priority.BATCH));
+        assertEquals(0, scheduler.getQueued(Priority.BATCH));
+    }
+
+    @Test
+    @Order(2)
+    @DisplayName("Test waiting classes share slots by weight")
+    void testWeightedSharing() throws Exception {
+        PriorityScheduler scheduler = new PriorityScheduler(1, 0, 3, 1);
+        CountDownLatch release = new CountDownLatch(1);
+        List<Priority> order = Collections.synchronizedList(new ArrayList<>());
+        try (ExecutorService callers = Executors.newCachedThreadPool()) {
+            try {
+                callers.submit(() -> scheduler.run(Priority.INTERACTIVE, () -> {
+                    hold(release);
+                    return null;
+                }));
+                awaitStarted(scheduler, Priority.INTERACTIVE, 1);
+                for (int i = 0; i < 8; i++) {
+                    callers.submit(() -> scheduler.run(Priority.INTERACTIVE, () -> order.add(Priority.INTERACTIVE)));
+                    callers.submit(() -> scheduler.run(Priority.BATCH, () -> order.add(Priority.BATCH)));
+                }
+                awaitQueued(scheduler, Priority.INTERACTIVE, 8);
+                awaitQueued(scheduler, Priority.BATCH, 8);
+            } finally {
+                release.countDown();
+            }
+        }
+
+        List<Priority> first = order.subList(0, 8);
+        assertEquals(6, Collections.frequency(first, Priority.INTERACTIVE),
+                "Interactive work should get three slots for every batch one: " + order);
+        assertEquals(Priority.BATCH, order.getLast(), "Batch work should still make progress");
+        assertTrue(scheduler.getMeanQueueWaitMillis(Priority.BATCH) > 0, "Queued batch work should record its wait");
+        assertTrue(scheduler.getMaxQueueWaitMillis(Priority.BATCH) >= scheduler.getMeanQueueWaitMillis(Priority.BATCH));
+    }
+
+    @Test
+    @Order(3)
+    @DisplayName("Test an interrupted task leaves its queue")
+    void testInterrupt() throws Exception {
+        PriorityScheduler scheduler = new PriorityScheduler(1, 0, 1, 1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger ran = new AtomicInteger();
+        AtomicReference<Exception> failure = new AtomicReference<>();
+        try (ExecutorService callers = Executors.newCachedThreadPool()) {
+            try {
+                callers.submit(() -> scheduler.run(Priority.BATCH, () -> {
+                    hold(release);
+                    return null;
+                }));
+                awaitStarted(scheduler, Priority.BATCH, 1);
+                Thread queued = new Thread(() -> {
+                    try {
+                        scheduler.run(Priority.BATCH, () -> ran.incrementAndGet());
+                    } catch (IOException e) {
+                        failure.set(e);
+                    }
+                });
+                queued.start();
+                awaitQueued(scheduler, Priority.BATCH, 1);
+                queued.interrupt();
+                queued.join();
+                assertEquals(0, scheduler.getQueued(Priority.BATCH));
+            } finally {
+                release.countDown();
+            }
+        }
+        assertInstanceOf(InterruptedIOException.class, failure.get());
+        assertEquals(0, ran.get(), "A task interrupted while queued should not run");
+        assertEquals("free", scheduler.run(Priority.BATCH, () -> "free"), "The slot should be free again");
+        assertThrows(IllegalArgumentException.class, () -> new PriorityScheduler(2, 2, 1, 1));
+    }
+
+    @Test
+    @Order(4)
+    @DisplayName("Test scheduled API views share one facade")
+    void testScheduledApi() throws Exception {
+        PriorityScheduler scheduler = new PriorityScheduler(2, 1, 4, 1);
+        FakeLanguageApi api = new FakeLanguageApi(0);
+        ScheduledLanguageApi interactive = new ScheduledLanguageApi(api, scheduler, Priority.INTERACTIVE);
+        ScheduledLanguageApi batch = new ScheduledLanguageApi(api, scheduler, Priority.BATCH);
+
+        assertEquals(0.25, interactive.moderate("dog"), 1e-9);
+        assertEquals(0.25, batch.moderate("dog"), 1e-9);
+        assertEquals(2, batch.analyzeSyntax("the dog").getTokensCount());
+        assertEquals(1, scheduler.getStarted(Priority.INTERACTIVE));
+        assertEquals(2, scheduler.getStarted(Priority.BATCH));
+        assertEquals(3, api.getModerationCalls() + api.getSyntaxCalls());
+    }
+
+    @Test
+    @Order(5)
+    @DisplayName("Test an app's workloads share its schedulers")
+    void testAppSchedulers() throws Exception {
+        App app = new App();
+        FakeLanguageApi api = new FakeLanguageApi(0);
+        LanguageClient batch = app.schedule(api, Priority.BATCH);
+        List<App.SentenceResult> results = app.generate(batch, "The quick dog runs happily",
+                WordUtil.RandomSource(3), App.Moderation.ON);
+
+        assertEquals(1 + results.size(), app.getApiScheduler().getStarted(Priority.BATCH),
+                "The analysis and every moderation should queue as batch calls");
+        assertEquals(0, app.getApiScheduler().getStarted(Priority.INTERACTIVE));
+        assertEquals(1, app.getRenderScheduler().getStarted(Priority.BATCH),
+                "The app should render through its own scheduler by default, in the caller's class");
+        assertEquals(0, app.getRenderScheduler().getStarted(Priority.INTERACTIVE));
+    }
+}
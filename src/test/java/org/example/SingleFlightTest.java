@@ -0,0 +1,165 @@
+package org.example;
+
+import org.example.words.WordUtil;
+import org.junit.jupiter.api.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Test class for SingleFlight.
+ * Holds calls open with latches so that the other callers arrive while they are in flight.
+ */
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+public class SingleFlightTest {
+
+    // Waits until the given number of threads are blocked waiting on the shared call
+    private static void awaitWaiting(List<Thread> threads, int count) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (threads.stream().filter(t -> t.getState() == Thread.State.WAITING).count() < count
+                && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+    }
+
+    private static void hold(CountDownLatch release) throws InterruptedIOException {
+        try {
+            release.await();
+        } catch (InterruptedException e) {
+            throw new InterruptedIOException();
+        }
+    }
+
+    @Test
+    @Order(1)
+    @DisplayName("Test concurrent callers share one call")
+    void testShared() throws Exception {
+        SingleFlight<String, Integer> flight = new SingleFlight<>();
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger made = new AtomicInteger();
+        List<Thread> threads = new ArrayList<>();
+        List<Future<Integer>> results = new ArrayList<>();
+        try (ExecutorService callers = Executors.newThreadPerTaskExecutor(r -> {
+            Thread t = new Thread(r);
+            threads.add(t);
+            return t;
+        })) {
+            for (int i = 0; i < 5; i++) {
+                results.add(callers.submit(() -> flight.run("dog", () -> {
+                    made.incrementAndGet();
+                    hold(release);
+                    return 42;
+                })));
+            }
+            awaitWaiting(threads, 5);
+            release.countDown();
+            for (Future<Integer> result : results) assertEquals(42, result.get());
+        }
+        assertEquals(1, made.get());
+        assertEquals(1, flight.getCalls());
+        assertEquals(4, flight.getSaved());
+
+        assertEquals(7, flight.run("dog", () -> 7), "A completed call should not be kept");
+        assertEquals(2, flight.getCalls());
+    }
+
+    @Test
+    @Order(2)
+    @DisplayName("Test a failure is shared and a cancelled caller is replaced")
+    void testFailures() throws Exception {
+        SingleFlight<String, Integer> flight = new SingleFlight<>();
+        CountDownLatch release = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<>();
+        try (ExecutorService callers = Executors.newThreadPerTaskExecutor(r -> {
+            Thread t = new Thread(r);
+            threads.add(t);
+            return t;
+        })) {
+            List<Future<Integer>> results = new ArrayList<>();
+            for (int i = 0; i < 3; i++) {
+                results.add(callers.submit(() -> flight.run("cat", () -> {
+                    hold(release);
+                    throw new IOException("quota exceeded");
+                })));
+            }
+            awaitWaiting(threads, 3);
+            release.countDown();
+            for (Future<Integer> result : results) {
+                Exception failed = assertThrows(Exception.class, result::get);
+                assertEquals("quota exceeded", failed.getCause().getMessage(), "Waiters should get the call's failure");
+            }
+        }
+        assertEquals(1, flight.getCalls());
+
+        // The caller making the call is interrupted: a waiter makes the call again
+        CountDownLatch leading = new CountDownLatch(1);
+        try (ExecutorService callers = Executors.newVirtualThreadPerTaskExecutor()) {
+            Future<Integer> cancelled = callers.submit(() -> flight.run("bird", () -> {
+                leading.countDown();
+                try {
+                    Thread.sleep(10_000);
+                } catch (InterruptedException e) {
+                    throw new InterruptedIOException("cancelled");
+                }
+                return 1;
+            }));
+            leading.await();
+            Future<Integer> waiter = callers.submit(() -> flight.run("bird", () -> 3));
+            Thread.sleep(100);
+            cancelled.cancel(true);
+            assertEquals(3, waiter.get(), "A waiter should not fail because another caller was cancelled");
+        }
+    }
+
+    @Test
+    @Order(3)
+    @DisplayName("Test identical requests share syntax and moderation calls")
+    void testAppCoalescing() throws Exception {
+        FakeLanguageApi api = new FakeLanguageApi(100);
+        App app = new App();
+        int requests = 8;
+        String text = "The quick dog runs happily and the lazy cat sleeps";
+        List<Future<List<App.SentenceResult>>> results = new ArrayList<>();
+        try (ExecutorService callers = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < requests; i++) {
+                results.add(callers.submit(() -> app.generate(api, text, WordUtil.RandomSource(5),
+                        App.Moderation.ON)));
+            }
+        }
+        int sentences = results.getFirst().get().size();
+        for (Future<List<App.SentenceResult>> result : results) assertEquals(sentences, result.get().size());
+
+        assertEquals(1, api.getSyntaxCalls(), "The input should be analyzed once");
+        assertEquals(requests - 1, app.getAnalysisCallsSaved());
+        assertTrue(api.getModerationCalls() < requests * sentences, "Identical sentences should share moderation");
+        assertEquals(requests * sentences, api.getModerationCalls() + app.getModerationCallsSaved());
+    }
+
+    @Test
+    @Order(4)
+    @DisplayName("Test requests through different views of a client share calls")
+    void testCoalescingAcrossViews() throws Exception {
+        FakeLanguageApi api = new FakeLanguageApi(100);
+        App app = new App();
+        int requests = 8;
+        String text = "The quick dog runs happily and the lazy cat sleeps";
+        try (ExecutorService callers = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < requests; i++) {
+                // A new view per request, as each UI action and batch job makes its own
+                LanguageClient view = app.schedule(api, i % 2 == 0
+                        ? PriorityScheduler.Priority.INTERACTIVE : PriorityScheduler.Priority.BATCH);
+                callers.submit(() -> app.analyze(view, text));
+            }
+        }
+        assertEquals(1, api.getSyntaxCalls(), "Views of one client should share the analysis");
+        assertEquals(requests - 1, app.getAnalysisCallsSaved());
+    }
+}
@@ -0,0 +1,46 @@
+package org.example;
+
+import com.google.cloud.language.v1.PartOfSpeech;
+import com.google.cloud.language.v1.TextSpan;
+import com.google.cloud.language.v1.Token;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Builds word buckets for tests from a synthetic text: the given words separated by
+ * spaces, each tagged with the part of speech of its placeholder.
+ */
+public final class TestBuckets {
+
+    // Tag of each placeholder, in the order of WordBuckets.PLACEHOLDERS
+    private static final PartOfSpeech.Tag[] TAGS = {
+            PartOfSpeech.Tag.NOUN, PartOfSpeech.Tag.VERB, PartOfSpeech.Tag.ADJ,
+            PartOfSpeech.Tag.ADV, PartOfSpeech.Tag.DET, PartOfSpeech.Tag.PRON};
+
+    private TestBuckets() {}
+
+    /**
+     * @param words  the words of each placeholder, e.g. "[noun]" to its nouns, in order
+     * @return       buckets holding those words as spans into the synthetic text
+     * @throws IllegalArgumentException if a placeholder is unknown
+     */
+    public static WordBuckets of(Map<String, List<String>> words) {
+        StringBuilder text = new StringBuilder();
+        List<Token> tokens = new ArrayList<>();
+        for (Map.Entry<String, List<String>> entry : words.entrySet()) {
+            int bucket = WordBuckets.indexOf(entry.getKey());
+            if (bucket < 0) throw new IllegalArgumentException("Unknown placeholder: " + entry.getKey());
+            for (String word : entry.getValue()) {
+                if (!text.isEmpty()) text.append(' ');
+                tokens.add(Token.newBuilder()
+                        .setText(TextSpan.newBuilder().setContent(word).setBeginOffset(text.length()))
+                        .setPartOfSpeech(PartOfSpeech.newBuilder().setTag(TAGS[bucket]))
+                        .build());
+                text.append(word);
+            }
+        }
+        return WordBuckets.fromTokens(text.toString(), tokens);
+    }
+}
@@ -0,0 +1,118 @@
+package org.example;
+
+import com.google.cloud.language.v1.AnalyzeSyntaxResponse;
+import com.google.cloud.language.v1.DependencyEdge;
+import com.google.cloud.language.v1.Sentence;
+import com.google.cloud.language.v1.TextSpan;
+import com.google.cloud.language.v1.Token;
+import org.junit.jupiter.api.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+
+/**
+ * Test class for TextSegmenter.
+ */
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+public class TextSegmenterTest {
+
+    private static Token token(String word, int offset, int head) {
+        return Token.newBuilder()
+                .setText(TextSpan.newBuilder().setContent(word).setBeginOffset(offset))
+                .setDependencyEdge(DependencyEdge.newBuilder().setHeadTokenIndex(head))
+                .build();
+    }
+
+    @Test
+    @Order(1)
+    @DisplayName("Test validation and normalization of multi-line input")
+    void testNormalize() {
+        assertTrue(TextSegmenter.hasLetter("123\n\n456 ok"), "Letters on a later line should count");
+        assertFalse(TextSegmenter.hasLetter(" 12\t34 \n"));
+        assertDoesNotThrow(() -> App.validate("First line\nsecond line"));
+        assertThrows(IllegalArgumentException.class, () -> App.validate("\n 42 \n"));
+
+        assertEquals("Dogs bark.\nCats sleep.", TextSegmenter.normalize("  Dogs \t bark.\r\n \n Cats\u0000 sleep.  "));
+        assertEquals("", TextSegmenter.normalize(" \n "));
+        String clean = "Dogs bark loudly.";
+        assertSame(clean, TextSegmenter.normalize(clean), "Normalized text should not be copied");
+    }
+
+    @Test
+    @Order(2)
+    @DisplayName("Test chunks end between sentences, then between words")
+    void testSegment() {
+        String text = "One two. Three four. Five six seven eight nine.";
+        assertArrayEquals(new int[] {0, text.length()}, TextSegmenter.segment(text, 100));
+        assertArrayEquals(new int[] {0, 21, text.length()}, TextSegmenter.segment(text, 30),
+                "Chunks should end after the last whole sentence");
+        assertArrayEquals(new int[] {0, 9, 21, 36, text.length()}, TextSegmenter.segment(text, 15),
+                "A long sentence should be cut at a space");
+        assertArrayEquals(new int[] {0, 4, 8, 10}, TextSegmenter.segment("abcdefghij", 4),
+                "Text without spaces should be cut at the limit");
+        assertArrayEquals(new int[] {0, 1, 3, 4}, TextSegmenter.segment("a🎉b", 2),
+                "Surrogate pairs should not be split");
+        assertArrayEquals(new int[] {0, 0}, TextSegmenter.segment("", 4));
+        assertThrows(IllegalArgumentException.class, () -> TextSegmenter.segment(text, 1));
+    }
+
+    @Test
+    @Order(3)
+    @DisplayName("Test merged analyses point into the whole text")
+    void testMerge() {
+        AnalyzeSyntaxResponse first = AnalyzeSyntaxResponse.newBuilder().setLanguage("en")
+                .addSentences(Sentence.newBuilder().setText(TextSpan.newBuilder().setContent("Dogs bark.")))
+                .addTokens(token("Dogs", 0, 1)).addTokens(token("bark", 5, 1))
+                .build();
+        AnalyzeSyntaxResponse second = AnalyzeSyntaxResponse.newBuilder().setLanguage("en")
+                .addSentences(Sentence.newBuilder().setText(TextSpan.newBuilder().setContent("Cats sleep.")))
+                .addTokens(token("Cats", 0, 1)).addTokens(token("sleep", -1, 1))
+                .build();
+
+        AnalyzeSyntaxResponse merged = TextSegmenter.merge(List.of(first, second), new int[] {0, 11, 22});
+        assertEquals("en", merged.getLanguage());
+        assertEquals(11, merged.getSentences(1).getText().getBeginOffset());
+        assertEquals(11, merged.getTokens(2).getText().getBeginOffset());
+        assertEquals(-1, merged.getTokens(3).getText().getBeginOffset(), "Missing offsets should stay missing");
+        assertEquals(3, merged.getTokens(2).getDependencyEdge().getHeadTokenIndex(),
+                "Heads should point at tokens of the same chunk");
+    }
+
+    @Test
+    @Order(4)
+    @DisplayName("Test long inputs are analyzed in chunks")
+    void testChunkedAnalysis() throws Exception {
+        String text = "The dog runs quickly. The cat sleeps happily. A bird sings loudly. The fish swims.";
+        FakeLanguageApi whole = new FakeLanguageApi(0);
+        Analysis expected = new App().analyze(whole, text);
+
+        FakeLanguageApi chunked = new FakeLanguageApi(0);
+        App app = new App();
+        app.setAnalysisChunkChars(25);
+        Analysis analysis = app.analyze(chunked, "  " + text.replace(". ", ".  ") + "\n");
+        assertEquals(TextSegmenter.segment(text, 25).length - 1, chunked.getSyntaxCalls());
+        assertEquals(expected.getTokens().size(), analysis.getTokens().size());
+        assertEquals(chunked.getSyntaxCalls(), analysis.getSentences().size());
+        assertEquals(text.indexOf("The cat"), analysis.getTokens(1).getFirst().getText().getBeginOffset(),
+                "Tokens should fall in their chunk's sentence");
+        assertEquals(expected.newBuckets().get("[verb]"), analysis.newBuckets().get("[verb]"));
+        for (Token token : analysis.getTokens()) {
+            String word = token.getText().getContent();
+            assertEquals(word, text.substring(token.getText().getBeginOffset(),
+                    token.getText().getBeginOffset() + word.length()), "Offsets should point into the whole text");
+        }
+        assertSame(analysis, app.getCachedAnalysis(text), "The normalized text should be the cache key");
+    }
+
+    @Test
+    @Order(5)
+    @DisplayName("Test validation normalizes the text in the same pass")
+    void testValidateNormalizes() {
+        assertEquals("Dogs bark.\nCats sleep.", App.validate("  Dogs \t bark.\r\n \n Cats\u0000 sleep.  "));
+        String clean = "Dogs bark loudly.";
+        assertSame(clean, App.validate(clean), "Valid normalized text should not be copied");
+        assertNull(TextSegmenter.normalizeLetters(" 12\t34 \n"));
+        assertEquals("12 34", TextSegmenter.normalize(" 12\t34 \n"), "Plain normalization should not need letters");
+        assertThrows(IllegalArgumentException.class, () -> App.validate(null));
+    }
+}
@@ -0,0 +1,94 @@
+package org.example;
+
+import com.google.cloud.language.v1.PartOfSpeech;
+import com.google.cloud.language.v1.TextSpan;
+import com.google.cloud.language.v1.Token;
+import org.example.words.WordUtil;
+import org.junit.jupiter.api.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Test class for WordBuckets.
+ */
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+public class WordBucketsTest {
+
+    private static Token token(String word, int offset, PartOfSpeech.Tag tag) {
+        return Token.newBuilder()
+                .setText(TextSpan.newBuilder().setContent(word).setBeginOffset(offset))
+                .setPartOfSpeech(PartOfSpeech.newBuilder().setTag(tag))
+                .build();
+    }
+
+    @Test
+    @Order(1)
+    @DisplayName("Test words are read from the analyzed text")
+    void testSpans() {
+        // Offsets in UTF-16 code units, past an accented word and an emoji
+        String text = "Café 🎉 dogs bark loudly";
+        WordBuckets buckets = WordBuckets.fromTokens(text, List.of(
+                token("Café", 0, PartOfSpeech.Tag.NOUN),
+                token("dogs", 8, PartOfSpeech.Tag.NOUN),
+                token("bark", 13, PartOfSpeech.Tag.VERB),
+                token("loudly", 99, PartOfSpeech.Tag.ADV),
+                token("🎉", 5, PartOfSpeech.Tag.X)));
+
+        assertEquals(List.of("Café", "dogs"), buckets.get("[noun]"));
+        assertEquals("bark", buckets.get("[verb]").word(0).toString());
+        assertEquals(List.of("loudly"), buckets.get("[adverb]"), "A token with a wrong offset should be copied");
+        assertEquals(4, buckets.size(), "Tags without a placeholder should be dropped");
+
+        StringBuilder out = new StringBuilder("the ");
+        buckets.get("[noun]").appendTo(1, out);
+        assertEquals("the dogs", out.toString());
+        assertEquals("Dogs bark", App.render("[noun] [verb]", p -> p.equals("[noun]")
+                ? buckets.get("[noun]").word(1) : buckets.get("[verb]").word(0)));
+    }
+
+    @Test
+    @Order(2)
+    @DisplayName("Test buckets behave as lists and copies are independent")
+    void testListAndCopy() {
+        List<String> words = new ArrayList<>();
+        for (int i = 0; i < 40; i++) words.add("n" + i);
+        WordBuckets buckets = TestBuckets.of(Map.of("[noun]", words, "[verb]", List.of("runs")));
+        WordBuckets.Bucket nouns = buckets.get("[noun]");
+        assertEquals(List.of("n0", "n1", "n2"), nouns.subList(0, 3));
+        assertEquals(40, nouns.size());
+        assertEquals(words, nouns);
+
+        WordBuckets copy = buckets.copy();
+        copy.shuffle(WordUtil.RandomSource(3));
+        assertEquals(words, buckets.get("[noun]"), "Shuffling a copy must not affect the original");
+        assertEquals(List.of("runs"), copy.get("[verb]"));
+    }
+
+    @Test
+    @Order(3)
+    @DisplayName("Test shuffling matches Collections.shuffle")
+    void testShuffle() {
+        List<String> expected = new ArrayList<>();
+        for (int i = 0; i < 25; i++) expected.add("a" + i);
+        WordBuckets buckets = TestBuckets.of(Map.of("[adjective]", expected));
+        buckets.shuffle(WordUtil.RandomSource(3));
+        Collections.shuffle(expected, WordUtil.RandomSource(3));
+        assertEquals(expected, buckets.get("[adjective]"), "Seeded runs should pick the same words as before");
+    }
+
+    @Test
+    @Order(4)
+    @DisplayName("Test buckets are read-only")
+    void testReadOnly() {
+        WordBuckets.Bucket nouns = TestBuckets.of(Map.of("[noun]", List.of("dog", "cat"))).get("[noun]");
+        assertThrows(UnsupportedOperationException.class, () -> nouns.add("bird"));
+        assertThrows(UnsupportedOperationException.class, () -> nouns.set(0, "bird"));
+        assertThrows(UnsupportedOperationException.class, () -> nouns.remove(0));
+        assertThrows(UnsupportedOperationException.class, nouns::clear);
+        assertEquals(List.of("dog", "cat"), nouns);
+    }
+}
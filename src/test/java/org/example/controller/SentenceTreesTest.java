@@ -0,0 +1,64 @@
+package org.example.controller;
+
+import edu.stanford.nlp.trees.Tree;
+import javafx.collections.ListChangeListener;
+import org.junit.jupiter.api.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Test class for SentenceTrees.
+ */
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+public class SentenceTreesTest {
+
+    @Test
+    @Order(1)
+    @DisplayName("Test one header and body per sentence")
+    void testLayout() {
+        SentenceTrees lines = new SentenceTrees(List.of("The dog runs.", "Cats sleep."), "Parsing...");
+        assertEquals(4, lines.size());
+        assertEquals("Sentence 1: The dog runs.", lines.get(0).getLabel());
+        assertEquals("Parsing...", lines.get(1).getLabel());
+        assertEquals("Sentence 2: Cats sleep.", lines.get(2).getLabel());
+
+        lines.setTree(1, Tree.valueOf("(NP (NNS Cats))"), Function.identity());
+        assertEquals(6, lines.size());
+        assertEquals("└─ NP", lines.get(3).toString());
+        assertEquals("   └─ NNS", lines.get(4).toString());
+        assertTrue(lines.get(5).isLeaf());
+
+        lines.setMessage(0, "Too long");
+        assertEquals("Too long", lines.get(1).getLabel());
+        assertThrows(IndexOutOfBoundsException.class, () -> lines.get(6));
+    }
+
+    @Test
+    @Order(2)
+    @DisplayName("Test a single sentence has no header")
+    void testSingleSentence() {
+        SentenceTrees lines = new SentenceTrees(List.of("The dog runs."), "Parsing...");
+        assertEquals(1, lines.size());
+        lines.setTree(0, Tree.valueOf("(S (NP (NN dog)) (VP (VBZ runs)))"), Function.identity());
+        assertEquals("└─ S", lines.get(0).toString());
+        assertEquals(7, lines.size());
+    }
+
+    @Test
+    @Order(3)
+    @DisplayName("Test changes cover only the updated sentence")
+    void testChangeRange() {
+        SentenceTrees lines = new SentenceTrees(List.of("One.", "Two.", "Three."), "Parsing...");
+        List<int[]> changes = new ArrayList<>();
+        lines.addListener((ListChangeListener<Object>) c -> {
+            while (c.next()) changes.add(new int[] {c.getFrom(), c.getRemovedSize(), c.getAddedSize()});
+        });
+
+        lines.setTree(1, Tree.valueOf("(NP (NN two))"), Function.identity());
+        assertEquals(1, changes.size());
+        assertArrayEquals(new int[] {3, 1, 3}, changes.getFirst(), "Only the body of the second sentence should change");
+    }
+}
@@ -0,0 +1,34 @@
+package org.example.controller;
+
+import org.junit.jupiter.api.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test class for ToxicityChart.
+ */
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+public class ToxicityChartTest {
+
+    @Test
+    @Order(1)
+    @DisplayName("Test few scores keep one column each")
+    void testFewScores() {
+        assertArrayEquals(new double[] {0.1, 0.9, 0.3}, ToxicityChart.columns(new double[] {0.1, 0.9, 0.3}, 100));
+    }
+
+    @Test
+    @Order(2)
+    @DisplayName("Test many scores keep the worst of each column")
+    void testManyScores() {
+        double[] scores = new double[10_000];
+        scores[4_321] = 0.95;
+        scores[9_999] = 0.5;
+        double[] columns = ToxicityChart.columns(scores, 120);
+        assertEquals(120, columns.length);
+        assertEquals(0.95, columns[4_321 * 120 / 10_000], 1e-9, "A single toxic result should stay visible");
+        assertEquals(0.5, columns[119], 1e-9);
+        double total = 0;
+        for (double c : columns) total += c;
+        assertEquals(1.45, total, 1e-9, "Other columns should be empty");
+    }
+}
@@ -0,0 +1,262 @@
+package org.example.grpc;
+
+import org.example.App;
+import org.example.App.Moderation;
+import org.example.App.SentenceResult;
+import org.example.FakeLanguageApi;
+import org.example.words.WordUtil;
+
+import com.google.protobuf.CodedOutputStream;
+import com.google.protobuf.WireFormat;
+import io.grpc.Context;
+import io.grpc.Grpc;
+import io.grpc.InsecureChannelCredentials;
+import io.grpc.InsecureServerCredentials;
+import io.grpc.ManagedChannel;
+import io.grpc.Server;
+import io.grpc.Status;
+import io.grpc.StatusRuntimeException;
+import io.grpc.inprocess.InProcessChannelBuilder;
+import io.grpc.inprocess.InProcessServerBuilder;
+import org.junit.jupiter.api.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Test class for NonsenseGeneratorService.
+ * Serves a local fake Language API in process, and over Netty for the concurrency test.
+ */
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+public class NonsenseGeneratorServiceTest {
+
+    private static final String LONG_TEXT = "The quick dog runs happily and the lazy cat sleeps quietly "
+            + "while she sings beautifully and they walked slowly home under the bright sun";
+
+    private Server server;
+    private ManagedChannel channel;
+
+    private NonsenseGeneratorService startInProcess(FakeLanguageApi api, int maxInFlight) throws Exception {
+        NonsenseGeneratorService service = new NonsenseGeneratorService(new App(), api, maxInFlight);
+        String name = InProcessServerBuilder.generateName();
+        server = InProcessServerBuilder.forName(name)
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .addService(service)
+                .build()
+                .start();
+        channel = InProcessChannelBuilder.forName(name).build();
+        return service;
+    }
+
+    @AfterEach
+    void stop() throws Exception {
+        if (channel != null) channel.shutdownNow().awaitTermination(5, TimeUnit.SECONDS);
+        if (server != null) server.shutdownNow().awaitTermination(5, TimeUnit.SECONDS);
+    }
+
+    private static String describe(List<SentenceResult> results) {
+        StringBuilder text = new StringBuilder();
+        for (SentenceResult r : results) {
+            text.append(r.getStructure()).append('|').append(r.getText()).append('|').append(r.getToxicity()).append('\n');
+        }
+        return text.toString();
+    }
+
+    @Test
+    @Order(1)
+    @DisplayName("Test messages survive encoding")
+    void testMarshallers() {
+        GenerateRequest request = new GenerateRequest("The dog runs", -42L, Moderation.BEST_EFFORT);
+        GenerateRequest parsed = NonsenseGeneratorGrpc.REQUEST_MARSHALLER.parse(
+                NonsenseGeneratorGrpc.REQUEST_MARSHALLER.stream(request));
+        assertEquals("The dog runs", parsed.getText());
+        assertEquals(-42L, parsed.getSeed());
+        assertEquals(Moderation.BEST_EFFORT, parsed.getModeration());
+
+        GenerateRequest defaults = NonsenseGeneratorGrpc.REQUEST_MARSHALLER.parse(
+                NonsenseGeneratorGrpc.REQUEST_MARSHALLER.stream(new GenerateRequest("dog", null, null)));
+        assertNull(defaults.getSeed(), "An unset seed should stay unset");
+        assertEquals(Moderation.ON, defaults.getModeration());
+
+        List<SentenceResult> results = List.of(new SentenceResult("N V", "dog runs", 0.125),
+                new SentenceResult("N", "cat", Double.NaN));
+        InputStream encoded = NonsenseGeneratorGrpc.RESPONSE_MARSHALLER.stream(results);
+        List<SentenceResult> decoded = NonsenseGeneratorGrpc.RESPONSE_MARSHALLER.parse(encoded);
+        assertEquals(describe(results), describe(decoded));
+        assertFalse(decoded.get(1).isModerated(), "An unmoderated sentence should have no toxicity");
+    }
+
+    @Test
+    @Order(2)
+    @DisplayName("Test unary and streaming calls match local generation")
+    void testGenerate() throws Exception {
+        startInProcess(new FakeLanguageApi(0), 4);
+        List<SentenceResult> expected = new App().generate(new FakeLanguageApi(0), LONG_TEXT,
+                WordUtil.RandomSource(7), Moderation.ON);
+
+        List<SentenceResult> unary = NonsenseGeneratorGrpc.generate(channel,
+                new GenerateRequest(LONG_TEXT, 7L, Moderation.ON));
+        assertEquals(describe(expected), describe(unary));
+
+        List<SentenceResult> streamed = new ArrayList<>();
+        NonsenseGeneratorGrpc.generateStream(channel, new GenerateRequest(LONG_TEXT, 7L, Moderation.ON))
+                .forEachRemaining(streamed::add);
+        assertEquals(describe(expected), describe(streamed));
+    }
+
+    @Test
+    @Order(3)
+    @DisplayName("Test invalid input and in-flight limit")
+    void testErrors() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch entered = new CountDownLatch(1);
+        NonsenseGeneratorService service = startInProcess(new FakeLanguageApi(0) {
+            @Override
+            public double moderate(String sentence) {
+                entered.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return 0.5;
+            }
+        }, 1);
+
+        StatusRuntimeException invalid = assertThrows(StatusRuntimeException.class,
+                () -> NonsenseGeneratorGrpc.generate(channel, new GenerateRequest("123", null, Moderation.ON)));
+        assertEquals(Status.Code.INVALID_ARGUMENT, invalid.getStatus().getCode());
+        assertTrue(invalid.getStatus().getDescription().contains("Invalid input"));
+
+        try (ExecutorService caller = Executors.newVirtualThreadPerTaskExecutor()) {
+            Future<List<SentenceResult>> held = caller.submit(() ->
+                    NonsenseGeneratorGrpc.generate(channel, new GenerateRequest("dog", null, Moderation.ON)));
+            entered.await();
+            StatusRuntimeException shed = assertThrows(StatusRuntimeException.class,
+                    () -> NonsenseGeneratorGrpc.generate(channel, new GenerateRequest("cat", null, Moderation.ON)));
+            assertEquals(Status.Code.RESOURCE_EXHAUSTED, shed.getStatus().getCode());
+            release.countDown();
+            assertEquals(0.5, held.get().getFirst().getToxicity(), 1e-9);
+        }
+        assertEquals(2, service.getServed(), "The shed call should not be counted as served");
+    }
+
+    @Test
+    @Order(4)
+    @DisplayName("Test cancelling a stream stops moderation")
+    void testCancel() throws Exception {
+        FakeLanguageApi api = new FakeLanguageApi(100);
+        NonsenseGeneratorService service = startInProcess(api, 4);
+
+        Context.CancellableContext call = Context.current().withCancellation();
+        SentenceResult first = call.call(() -> {
+            Iterator<SentenceResult> results = NonsenseGeneratorGrpc.generateStream(channel,
+                    new GenerateRequest(LONG_TEXT, 7L, Moderation.ON));
+            return results.next();
+        });
+        assertTrue(first.isModerated());
+        call.cancel(null);
+
+        long deadline = System.currentTimeMillis() + 5000;
+        while (service.getCancelled() == 0 && System.currentTimeMillis() < deadline) Thread.sleep(10);
+        assertEquals(1, service.getCancelled(), "The service should see the cancellation");
+        int moderated = api.getModerationCalls();
+        Thread.sleep(300);
+        assertEquals(moderated, api.getModerationCalls(), "No moderation should start after the cancellation");
+
+        int sentences = new App().generate(new FakeLanguageApi(0), LONG_TEXT, WordUtil.RandomSource(7),
+                Moderation.OFF).size();
+        assertTrue(moderated < sentences, "The sentences left should not be moderated");
+    }
+
+    @Test
+    @Order(5)
+    @DisplayName("Test many concurrent streams on one Netty connection")
+    void testConcurrentStreams() throws Exception {
+        int streams = 200;
+        NonsenseGeneratorService service = new NonsenseGeneratorService(new App(), new FakeLanguageApi(5), streams);
+        server = Grpc.newServerBuilderForPort(0, InsecureServerCredentials.create())
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .addService(service)
+                .build()
+                .start();
+        channel = Grpc.newChannelBuilderForAddress("localhost", server.getPort(), InsecureChannelCredentials.create())
+                .build();
+        String expected = describe(new App().generate(new FakeLanguageApi(0), LONG_TEXT, WordUtil.RandomSource(3),
+                Moderation.ON));
+
+        List<Future<String>> calls = new ArrayList<>();
+        try (ExecutorService callers = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < streams; i++) {
+                calls.add(callers.submit(() -> {
+                    List<SentenceResult> results = new ArrayList<>();
+                    NonsenseGeneratorGrpc.generateStream(channel, new GenerateRequest(LONG_TEXT, 3L, Moderation.ON))
+                            .forEachRemaining(results::add);
+                    return describe(results);
+                }));
+            }
+        }
+        for (Future<String> call : calls) assertEquals(expected, call.get());
+        assertEquals(streams, service.getServed());
+    }
+
+    private interface Fields {
+        void write(CodedOutputStream out) throws IOException;
+    }
+
+    private static InputStream message(Fields fields) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        CodedOutputStream out = CodedOutputStream.newInstance(bytes);
+        fields.write(out);
+        out.flush();
+        return new ByteArrayInputStream(bytes.toByteArray());
+    }
+
+    @Test
+    @Order(6)
+    @DisplayName("Test fields of unexpected wire types are skipped")
+    void testWireTypes() throws Exception {
+        GenerateRequest request = NonsenseGeneratorGrpc.REQUEST_MARSHALLER.parse(message(out -> {
+            out.writeInt64(1, 5);
+            out.writeString(1, "dog");
+            out.writeFixed32(2, 7);
+            out.writeString(3, "off");
+            out.writeTag(9, WireFormat.WIRETYPE_START_GROUP);
+            out.writeInt32(1, 7);
+            out.writeTag(9, WireFormat.WIRETYPE_END_GROUP);
+        }));
+        assertEquals("dog", request.getText());
+        assertNull(request.getSeed(), "A seed of the wrong wire type should be ignored");
+        assertEquals(Moderation.ON, request.getModeration());
+
+        List<SentenceResult> results = NonsenseGeneratorGrpc.RESPONSE_MARSHALLER.parse(message(out -> {
+            out.writeInt32(1, 3);
+            ByteArrayOutputStream result = new ByteArrayOutputStream();
+            CodedOutputStream fields = CodedOutputStream.newInstance(result);
+            fields.writeString(2, "dog runs");
+            fields.writeInt64(3, 1);
+            fields.flush();
+            out.writeByteArray(1, result.toByteArray());
+        }));
+        assertEquals(1, results.size());
+        assertEquals("dog runs", results.getFirst().getText());
+        assertFalse(results.getFirst().isModerated());
+
+        StatusRuntimeException e = assertThrows(StatusRuntimeException.class, () -> NonsenseGeneratorGrpc.REQUEST_MARSHALLER
+                .parse(message(out -> out.writeTag(4, WireFormat.WIRETYPE_END_GROUP))));
+        assertEquals(Status.Code.INVALID_ARGUMENT, e.getStatus().getCode());
+        assertThrows(StatusRuntimeException.class, () -> NonsenseGeneratorGrpc.REQUEST_MARSHALLER
+                .parse(message(out -> out.writeUInt32NoTag(1 << 3 | 7))));
+    }
+}
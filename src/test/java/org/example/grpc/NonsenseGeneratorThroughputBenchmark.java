@@ -0,0 +1,127 @@
+package org.example.grpc;
+
+import org.example.App;
+import org.example.App.Moderation;
+import org.example.FakeLanguageApi;
+
+import io.grpc.Grpc;
+import io.grpc.InsecureChannelCredentials;
+import io.grpc.InsecureServerCredentials;
+import io.grpc.ManagedChannel;
+import io.grpc.Server;
+import io.grpc.StatusRuntimeException;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Throughput of {@link NonsenseGeneratorService} on the Netty transport, against the
+ * local {@link FakeLanguageApi}. Keeps a fixed number of {@code GenerateStream} calls
+ * open at all times, all multiplexed on one HTTP/2 connection, and reports the
+ * completed streams and sentences per second and the stream latency percentiles.
+ * <p>
+ * Run with {@code mvn -P load-test test-compile exec:exec -Dload.main=org.example.grpc.NonsenseGeneratorThroughputBenchmark},
+ * passing options with {@code -Dload.args="--streams 512 --seconds 20 --latency 20 --max-in-flight 512"}.
+ */
+public class NonsenseGeneratorThroughputBenchmark {
+
+    private static final String TEXT = "The quick dog runs happily and the lazy cat sleeps quietly "
+            + "while she sings beautifully and they walked slowly home under the bright sun";
+
+    public static void main(String[] args) throws Exception {
+        int streams = 256;
+        int seconds = 10;
+        long latency = 20;
+        int maxInFlight = 512;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--streams"       -> streams = Integer.parseInt(args[++i]);
+                case "--seconds"       -> seconds = Integer.parseInt(args[++i]);
+                case "--latency"       -> latency = Long.parseLong(args[++i]);
+                case "--max-in-flight" -> maxInFlight = Integer.parseInt(args[++i]);
+                default -> throw new IllegalArgumentException("Unknown option: " + args[i]);
+            }
+        }
+
+        NonsenseGeneratorService service = new NonsenseGeneratorService(new App(), new FakeLanguageApi(latency),
+                maxInFlight);
+        Server server = Grpc.newServerBuilderForPort(0, InsecureServerCredentials.create())
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .addService(service)
+                .build()
+                .start();
+        ManagedChannel channel = Grpc.newChannelBuilderForAddress("localhost", server.getPort(),
+                InsecureChannelCredentials.create()).build();
+
+        AtomicLong completed = new AtomicLong();
+        AtomicLong sentences = new AtomicLong();
+        AtomicLong failed = new AtomicLong();
+        long warmupEnd = System.nanoTime() + 2_000_000_000L;
+        long end = warmupEnd + seconds * 1_000_000_000L;
+
+        // Each caller returns the latencies of its completed streams
+        List<Future<long[]>> callerLatencies = new ArrayList<>();
+        try (ExecutorService callers = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int c = 0; c < streams; c++) {
+                callerLatencies.add(callers.submit(() -> {
+                    long[] mine = new long[64];
+                    int count = 0;
+                    for (long seed = 0; System.nanoTime() < end; seed++) {
+                        long start = System.nanoTime();
+                        int received = 0;
+                        try {
+                            Iterator<App.SentenceResult> results = NonsenseGeneratorGrpc.generateStream(channel,
+                                    new GenerateRequest(TEXT, seed, Moderation.ON));
+                            while (results.hasNext()) {
+                                results.next();
+                                received++;
+                            }
+                        } catch (StatusRuntimeException e) {
+                            failed.incrementAndGet();
+                            continue;
+                        }
+                        // Streams started during the warm-up are not measured
+                        if (start < warmupEnd) continue;
+                        completed.incrementAndGet();
+                        sentences.addAndGet(received);
+                        if (count == mine.length) mine = Arrays.copyOf(mine, count * 2);
+                        mine[count++] = System.nanoTime() - start;
+                    }
+                    return Arrays.copyOf(mine, count);
+                }));
+            }
+        }
+        channel.shutdownNow().awaitTermination(5, TimeUnit.SECONDS);
+        server.shutdownNow().awaitTermination(5, TimeUnit.SECONDS);
+
+        long[] all = new long[0];
+        for (Future<long[]> latencies : callerLatencies) {
+            long[] mine = latencies.get();
+            int at = all.length;
+            all = Arrays.copyOf(all, at + mine.length);
+            System.arraycopy(mine, 0, all, at, mine.length);
+        }
+        Arrays.sort(all);
+
+        System.out.printf("%d concurrent streams on one connection, %d ms per fake API call, %d s measured%n",
+                streams, latency, seconds);
+        System.out.printf("Sustained: %.0f streams/s, %.0f sentences/s (%d failed)%n",
+                completed.get() / (double) seconds, sentences.get() / (double) seconds, failed.get());
+        if (all.length > 0) {
+            System.out.printf("Stream latency: p50 %.1f ms, p99 %.1f ms, max %.1f ms%n",
+                    percentile(all, 0.50), percentile(all, 0.99), all[all.length - 1] / 1e6);
+        }
+    }
+
+    private static double percentile(long[] sorted, double p) {
+        int index = (int) Math.min(sorted.length - 1, Math.ceil(p * sorted.length) - 1);
+        return sorted[Math.max(0, index)] / 1e6;
+    }
+}
@@ -0,0 +1,205 @@
+package org.example.history;
+
+import org.junit.jupiter.api.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Test class for HistoryStore.
+ */
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+public class HistoryStoreTest {
+
+    private Path dir;
+
+    @BeforeEach
+    void createDir() throws IOException {
+        dir = Files.createTempDirectory("history");
+    }
+
+    @AfterEach
+    void deleteDir() throws IOException {
+        try (var files = Files.walk(dir)) {
+            files.sorted((a, b) -> b.compareTo(a)).forEach(p -> p.toFile().delete());
+        }
+    }
+
+    private static List<String> sentences(HistoryPage page) {
+        List<String> sentences = new ArrayList<>();
+        for (HistoryEntry e : page.getEntries()) sentences.add(e.getSentence());
+        return sentences;
+    }
+
+    @Test
+    @Order(1)
+    @DisplayName("Test search by word, template and toxicity")
+    void testSearchFilters() throws Exception {
+        try (HistoryStore store = HistoryStore.open(dir)) {
+            store.append(1, "h", "[noun] [verb]", "Dog runs", 0.05);
+            store.append(2, "h", "[noun] [verb]", "Cat sleeps", 0.55);
+            store.append(3, "h", "[article] [noun]", "The dog", 0.95);
+            store.append(4, "h", "[article] [noun]", "A cat", Double.NaN);
+
+            HistoryPage all = store.search(new HistoryQuery(), Integer.MAX_VALUE, 10);
+            assertEquals(List.of("A cat", "The dog", "Cat sleeps", "Dog runs"), sentences(all),
+                    "An empty query should match everything, newest first");
+
+            assertEquals(List.of("The dog", "Dog runs"),
+                    sentences(store.search(new HistoryQuery().withWords("DOG"), Integer.MAX_VALUE, 10)));
+            assertEquals(List.of("The dog"),
+                    sentences(store.search(new HistoryQuery().withWords("the dog"), Integer.MAX_VALUE, 10)),
+                    "Every word should be required");
+            assertEquals(List.of("A cat", "The dog"),
+                    sentences(store.search(new HistoryQuery().withTemplate("[article] [noun]"), Integer.MAX_VALUE, 10)));
+            assertEquals(List.of("Cat sleeps"),
+                    sentences(store.search(new HistoryQuery().withToxicity(0.5, 0.6), Integer.MAX_VALUE, 10)));
+            assertEquals(List.of("Cat sleeps"),
+                    sentences(store.search(new HistoryQuery().withWords("cat").withToxicity(0, 1), Integer.MAX_VALUE, 10)),
+                    "Unmoderated sentences should not match a toxicity range");
+            assertTrue(store.search(new HistoryQuery().withWords("bird"), Integer.MAX_VALUE, 10).getEntries().isEmpty());
+            assertTrue(store.search(new HistoryQuery().withTemplate("[verb]"), Integer.MAX_VALUE, 10).getEntries().isEmpty());
+        }
+    }
+
+    @Test
+    @Order(2)
+    @DisplayName("Test results are paged with a cursor")
+    void testPaging() throws Exception {
+        try (HistoryStore store = HistoryStore.open(dir)) {
+            for (int i = 0; i < 250; i++) {
+                store.append(i, "h", "[noun]", "word" + (i % 2) + " n" + i, i / 250.0);
+            }
+            HistoryQuery query = new HistoryQuery().withWords("word1");
+            List<HistoryEntry> seen = new ArrayList<>();
+            int cursor = Integer.MAX_VALUE;
+            int pages = 0;
+            while (cursor >= 0) {
+                HistoryPage page = store.search(query, cursor, 50);
+                seen.addAll(page.getEntries());
+                cursor = page.getNextCursor();
+                pages++;
+            }
+            assertEquals(125, seen.size(), "Every match should be returned exactly once");
+            assertEquals(3, pages, "125 matches should fit in three pages of 50");
+            for (int i = 1; i < seen.size(); i++) {
+                assertTrue(seen.get(i).getId() < seen.get(i - 1).getId(), "Pages should be newest first");
+            }
+        }
+    }
+
+    @Test
+    @Order(3)
+    @DisplayName("Test indexes are rebuilt on reopen")
+    void testReopen() throws Exception {
+        try (HistoryStore store = HistoryStore.open(dir)) {
+            store.append(10, "abc", "[noun] [verb]", "Dog runs", 0.25);
+            store.append(20, "def", "[noun]", "Bird", Double.NaN);
+        }
+        try (HistoryStore store = HistoryStore.open(dir)) {
+            assertEquals(2, store.size());
+            assertEquals(List.of("[noun] [verb]", "[noun]"), store.getTemplates());
+            HistoryEntry dog = store.search(new HistoryQuery().withWords("runs"), Integer.MAX_VALUE, 10)
+                    .getEntries().getFirst();
+            assertEquals(10, dog.getTimestamp());
+            assertEquals("abc", dog.getInputHash());
+            assertEquals(0.25, dog.getToxicity(), 1e-9);
+            assertFalse(store.get(1).isModerated());
+
+            store.append(30, "ghi", "[noun]", "Dog", 0.5);
+            assertEquals(2, store.search(new HistoryQuery().withWords("dog"), Integer.MAX_VALUE, 10).getEntries().size(),
+                    "Appends after reopening should be indexed too");
+        }
+    }
+
+    @Test
+    @Order(4)
+    @DisplayName("Test truncated record is dropped")
+    void testTruncatedTail() throws Exception {
+        try (HistoryStore store = HistoryStore.open(dir)) {
+            store.append(1, "h", "[noun]", "Dog", 0.1);
+        }
+        Files.write(dir.resolve("history.dat"), new byte[] {0, 0, 0, 40, 1, 2}, StandardOpenOption.APPEND);
+        try (HistoryStore store = HistoryStore.open(dir)) {
+            assertEquals(1, store.size(), "A half-written record should be ignored");
+            store.append(2, "h", "[noun]", "Cat", 0.2);
+        }
+        try (HistoryStore store = HistoryStore.open(dir)) {
+            assertEquals("Cat", store.get(1).getSentence(), "New records should follow the last complete one");
+        }
+    }
+
+    @Test
+    @Order(5)
+    @DisplayName("Test word splitting")
+    void testWords() {
+        assertEquals(List.of("it's", "a", "dog", "42"), HistoryStore.words("It's a DOG, a dog! 42"));
+        assertTrue(HistoryStore.words(" .,! ").isEmpty());
+    }
+
+    @Test
+    @Order(6)
+    @DisplayName("Test query latency on a large history")
+    void testLargeHistory() throws Exception {
+        String[] words = {"dog", "cat", "bird", "fish", "tree", "house", "car", "moon"};
+        try (HistoryStore store = HistoryStore.open(dir)) {
+            for (int i = 0; i < 200_000; i++) {
+                store.append(i, "h", "[noun] [verb]",
+                        words[i % words.length] + " " + words[(i / 8) % words.length] + " n" + (i % 1000),
+                        (i % 100) / 100.0);
+            }
+            HistoryQuery query = new HistoryQuery().withWords("moon n999").withToxicity(0.9, 1);
+            long start = System.nanoTime();
+            HistoryPage page = store.search(query, Integer.MAX_VALUE, 100);
+            double millis = (System.nanoTime() - start) / 1e6;
+            System.out.printf("History search over %d entries: %.2f ms%n", store.size(), millis);
+
+            assertFalse(page.getEntries().isEmpty());
+            for (HistoryEntry e : page.getEntries()) {
+                assertTrue(e.getSentence().contains("moon") && e.getSentence().endsWith("n999"));
+                assertTrue(e.getToxicity() >= 0.9);
+            }
+        }
+    }
+
+    @Test
+    @Order(7)
+    @DisplayName("Test invalid queries")
+    void testInvalidQueries() throws Exception {
+        assertThrows(IllegalArgumentException.class, () -> new HistoryQuery().withToxicity(0.8, 0.2));
+        try (HistoryStore store = HistoryStore.open(dir)) {
+            assertThrows(IllegalArgumentException.class, () -> store.search(new HistoryQuery(), Integer.MAX_VALUE, 0));
+            assertThrows(IndexOutOfBoundsException.class, () -> store.get(0));
+        }
+    }
+
+    @Test
+    @Order(8)
+    @DisplayName("Test an interrupted caller does not close the store")
+    void testInterruptedCaller() throws Exception {
+        try (HistoryStore store = HistoryStore.open(dir)) {
+            store.append(1, "h", "[noun] [verb]", "Dog runs", 0.05);
+
+            Thread.currentThread().interrupt();
+            try {
+                store.append(2, "h", "[noun] [verb]", "Cat sleeps", 0.25);
+                assertEquals(2, store.search(new HistoryQuery(), Integer.MAX_VALUE, 10).getEntries().size());
+            } finally {
+                Thread.interrupted();
+            }
+
+            store.append(3, "h", "[article] [noun]", "The dog", 0.5);
+            assertEquals(List.of("The dog", "Cat sleeps", "Dog runs"),
+                    sentences(store.search(new HistoryQuery(), Integer.MAX_VALUE, 10)),
+                    "The store should keep working after an interrupt");
+        }
+        try (HistoryStore reopened = HistoryStore.open(dir)) {
+            assertEquals(3, reopened.size());
+        }
+    }
+}
@@ -0,0 +1,176 @@
+package org.example.log;
+
+import org.junit.jupiter.api.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Test class for AsyncLogAppender.
+ */
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+public class AsyncLogAppenderTest {
+
+    private Path dir;
+
+    @BeforeEach
+    void createDir() throws IOException {
+        dir = Files.createTempDirectory("appender");
+    }
+
+    @AfterEach
+    void deleteDir() throws IOException {
+        try (var files = Files.walk(dir)) {
+            files.sorted((a, b) -> b.compareTo(a)).forEach(p -> p.toFile().delete());
+        }
+    }
+
+    @Test
+    @Order(1)
+    @DisplayName("Test entries are appended in order")
+    void testAppendInOrder() throws Exception {
+        Path log = dir.resolve("Results/Log.txt");
+        try (AsyncLogAppender appender = new AsyncLogAppender(log)) {
+            for (int i = 0; i < 1000; i++) appender.append("entry " + i);
+            appender.flush();
+            assertEquals(1000, appender.getEntriesWritten(), "All entries should be written after flush");
+        }
+
+        List<String> lines = Files.readAllLines(log);
+        assertEquals(1000, lines.size(), "Missing parent directories should be created");
+        for (int i = 0; i < 1000; i++) {
+            assertEquals("entry " + i, lines.get(i), "Entries should keep their order");
+        }
+    }
+
+    @Test
+    @Order(2)
+    @DisplayName("Test existing file is appended to")
+    void testAppendsToExistingFile() throws Exception {
+        Path log = dir.resolve("Log.txt");
+        Files.writeString(log, "old\n");
+        try (AsyncLogAppender appender = new AsyncLogAppender(log)) {
+            appender.append("new");
+        }
+        assertEquals(List.of("old", "new"), Files.readAllLines(log));
+    }
+
+    @Test
+    @Order(3)
+    @DisplayName("Test every flush policy writes all entries on close")
+    void testFlushPolicies() throws Exception {
+        for (AsyncLogAppender.FlushPolicy policy : AsyncLogAppender.FlushPolicy.values()) {
+            Path log = dir.resolve(policy + ".txt");
+            AsyncLogAppender appender = new AsyncLogAppender(log, 16, policy, 50);
+            for (int i = 0; i < 500; i++) appender.append("line " + i);
+            appender.close();
+
+            assertEquals(500, Files.readAllLines(log).size(), "Policy " + policy + " lost entries");
+            assertTrue(appender.getBatchesWritten() <= 501, "Entries should be grouped into batches");
+        }
+    }
+
+    @Test
+    @Order(4)
+    @DisplayName("Test append after close is rejected")
+    void testAppendAfterClose() throws Exception {
+        AsyncLogAppender appender = new AsyncLogAppender(dir.resolve("closed.txt"));
+        appender.close();
+        assertThrows(IllegalStateException.class, () -> appender.append("late"));
+    }
+
+    @Test
+    @Order(5)
+    @DisplayName("Test throughput is reported")
+    void testThroughput() throws Exception {
+        try (AsyncLogAppender appender = new AsyncLogAppender(dir.resolve("speed.txt"))) {
+            for (int i = 0; i < 10_000; i++) appender.append("entry " + i);
+            appender.flush();
+            System.out.printf("Async appender: %.0f entries/s in %d batches%n",
+                    appender.getEntriesPerSecond(), appender.getBatchesWritten());
+            assertTrue(appender.getEntriesPerSecond() > 0, "Throughput should be positive");
+        }
+    }
+
+    @Test
+    @Order(6)
+    @DisplayName("Test log rolls over by size and compresses sealed segments")
+    void testRollOver() throws Exception {
+        Path log = dir.resolve("Log.jsonl");
+        AsyncLogAppender appender = new AsyncLogAppender(log, 64, AsyncLogAppender.FlushPolicy.EVERY_BATCH, 1000,
+                new AsyncLogAppender.RollingPolicy(1024, 60_000, true));
+        for (int i = 0; i < 500; i++) appender.append("entry number " + i);
+        appender.close();
+
+        assertTrue(appender.getSegmentsSealed() > 0, "A 1 KiB limit should seal segments");
+        List<Path> sealed;
+        try (var files = Files.list(dir)) {
+            sealed = files.filter(p -> !p.equals(log)).sorted().toList();
+        }
+        assertEquals(appender.getSegmentsSealed(), sealed.size(), "Every sealed segment should be kept");
+
+        int lines = Files.readAllLines(log).size();
+        for (Path segment : sealed) {
+            assertTrue(segment.toString().endsWith(".jsonl.gz"), "Sealed segments should be gzipped: " + segment);
+            try (BufferedReader in = new BufferedReader(new InputStreamReader(
+                    new GZIPInputStream(Files.newInputStream(segment)), StandardCharsets.UTF_8))) {
+                lines += (int) in.lines().count();
+            }
+        }
+        assertEquals(500, lines, "Rolling over should not lose entries");
+    }
+
+    @Test
+    @Order(7)
+    @DisplayName("Test invalid rolling policy")
+    void testInvalidRollingPolicy() {
+        assertThrows(IllegalArgumentException.class, () -> new AsyncLogAppender.RollingPolicy(0, 1000, false));
+    }
+
+    @Test
+    @Order(8)
+    @DisplayName("Test an interrupted append is reported and not waited for")
+    void testInterruptedAppend() throws Exception {
+        Path log = dir.resolve("interrupted.txt");
+        try (AsyncLogAppender appender = new AsyncLogAppender(log, 1, AsyncLogAppender.FlushPolicy.EVERY_BATCH, 1000)) {
+            int queued = 0;
+            Thread.currentThread().interrupt();
+            try {
+                for (int i = 0; i < 2000; i++) {
+                    if (appender.append("entry " + i)) queued++;
+                    assertTrue(Thread.currentThread().isInterrupted(), "The interrupt status should be kept");
+                }
+            } finally {
+                Thread.interrupted();
+            }
+            assertTrue(queued > 0, "Entries that fit should still be queued");
+
+            assertTimeoutPreemptively(Duration.ofSeconds(10), appender::flush, "Dropped entries should not be waited for");
+            assertEquals(queued, appender.getEntriesWritten());
+            assertEquals(queued, Files.readAllLines(log).size());
+        }
+    }
+
+    @Test
+    @Order(9)
+    @DisplayName("Test a failed writer is reported and does not block close")
+    void testWriterFailure() throws Exception {
+        // A directory cannot be opened for writing, so the writer stops at once
+        Path log = Files.createDirectory(dir.resolve("taken"));
+        AsyncLogAppender appender = new AsyncLogAppender(log, 1, AsyncLogAppender.FlushPolicy.EVERY_BATCH, 1000);
+        assertThrows(IOException.class, () -> {
+            for (int i = 0; i < 100; i++) appender.append("entry " + i);
+        }, "Appends should report the write error");
+        assertThrows(IOException.class, appender::flush);
+        assertTimeoutPreemptively(Duration.ofSeconds(10), () -> assertThrows(IOException.class, appender::close),
+                "Close should not wait for room the writer will never make");
+    }
+}
@@ -0,0 +1,64 @@
+package org.example.log;
+
+import org.example.words.WordUtil;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH benchmark of results-log throughput, in entries per second:
+ * WordUtil.Log (open, write, close per entry) against AsyncLogAppender
+ * under each flush policy. Run with: mvn -P benchmark test-compile exec:exec
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class LogAppenderBenchmark {
+
+    @Param({"EVERY_BATCH", "FSYNC_EVERY_BATCH", "PERIODIC"})
+    public AsyncLogAppender.FlushPolicy policy;
+
+    private File syncFile;
+    private File asyncFile;
+    private AsyncLogAppender appender;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        syncFile = File.createTempFile("sync-log", ".txt");
+        asyncFile = File.createTempFile("async-log", ".txt");
+        appender = new AsyncLogAppender(asyncFile.toPath(), 8192, policy, 1000);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        appender.close();
+        syncFile.delete();
+        asyncFile.delete();
+    }
+
+    @Benchmark
+    public void syncLog() {
+        WordUtil.Log(syncFile.getPath(), "→ Toxicity: 12.34%\n\n");
+    }
+
+    @Benchmark
+    public void asyncAppend() throws IOException {
+        appender.append("→ Toxicity: 12.34%\n\n");
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options opt = new OptionsBuilder()
+                .include(LogAppenderBenchmark.class.getSimpleName())
+                .build();
+        new Runner(opt).run();
+    }
+}
@@ -0,0 +1,72 @@
+package org.example.log;
+
+import org.example.App.SentenceResult;
+import org.junit.jupiter.api.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Test class for ResultLog.
+ */
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+public class ResultLogTest {
+
+    private Path dir;
+
+    @BeforeEach
+    void createDir() throws IOException {
+        dir = Files.createTempDirectory("resultlog");
+    }
+
+    @AfterEach
+    void deleteDir() throws IOException {
+        try (var files = Files.walk(dir)) {
+            files.sorted((a, b) -> b.compareTo(a)).forEach(p -> p.toFile().delete());
+        }
+    }
+
+    @Test
+    @Order(1)
+    @DisplayName("Test records are written as JSON lines")
+    void testRecordsAreJsonLines() throws Exception {
+        Path path = dir.resolve("Log.jsonl");
+        try (ResultLog log = new ResultLog(path)) {
+            log.record("The dog runs", new SentenceResult("[noun] [verb]", "Dog runs", 0.25));
+            log.record("The dog runs", new SentenceResult("[article] [noun]", "The \"dog\"", 0.5));
+        }
+
+        List<String> lines = Files.readAllLines(path);
+        assertEquals(2, lines.size(), "One line per record");
+        ResultLog.Record first = ResultLog.fromJson(lines.get(0));
+        assertEquals("[noun] [verb]", first.getTemplate());
+        assertEquals("Dog runs", first.getSentence());
+        assertEquals(0.25, first.getToxicity(), 1e-9);
+        assertEquals(ResultLog.hash("The dog runs"), first.getInputHash());
+        assertNotNull(first.getTimestamp(), "Records should be timestamped");
+        assertEquals("The \"dog\"", ResultLog.fromJson(lines.get(1)).getSentence(), "Quotes should be escaped");
+    }
+
+    @Test
+    @Order(2)
+    @DisplayName("Test unmoderated sentences omit toxicity")
+    void testUnmoderatedOmitsToxicity() {
+        String json = ResultLog.toJson(new ResultLog.Record("2025-01-01T00:00:00Z", "00", "[noun]", "Dog", null));
+        assertFalse(json.contains("toxicity"), "Missing toxicity should not be written");
+        assertNull(ResultLog.fromJson(json).getToxicity());
+    }
+
+    @Test
+    @Order(3)
+    @DisplayName("Test input hash")
+    void testHash() {
+        String hash = ResultLog.hash("The dog runs");
+        assertEquals(16, hash.length(), "Hash should be 64 bits in hex");
+        assertTrue(hash.matches("[0-9a-f]+"), "Hash should be lowercase hex");
+        assertEquals(hash, ResultLog.hash("The dog runs"), "Hash should be stable");
+        assertNotEquals(hash, ResultLog.hash("The cat runs"), "Different inputs should hash differently");
+    }
+}
@@ -0,0 +1,71 @@
+package org.example.parse;
+
+import edu.stanford.nlp.ling.StringLabel;
+import edu.stanford.nlp.trees.LabeledScoredTreeNode;
+import edu.stanford.nlp.trees.Tree;
+import org.junit.jupiter.api.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Test class for TreeLines.
+ */
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+public class TreeLinesTest {
+
+    // Reference: the recursive drawing the tree pane used before
+    private static void draw(Tree node, String prefix, boolean isLast, List<String> lines) {
+        lines.add(prefix + (isLast ? "└─ " : "├─ ") + node.label().value());
+        String childPrefix = prefix + (isLast ? "   " : "│  ");
+        Tree[] kids = node.children();
+        for (int i = 0; i < kids.length; i++) {
+            draw(kids[i], childPrefix, i == kids.length - 1, lines);
+        }
+    }
+
+    @Test
+    @Order(1)
+    @DisplayName("Test lines match the recursive drawing")
+    void testMatchesRecursiveDrawing() {
+        Tree tree = Tree.valueOf("(ROOT (S (NP (DT The) (NN dog)) (VP (VBZ runs) (PP (IN in) (NP (DT the) (NN park)))) (. .)))");
+        List<String> expected = new ArrayList<>();
+        draw(tree, "", true, expected);
+
+        TreeLines lines = new TreeLines(tree, Function.identity());
+        assertEquals(expected.size(), lines.size());
+        for (int i = 0; i < lines.size(); i++) {
+            assertEquals(expected.get(i), lines.get(i).toString(), "Line " + i);
+        }
+        assertTrue(lines.get(lines.size() - 1).isLeaf(), "The last line should be the final word");
+        assertFalse(lines.get(0).isLeaf());
+    }
+
+    @Test
+    @Order(2)
+    @DisplayName("Test labels are mapped")
+    void testLabels() {
+        Tree tree = Tree.valueOf("(NP (NN dog))");
+        TreeLines lines = new TreeLines(tree, Map.of("NP", "Noun phrase", "NN", "Noun")::get);
+        assertEquals("Noun phrase", lines.get(0).getLabel());
+        assertEquals("   └─ ", lines.get(1).getPrefix());
+        assertThrows(IndexOutOfBoundsException.class, () -> lines.get(3));
+    }
+
+    @Test
+    @Order(3)
+    @DisplayName("Test very deep trees")
+    void testDeepTree() {
+        Tree tree = new LabeledScoredTreeNode(new StringLabel("leaf"));
+        for (int i = 0; i < 50_000; i++) {
+            tree = new LabeledScoredTreeNode(new StringLabel("n" + i), List.of(tree));
+        }
+        TreeLines lines = new TreeLines(tree, Function.identity());
+        assertEquals(50_001, lines.size());
+        assertEquals("leaf", lines.get(50_000).getLabel());
+        assertEquals(50_001 * 3, lines.get(50_000).getPrefix().length());
+    }
+}
@@ -0,0 +1,325 @@
+package org.example.parse;
+
+import com.google.cloud.language.v1.AnalyzeSyntaxResponse;
+import com.google.cloud.language.v1.DependencyEdge;
+import com.google.cloud.language.v1.PartOfSpeech;
+import com.google.cloud.language.v1.TextSpan;
+import com.google.cloud.language.v1.Token;
+import edu.stanford.nlp.ling.CoreAnnotations;
+import edu.stanford.nlp.ling.CoreLabel;
+import edu.stanford.nlp.pipeline.Annotation;
+import edu.stanford.nlp.pipeline.StanfordCoreNLP;
+import edu.stanford.nlp.trees.Tree;
+import edu.stanford.nlp.trees.TreeCoreAnnotations;
+import edu.stanford.nlp.util.CoreMap;
+import org.example.Analysis;
+import org.junit.jupiter.api.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.lang.ref.WeakReference;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Test class for TreeParser.
+ * Analyses are built by hand and the pipeline is a tokenizer, which needs no model files.
+ */
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+public class TreeParserTest {
+
+    /** Pipeline that attaches a fixed tree to every sentence and counts its runs. */
+    private static final class FakeParsePipeline extends StanfordCoreNLP {
+        final AtomicInteger runs = new AtomicInteger();
+
+        FakeParsePipeline(Properties props) {
+            super(props);
+        }
+
+        @Override
+        public void annotate(Annotation annotation) {
+            runs.incrementAndGet();
+            for (CoreMap sentence : annotation.get(CoreAnnotations.SentencesAnnotation.class)) {
+                sentence.set(TreeCoreAnnotations.TreeAnnotation.class,
+                        Tree.valueOf("(ROOT (S (NP (NN dog)) (VP (VBZ runs))))"));
+            }
+        }
+    }
+
+    private static Properties tokenizeOnly() {
+        Properties props = new Properties();
+        props.setProperty("annotators", "tokenize");
+        return props;
+    }
+
+    /**
+     * Analysis of sentences whose tokens are separated by spaces, e.g. "The dog runs .".
+     * Every word is tagged as a noun and is its own root.
+     */
+    static Analysis analysis(String... sentences) {
+        AnalyzeSyntaxResponse.Builder response = AnalyzeSyntaxResponse.newBuilder();
+        StringBuilder text = new StringBuilder();
+        int index = 0;
+        for (String sentence : sentences) {
+            if (!text.isEmpty()) text.append(' ');
+            response.addSentencesBuilder().setText(TextSpan.newBuilder()
+                    .setContent(sentence).setBeginOffset(text.length()));
+            int offset = text.length();
+            for (String word : sentence.split(" ")) {
+                PartOfSpeech.Tag tag = Character.isLetterOrDigit(word.charAt(0))
+                        ? PartOfSpeech.Tag.NOUN : PartOfSpeech.Tag.PUNCT;
+                response.addTokens(token(word, offset, tag, index, DependencyEdge.Label.ROOT));
+                offset += word.length() + 1;
+                index++;
+            }
+            text.append(sentence);
+        }
+        return new Analysis(text.toString(), response.build());
+    }
+
+    private static Token token(String word, int offset, PartOfSpeech.Tag tag, int head, DependencyEdge.Label label) {
+        return Token.newBuilder()
+                .setText(TextSpan.newBuilder().setContent(word).setBeginOffset(offset))
+                .setPartOfSpeech(PartOfSpeech.newBuilder().setTag(tag))
+                .setDependencyEdge(DependencyEdge.newBuilder().setHeadTokenIndex(head).setLabel(label))
+                .build();
+    }
+
+    @Test
+    @Order(1)
+    @DisplayName("Test pipeline is loaded once in the background")
+    void testLoadsOnceInBackground() throws Exception {
+        AtomicInteger builds = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        TreeParser parser = new TreeParser(tokenizeOnly(), props -> {
+            builds.incrementAndGet();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return new StanfordCoreNLP(props);
+        }, 4);
+
+        assertFalse(parser.isLoaded());
+        assertSame(parser.load(), parser.load(), "Loading should be started only once");
+        assertFalse(parser.isLoaded(), "load() should not wait for the models");
+        assertEquals(-1, parser.getLoadMillis());
+
+        release.countDown();
+        parser.load().get(30, TimeUnit.SECONDS);
+        assertTrue(parser.isLoaded());
+        assertTrue(parser.getLoadMillis() >= 0, "Load time should be measured");
+        assertEquals(1, builds.get());
+    }
+
+    @Test
+    @Order(2)
+    @DisplayName("Test parse waits for the pipeline")
+    void testParseWaitsForLoad() {
+        TreeParser parser = new TreeParser(tokenizeOnly(), StanfordCoreNLP::new, 4);
+        // No parse annotator, so there is no tree, but the sentence is annotated
+        assertEquals(Collections.singletonList(null), parser.parseTrees(analysis("The dog runs .")));
+        assertTrue(parser.parseTrees(analysis()).isEmpty(), "Empty text has no sentences");
+        assertTrue(parser.isLoaded());
+    }
+
+    @Test
+    @Order(3)
+    @DisplayName("Test load failure is reported")
+    void testLoadFailure() {
+        TreeParser parser = new TreeParser(tokenizeOnly(), props -> {
+            throw new IllegalStateException("missing models");
+        }, 4);
+        IllegalStateException e = assertThrows(IllegalStateException.class,
+                () -> parser.parseTrees(analysis("The dog runs .")));
+        assertEquals("missing models", e.getCause().getMessage());
+        assertFalse(parser.isLoaded());
+    }
+
+    @Test
+    @Order(4)
+    @DisplayName("Test parsed trees are cached")
+    void testCache() throws Exception {
+        FakeParsePipeline[] nlp = new FakeParsePipeline[1];
+        TreeParser parser = new TreeParser(tokenizeOnly(), props -> nlp[0] = new FakeParsePipeline(props), 2);
+
+        Analysis analysis = analysis("The dog runs .");
+        List<TreeParser.Sentence> sentences = parser.parseAll(analysis);
+        Tree first = sentences.getFirst().getTree().get(30, TimeUnit.SECONDS);
+        assertNotNull(first);
+        assertSame(sentences, parser.parseAll(analysis), "The trees should be kept for the analysis");
+        assertSame(first, parser.parseTrees(analysis("The dog runs .")).getFirst(),
+                "The same sentence should reuse the parse");
+        assertEquals(1, nlp[0].runs.get());
+        assertEquals(1, parser.getCacheHits());
+        assertEquals(1, parser.getCacheMisses());
+    }
+
+    @Test
+    @Order(11)
+    @DisplayName("Test kept trees do not outlive their analysis or parser")
+    void testKeptTrees() throws Exception {
+        FakeParsePipeline[] nlp = new FakeParsePipeline[1];
+        TreeParser parser = new TreeParser(tokenizeOnly(), props -> nlp[0] = new FakeParsePipeline(props), 2);
+        Analysis analysis = analysis("The dog runs .");
+        List<TreeParser.Sentence> sentences = parser.parseAll(analysis);
+        assertSame(sentences, parser.parseAll(analysis));
+        // Parsed before shutting down, so parsing again is served from the cache
+        for (TreeParser.Sentence sentence : sentences) sentence.getTree().join();
+
+        TreeParser other = new TreeParser(tokenizeOnly(), FakeParsePipeline::new, 2);
+        assertNotSame(sentences, other.parseAll(analysis), "Another parser should parse again");
+
+        // The analysis holds no reference to the parser that parsed it
+        WeakReference<TreeParser> ref = new WeakReference<>(other);
+        other.shutdown();
+        other = null;
+        for (int i = 0; i < 50 && ref.get() != null; i++) {
+            System.gc();
+            Thread.sleep(20);
+        }
+        assertNull(ref.get(), "A parser that is no longer used should be collectable");
+
+        parser.shutdown();
+        assertNotSame(sentences, parser.parseAll(analysis), "Shutting down should drop the kept trees");
+    }
+
+    @Test
+    @Order(5)
+    @DisplayName("Test cache evicts the least recently used sentence")
+    void testCacheEviction() {
+        FakeParsePipeline[] nlp = new FakeParsePipeline[1];
+        TreeParser parser = new TreeParser(tokenizeOnly(), props -> nlp[0] = new FakeParsePipeline(props), 2);
+
+        parser.parseTrees(analysis("One ."));
+        parser.parseTrees(analysis("Two ."));
+        parser.parseTrees(analysis("One ."));
+        parser.parseTrees(analysis("Three ."));
+        assertEquals(3, nlp[0].runs.get());
+        parser.parseTrees(analysis("One ."));
+        assertEquals(3, nlp[0].runs.get(), "Recently used sentence should stay cached");
+        parser.parseTrees(analysis("Two ."));
+        assertEquals(4, nlp[0].runs.get(), "Least recently used sentence should be evicted");
+
+        assertThrows(IllegalArgumentException.class, () -> new TreeParser(tokenizeOnly(), StanfordCoreNLP::new, 0));
+    }
+
+    @Test
+    @Order(6)
+    @DisplayName("Test sentences over the word limit are rejected")
+    void testWordLimit() {
+        FakeParsePipeline[] nlp = new FakeParsePipeline[1];
+        TreeParser parser = new TreeParser(tokenizeOnly(), props -> nlp[0] = new FakeParsePipeline(props), 4, false, 3);
+
+        assertNotNull(parser.parseTrees(analysis("The dog runs .")).getFirst());
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> parser.parseTrees(analysis("The big dog runs .")));
+        assertTrue(e.getMessage().contains("4 words"), e.getMessage());
+        assertEquals(1, nlp[0].runs.get(), "Rejected sentences should not be annotated");
+        assertTrue(parser.getLastParseMillis() >= 0);
+        assertTrue(parser.getAverageParseMillis() >= 0);
+    }
+
+    @Test
+    @Order(7)
+    @DisplayName("Test dependency edges are shown as a tree without a pipeline")
+    void testDependencyTree() {
+        // "Cats sleep. The dog runs.": the second sentence's heads count from the text's start
+        AnalyzeSyntaxResponse response = AnalyzeSyntaxResponse.newBuilder()
+                .addSentences(com.google.cloud.language.v1.Sentence.newBuilder()
+                        .setText(TextSpan.newBuilder().setContent("Cats sleep.").setBeginOffset(0)))
+                .addSentences(com.google.cloud.language.v1.Sentence.newBuilder()
+                        .setText(TextSpan.newBuilder().setContent("The dog runs.").setBeginOffset(12)))
+                .addTokens(token("Cats", 0, PartOfSpeech.Tag.NOUN, 1, DependencyEdge.Label.NSUBJ))
+                .addTokens(token("sleep", 5, PartOfSpeech.Tag.VERB, 1, DependencyEdge.Label.ROOT))
+                .addTokens(token(".", 10, PartOfSpeech.Tag.PUNCT, 1, DependencyEdge.Label.P))
+                .addTokens(token("The", 12, PartOfSpeech.Tag.DET, 4, DependencyEdge.Label.DET))
+                .addTokens(token("dog", 16, PartOfSpeech.Tag.NOUN, 5, DependencyEdge.Label.NSUBJ))
+                .addTokens(token("runs", 20, PartOfSpeech.Tag.VERB, 5, DependencyEdge.Label.ROOT))
+                .addTokens(token(".", 24, PartOfSpeech.Tag.PUNCT, 5, DependencyEdge.Label.P))
+                .build();
+        Analysis analysis = new Analysis("Cats sleep. The dog runs.", response);
+        assertEquals(List.of("The", "dog", "runs", "."),
+                analysis.getTokens(1).stream().map(t -> t.getText().getContent()).toList());
+
+        TreeParser parser = new TreeParser(ParserProfile.DEPENDENCY, 10);
+        List<Tree> trees = parser.parseTrees(analysis);
+        Tree root = trees.get(1).firstChild();
+        assertEquals("ROOT", trees.get(1).label().value());
+        assertEquals("runs (root)", root.label().value());
+        assertEquals("dog (nsubj)", root.firstChild().label().value());
+        assertEquals(". (p)", root.lastChild().label().value());
+        assertEquals("The (det)", root.firstChild().firstChild().label().value());
+        assertTrue(root.firstChild().firstChild().isLeaf());
+        assertEquals("sleep (root)", trees.get(0).firstChild().label().value());
+        assertFalse(parser.isLoaded(), "Dependency trees should not load a pipeline");
+    }
+
+    @Test
+    @Order(8)
+    @DisplayName("Test parser profiles")
+    void testProfiles() {
+        assertEquals("parse", ParserProfile.ACCURATE.toProperties(50).getProperty("annotators"),
+                "Tagging is done by the analysis");
+        assertTrue(ParserProfile.DEPENDENCY.isDependency());
+        assertFalse(ParserProfile.ACCURATE.isDependency());
+        assertEquals("50", ParserProfile.ACCURATE.toProperties(50).getProperty("parse.maxlen"));
+        assertNull(ParserProfile.ACCURATE.toProperties(50).getProperty("parse.model"), "PCFG is the default model");
+        assertTrue(ParserProfile.FAST.toProperties(50).getProperty("parse.model").contains("srparser"));
+    }
+
+    @Test
+    @Order(9)
+    @DisplayName("Test every sentence gets its own tree")
+    void testEverySentence() throws Exception {
+        FakeParsePipeline[] nlp = new FakeParsePipeline[1];
+        TreeParser parser = new TreeParser(tokenizeOnly(), props -> nlp[0] = new FakeParsePipeline(props), 8);
+
+        List<TreeParser.Sentence> sentences = parser.parseAll(analysis("The dog runs .", "A cat sleeps !", "Birds sing ?"));
+        assertEquals(List.of("The dog runs .", "A cat sleeps !", "Birds sing ?"),
+                sentences.stream().map(TreeParser.Sentence::getText).toList());
+        for (TreeParser.Sentence sentence : sentences) {
+            assertNotNull(sentence.getTree().get(30, TimeUnit.SECONDS));
+        }
+        assertEquals(3, nlp[0].runs.get(), "Each sentence should be parsed separately");
+
+        // Parsing a new text only parses its new sentences
+        parser.parseTrees(analysis("A cat sleeps !", "Fish swim ."));
+        assertEquals(4, nlp[0].runs.get());
+    }
+
+    @Test
+    @Order(10)
+    @DisplayName("Test analyzed tokens reach the parser with Penn Treebank tags")
+    void testTaggedTokens() {
+        Token dogs = Token.newBuilder()
+                .setText(TextSpan.newBuilder().setContent("dogs"))
+                .setPartOfSpeech(PartOfSpeech.newBuilder().setTag(PartOfSpeech.Tag.NOUN)
+                        .setNumber(PartOfSpeech.Number.PLURAL))
+                .build();
+        Token runs = Token.newBuilder()
+                .setText(TextSpan.newBuilder().setContent("runs"))
+                .setPartOfSpeech(PartOfSpeech.newBuilder().setTag(PartOfSpeech.Tag.VERB)
+                        .setTense(PartOfSpeech.Tense.PRESENT).setPerson(PartOfSpeech.Person.THIRD))
+                .build();
+        Token my = Token.newBuilder()
+                .setText(TextSpan.newBuilder().setContent("my"))
+                .setPartOfSpeech(PartOfSpeech.newBuilder().setTag(PartOfSpeech.Tag.PRON)
+                        .setCase(PartOfSpeech.Case.GENITIVE))
+                .build();
+        assertEquals("NNS", PennTags.of(dogs));
+        assertEquals("VBZ", PennTags.of(runs));
+        assertEquals("PRP$", PennTags.of(my));
+        assertEquals(".", PennTags.of(token("?", 0, PartOfSpeech.Tag.PUNCT, 0, DependencyEdge.Label.P)));
+
+        CoreMap sentence = TreeParser.toSentence("my dogs runs", List.of(my, dogs, runs));
+        List<CoreLabel> labels = sentence.get(CoreAnnotations.TokensAnnotation.class);
+        assertEquals(List.of("my", "dogs", "runs"), labels.stream().map(CoreLabel::word).toList());
+        assertEquals(List.of("PRP$", "NNS", "VBZ"), labels.stream().map(CoreLabel::tag).toList());
+        assertEquals(3, labels.get(2).index());
+    }
+}
@@ -0,0 +1,152 @@
+package org.example.pipeline;
+
+import org.junit.jupiter.api.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Test class for Pipeline and Stage.
+ */
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+public class PipelineTest {
+
+    @Test
+    @Order(1)
+    @DisplayName("Test every item flows through all stages")
+    void testItemsFlowThrough() throws Exception {
+        Set<Integer> received = ConcurrentHashMap.newKeySet();
+        Pipeline pipeline = new Pipeline();
+
+        Stage<Integer, Integer> doubler = pipeline.source(new Stage<>("double", 3, 4,
+                (n, emit) -> emit.emit(n * 2)));
+        Stage<Integer, Integer> splitter = pipeline.then(doubler, new Stage<>("split", 2, 4,
+                (n, emit) -> { emit.emit(n); emit.emit(n + 1); }));
+        pipeline.then(splitter, new Stage<Integer, Void>("collect", 1, 4,
+                (n, emit) -> received.add(n)));
+
+        pipeline.start();
+        for (int i = 0; i < 1000; i++) doubler.put(i);
+        doubler.close();
+        pipeline.await();
+
+        assertEquals(2000, received.size(), "Every emitted item should reach the last stage");
+        for (int i = 0; i < 2000; i++) {
+            assertTrue(received.contains(i), "Missing item " + i);
+        }
+    }
+
+    @Test
+    @Order(2)
+    @DisplayName("Test bounded queues apply backpressure")
+    void testBackpressure() throws Exception {
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger maxInFlight = new AtomicInteger();
+        Pipeline pipeline = new Pipeline();
+
+        Stage<Integer, Integer> fast = pipeline.source(new Stage<>("fast", 1, 2, (n, emit) -> {
+            maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            emit.emit(n);
+        }));
+        pipeline.then(fast, new Stage<Integer, Void>("slow", 1, 2, (n, emit) -> {
+            Thread.sleep(1);
+            inFlight.decrementAndGet();
+        }));
+
+        pipeline.start();
+        for (int i = 0; i < 200; i++) fast.put(i);
+        fast.close();
+        pipeline.await();
+
+        // Queue of the slow stage (2) + item being emitted (1) + item being processed (1)
+        assertTrue(maxInFlight.get() <= 4, "Producer ran ahead of the slow stage: " + maxInFlight.get());
+    }
+
+    @Test
+    @Order(3)
+    @DisplayName("Test stage failure is reported")
+    void testFailure() throws Exception {
+        Pipeline pipeline = new Pipeline();
+        Stage<Integer, Integer> failing = pipeline.source(new Stage<>("failing", 2, 2, (n, emit) -> {
+            if (n == 5) throw new IllegalStateException("boom");
+            emit.emit(n);
+        }));
+        pipeline.then(failing, new Stage<Integer, Void>("sink", 1, 2, (n, emit) -> {}));
+
+        pipeline.start();
+        PipelineException e = assertThrows(PipelineException.class, () -> {
+            for (int i = 0; i < 10_000; i++) failing.put(i);
+            failing.close();
+            pipeline.await();
+        });
+        assertTrue(e.getMessage().contains("failing"), "Error should name the failed stage");
+        assertInstanceOf(IllegalStateException.class, e.getCause());
+    }
+
+    @Test
+    @Order(4)
+    @DisplayName("Test invalid stage configuration")
+    void testInvalidConfiguration() {
+        assertThrows(IllegalArgumentException.class, () -> new Stage<Integer, Integer>("x", 0, 1, (n, emit) -> {}));
+        assertThrows(IllegalArgumentException.class, () -> new Stage<Integer, Integer>("x", 1, 0, (n, emit) -> {}));
+        assertThrows(IllegalArgumentException.class, () -> new Stage<Integer, Integer>("x", 1, 1, 0, (n, emit) -> {}));
+    }
+
+    @Test
+    @Order(5)
+    @DisplayName("Test batched stages and their statistics")
+    void testBatching() throws Exception {
+        List<Integer> sizes = Collections.synchronizedList(new ArrayList<>());
+        Set<Integer> received = ConcurrentHashMap.newKeySet();
+        Pipeline pipeline = new Pipeline();
+
+        Stage<Integer, Integer> batched = pipeline.source(new Stage<Integer, Integer>("batched", 1, 16, 4, (items, emit) -> {
+            sizes.add(items.size());
+            for (int n : items) emit.emit(n);
+        }).setThreadFactory(Thread.ofVirtual().factory()));
+        pipeline.then(batched, new Stage<Integer, Void>("collect", 1, 16, (n, emit) -> received.add(n)));
+
+        // Queued before the workers start, so the first batches are full
+        for (int i = 0; i < 10; i++) batched.put(i);
+        pipeline.start();
+        batched.close();
+        pipeline.await();
+
+        assertEquals(10, received.size());
+        assertEquals(List.of(4, 4, 2), sizes, "Workers should take up to the batch size of what is queued");
+        assertEquals(10, batched.getProcessed());
+        assertEquals(3, batched.getBatches());
+        assertEquals(10, batched.getMaxQueued());
+        assertTrue(batched.getBusyMillis() >= 0);
+    }
+
+    @Test
+    @Order(6)
+    @DisplayName("Test a worker dying with an error still ends the pipeline")
+    void testWorkerError() throws Exception {
+        List<PipelineException> handled = Collections.synchronizedList(new ArrayList<>());
+        Pipeline pipeline = new Pipeline().setFailureHandler(handled::add);
+        Stage<Integer, Integer> failing = pipeline.source(new Stage<Integer, Integer>("failing", 1, 16, (n, emit) -> {
+            if (n == 3) throw new AssertionError("boom");
+            emit.emit(n);
+        }).setThreadFactory(Thread.ofVirtual().factory()));
+        pipeline.then(failing, new Stage<Integer, Void>("sink", 1, 16, (n, emit) -> {}));
+
+        for (int i = 0; i < 5; i++) failing.put(i);
+        pipeline.start();
+        try {
+            failing.close();
+        } catch (PipelineException e) {
+            // Failed before the end marker was queued
+        }
+        PipelineException e = assertThrows(PipelineException.class, pipeline::await);
+        assertInstanceOf(AssertionError.class, e.getCause());
+        assertEquals(List.of(e), handled, "The failure handler should run once");
+        assertSame(e, pipeline.getFailure());
+    }
+}
@@ -0,0 +1,47 @@
+package org.example.words;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+
+public class AliasTableTest {
+
+    @Test
+    public void testSampleWithinBounds() {
+        AliasTable table = new AliasTable(List.of(1.0, 2.0, 3.0, 4.0));
+        assertEquals(4, table.size());
+        for (int i = 0; i < 1000; i++) {
+            int idx = table.sample();
+            assertTrue(idx >= 0 && idx < 4, "Alias table returned index out of bounds");
+        }
+    }
+
+    @Test
+    public void testSampleFollowsWeights() {
+        AliasTable table = new AliasTable(List.of(1.0, 3.0));
+        int draws = 20000;
+        int heavy = 0;
+        for (int i = 0; i < draws; i++) {
+            if (table.sample() == 1) heavy++;
+        }
+        double share = heavy / (double) draws;
+        assertEquals(0.75, share, 0.03, "Index 1 should be drawn about 75% of the time");
+    }
+
+    @Test
+    public void testZeroWeightIsNeverDrawn() {
+        AliasTable table = new AliasTable(List.of(0.0, 5.0, 0.0));
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(1, table.sample(), "Only the positive weight should be drawn");
+        }
+    }
+
+    @Test
+    public void testInvalidWeightsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> new AliasTable(List.of()));
+        assertThrows(IllegalArgumentException.class, () -> new AliasTable(List.of(-1.0, 2.0)));
+        assertThrows(IllegalArgumentException.class, () -> new AliasTable(List.of(0.0, 0.0)));
+        assertThrows(IllegalArgumentException.class, () -> new AliasTable(List.of(Double.NaN)));
+    }
+}
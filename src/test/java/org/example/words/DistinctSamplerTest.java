@@ -0,0 +1,112 @@
+package org.example.words;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.Set;
+
+public class DistinctSamplerTest {
+
+    private static final String TEST_WORD_FILE = "test_distinct.txt";
+
+    private static class TestWordList extends WordList {
+        TestWordList(String filePath) {
+            super(filePath);
+        }
+    }
+
+    @AfterEach
+    void cleanup() {
+        new File(TEST_WORD_FILE).delete();
+    }
+
+    private WordList listOf(String content) throws IOException {
+        try (FileWriter writer = new FileWriter(TEST_WORD_FILE)) {
+            writer.write(content);
+        }
+        return new TestWordList(TEST_WORD_FILE);
+    }
+
+    @Test
+    public void testNoRepeatsWithinRound() throws IOException {
+        StringBuilder content = new StringBuilder();
+        for (int i = 0; i < 100; i++) content.append("w").append(i).append("\n");
+        WordList list = listOf(content.toString());
+
+        DistinctSampler sampler = list.Distinct(WordUtil.RandomSource(1L));
+        Set<String> seen = new HashSet<>();
+        for (int i = 0; i < 100; i++) {
+            assertTrue(seen.add(sampler.next()), "Word repeated before the list was exhausted");
+        }
+        assertEquals(100, seen.size(), "A full round should cover every word");
+    }
+
+    @Test
+    public void testNewRoundAfterExhaustion() throws IOException {
+        WordList list = listOf("a\nb\nc");
+        DistinctSampler sampler = list.Distinct(WordUtil.RandomSource(2L));
+
+        Set<String> first = new HashSet<>();
+        for (int i = 0; i < 3; i++) first.add(sampler.next());
+        Set<String> second = new HashSet<>();
+        for (int i = 0; i < 3; i++) second.add(sampler.next());
+
+        assertEquals(Set.of("a", "b", "c"), first);
+        assertEquals(Set.of("a", "b", "c"), second);
+    }
+
+    @Test
+    public void testWeightedListHasNoRepeats() throws IOException {
+        WordList list = listOf("heavy\t1000\nlight\t1\ntiny\t0.5\nplain");
+        DistinctSampler sampler = list.Distinct(WordUtil.RandomSource(3L));
+
+        Set<String> seen = new HashSet<>();
+        for (int i = 0; i < 4; i++) {
+            assertTrue(seen.add(sampler.next()), "Weighted sampler repeated a word within a round");
+        }
+    }
+
+    @Test
+    public void testWeightedRoundSkipsZeroWeights() throws IOException {
+        WordList list = listOf("a\t2\nnever\t0\nb\t1\nc");
+        DistinctSampler sampler = list.Distinct(WordUtil.RandomSource(4L));
+
+        for (int round = 0; round < 50; round++) {
+            Set<String> seen = new HashSet<>();
+            for (int i = 0; i < 3; i++) seen.add(sampler.next());
+            assertEquals(Set.of("a", "b", "c"), seen, "A round should cover every word of positive weight");
+        }
+    }
+
+    @Test
+    public void testWeightedDrawsFollowWeights() throws IOException {
+        WordList list = listOf("heavy\t3\nlight\t1");
+        int draws = 20000;
+        int heavyFirst = 0;
+        for (int i = 0; i < draws; i++) {
+            if (list.Distinct(WordUtil.RandomSource(i)).next().equals("heavy")) heavyFirst++;
+        }
+        assertEquals(0.75, heavyFirst / (double) draws, 0.03, "The first draw should follow the weights");
+    }
+
+    @Test
+    public void testEmptyList() throws IOException {
+        WordList list = listOf("");
+        assertEquals("", list.Distinct(WordUtil.RandomSource()).next());
+    }
+
+    @Test
+    public void testSeededSamplerIsReproducible() throws IOException {
+        WordList list = listOf("a\nb\nc\nd\ne\nf\ng");
+        DistinctSampler first = list.Distinct(WordUtil.RandomSource(9L));
+        DistinctSampler second = list.Distinct(WordUtil.RandomSource(9L));
+        for (int i = 0; i < 20; i++) {
+            assertEquals(first.next(), second.next());
+        }
+    }
+}
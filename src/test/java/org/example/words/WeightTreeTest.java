@@ -0,0 +1,71 @@
+package org.example.words;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+public class WeightTreeTest {
+
+    @Test
+    public void testTakesEveryPositiveWeightOnce() {
+        WeightTree tree = new WeightTree(List.of(1.0, 0.0, 2.0, 3.0, 0.5));
+        assertEquals(5, tree.size());
+        WeightTree.Remaining remaining = tree.remaining();
+        Set<Integer> taken = new HashSet<>();
+        for (int i = 0; i < 4; i++) {
+            assertTrue(taken.add(remaining.take(WordUtil.RandomSource(i))), "An entry was taken twice");
+        }
+        assertEquals(Set.of(0, 2, 3, 4), taken, "Zero weights should never be drawn");
+        assertTrue(remaining.isEmpty());
+        assertThrows(IllegalStateException.class, () -> remaining.take(WordUtil.RandomSource(1L)));
+
+        remaining.reset();
+        assertFalse(remaining.isEmpty());
+    }
+
+    @Test
+    public void testDrawsFollowRemainingWeights() {
+        WeightTree tree = new WeightTree(List.of(6.0, 1.0, 3.0));
+        int first = 0;
+        int second = 0;
+        var rng = WordUtil.RandomSource(5L);
+        for (int i = 0; i < 20000; i++) {
+            WeightTree.Remaining remaining = tree.remaining();
+            if (remaining.take(rng) != 0) continue;
+            first++;
+            // With index 0 gone, index 2 should come next 3 times out of 4
+            if (remaining.take(rng) == 2) second++;
+        }
+        assertEquals(0.6, first / 20000.0, 0.03);
+        assertEquals(0.75, second / (double) first, 0.03);
+    }
+
+    @Test
+    public void testLargeTreeSharedByDraws() {
+        List<Double> weights = new ArrayList<>();
+        for (int i = 0; i < 100_000; i++) weights.add(i % 7 == 0 ? 0.0 : 1.0 + i % 3);
+        WeightTree tree = new WeightTree(weights);
+        WeightTree.Remaining first = tree.remaining();
+        WeightTree.Remaining second = tree.remaining();
+        var rng = WordUtil.RandomSource(6L);
+        Set<Integer> taken = new HashSet<>();
+        for (int i = 0; i < 1000; i++) {
+            int index = first.take(rng);
+            assertTrue(taken.add(index));
+            assertNotEquals(0.0, weights.get(index));
+        }
+        assertFalse(second.isEmpty());
+    }
+
+    @Test
+    public void testInvalidWeightsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> new WeightTree(List.of()));
+        assertThrows(IllegalArgumentException.class, () -> new WeightTree(List.of(-1.0, 2.0)));
+        assertThrows(IllegalArgumentException.class, () -> new WeightTree(List.of(0.0, 0.0)));
+        assertThrows(IllegalArgumentException.class, () -> new WeightTree(List.of(Double.POSITIVE_INFINITY)));
+    }
+}
@@ -484,4 +484,61 @@ public class WordListTest {
         System.out.println("  Concrete instance: " + randomWord);
         System.out.println("  Abstract reference: " + abstractRandomWord);
     }
-}
\ No newline at end of file
+
+    @Test
+    @Order(17)
+    @DisplayName("Test WordList with weight column")
+    void testWeightColumn() throws IOException {
+        createTestFile(TEST_WORD_FILE, "common\t90\nrare\t10\nplain");
+
+        TestWordList wordList = new TestWordList(TEST_WORD_FILE);
+
+        // Weights are stripped from the words themselves
+        assertEquals(3, wordList.getWords().size(), "Should load 3 words");
+        assertTrue(wordList.getWords().contains("common"), "Weight column should be stripped");
+        assertTrue(wordList.getWords().contains("rare"), "Weight column should be stripped");
+        assertTrue(wordList.getWords().contains("plain"), "Unweighted line should be kept as is");
+        assertNotNull(wordList.weights, "Weighted file should build an alias table");
+
+        java.util.Map<String, Integer> counts = new java.util.HashMap<>();
+        for (int i = 0; i < 10000; i++) {
+            counts.merge(wordList.Random(), 1, Integer::sum);
+        }
+        System.out.println("Weighted distribution: " + counts);
+
+        // common: 90/101, rare: 10/101, plain: 1/101
+        assertTrue(counts.getOrDefault("common", 0) > counts.getOrDefault("rare", 0) * 4,
+                "Heavier word should be drawn far more often");
+        assertTrue(counts.getOrDefault("rare", 0) > counts.getOrDefault("plain", 0),
+                "Weight 10 should beat the default weight 1");
+    }
+
+    @Test
+    @Order(18)
+    @DisplayName("Test WordList without weights stays uniform")
+    void testNoWeightColumn() throws IOException {
+        createTestFile(TEST_WORD_FILE, "one\ntwo\tthree\nfour");
+
+        TestWordList wordList = new TestWordList(TEST_WORD_FILE);
+
+        // A non-numeric tail after a tab is part of the word
+        assertTrue(wordList.getWords().contains("two\tthree"), "Non-numeric column should stay in the word");
+        assertNull(wordList.weights, "Unweighted file should not build an alias table");
+    }
+
+    @Test
+    @Order(19)
+    @DisplayName("Test seeded Random is reproducible")
+    void testSeededRandom() throws IOException {
+        createTestFile(TEST_WORD_FILE, "a\nb\nc\nd\ne\nf\tfoo\ng\t3");
+
+        TestWordList wordList = new TestWordList(TEST_WORD_FILE);
+
+        java.util.random.RandomGenerator first = WordUtil.RandomSource(7L);
+        java.util.random.RandomGenerator second = WordUtil.RandomSource(7L);
+        for (int i = 0; i < 50; i++) {
+            assertEquals(wordList.Random(first), wordList.Random(second),
+                    "Same seed should draw the same words");
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package org.example.words;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH benchmark comparing the uniform WordList.Random() path with the
+ * alias-table path on word lists of a million entries.
+ * Run with: mvn -P benchmark test-compile exec:exec
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class WordSamplingBenchmark {
+
+    private static class FileWordList extends WordList {
+        FileWordList(String filePath) {
+            super(filePath);
+        }
+    }
+
+    @Param({"1000000"})
+    public int size;
+
+    private WordList uniform;
+    private WordList weighted;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        File plain = File.createTempFile("uniform", ".txt");
+        File zipf = File.createTempFile("weighted", ".txt");
+        plain.deleteOnExit();
+        zipf.deleteOnExit();
+
+        try (BufferedWriter p = new BufferedWriter(new FileWriter(plain));
+             BufferedWriter z = new BufferedWriter(new FileWriter(zipf))) {
+            for (int i = 0; i < size; i++) {
+                p.write("word" + i + "\n");
+                // Zipf-like frequencies, the usual shape of natural word counts
+                z.write("word" + i + "\t" + (1.0 / (i + 1)) + "\n");
+            }
+        }
+
+        uniform = new FileWordList(plain.getPath());
+        weighted = new FileWordList(zipf.getPath());
+    }
+
+    @Benchmark
+    public String uniformRandom() {
+        return uniform.Random();
+    }
+
+    @Benchmark
+    public String weightedRandom() {
+        return weighted.Random();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options opt = new OptionsBuilder()
+                .include(WordSamplingBenchmark.class.getSimpleName())
+                .build();
+        new Runner(opt).run();
+    }
+}
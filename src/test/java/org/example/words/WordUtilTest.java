@@ -4,6 +4,7 @@ import org.junit.jupiter.api.Test;
 import static org.junit.jupiter.api.Assertions.*;
 
 import java.util.ArrayList;
+import java.util.random.RandomGenerator;
 
 public class WordUtilTest {
 
@@ -16,6 +17,31 @@ public class WordUtilTest {
         }
     }
 
+    @Test
+    public void testSeededRandomizerIsReproducible() {
+        RandomGenerator first = WordUtil.RandomSource(42L);
+        RandomGenerator second = WordUtil.RandomSource(42L);
+        for (int i = 0; i < 100; i++) {
+            assertEquals(WordUtil.Randomizer(1000, first), WordUtil.Randomizer(1000, second),
+                    "Same seed should yield the same sequence");
+        }
+    }
+
+    @Test
+    public void testItemStreamsDoNotCollideAcrossSeeds() {
+        // seed * 31 + line used to give seed 0 / line 31 the sequence of seed 1 / line 0
+        assertNotEquals(WordUtil.RandomSource(0L, 31L).nextLong(), WordUtil.RandomSource(1L, 0L).nextLong());
+        assertNotEquals(WordUtil.RandomSource(0L, 1L).nextLong(), WordUtil.RandomSource(1L, 0L).nextLong());
+        assertEquals(WordUtil.RandomSource(7L, 3L).nextLong(), WordUtil.RandomSource(7L, 3L).nextLong(),
+                "Same seed and item should yield the same sequence");
+    }
+
+    @Test
+    public void testRandomizerWithEmptyRange() {
+        assertEquals(0, WordUtil.Randomizer(0));
+        assertEquals(0, WordUtil.Randomizer(0, WordUtil.RandomSource()));
+    }
+
     @Test
     public void testTypeCheckReturnsNullForNoBrackets() {
         assertNull(WordUtil.TypeCheck("hello"));